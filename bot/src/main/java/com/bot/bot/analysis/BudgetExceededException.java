@@ -0,0 +1,13 @@
+package com.bot.bot.analysis;
+
+/**
+ * Thrown from inside a rule when its {@link RuleContext} budget is spent, to abandon the
+ * rule's work on the current chunk. Rules must let it propagate.
+ */
+public class BudgetExceededException extends RuntimeException {
+
+    BudgetExceededException(String message) {
+        // Thrown from hot loops and always handled by the engine: no stack trace needed
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,95 @@
+package com.bot.bot.analysis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * A deadline on the CPU time of the current thread, checked cheaply from inside regex
+ * matching through {@link #guard(CharSequence)}.
+ * <p>
+ * A budget belongs to one rule invocation on one thread. The clock is read only every
+ * {@value #CHECK_INTERVAL} characters, so the overshoot is bounded by the time a matcher
+ * spends on that many characters.
+ * <p>
+ * Reading a thread's CPU time is a system call costing a few hundred nanoseconds, more than
+ * a rule spends on a small chunk. {@link #now()} therefore reads it at most once per
+ * {@value #REFRESH_NANOS} ns of wall time per thread and extrapolates with the wall clock in
+ * between, which a thread's CPU time can never outrun: readings may overstate CPU time by up
+ * to that interval, and step back by as much at the next real reading.
+ */
+final class CpuBudget {
+    static final int CHECK_INTERVAL = 1024;
+    static final long REFRESH_NANOS = 50_000;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean THREAD_CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported()
+            && THREADS.isThreadCpuTimeEnabled();
+    // Per thread: wall time and CPU time of the last real reading
+    private static final ThreadLocal<long[]> LAST_READING =
+            ThreadLocal.withInitial(() -> new long[]{System.nanoTime() - REFRESH_NANOS, 0});
+
+    private final long deadline;
+    private final String owner;
+    private int countdown = CHECK_INTERVAL;
+
+    CpuBudget(long deadline, String owner) {
+        this.deadline = deadline;
+        this.owner = owner;
+    }
+
+    /** CPU time of the current thread in nanoseconds, or {@link System#nanoTime()} where unsupported. */
+    static long now() {
+        long wall = System.nanoTime();
+        if (!THREAD_CPU_TIME) return wall;
+        long[] last = LAST_READING.get();
+        long elapsed = wall - last[0];
+        if (elapsed < REFRESH_NANOS) return last[1] + elapsed;
+        long cpu = THREADS.getCurrentThreadCpuTime();
+        last[0] = wall;
+        last[1] = cpu;
+        return cpu;
+    }
+
+    boolean expired() {
+        return now() - deadline >= 0;
+    }
+
+    void check() {
+        if (expired()) throw new BudgetExceededException("CPU budget of " + owner + " exceeded");
+    }
+
+    void tick() {
+        if (--countdown == 0) {
+            countdown = CHECK_INTERVAL;
+            check();
+        }
+    }
+
+    CharSequence guard(CharSequence input) {
+        return input instanceof Guarded guarded && guarded.budget == this ? input : new Guarded(input, this);
+    }
+
+    /** Delegates to the wrapped input, charging every character read to the budget. */
+    private record Guarded(CharSequence input, CpuBudget budget) implements CharSequence {
+        @Override
+        public int length() {
+            return input.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            budget.tick();
+            return input.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new Guarded(input.subSequence(start, end), budget);
+        }
+
+        @Override
+        public String toString() {
+            return input.toString();
+        }
+    }
+}
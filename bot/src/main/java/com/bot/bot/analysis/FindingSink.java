@@ -0,0 +1,74 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Where a {@link Rule} reports its findings on a chunk. A rule reports the index of the
+ * added line and the finding's fields; the sink resolves the path, line number and diff
+ * position from the chunk it is {@link #reset reset} to and builds the {@link Finding} only
+ * then, so a chunk nothing is found in costs no allocation at all.
+ * <p>
+ * The engine keeps one sink per worker and appends the findings of every rule run on a chunk
+ * to one list, dropping those of a rule that fails or is abandoned ({@link #truncate}).
+ * Not thread-safe.
+ */
+public final class FindingSink {
+    private ChangeChunk chunk;
+    private List<Finding> findings;
+
+    /** A sink for the findings of {@code chunk}. */
+    public FindingSink(ChangeChunk chunk) {
+        reset(chunk);
+    }
+
+    /** Start collecting the findings of {@code chunk}, forgetting those collected so far. */
+    public FindingSink reset(ChangeChunk chunk) {
+        this.chunk = chunk;
+        this.findings = null;
+        return this;
+    }
+
+    /** Report added line {@code line} of the chunk. */
+    public void emit(int line, String severity, String category, String message, String suggestion,
+                     double confidence, int precedenceScore) {
+        add(Finding.builder()
+                .id(UUID.randomUUID().toString())
+                .filePath(chunk.getFilePath())
+                .lineNumber(chunk.newLineNumber(line))
+                .diffPosition(chunk.diffPosition(line))
+                .severity(severity)
+                .category(category)
+                .message(message)
+                .suggestion(suggestion)
+                .source("HEURISTIC")
+                .confidence(confidence)
+                .precedenceScore(precedenceScore)
+                .build());
+    }
+
+    /** Report a finding the rule built itself. */
+    public void add(Finding finding) {
+        if (findings == null) findings = new ArrayList<>();
+        findings.add(finding);
+    }
+
+    /** Number of findings collected since the last {@link #reset}. */
+    public int size() {
+        return findings == null ? 0 : findings.size();
+    }
+
+    /** Drop the findings collected after the first {@code size}. */
+    public void truncate(int size) {
+        if (findings != null && findings.size() > size) findings.subList(size, findings.size()).clear();
+    }
+
+    /** The findings collected since the last {@link #reset}; an immutable empty list when there are none. */
+    public List<Finding> findings() {
+        return findings == null ? List.of() : findings;
+    }
+}
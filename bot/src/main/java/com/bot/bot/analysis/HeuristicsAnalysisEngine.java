@@ -1,43 +1,510 @@
 package com.bot.bot.analysis;
 
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.config.ReviewPlan;
+import com.bot.bot.content.FileContents;
 import com.bot.bot.domain.ChangeChunk;
 import com.bot.bot.domain.Finding;
-import lombok.RequiredArgsConstructor;
+import com.bot.bot.engine.DedupedHunks;
+import com.bot.bot.engine.HunkDeduplicator;
+import com.bot.bot.scan.LinearPattern;
+import com.bot.bot.scan.XxHash64;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
+/**
+ * Runs the applicable rules over each chunk, within per-rule and per-chunk CPU budgets.
+ * A rule reading its input through {@link RuleContext#guard} is abandoned as soon as its
+ * budget is spent; any rule that ends up over budget counts as a breach, and repeated
+ * breaches quarantine it (see {@link RuleWatchdog}).
+ * <p>
+ * Work runs on the engine's own {@link ForkJoinPool}, not the common pool, split by line
+ * volume ({@link WorkPlanner}) and divided recursively so idle workers steal from busy
+ * ones. The pool is exported as the {@code executor.*} meters tagged {@code name=heuristics}
+ * (including {@code executor.steals}) plus {@code heuristics.pool.utilization}.
+ * <p>
+ * Every invocation is timed (wall and CPU) and counted per rule by {@link RuleProfiler},
+ * which also backs the {@code rules} actuator endpoint.
+ * <p>
+ * Rules report through one {@link FindingSink} per worker, into a single list per chunk that
+ * is only created once something is found.
+ * <p>
+ * The rules and everything compiled from them are held as one immutable {@link RuleSet}.
+ * {@link #installRulePacks} builds a new one next to the current one and swaps it in with a
+ * single write; a review reads the set once when it starts and finishes on it, so swaps
+ * never pause or mix into in-flight reviews.
+ * <p>
+ * Results are cached per chunk by content ({@link ResultCache}) under the set's version, a
+ * hash of its rules' code and configuration, so unchanged hunks skip analysis until the
+ * rules change. Only results of chunks on which every applicable rule ran to completion
+ * are cached.
+ * <p>
+ * A review's {@link ReviewPlan} disables the rules a repo ignores before anything runs; their
+ * results are cached apart from those of the full set.
+ * <p>
+ * {@link Rule#isWholeFile() Whole-file rules} read the post-images of the review's files from
+ * its {@link FileContents}; chunks on which one passes the line prefilter are cached and
+ * deduplicated by blob id too.
+ * <p>
+ * Identical hunks of a review are analyzed once ({@link HunkDeduplicator}) and their findings
+ * copied to each copy, unless their {@link #dispatchKey dispatch keys} differ. Each chunk is
+ * keyed once, on the set the review started with, and the prefilter scan taken for its key
+ * is reused when the chunk is analyzed.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class HeuristicsAnalysisEngine {
-    private final List<Rule> rules;
+    private final List<Rule> builtinRules;
+    private final MeterRegistry meterRegistry;
+    private final RuleWatchdog watchdog;
+    private final RuleProfiler profiler;
+    private final long ruleBudgetNanos;
+    private final long chunkBudgetNanos;
+    private final int taskLines;
+    private final ForkJoinPool pool;
+    private final ResultCache cache;
+    private final HunkDeduplicator deduplicator = new HunkDeduplicator();
+    private volatile RuleSet ruleSet;
+
+    /**
+     * The rules of one generation with their prefilter, dispatcher and per-rule state, by rule
+     * index, and the version cached results are keyed by.
+     */
+    private record RuleSet(List<Rule> rules, RuleMatcher matcher, RuleDispatcher dispatcher,
+                           RuleWatchdog.Tracked[] watch, RuleProfiler.Profile[] profiles, long version) {
+    }
+
+    /** Findings of a piece of work on planned chunk {@code origin}; incomplete results are not cached. */
+    private record ChunkResult(int origin, List<Finding> findings, boolean complete) {
+    }
+
+    /** Hash of each rule class's bytecode, so a changed rule implementation invalidates cached results. */
+    private static final ClassValue<Long> BYTECODE = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            String name = type.getName();
+            try (InputStream in = type.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+                if (in == null) return 0L;
+                XxHash64 hash = new XxHash64(0);
+                byte[] buffer = new byte[8192];
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    for (int i = 0; i < n; i++) hash.putChar((char) (buffer[i] & 0xFF));
+                }
+                return hash.digest();
+            } catch (IOException e) {
+                return 0L;
+            }
+        }
+    };
+
+    public HeuristicsAnalysisEngine(List<Rule> rules, MeterRegistry meterRegistry, HeuristicsProperties properties) {
+        this.builtinRules = List.copyOf(rules);
+        this.meterRegistry = meterRegistry;
+        this.watchdog = new RuleWatchdog(properties.getQuarantineAfter(), meterRegistry);
+        this.profiler = new RuleProfiler(meterRegistry, properties.getProfileWindowMinutes());
+        this.cache = new ResultCache(properties, meterRegistry);
+        this.ruleSet = compile(builtinRules);
+        this.ruleBudgetNanos = properties.getRuleBudgetMs() * 1_000_000;
+        this.chunkBudgetNanos = properties.getChunkBudgetMs() * 1_000_000;
+        this.taskLines = properties.getTaskLines();
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, HeuristicsAnalysisEngine::newWorker, null, false);
+        new ExecutorServiceMetrics(pool, "heuristics", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("heuristics.pool.utilization", pool, p -> (double) p.getActiveThreadCount() / p.getParallelism())
+                .description("Share of heuristics pool workers busy running tasks")
+                .register(meterRegistry);
+    }
+
+    private RuleSet compile(List<Rule> rules) {
+        long[] fingerprints = new long[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            fingerprints[r] = fingerprint(rules.get(r));
+        }
+        return new RuleSet(rules, RuleMatcher.compile(rules), new RuleDispatcher(rules, meterRegistry),
+                watchdog.track(rules, fingerprints), profiler.track(rules), version(fingerprints));
+    }
+
+    /** Hash of what decides the findings of {@code rule}: class, bytecode, name, scope, patterns, configuration. */
+    private static long fingerprint(Rule rule) {
+        XxHash64 hash = new XxHash64(0);
+        hash.putChars(rule.getClass().getName()).putLong(BYTECODE.get(rule.getClass()))
+                .putChars(rule.getName()).putLong(rule.getPriority()).putLong(rule.isLineLocal() ? 1 : 0);
+        for (String fileType : new TreeSet<>(rule.getFileTypes())) hash.putChars(fileType).putChar('\0');
+        for (String glob : rule.getPathGlobs()) hash.putChars(glob).putChar('\0');
+        for (LinearPattern pattern : rule.getLinePatterns()) hash.putChars(pattern.pattern()).putLong(pattern.flags());
+        hash.putChars(rule.getConfiguration()).putChar('\0');
+        return hash.digest();
+    }
+
+    /** Version of a rule set, from the fingerprints of its rules in order. */
+    private static long version(long[] fingerprints) {
+        XxHash64 hash = new XxHash64(0);
+        for (long fingerprint : fingerprints) hash.putLong(fingerprint);
+        return hash.digest();
+    }
+
+    /**
+     * Replace the rule-pack rules with {@code packRules}, keeping the built-in rules. The new
+     * set is compiled before it is published, so reviews already running finish on the old
+     * one and reviews starting afterwards see only the new one. Pack rules named like an
+     * earlier rule are skipped.
+     *
+     * @return the number of pack rules installed
+     */
+    public synchronized int installRulePacks(List<? extends Rule> packRules) {
+        List<Rule> rules = new ArrayList<>(builtinRules);
+        Set<String> names = new HashSet<>();
+        rules.forEach(rule -> names.add(rule.getName()));
+        for (Rule rule : packRules) {
+            if (!names.add(rule.getName())) {
+                log.warn("Skipping rule pack rule {}: a rule with that name is already loaded", rule.getName());
+                continue;
+            }
+            rules.add(rule);
+        }
+        long start = System.nanoTime();
+        RuleSet next = compile(List.copyOf(rules));
+        ruleSet = next;
+        log.info("Installed {} rules ({} from rule packs) in {} ms",
+                rules.size(), rules.size() - builtinRules.size(), (System.nanoTime() - start) / 1_000_000);
+        return rules.size() - builtinRules.size();
+    }
+
+    /** Rules of the current set, built-in rules first. */
+    public List<Rule> rules() {
+        return ruleSet.rules();
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("heuristics-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
 
     public List<Finding> analyze(List<ChangeChunk> chunks) {
-        log.debug("Starting heuristics analysis on {} chunks", chunks.size());
+        return analyze(chunks, null, ReviewPlan.ALL);
+    }
+
+    public List<Finding> analyze(List<ChangeChunk> chunks, String repo) {
+        return analyze(chunks, repo, ReviewPlan.ALL);
+    }
 
-        return chunks.parallelStream()
-                .flatMap(chunk -> analyzeChunk(chunk).stream())
-                .collect(Collectors.toList());
+    /**
+     * Analyze {@code chunks} of a pull request in {@code repo} ({@code owner/name}, which only
+     * tags the cache metrics) with the rules {@code plan} does not disable. Findings are
+     * returned in chunk order, followed by their copies on identical hunks.
+     */
+    public List<Finding> analyze(List<ChangeChunk> chunks, String repo, ReviewPlan plan) {
+        return analyze(chunks, repo, plan, FileContents.NONE);
     }
 
-    private List<Finding> analyzeChunk(ChangeChunk chunk) {
-        List<Finding> findings = new ArrayList<>();
+    /** As {@link #analyze(List, String, ReviewPlan)}, whole-file rules reading the files' post-images from {@code files}. */
+    public List<Finding> analyze(List<ChangeChunk> chunks, String repo, ReviewPlan plan, FileContents files) {
+        RuleSet set = ruleSet;
+        boolean[] disabled = disabled(set, plan);
+        long version = disabled == null ? set.version() : version(set.version(), disabled);
+        // Keyed once: the key separates hunks in deduplication and in the cache, and the
+        // prefilter scan it may take is kept for the analysis
+        long[] dispatchKeys = new long[chunks.size()];
+        RuleMatcher.LineHits[] scans = new RuleMatcher.LineHits[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            dispatchKeys[i] = dispatchKey(set, chunks.get(i), scans, i);
+        }
+        DedupedHunks deduped = deduplicator.dedupe(chunks, dispatchKeys);
+        List<ChangeChunk> distinct = deduped.getDistinct();
+        // Distinct chunks keep their order, so their positions in chunks are found in one pass
+        int[] positions = new int[distinct.size()];
+        for (int i = 0, d = 0; d < distinct.size(); i++) {
+            if (chunks.get(i) == distinct.get(d)) positions[d++] = i;
+        }
 
-        for (Rule rule : rules) {
+        List<Finding>[] byChunk = newLists(distinct.size());
+        long[] keys = null;
+        List<ChangeChunk> misses = distinct;
+        int[] missIndexes = null;
+        if (cache.isEnabled()) {
+            keys = new long[distinct.size()];
+            misses = new ArrayList<>();
+            missIndexes = new int[distinct.size()];
+            ResultCache.Keys keyer = new ResultCache.Keys();
+            for (int i = 0; i < distinct.size(); i++) {
+                ChangeChunk chunk = distinct.get(i);
+                keys[i] = keyer.of(chunk, version, dispatchKeys[positions[i]]);
+                byChunk[i] = cache.get(keys[i], chunk);
+                if (byChunk[i] == null) {
+                    missIndexes[misses.size()] = i;
+                    misses.add(chunk);
+                }
+            }
+            cache.record(repo, distinct.size() - misses.size(), misses.size());
+        }
+        RuleMatcher.LineHits[] missScans = new RuleMatcher.LineHits[misses.size()];
+        for (int m = 0; m < misses.size(); m++) {
+            missScans[m] = scans[positions[missIndexes != null ? missIndexes[m] : m]];
+        }
+
+        List<List<WorkPlanner.Work>> tasks = WorkPlanner.plan(misses, taskLines);
+        log.debug("Starting heuristics analysis on {} of {} chunks in {} tasks", misses.size(), distinct.size(), tasks.size());
+        if (!tasks.isEmpty()) {
+            List<ChunkResult>[] results = newLists(tasks.size());
+            pool.invoke(new AnalyzeTask(set, disabled, files, missScans, tasks, 0, tasks.size(), results));
+
+            // A split chunk's pieces come back from several tasks; a piece's findings are a
+            // list of its own, or empty and immutable
+            List<Finding>[] analyzed = newLists(misses.size());
+            boolean[] incomplete = new boolean[misses.size()];
+            for (List<ChunkResult> result : results) {
+                for (ChunkResult part : result) {
+                    List<Finding> sofar = analyzed[part.origin()];
+                    if (sofar == null || sofar.isEmpty()) {
+                        analyzed[part.origin()] = part.findings();
+                    } else {
+                        sofar.addAll(part.findings());
+                    }
+                    incomplete[part.origin()] |= !part.complete();
+                }
+            }
+            for (int m = 0; m < misses.size(); m++) {
+                int i = missIndexes != null ? missIndexes[m] : m;
+                byChunk[i] = analyzed[m];
+                if (keys != null && !incomplete[m]) cache.put(keys[i], misses.get(m), analyzed[m]);
+            }
+        }
+
+        int total = 0;
+        for (List<Finding> result : byChunk) {
+            if (result != null) total += result.size();
+        }
+        List<Finding> findings = new ArrayList<>(total);
+        for (List<Finding> result : byChunk) {
+            if (result != null) findings.addAll(result);
+        }
+        return deduped.fanOut(findings);
+    }
+
+    /** Which rules of {@code set} {@code plan} disables, by rule index; null when it disables none. */
+    private static boolean[] disabled(RuleSet set, ReviewPlan plan) {
+        if (plan.isEmpty()) return null;
+        boolean[] disabled = null;
+        for (int r = 0; r < set.rules().size(); r++) {
+            Rule rule = set.rules().get(r);
+            if (plan.disables(rule.getName(), rule.getCategories())) {
+                if (disabled == null) disabled = new boolean[set.rules().size()];
+                disabled[r] = true;
+                log.debug("Rule {} disabled by ignore_rules", rule.getName());
+            }
+        }
+        return disabled;
+    }
+
+    /** {@code version} of a rule set with the {@code disabled} rules left out. */
+    private static long version(long version, boolean[] disabled) {
+        XxHash64 hash = new XxHash64(version);
+        for (int r = 0; r < disabled.length; r++) {
+            if (disabled[r]) hash.putLong(r);
+        }
+        return hash.digest();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T>[] newLists(int size) {
+        return new List[size];
+    }
+
+    /** Runs tasks {@code from} to {@code to}, halving the range so idle workers can steal one half. */
+    private final class AnalyzeTask extends RecursiveAction {
+        private final RuleSet set;
+        private final boolean[] disabled;
+        private final FileContents files;
+        private final RuleMatcher.LineHits[] scans;
+        private final List<List<WorkPlanner.Work>> tasks;
+        private final int from;
+        private final int to;
+        private final List<ChunkResult>[] results;
+
+        AnalyzeTask(RuleSet set, boolean[] disabled, FileContents files, RuleMatcher.LineHits[] scans,
+                    List<List<WorkPlanner.Work>> tasks, int from, int to, List<ChunkResult>[] results) {
+            this.set = set;
+            this.disabled = disabled;
+            this.files = files;
+            this.scans = scans;
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AnalyzeTask(set, disabled, files, scans, tasks, from, mid, results),
+                        new AnalyzeTask(set, disabled, files, scans, tasks, mid, to, results));
+                return;
+            }
+            List<WorkPlanner.Work> works = tasks.get(from);
+            List<ChunkResult> parts = new ArrayList<>(works.size());
+            FindingSink sink = new FindingSink(null);
+            for (WorkPlanner.Work work : works) {
+                // Slices of a split chunk are scanned on their own
+                RuleMatcher.LineHits hits = work.scope() == WorkPlanner.Scope.LINE_LOCAL_RULES ? null : scans[work.origin()];
+                parts.add(analyzeChunk(set, disabled, files, work.chunk(), hits, work.scope(), work.origin(), sink));
+            }
+            results[from] = parts;
+        }
+    }
+
+    /** Runs the rules of {@code scope} that apply to {@code chunk} on the calling thread. */
+    List<Finding> analyzeChunk(ChangeChunk chunk, WorkPlanner.Scope scope) {
+        return analyzeChunk(ruleSet, null, FileContents.NONE, chunk, null, scope, 0, new FindingSink(null)).findings();
+    }
+
+    /**
+     * Runs the rules on {@code chunk}, reporting to {@code sink}, whose findings become the
+     * result's. {@code hits} is the chunk's prefilter scan if one was taken already, else null.
+     */
+    private ChunkResult analyzeChunk(RuleSet set, boolean[] disabled, FileContents files, ChangeChunk chunk,
+                                     RuleMatcher.LineHits hits, WorkPlanner.Scope scope, int origin, FindingSink sink) {
+        sink.reset(chunk);
+        RuleDispatcher.Bucket bucket = set.dispatcher().bucketFor(chunk.getFileType());
+        if (bucket.size() == 0) return new ChunkResult(origin, sink.findings(), true);
+        // Started with the first rule that runs; scanned and measured on first use, since a
+        // scope or the prefilter may exclude every rule of the bucket
+        long chunkDeadline = 0;
+        boolean started = false;
+        RuleContext.ChunkState state = null;
+        long chars = -1;
+        boolean complete = true;
+
+        for (int i = 0; i < bucket.size(); i++) {
+            int r = bucket.ruleIndexes()[i];
+            if (disabled != null && disabled[r]) continue;
+            if (set.watch()[r].isQuarantined()) {
+                complete = false;
+                continue;
+            }
+            Rule rule = set.rules().get(r);
+            if (!scope.includes(rule)) continue;
+            if (bucket.pathScoped()[i] && !set.dispatcher().matchesPath(r, chunk.getFilePath())) continue;
+            if (hits == null) hits = set.matcher().scan(chunk);
+            if (state == null) state = new RuleContext.ChunkState(chunk, files);
+            RuleContext context = set.matcher().context(r, hits, state);
+            if (!context.anyLineMayMatch()) continue;
+
+            long start = CpuBudget.now();
+            if (!started) {
+                chunkDeadline = start + chunkBudgetNanos;
+                started = true;
+            } else if (start - chunkDeadline >= 0) {
+                watchdog.chunkExceeded(chunk.getFilePath(), bucket.size() - i);
+                complete = false;
+                break;
+            }
+            if (chars < 0) chars = chunk.addedChars();
+            long deadline = Math.min(start + ruleBudgetNanos, chunkDeadline);
+            long wallStart = System.nanoTime();
+            int before = sink.size();
+            int found = 0;
+            boolean failed = false;
+            boolean abandoned = false;
+            bucket.executions()[i].increment();
             try {
-                List<Finding> ruleFindings = rule.analyze(chunk);
-                findings.addAll(ruleFindings);
-                if (!ruleFindings.isEmpty()) {
-                    log.debug("Rule {} found {} findings in {}", rule.getName(), ruleFindings.size(), chunk.getFilePath());
+                rule.analyze(chunk, context.withBudget(new CpuBudget(deadline, rule.getName())), sink);
+                found = sink.size() - before;
+                if (found > 0) {
+                    log.debug("Rule {} found {} findings in {}", rule.getName(), found, chunk.getFilePath());
                 }
+            } catch (BudgetExceededException e) {
+                abandoned = true;
             } catch (Exception e) {
+                failed = true;
                 log.warn("Error executing rule {}", rule.getName(), e);
             }
+            // The coarse clock may step back by up to its refresh interval
+            long spent = Math.max(0, CpuBudget.now() - start);
+            long wall = System.nanoTime() - wallStart;
+            // Cut short by the chunk deadline, not by its own budget
+            boolean chunkExhausted = abandoned && spent < ruleBudgetNanos;
+            if (chunkExhausted) {
+                watchdog.chunkExceeded(chunk.getFilePath(), bucket.size() - i);
+            } else if (abandoned || spent > ruleBudgetNanos) {
+                // Rules that do not read guarded input can only be caught after the fact
+                watchdog.ruleExceeded(set.watch()[r], rule.getName(), chunk.getFilePath(), spent);
+            }
+            profiler.record(set.profiles()[r], chunk.getAddedLines().size(), chars, wall, spent, found, failed);
+            if (abandoned || failed) {
+                // Whatever the rule reported before it stopped is discarded, as if it had returned nothing
+                sink.truncate(before);
+                complete = false;
+            }
+            // Not cached, so a later review with the file's content runs the rule again
+            if (rule.isWholeFile() && state.postImageMissing()) complete = false;
+            if (chunkExhausted) break;
+        }
+
+        return new ChunkResult(origin, sink.findings(), complete);
+    }
+
+    /**
+     * Key that differs between two chunks of the same file type when different rules apply
+     * to them (because of rule path globs) or when a whole-file rule would run on them and
+     * see different files, so identical hunks are only deduplicated when they would be
+     * analyzed alike.
+     */
+    public long dispatchKey(ChangeChunk chunk) {
+        return dispatchKey(ruleSet, chunk, new RuleMatcher.LineHits[1], 0);
+    }
+
+    /** Dispatch key of {@code chunk}, storing in {@code scans[index]} the prefilter scan taken for it, if any. */
+    private static long dispatchKey(RuleSet set, ChangeChunk chunk, RuleMatcher.LineHits[] scans, int index) {
+        long key = set.dispatcher().ruleSetKey(chunk);
+        return readsFile(set, chunk, scans, index) ? new XxHash64(key).putChars(chunk.getBlobSha()).digest() : key;
+    }
+
+    /**
+     * Whether a whole-file rule that applies to {@code chunk} passes the line prefilter on one
+     * of its added lines, so its results may depend on the rest of the file. Other chunks of
+     * a file, most of them, are keyed by their lines alone.
+     */
+    private static boolean readsFile(RuleSet set, ChangeChunk chunk, RuleMatcher.LineHits[] scans, int index) {
+        if (chunk.getBlobSha() == null) return false;
+        RuleDispatcher.Bucket bucket = set.dispatcher().bucketFor(chunk.getFileType());
+        if (!bucket.wholeFile()) return false;
+        for (int i = 0; i < bucket.size(); i++) {
+            int r = bucket.ruleIndexes()[i];
+            if (!set.rules().get(r).isWholeFile()) continue;
+            if (bucket.pathScoped()[i] && !set.dispatcher().matchesPath(r, chunk.getFilePath())) continue;
+            if (scans[index] == null) scans[index] = set.matcher().scan(chunk);
+            if (set.matcher().context(r, scans[index]).anyLineMayMatch()) return true;
         }
+        return false;
+    }
+
+    /** Rules that ran within the profiling window, most expensive per MB of input first. */
+    public List<RuleProfile> ruleProfiles() {
+        return profiler.report(watchdog::isQuarantined);
+    }
 
-        return findings;
+    public int profileWindowMinutes() {
+        return profiler.windowMinutes();
     }
 }
@@ -1,5 +1,6 @@
 package com.bot.bot.analysis;
 
+import com.bot.bot.config.ReviewPlan;
 import com.bot.bot.domain.ChangeChunk;
 import com.bot.bot.domain.Finding;
 import com.bot.bot.domain.PullRequestContext;
@@ -18,22 +19,22 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class LLMReviewEngine {
+    /** Category of every LLM finding. */
+    static final String CATEGORY = "CODE_REVIEW";
+
     private final LLMClient llmClient;
 
+    public Mono<List<Finding>> analyzeWithLLM(PullRequestContext prContext, List<ChangeChunk> chunks) {
+        return analyzeWithLLM(prContext, chunks, ReviewPlan.ALL);
+    }
+
     /**
      * Analyze code chunks using LLM for contextual review.
-     * Processes chunks in parallel and aggregates results.
+     * Processes chunks in parallel and aggregates results. Nothing is sent when {@code plan}
+     * ignores LLM findings; otherwise the prompt asks the model to leave out what it ignores.
      */
-    public Mono<List<Finding>> analyzeWithLLM(PullRequestContext prContext, List<ChangeChunk> chunks) {
-        log.debug("Starting LLM analysis on {} chunks", chunks.size());
-
-        if (chunks.isEmpty()) {
-            return Mono.just(new ArrayList<>());
-        }
-
-        // Convert list to Flux, process in parallel, collect results
-        return Flux.fromIterable(chunks)
-                .flatMap(chunk -> generateReviewForChunk(chunk, prContext))
+    public Mono<List<Finding>> analyzeWithLLM(PullRequestContext prContext, List<ChangeChunk> chunks, ReviewPlan plan) {
+        return streamWithLLM(prContext, chunks, plan)
                 .flatMap(Flux::fromIterable)  // Flatten the list of findings from each chunk
                 .collectList()
                 .onErrorResume(e -> {
@@ -43,11 +44,33 @@ public class LLMReviewEngine {
                 .doOnSuccess(findings -> log.debug("LLM analysis completed with {} findings", findings.size()));
     }
 
+    /**
+     * Like {@link #analyzeWithLLM(PullRequestContext, List, ReviewPlan)}, but emits the findings
+     * of each chunk as soon as its review comes back, so they can be published while the
+     * remaining chunks are still being reviewed. Chunks that fail to review emit an empty list.
+     */
+    public Flux<List<Finding>> streamWithLLM(PullRequestContext prContext, List<ChangeChunk> chunks, ReviewPlan plan) {
+        log.debug("Starting LLM analysis on {} chunks", chunks.size());
+
+        if (chunks.isEmpty()) {
+            return Flux.empty();
+        }
+        if (!plan.runsLlm() || plan.isIgnored(CATEGORY)) {
+            log.debug("LLM findings are ignored for {}/{}; skipping LLM analysis", prContext.getOwner(), prContext.getRepo());
+            return Flux.empty();
+        }
+        String exclusions = exclusions(plan);
+
+        // Process chunks in parallel, in the order their reviews complete
+        return Flux.fromIterable(chunks)
+                .flatMap(chunk -> generateReviewForChunk(chunk, prContext, exclusions));
+    }
+
     /**
      * Generate review for a single chunk and return list of findings.
      */
-    private Mono<List<Finding>> generateReviewForChunk(ChangeChunk chunk, PullRequestContext prContext) {
-        String prompt = buildPrompt(chunk, prContext);
+    private Mono<List<Finding>> generateReviewForChunk(ChangeChunk chunk, PullRequestContext prContext, String exclusions) {
+        String prompt = buildPrompt(chunk, prContext) + exclusions;
 
         return llmClient.generateCodeReview(prompt)
                 .map(response -> parseReviewResponse(response, chunk))
@@ -57,6 +80,19 @@ public class LLMReviewEngine {
                 });
     }
 
+    /**
+     * Instruction to leave out the rules and categories {@code plan} ignores (heuristic rule
+     * names describe the issue they flag well enough for the model), or an empty string.
+     */
+    private static String exclusions(ReviewPlan plan) {
+        List<String> topics = new ArrayList<>();
+        for (String entry : plan.getEntries()) {
+            if (!entry.equalsIgnoreCase("HEURISTIC")) topics.add(entry);
+        }
+        return topics.isEmpty() ? "" : "Do not report issues of these kinds, which this repository ignores: "
+                + String.join(", ", topics) + "\n";
+    }
+
     /**
      * Build a comprehensive prompt for the LLM with context.
      */
@@ -135,7 +171,7 @@ public class LLMReviewEngine {
                         .filePath(chunk.getFilePath())
                         .lineNumber(chunk.getStartLine())
                         .severity("CRITICAL")
-                        .category("CODE_REVIEW")
+                        .category(CATEGORY)
                         .message(trimmed)
                         .source("LLM")
                         .confidence(0.85)
@@ -149,7 +185,7 @@ public class LLMReviewEngine {
                         .filePath(chunk.getFilePath())
                         .lineNumber(chunk.getStartLine())
                         .severity("HIGH")
-                        .category("CODE_REVIEW")
+                        .category(CATEGORY)
                         .message(trimmed)
                         .source("LLM")
                         .confidence(0.80)
@@ -163,7 +199,7 @@ public class LLMReviewEngine {
                         .filePath(chunk.getFilePath())
                         .lineNumber(chunk.getStartLine())
                         .severity("MEDIUM")
-                        .category("CODE_REVIEW")
+                        .category(CATEGORY)
                         .message(trimmed)
                         .source("LLM")
                         .confidence(0.75)
@@ -0,0 +1,355 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.diff.LineView;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import com.bot.bot.scan.XxHash64;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Heuristic findings by hunk content, so a hunk seen before (on an earlier push, a reopened
+ * PR, a backport) is not analyzed again.
+ * <p>
+ * The key is the XXH64 of the rule-set version, the chunk's file type, the engine's
+ * {@link HeuristicsAnalysisEngine#dispatchKey dispatch key} (which rules apply to its path,
+ * and the file's blob id for whole-file rules) and its added lines; rules only ever look at
+ * those. Entries also record the line and
+ * character counts, which must match on lookup. Findings are stored by added-line index
+ * and rebased onto the chunk they are served for: path, line numbers and diff positions
+ * come from the current chunk.
+ * <p>
+ * Entries live in an in-memory LRU of {@code heuristics.cache-max-entries}. When
+ * {@code heuristics.cache-dir} is set they are also written there, in the background, and
+ * memory misses fall back to it; the directory is kept under
+ * {@code heuristics.cache-disk-max-mb} by deleting the least recently used files.
+ * <p>
+ * Metrics: {@code heuristics.cache.requests} tagged {@code repo} and {@code result}
+ * ({@code hit} or {@code miss}; the hit rate is their ratio), {@code heuristics.cache.entries}
+ * and {@code heuristics.cache.disk.bytes}.
+ */
+@Slf4j
+final class ResultCache {
+    private static final int FORMAT = 1;
+    private static final long KEY_SEED = 0x6865757269737469L;
+
+    private final int maxEntries;
+    private final Map<Long, Entry> memory;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter[]> requests = new ConcurrentHashMap<>();
+    private final Path dir;
+    private final long maxDiskBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    /** Findings of one chunk, positioned by added-line index. */
+    record Entry(int lines, long chars, List<Stored> findings) {
+    }
+
+    /**
+     * A finding without its location: {@code index} is the added line it is on, or -1 with
+     * {@code offset} from the chunk's start line ({@code Integer.MIN_VALUE}: no line).
+     */
+    record Stored(int index, int offset, int span, String severity, String category, String message,
+                  String suggestion, String source, double confidence, int precedenceScore) {
+    }
+
+    ResultCache(HeuristicsProperties properties, MeterRegistry meterRegistry) {
+        this.maxEntries = properties.getCacheMaxEntries();
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.meterRegistry = meterRegistry;
+        String cacheDir = properties.getCacheDir();
+        this.dir = maxEntries > 0 && cacheDir != null && !cacheDir.isBlank() ? Paths.get(cacheDir) : null;
+        this.maxDiskBytes = properties.getCacheDiskMaxMb() * 1024 * 1024;
+
+        Gauge.builder("heuristics.cache.entries", this, ResultCache::size)
+                .description("Chunk results held in the in-memory heuristics cache")
+                .register(meterRegistry);
+        if (dir != null) {
+            Gauge.builder("heuristics.cache.disk.bytes", diskBytes, AtomicLong::get)
+                    .description("Size of the heuristics cache directory")
+                    .register(meterRegistry);
+            Schedulers.boundedElastic().schedule(this::measureDisk);
+        }
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Computes content keys: the added lines of a chunk are gathered into one buffer, reused
+     * from chunk to chunk, and hashed in a single pass. Not thread-safe.
+     */
+    static final class Keys {
+        private char[] buffer = new char[4096];
+
+        /** Key of {@code chunk} under rule set {@code version} and dispatch key {@code dispatchKey}. */
+        long of(ChangeChunk chunk, long version, long dispatchKey) {
+            XxHash64 hash = new XxHash64(KEY_SEED).putLong(version).putLong(dispatchKey);
+            if (chunk.getFileType() != null) hash.putChars(chunk.getFileType());
+            hash.putChar('\0');
+            int length = 0;
+            for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+                CharSequence line = chunk.addedLine(i);
+                int end = length + line.length();
+                if (end >= buffer.length) buffer = Arrays.copyOf(buffer, Math.max(end + 1, buffer.length * 2));
+                if (line instanceof LineView view) {
+                    view.getChars(buffer, length);
+                } else if (line instanceof String string) {
+                    string.getChars(0, string.length(), buffer, length);
+                } else {
+                    for (int c = 0; c < line.length(); c++) buffer[length + c] = line.charAt(c);
+                }
+                buffer[end] = '\n';
+                length = end + 1;
+            }
+            return hash.putChars(buffer, 0, length).digest();
+        }
+    }
+
+    /** Findings cached for {@code chunk} under {@code key}, rebased onto it, or null. */
+    List<Finding> get(long key, ChangeChunk chunk) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry == null && dir != null) {
+            entry = readDisk(key);
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+            }
+        }
+        if (entry == null || entry.lines() != chunk.getAddedLines().size() || entry.chars() != chunk.addedChars()) {
+            return null;
+        }
+        List<Finding> findings = new ArrayList<>(entry.findings().size());
+        for (Stored stored : entry.findings()) {
+            findings.add(rebase(stored, chunk));
+        }
+        return findings;
+    }
+
+    /** Cache the complete findings of {@code chunk}. */
+    void put(long key, ChangeChunk chunk, List<Finding> findings) {
+        Map<Integer, Integer> indexByLine = new HashMap<>();
+        for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+            indexByLine.putIfAbsent(chunk.newLineNumber(i), i);
+        }
+        List<Stored> stored = new ArrayList<>(findings.size());
+        for (Finding f : findings) {
+            int line = f.getLineNumber();
+            Integer index = line > 0 ? indexByLine.get(line) : null;
+            stored.add(new Stored(
+                    index != null ? index : -1,
+                    line > 0 ? line - chunk.getStartLine() : Integer.MIN_VALUE,
+                    f.getEndLine() > 0 ? f.getEndLine() - line : -1,
+                    f.getSeverity(), f.getCategory(), f.getMessage(), f.getSuggestion(), f.getSource(),
+                    f.getConfidence(), f.getPrecedenceScore()));
+        }
+        Entry entry = new Entry(chunk.getAddedLines().size(), chunk.addedChars(), List.copyOf(stored));
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        if (dir != null) {
+            Schedulers.boundedElastic().schedule(() -> writeDisk(key, entry));
+        }
+    }
+
+    /** Count lookups for {@code repo}; called once per review. */
+    void record(String repo, int hits, int misses) {
+        Counter[] counters = requests.computeIfAbsent(repo != null ? repo : "unknown", r -> new Counter[]{
+                counter(r, "hit"), counter(r, "miss")});
+        if (hits > 0) counters[0].increment(hits);
+        if (misses > 0) counters[1].increment(misses);
+    }
+
+    private Counter counter(String repo, String result) {
+        return Counter.builder("heuristics.cache.requests")
+                .description("Heuristics cache lookups by chunk")
+                .tag("repo", repo)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private static Finding rebase(Stored stored, ChangeChunk chunk) {
+        int line;
+        int position = 0;
+        if (stored.index() >= 0) {
+            line = chunk.newLineNumber(stored.index());
+            position = chunk.diffPosition(stored.index());
+        } else {
+            line = stored.offset() == Integer.MIN_VALUE ? 0 : chunk.getStartLine() + stored.offset();
+        }
+        return Finding.builder()
+                .id(UUID.randomUUID().toString())
+                .filePath(chunk.getFilePath())
+                .lineNumber(line)
+                .endLine(stored.span() >= 0 ? line + stored.span() : 0)
+                .diffPosition(position)
+                .severity(stored.severity())
+                .category(stored.category())
+                .message(stored.message())
+                .suggestion(stored.suggestion())
+                .source(stored.source())
+                .confidence(stored.confidence())
+                .precedenceScore(stored.precedenceScore())
+                .build();
+    }
+
+    private Path file(long key) {
+        String name = String.format("%016x", key);
+        return dir.resolve(name.substring(0, 2)).resolve(name + ".bin");
+    }
+
+    private Entry readDisk(long key) {
+        Path file = file(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT) return null;
+            int lines = in.readInt();
+            long chars = in.readLong();
+            int count = in.readInt();
+            List<Stored> findings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                findings.add(new Stored(in.readInt(), in.readInt(), in.readInt(), readString(in), readString(in),
+                        readString(in), readString(in), readString(in), in.readDouble(), in.readInt()));
+            }
+            // Least recently used files are trimmed first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(lines, chars, List.copyOf(findings));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Unreadable heuristics cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeDisk(long key, Entry entry) {
+        Path file = file(key);
+        try {
+            Files.createDirectories(file.getParent());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 128 * entry.findings().size());
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(FORMAT);
+                out.writeInt(entry.lines());
+                out.writeLong(entry.chars());
+                out.writeInt(entry.findings().size());
+                for (Stored f : entry.findings()) {
+                    out.writeInt(f.index());
+                    out.writeInt(f.offset());
+                    out.writeInt(f.span());
+                    writeString(out, f.severity());
+                    writeString(out, f.category());
+                    writeString(out, f.message());
+                    writeString(out, f.suggestion());
+                    writeString(out, f.source());
+                    out.writeDouble(f.confidence());
+                    out.writeInt(f.precedenceScore());
+                }
+            }
+            // Written aside and moved into place, so readers never see a partial file
+            Path tmp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+            Files.write(tmp, bytes.toByteArray());
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(bytes.size() - previous) > maxDiskBytes) {
+                trimDisk();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to write heuristics cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** Delete the least recently used files until the directory is at 90% of its budget. */
+    private void trimDisk() {
+        if (!trimming.compareAndSet(false, true)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            List<Path> entries = files.filter(p -> p.toString().endsWith(".bin")).toList();
+            Map<Path, Long> modified = new HashMap<>();
+            for (Path p : entries) {
+                try {
+                    modified.put(p, Files.getLastModifiedTime(p).toMillis());
+                } catch (IOException e) {
+                    // Deleted meanwhile
+                }
+            }
+            List<Path> oldestFirst = new ArrayList<>(modified.keySet());
+            oldestFirst.sort(Comparator.comparing(modified::get));
+            long target = maxDiskBytes * 9 / 10;
+            int deleted = 0;
+            for (Path p : oldestFirst) {
+                if (diskBytes.get() <= target) break;
+                try {
+                    long size = Files.size(p);
+                    if (Files.deleteIfExists(p)) {
+                        diskBytes.addAndGet(-size);
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    // Deleted meanwhile
+                }
+            }
+            log.info("Trimmed heuristics cache directory: deleted {} entries, {} bytes remain", deleted, diskBytes.get());
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to trim heuristics cache directory {}: {}", dir, e.getMessage());
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private void measureDisk() {
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            diskBytes.addAndGet(files.filter(p -> p.toString().endsWith(".bin")).mapToLong(p -> {
+                try {
+                    return Files.size(p);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum());
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to measure heuristics cache directory {}: {}", dir, e.getMessage());
+        }
+        if (diskBytes.get() > maxDiskBytes) trimDisk();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
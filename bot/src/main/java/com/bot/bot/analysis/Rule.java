@@ -2,11 +2,100 @@ package com.bot.bot.analysis;
 
 import com.bot.bot.domain.ChangeChunk;
 import com.bot.bot.domain.Finding;
+import com.bot.bot.scan.LinearPattern;
 
 import java.util.List;
+import java.util.Set;
 
 public interface Rule {
     List<Finding> analyze(ChangeChunk chunk);
+
+    /**
+     * Analyze with the engine's prefilter results. Rules declaring {@link #getLinePatterns()}
+     * override this to skip lines (and patterns) the prefilter has ruled out.
+     */
+    default List<Finding> analyze(ChangeChunk chunk, RuleContext context) {
+        return analyze(chunk);
+    }
+
+    /**
+     * Analyze reporting findings to {@code sink}, which is reset to {@code chunk}. This is what
+     * the engine calls; rules implementing it build findings only when they report one, and
+     * no list per invocation. The default adds those of {@link #analyze(ChangeChunk, RuleContext)};
+     * rules implementing only this method extend {@link SinkRule}.
+     */
+    default void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+        for (Finding finding : analyze(chunk, context)) {
+            sink.add(finding);
+        }
+    }
+
+    /**
+     * Patterns of which at least one must find a match in an added line for the rule to
+     * report that line. The engine extracts their required literals into a shared prefilter
+     * and does not invoke the rule on chunks where none can match. Empty (the default) means
+     * the rule runs on every chunk.
+     */
+    default List<LinearPattern> getLinePatterns() {
+        return List.of();
+    }
+
+    /**
+     * File types (extensions without the dot, as in {@code ChangeChunk.fileType}) this rule
+     * applies to. Empty (the default) together with no {@link #getPathGlobs() path globs}
+     * means every file.
+     */
+    default Set<String> getFileTypes() {
+        return Set.of();
+    }
+
+    /**
+     * Path globs ({@code .gitattributes} syntax, e.g. {@code Dockerfile} or {@code deploy/**.yaml})
+     * this rule applies to in addition to its {@link #getFileTypes() file types}.
+     */
+    default List<String> getPathGlobs() {
+        return List.of();
+    }
+
+    /**
+     * Whether each finding depends only on its own added line, so the engine may run the
+     * rule on line ranges of a large chunk in parallel ({@link ChangeChunk#slice}). False (the
+     * default) means the rule always sees whole chunks.
+     */
+    default boolean isLineLocal() {
+        return false;
+    }
+
+    /**
+     * Whether the rule reads the whole new version of the file through
+     * {@link RuleContext#postImage}, not only the chunk. Results on chunks where such a rule
+     * passes the {@link #getLinePatterns() line prefilter} are then cached and deduplicated
+     * by the file's blob id as well as the hunk, so a whole-file rule should declare line
+     * patterns narrowing it to the lines it reports on. False (the default) for rules that
+     * only look at the chunk; whole-file rules are not line-local.
+     */
+    default boolean isWholeFile() {
+        return false;
+    }
+
+    /**
+     * Categories of the findings the rule reports. A rule whose categories are all listed in a
+     * repo's {@code ignore_rules} is not run; empty (the default) means unknown, so the rule
+     * runs and its findings are filtered afterwards.
+     */
+    default Set<String> getCategories() {
+        return Set.of();
+    }
+
+    /**
+     * Settings that change what the rule reports beyond its class, name and patterns, such as
+     * the message of a rule declared in a rule pack. Part of the rule-set version the engine's
+     * result cache is keyed by; empty (the default) for rules whose code is their configuration.
+     */
+    default String getConfiguration() {
+        return "";
+    }
+
     String getName();
     int getPriority();
 }
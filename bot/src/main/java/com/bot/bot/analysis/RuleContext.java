@@ -0,0 +1,152 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.content.FileContents;
+import com.bot.bot.content.FileText;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.scan.Lexer;
+import com.bot.bot.scan.TokenStream;
+
+/**
+ * What the engine already knows about a chunk when it invokes a {@link Rule}: which added
+ * lines may match the rule's {@link Rule#getLinePatterns() line patterns} according to the
+ * shared literal prefilter. A negative answer is definitive; a positive one still requires
+ * running the pattern.
+ * <p>
+ * It also carries the invocation's CPU budget: input passed through {@link #guard} makes
+ * matching throw {@link BudgetExceededException} once the budget is spent, so the engine
+ * can abandon the rule instead of letting one pathological line hold a worker thread.
+ * <p>
+ * Rules that match tokens rather than raw text get them from {@link #tokens}: the chunk is
+ * lexed once, by the first rule that asks, and shared by all rules invoked on it.
+ * {@link Rule#isWholeFile() Whole-file rules} likewise get the full new version of the file
+ * from {@link #postImage}, loaded once per chunk on first request.
+ */
+public final class RuleContext {
+    private static final RuleContext UNFILTERED = new RuleContext(null, null, null, null);
+
+    private final RuleMatcher.LineHits hits;
+    // Prefilter id for each of the rule's line patterns; -1 when the pattern has no literal
+    private final int[] patternIds;
+    private final CpuBudget budget;
+    private final ChunkState state;
+
+    RuleContext(RuleMatcher.LineHits hits, int[] patternIds, CpuBudget budget, ChunkState state) {
+        this.hits = hits;
+        this.patternIds = patternIds;
+        this.budget = budget;
+        this.state = state;
+    }
+
+    RuleContext withBudget(CpuBudget budget) {
+        return new RuleContext(hits, patternIds, budget, state);
+    }
+
+    /**
+     * What the rules invoked on one chunk share: its tokens, lexed on first use, and the
+     * post-image of its file, loaded on first use. Not thread-safe, like the chunk's analysis.
+     */
+    static final class ChunkState {
+        private final ChangeChunk chunk;
+        private final FileContents files;
+        private TokenStream stream;
+        private FileText postImage;
+        private boolean loaded;
+
+        ChunkState(ChangeChunk chunk, FileContents files) {
+            this.chunk = chunk;
+            this.files = files;
+        }
+
+        TokenStream tokens() {
+            if (stream == null) stream = lex(chunk);
+            return stream;
+        }
+
+        FileText postImage() {
+            if (!loaded) {
+                postImage = files.postImage(chunk);
+                loaded = true;
+            }
+            return postImage;
+        }
+
+        /**
+         * Whether the post-image of a file with a known blob id was asked for and could not be
+         * had, so results without it may be partial.
+         */
+        boolean postImageMissing() {
+            return loaded && postImage == null && files != FileContents.NONE && chunk.getBlobSha() != null;
+        }
+    }
+
+    /** A context in which every line may match, for calls outside the engine. */
+    public static RuleContext unfiltered() {
+        return UNFILTERED;
+    }
+
+    /** An unfiltered context for {@code chunk} whose file contents come from {@code files}. */
+    public static RuleContext unfiltered(ChangeChunk chunk, FileContents files) {
+        return new RuleContext(null, null, null, new ChunkState(chunk, files));
+    }
+
+    /** Whether any of the rule's line patterns may match added line {@code line}. */
+    public boolean mayMatch(int line) {
+        if (hits == null || patternIds == null) return true;
+        for (int id : patternIds) {
+            if (id < 0 || hits.hit(line, id)) return true;
+        }
+        return false;
+    }
+
+    /** Whether line pattern {@code patternIndex} (index into {@link Rule#getLinePatterns()}) may match added line {@code line}. */
+    public boolean mayMatch(int patternIndex, int line) {
+        if (hits == null || patternIds == null) return true;
+        int id = patternIds[patternIndex];
+        return id < 0 || hits.hit(line, id);
+    }
+
+    /**
+     * {@code input} wrapped so that reading it (e.g. matching a pattern against it) throws
+     * {@link BudgetExceededException} once the rule's budget is spent; {@code input} itself
+     * when there is no budget.
+     */
+    public CharSequence guard(CharSequence input) {
+        return budget != null ? budget.guard(input) : input;
+    }
+
+    /**
+     * Tokens of the added lines of {@code chunk}, lexed for its file type ({@link Lexer}).
+     * Within the engine the chunk is lexed once for all rules; elsewhere on every call.
+     */
+    public TokenStream tokens(ChangeChunk chunk) {
+        return state != null && state.chunk == chunk ? state.tokens() : lex(chunk);
+    }
+
+    /**
+     * The new version of {@code chunk}'s whole file, or null when it is not available (see
+     * {@link FileContents#postImage}). Only {@link Rule#isWholeFile() whole-file rules} may
+     * ask: the engine keys their cached results by the file's blob id. Loading may block;
+     * the time counts against the rule's budget only where CPU time cannot be measured.
+     */
+    public FileText postImage(ChangeChunk chunk) {
+        return state != null && state.chunk == chunk ? state.postImage() : null;
+    }
+
+    private static TokenStream lex(ChangeChunk chunk) {
+        return Lexer.forFileType(chunk.getFileType()).lex(chunk.getAddedLines().size(), chunk::addedLine);
+    }
+
+    /** Throws {@link BudgetExceededException} if the rule's budget is spent, for loops that do not read guarded input. */
+    public void checkBudget() {
+        if (budget != null) budget.check();
+    }
+
+    /** Whether any added line of the chunk may match; the engine skips the rule otherwise. */
+    boolean anyLineMayMatch() {
+        if (hits == null || patternIds == null) return true;
+        for (int id : patternIds) {
+            if (id < 0 || hits.anyHit(id)) return true;
+        }
+        return false;
+    }
+}
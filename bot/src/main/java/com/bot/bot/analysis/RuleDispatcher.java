@@ -0,0 +1,150 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.classify.FileClassifier;
+import com.bot.bot.domain.ChangeChunk;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Dispatch table from {@code ChangeChunk.fileType} to the rules that apply to it, in
+ * descending {@link Rule#getPriority() priority} order.
+ * <p>
+ * A rule applies to a chunk when it declares neither file types nor path globs, when the
+ * chunk's file type is one of its {@link Rule#getFileTypes() file types}, or when the path
+ * matches one of its {@link Rule#getPathGlobs() path globs}. Buckets for every declared file
+ * type, and one shared bucket for all other types, are built at startup, so dispatching a
+ * chunk is one map lookup (two for case variants of declared types). File types come from
+ * PR paths, so undeclared ones never add entries. Glob-scoped rules stay in every bucket and
+ * are checked against the path only when reached.
+ * <p>
+ * Each bucket also holds the {@code heuristics.rule.executions} counters of its rules,
+ * tagged with the rule name and the file type (declared types only; all others are
+ * counted as {@code other} to bound tag cardinality).
+ */
+@Slf4j
+final class RuleDispatcher {
+    static final String OTHER_FILE_TYPE = "other";
+
+    private final List<Rule> rules;
+    private final Set<String> declaredTypes = new TreeSet<>();
+    // Per rule index: lowercase file types (empty: any), compiled path globs (empty: none)
+    private final List<Set<String>> ruleTypes = new ArrayList<>();
+    private final List<List<Pattern>> ruleGlobs = new ArrayList<>();
+    private final int[] byPriority;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final Bucket other;
+    private final MeterRegistry meterRegistry;
+
+    RuleDispatcher(List<Rule> rules, MeterRegistry meterRegistry) {
+        this.rules = rules;
+        this.meterRegistry = meterRegistry;
+        for (Rule rule : rules) {
+            Set<String> types = new TreeSet<>();
+            for (String type : rule.getFileTypes()) {
+                types.add(type.toLowerCase(Locale.ROOT));
+            }
+            List<Pattern> globs = new ArrayList<>();
+            for (String glob : rule.getPathGlobs()) {
+                globs.add(Pattern.compile(FileClassifier.globToRegex(glob)));
+            }
+            ruleTypes.add(types);
+            ruleGlobs.add(globs);
+            declaredTypes.addAll(types);
+        }
+        byPriority = IntStream.range(0, rules.size()).boxed()
+                .sorted(Comparator.comparingInt((Integer r) -> rules.get(r).getPriority()).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (String type : declaredTypes) {
+            buckets.put(type, build(type));
+        }
+        other = build(null);
+        log.info("Rule dispatch table: {} rules, {} file types {}", rules.size(), declaredTypes.size(), declaredTypes);
+    }
+
+    Bucket bucketFor(String fileType) {
+        if (fileType == null) return other;
+        Bucket bucket = buckets.get(fileType);
+        return bucket != null ? bucket : buckets.getOrDefault(fileType.toLowerCase(Locale.ROOT), other);
+    }
+
+    /** Bucket of declared file type {@code type}, or of every undeclared type when null. */
+    private Bucket build(String type) {
+        String tag = type != null ? type : OTHER_FILE_TYPE;
+        List<Integer> applicable = new ArrayList<>();
+        List<Boolean> pathScoped = new ArrayList<>();
+        for (int r : byPriority) {
+            Set<String> types = ruleTypes.get(r);
+            List<Pattern> globs = ruleGlobs.get(r);
+            boolean unscoped = types.isEmpty() && globs.isEmpty();
+            if (unscoped || type != null && types.contains(type)) {
+                applicable.add(r);
+                pathScoped.add(false);
+            } else if (!globs.isEmpty()) {
+                applicable.add(r);
+                pathScoped.add(true);
+            }
+        }
+        int[] ruleIndexes = applicable.stream().mapToInt(Integer::intValue).toArray();
+        boolean[] scoped = new boolean[ruleIndexes.length];
+        Counter[] executions = new Counter[ruleIndexes.length];
+        boolean wholeFile = false;
+        for (int i = 0; i < ruleIndexes.length; i++) {
+            scoped[i] = pathScoped.get(i);
+            wholeFile |= rules.get(ruleIndexes[i]).isWholeFile();
+            executions[i] = Counter.builder("heuristics.rule.executions")
+                    .description("Rule invocations by file type")
+                    .tag("rule", rules.get(ruleIndexes[i]).getName())
+                    .tag("file_type", tag)
+                    .register(meterRegistry);
+        }
+        return new Bucket(ruleIndexes, scoped, executions, wholeFile);
+    }
+
+    /** Whether path-scoped rule {@code ruleIndex} applies to {@code path}. */
+    boolean matchesPath(int ruleIndex, String path) {
+        if (path == null) return false;
+        for (Pattern glob : ruleGlobs.get(ruleIndex)) {
+            if (glob.matcher(path).matches()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Identifies which of the rules of {@code chunk}'s bucket apply to its path: 0 unless
+     * path-scoped rules are involved, in which case one bit per path-scoped rule that matches.
+     */
+    long ruleSetKey(ChangeChunk chunk) {
+        Bucket bucket = bucketFor(chunk.getFileType());
+        long key = 0;
+        int bit = 0;
+        for (int i = 0; i < bucket.ruleIndexes.length; i++) {
+            if (!bucket.pathScoped[i]) continue;
+            if (matchesPath(bucket.ruleIndexes[i], chunk.getFilePath())) key |= 1L << (bit & 63);
+            bit++;
+        }
+        return key;
+    }
+
+    /**
+     * Rules applicable to one file type, in priority order, with their execution counters, and
+     * whether any of them is a whole-file rule.
+     */
+    record Bucket(int[] ruleIndexes, boolean[] pathScoped, Counter[] executions, boolean wholeFile) {
+        int size() {
+            return ruleIndexes.length;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.scan.AhoCorasick;
+import com.bot.bot.scan.LinearPattern;
+import com.bot.bot.scan.LiteralExtractor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shared literal prefilter for the line patterns of all rules.
+ * <p>
+ * At startup the required literals of every rule's {@link Rule#getLinePatterns() line
+ * patterns} are extracted with {@link LiteralExtractor} and compiled into one
+ * {@link AhoCorasick} automaton in which each literal reports the id of its pattern.
+ * Per chunk, every added line is scanned once, yielding a bitmap of the patterns that may
+ * match it; rules then run their full regex only on those lines, and rules with no
+ * candidate line are not invoked at all. The scan costs the same whatever the number of
+ * rules. Patterns without an extractable literal are marked unfiltered and always run.
+ */
+@Slf4j
+public final class RuleMatcher {
+    private final AhoCorasick automaton;
+    private final int words;
+    // Per rule, the prefilter id of each line pattern (-1: unfiltered); null when the rule declares none
+    private final int[][] rulePatternIds;
+
+    private RuleMatcher(AhoCorasick automaton, int patternCount, int[][] rulePatternIds) {
+        this.automaton = automaton;
+        this.words = Math.max(1, (patternCount + 63) >>> 6);
+        this.rulePatternIds = rulePatternIds;
+    }
+
+    public static RuleMatcher compile(List<Rule> rules) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> literalIds = new ArrayList<>();
+        int[][] rulePatternIds = new int[rules.size()][];
+        int patternCount = 0;
+        int unfiltered = 0;
+
+        for (int r = 0; r < rules.size(); r++) {
+            List<LinearPattern> patterns = rules.get(r).getLinePatterns();
+            if (patterns == null || patterns.isEmpty()) continue;
+            int[] ids = new int[patterns.size()];
+            for (int p = 0; p < patterns.size(); p++) {
+                Set<String> required = LiteralExtractor.requiredLiterals(patterns.get(p));
+                if (required.isEmpty()) {
+                    ids[p] = -1;
+                    unfiltered++;
+                    continue;
+                }
+                ids[p] = patternCount++;
+                for (String literal : required) {
+                    literals.add(literal);
+                    literalIds.add(ids[p]);
+                }
+            }
+            rulePatternIds[r] = ids;
+        }
+
+        AhoCorasick automaton = literals.isEmpty() ? null
+                : AhoCorasick.compile(literals, literalIds.stream().mapToInt(Integer::intValue).toArray());
+        log.info("Compiled rule prefilter: {} literals for {} line patterns ({} unfiltered), {} states",
+                literals.size(), patternCount + unfiltered, unfiltered,
+                automaton != null ? automaton.stateCount() : 0);
+        return new RuleMatcher(automaton, patternCount, rulePatternIds);
+    }
+
+    /** Scan the added lines of {@code chunk} once for the literals of all rules. */
+    LineHits scan(ChangeChunk chunk) {
+        int lines = chunk.getAddedLines().size();
+        LineHits hits = new LineHits(lines, words);
+        if (automaton == null) return hits;
+        for (int i = 0; i < lines; i++) {
+            automaton.scan(chunk.addedLine(i), hits.bits, i * words);
+        }
+        for (int i = 0; i < lines; i++) {
+            for (int w = 0; w < words; w++) {
+                hits.bits[lines * words + w] |= hits.bits[i * words + w];
+            }
+        }
+        return hits;
+    }
+
+    /** Context for rule {@code ruleIndex} (position in the compiled rule list) on a scanned chunk. */
+    RuleContext context(int ruleIndex, LineHits hits) {
+        return context(ruleIndex, hits, null);
+    }
+
+    /** As {@link #context(int, LineHits)}, sharing the chunk's lazily loaded {@code state} between rules. */
+    RuleContext context(int ruleIndex, LineHits hits, RuleContext.ChunkState state) {
+        return new RuleContext(hits, rulePatternIds[ruleIndex], null, state);
+    }
+
+    /** Per-line bitmaps of pattern ids whose literals occur in the line, followed by their union over the chunk. */
+    static final class LineHits {
+        private final long[] bits;
+        private final int lines;
+        private final int words;
+
+        LineHits(int lines, int words) {
+            this.bits = new long[(lines + 1) * words];
+            this.lines = lines;
+            this.words = words;
+        }
+
+        boolean hit(int line, int id) {
+            return (bits[line * words + (id >>> 6)] & (1L << id)) != 0;
+        }
+
+        boolean anyHit(int id) {
+            return hit(lines, id);
+        }
+    }
+}
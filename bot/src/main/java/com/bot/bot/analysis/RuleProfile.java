@@ -0,0 +1,19 @@
+package com.bot.bot.analysis;
+
+/**
+ * Cost of one rule over the profiling window, as reported by the {@code rules} actuator
+ * endpoint. Megabytes count the added lines the rule was invoked on (UTF-16 characters,
+ * one byte each for ASCII).
+ */
+public record RuleProfile(
+        String rule,
+        long invocations,
+        long lines,
+        double megabytes,
+        double cpuMillis,
+        double wallMillis,
+        double cpuMillisPerMb,
+        long findings,
+        long errors,
+        boolean quarantined) {
+}
@@ -0,0 +1,32 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.analysis.heuristics.RulePackLoader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/rules}: heuristic rules ranked by CPU time per MB of input over the
+ * last {@code heuristics.profile-window-minutes}, to find the rules slowing reviews down,
+ * followed by the compile time and approximate heap footprint of each rule-pack rule.
+ */
+@Component
+@Endpoint(id = "rules")
+@RequiredArgsConstructor
+public class RuleProfileEndpoint {
+
+    private final HeuristicsAnalysisEngine heuristicsAnalysisEngine;
+    private final RulePackLoader rulePackLoader;
+
+    @ReadOperation
+    public Report rules() {
+        return new Report(heuristicsAnalysisEngine.profileWindowMinutes(), heuristicsAnalysisEngine.ruleProfiles(),
+                rulePackLoader.lastCompile());
+    }
+
+    public record Report(int windowMinutes, List<RuleProfile> rules, List<RulePackLoader.RuleCompileStats> rulePacks) {
+    }
+}
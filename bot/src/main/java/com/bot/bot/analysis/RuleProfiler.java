@@ -0,0 +1,191 @@
+package com.bot.bot.analysis;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Per-rule cost accounting: Micrometer meters for the lifetime totals, and a sliding window
+ * of one-minute slots from which {@link #report} ranks rules by CPU time per MB of input.
+ * <p>
+ * Meters, all tagged with the rule name: {@code heuristics.rule.duration} (wall time, its
+ * count being the invocations), {@code heuristics.rule.cpu} (CPU time),
+ * {@code heuristics.rule.lines} (added lines handed to the rule),
+ * {@code heuristics.rule.findings} and {@code heuristics.rule.errors} (exceptions other
+ * than budget breaches). State is kept by rule name, so it survives rule set swaps.
+ * <p>
+ * Recording runs once per rule per chunk, often for chunks of a few lines, so it only adds
+ * to {@link LongAdder}s: the meters are function timers and counters reading the lifetime
+ * totals when scraped (count and total, no maximum or histogram).
+ */
+final class RuleProfiler {
+    static final long SLOT_MILLIS = 60_000;
+
+    private static final int INVOCATIONS = 0;
+    private static final int LINES = 1;
+    private static final int CHARS = 2;
+    private static final int WALL_NANOS = 3;
+    private static final int CPU_NANOS = 4;
+    private static final int FINDINGS = 5;
+    private static final int ERRORS = 6;
+    private static final int FIELDS = 7;
+
+    private final MeterRegistry meterRegistry;
+    private final int windowMinutes;
+    private final LongSupplier clock;
+    // Minute each slot currently holds, -1 before first use
+    private final AtomicLongArray slotMinutes;
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+
+    /** Lifetime totals, meters and per-slot counters of one rule name. */
+    static final class Profile {
+        private final String name;
+        private final LongAdder[] totals = newFields();
+        private final LongAdder[][] slots;
+
+        private Profile(String name, MeterRegistry meterRegistry, int windowMinutes) {
+            this.name = name;
+            FunctionTimer.builder("heuristics.rule.duration", totals,
+                            t -> t[INVOCATIONS].sum(), t -> t[WALL_NANOS].sum(), TimeUnit.NANOSECONDS)
+                    .description("Wall time of rule invocations")
+                    .tag("rule", name)
+                    .register(meterRegistry);
+            FunctionTimer.builder("heuristics.rule.cpu", totals,
+                            t -> t[INVOCATIONS].sum(), t -> t[CPU_NANOS].sum(), TimeUnit.NANOSECONDS)
+                    .description("CPU time of rule invocations")
+                    .tag("rule", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("heuristics.rule.lines", totals, t -> t[LINES].sum())
+                    .description("Added lines handed to the rule")
+                    .tag("rule", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("heuristics.rule.findings", totals, t -> t[FINDINGS].sum())
+                    .description("Findings emitted by the rule")
+                    .tag("rule", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("heuristics.rule.errors", totals, t -> t[ERRORS].sum())
+                    .description("Rule invocations that threw")
+                    .tag("rule", name)
+                    .register(meterRegistry);
+            this.slots = new LongAdder[windowMinutes][];
+            for (int slot = 0; slot < windowMinutes; slot++) {
+                slots[slot] = newFields();
+            }
+        }
+
+        private static LongAdder[] newFields() {
+            LongAdder[] fields = new LongAdder[FIELDS];
+            for (int f = 0; f < FIELDS; f++) {
+                fields[f] = new LongAdder();
+            }
+            return fields;
+        }
+    }
+
+    RuleProfiler(MeterRegistry meterRegistry, int windowMinutes) {
+        this(meterRegistry, windowMinutes, System::currentTimeMillis);
+    }
+
+    RuleProfiler(MeterRegistry meterRegistry, int windowMinutes, LongSupplier clock) {
+        this.meterRegistry = meterRegistry;
+        this.windowMinutes = windowMinutes;
+        this.clock = clock;
+        this.slotMinutes = new AtomicLongArray(windowMinutes);
+        for (int i = 0; i < windowMinutes; i++) {
+            slotMinutes.set(i, -1);
+        }
+    }
+
+    /** Profile of each of {@code rules}, by index, registering meters for new names. */
+    Profile[] track(List<Rule> rules) {
+        Profile[] result = new Profile[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            result[r] = profiles.computeIfAbsent(rules.get(r).getName(),
+                    name -> new Profile(name, meterRegistry, windowMinutes));
+        }
+        return result;
+    }
+
+    /** Record one invocation over {@code lineCount} lines of {@code charCount} characters. */
+    void record(Profile profile, int lineCount, long charCount, long wallNanos, long cpuNanos, int findingCount, boolean failed) {
+        add(profile.totals, lineCount, charCount, wallNanos, cpuNanos, findingCount, failed);
+        add(profile.slots[currentSlot()], lineCount, charCount, wallNanos, cpuNanos, findingCount, failed);
+    }
+
+    private static void add(LongAdder[] values, int lineCount, long charCount, long wallNanos, long cpuNanos,
+                            int findingCount, boolean failed) {
+        values[INVOCATIONS].increment();
+        values[LINES].add(lineCount);
+        values[CHARS].add(charCount);
+        values[WALL_NANOS].add(wallNanos);
+        values[CPU_NANOS].add(cpuNanos);
+        if (findingCount > 0) values[FINDINGS].add(findingCount);
+        if (failed) values[ERRORS].increment();
+    }
+
+    /** Index of the slot for the current minute, cleared first if it still holds an older minute. */
+    private int currentSlot() {
+        long minute = clock.getAsLong() / SLOT_MILLIS;
+        int slot = (int) (minute % windowMinutes);
+        if (slotMinutes.get(slot) != minute) {
+            synchronized (this) {
+                if (slotMinutes.get(slot) != minute) {
+                    for (Profile profile : profiles.values()) {
+                        for (LongAdder value : profile.slots[slot]) {
+                            value.reset();
+                        }
+                    }
+                    slotMinutes.set(slot, minute);
+                }
+            }
+        }
+        return slot;
+    }
+
+    /** Rules that ran within the window, most expensive per MB of input first. */
+    List<RuleProfile> report(Predicate<String> quarantined) {
+        long now = clock.getAsLong() / SLOT_MILLIS;
+        List<RuleProfile> report = new ArrayList<>();
+        for (Profile profile : profiles.values()) {
+            long[] t = new long[FIELDS];
+            for (int slot = 0; slot < windowMinutes; slot++) {
+                long minute = slotMinutes.get(slot);
+                if (minute < 0 || now - minute >= windowMinutes) continue;
+                for (int f = 0; f < FIELDS; f++) {
+                    t[f] += profile.slots[slot][f].sum();
+                }
+            }
+            if (t[INVOCATIONS] == 0) continue;
+            double megabytes = t[CHARS] / (1024.0 * 1024.0);
+            double cpuMillis = t[CPU_NANOS] / 1e6;
+            report.add(new RuleProfile(
+                    profile.name,
+                    t[INVOCATIONS],
+                    t[LINES],
+                    megabytes,
+                    cpuMillis,
+                    t[WALL_NANOS] / 1e6,
+                    megabytes > 0 ? cpuMillis / megabytes : 0,
+                    t[FINDINGS],
+                    t[ERRORS],
+                    quarantined.test(profile.name)));
+        }
+        report.sort(Comparator.comparingDouble(RuleProfile::cpuMillisPerMb).reversed());
+        return report;
+    }
+
+    int windowMinutes() {
+        return windowMinutes;
+    }
+}
@@ -0,0 +1,125 @@
+package com.bot.bot.analysis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks CPU budget breaches per rule and quarantines a rule, until restart, once it has
+ * breached {@code quarantineAfter} times. State is kept by rule name and fingerprint, so it
+ * survives rule set swaps that leave a rule as it was, while a rule pack rule edited and
+ * reloaded under the same name starts afresh. Meters are tagged by name and report the rule
+ * currently installed under it.
+ * <p>
+ * Metrics: {@code heuristics.rule.budget.exceeded} per rule, {@code heuristics.chunk.budget.exceeded}
+ * (chunks whose remaining rules were skipped), {@code heuristics.rule.quarantined} (1 per
+ * quarantined rule) and {@code heuristics.rules.quarantined} (count).
+ */
+@Slf4j
+final class RuleWatchdog {
+    private final int quarantineAfter;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, Tracked> tracked = new ConcurrentHashMap<>();
+    // The state of the rule installed under each name, which the per-rule meters report
+    private final Map<String, Tracked> current = new ConcurrentHashMap<>();
+    private final Counter chunkExceeded;
+
+    /** A rule as installed: its name and the fingerprint of its code and configuration. */
+    private record Key(String name, long fingerprint) {
+    }
+
+    /** Breach state of one rule version. */
+    static final class Tracked {
+        private final AtomicInteger breaches = new AtomicInteger();
+        private final AtomicInteger quarantined = new AtomicInteger();
+        private final Counter exceeded;
+
+        private Tracked(Counter exceeded) {
+            this.exceeded = exceeded;
+        }
+
+        boolean isQuarantined() {
+            return quarantined.get() != 0;
+        }
+    }
+
+    RuleWatchdog(int quarantineAfter, MeterRegistry meterRegistry) {
+        this.quarantineAfter = quarantineAfter;
+        this.meterRegistry = meterRegistry;
+        this.chunkExceeded = Counter.builder("heuristics.chunk.budget.exceeded")
+                .description("Chunks whose CPU budget ran out before all rules ran")
+                .register(meterRegistry);
+        Gauge.builder("heuristics.rules.quarantined", this::quarantinedCount)
+                .description("Rules quarantined until restart")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Breach state of each of {@code rules}, by index, given the {@code fingerprints} of the
+     * rules at the same indexes. The state of rules no longer installed is dropped.
+     */
+    synchronized Tracked[] track(List<Rule> rules, long[] fingerprints) {
+        Tracked[] result = new Tracked[rules.size()];
+        Set<Key> installed = new HashSet<>();
+        for (int r = 0; r < rules.size(); r++) {
+            String name = rules.get(r).getName();
+            Key key = new Key(name, fingerprints[r]);
+            installed.add(key);
+            result[r] = tracked.computeIfAbsent(key, k -> new Tracked(exceededCounter(name)));
+            if (current.put(name, result[r]) == null) registerGauge(name);
+        }
+        tracked.keySet().retainAll(installed);
+        current.values().retainAll(Arrays.asList(result));
+        return result;
+    }
+
+    private Counter exceededCounter(String name) {
+        return Counter.builder("heuristics.rule.budget.exceeded")
+                .description("Rule invocations that exceeded their CPU budget")
+                .tag("rule", name)
+                .register(meterRegistry);
+    }
+
+    private void registerGauge(String name) {
+        Gauge.builder("heuristics.rule.quarantined", () -> isQuarantined(name) ? 1 : 0)
+                .description("1 while the rule is quarantined for repeated budget breaches")
+                .tag("rule", name)
+                .register(meterRegistry);
+    }
+
+    /** Record that rule {@code name} overran its budget on {@code filePath}. */
+    void ruleExceeded(Tracked state, String name, String filePath, long spentNanos) {
+        state.exceeded.increment();
+        int count = state.breaches.incrementAndGet();
+        log.warn("Rule {} exceeded its CPU budget on {} ({} ms, breach {} of {})",
+                name, filePath, spentNanos / 1_000_000, count, quarantineAfter);
+        if (count >= quarantineAfter && state.quarantined.compareAndSet(0, 1)) {
+            log.error("Rule {} quarantined after {} budget breaches; it will not run until restart", name, count);
+        }
+    }
+
+    /** Record that {@code skipped} rules did not run on {@code filePath} because the chunk budget ran out. */
+    void chunkExceeded(String filePath, int skipped) {
+        chunkExceeded.increment();
+        log.warn("CPU budget for {} exhausted; skipped {} remaining rules", filePath, skipped);
+    }
+
+    /** Whether the rule currently installed as {@code name} is quarantined. */
+    boolean isQuarantined(String name) {
+        Tracked state = current.get(name);
+        return state != null && state.isQuarantined();
+    }
+
+    int quarantinedCount() {
+        return (int) current.values().stream().filter(Tracked::isQuarantined).count();
+    }
+}
@@ -0,0 +1,29 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+
+import java.util.List;
+
+/**
+ * Base of rules that report through a {@link FindingSink}: they implement only
+ * {@link #analyze(ChangeChunk, RuleContext, FindingSink)}, which the engine calls, and the
+ * list-returning methods collect what it reports into a sink of their own.
+ */
+public abstract class SinkRule implements Rule {
+
+    @Override
+    public List<Finding> analyze(ChangeChunk chunk) {
+        return analyze(chunk, RuleContext.unfiltered());
+    }
+
+    @Override
+    public List<Finding> analyze(ChangeChunk chunk, RuleContext context) {
+        FindingSink sink = new FindingSink(chunk);
+        analyze(chunk, context, sink);
+        return sink.findings();
+    }
+
+    @Override
+    public abstract void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink);
+}
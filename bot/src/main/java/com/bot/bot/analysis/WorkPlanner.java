@@ -0,0 +1,72 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.domain.ChangeChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a review's chunks into pool tasks of roughly equal line volume.
+ * <p>
+ * Consecutive chunks are batched into one task until they reach {@code taskLines} added
+ * lines, so small chunks do not each pay for a task. A chunk of more than twice that many
+ * lines becomes one task running the whole-chunk rules on it, plus one task per line range
+ * of about {@code taskLines} running the {@link Rule#isLineLocal() line-local} rules, so a
+ * single huge file spreads over all workers. Tasks are returned in chunk order.
+ */
+final class WorkPlanner {
+
+    /** Which rules to run on a piece of work. */
+    enum Scope {
+        ALL, WHOLE_CHUNK_RULES, LINE_LOCAL_RULES;
+
+        boolean includes(Rule rule) {
+            return switch (this) {
+                case ALL -> true;
+                case WHOLE_CHUNK_RULES -> !rule.isLineLocal();
+                case LINE_LOCAL_RULES -> rule.isLineLocal();
+            };
+        }
+    }
+
+    /** A chunk, or a line range of one, with the rules to run; {@code origin} indexes the planned chunks. */
+    record Work(ChangeChunk chunk, Scope scope, int origin) {
+    }
+
+    private WorkPlanner() {
+    }
+
+    static List<List<Work>> plan(List<ChangeChunk> chunks, int taskLines) {
+        List<List<Work>> tasks = new ArrayList<>();
+        List<Work> batch = new ArrayList<>();
+        int batchLines = 0;
+        for (int origin = 0; origin < chunks.size(); origin++) {
+            ChangeChunk chunk = chunks.get(origin);
+            int lines = chunk.getAddedLines().size();
+            if (lines > 2 * taskLines) {
+                if (!batch.isEmpty()) {
+                    tasks.add(batch);
+                    batch = new ArrayList<>();
+                    batchLines = 0;
+                }
+                tasks.add(List.of(new Work(chunk, Scope.WHOLE_CHUNK_RULES, origin)));
+                int pieces = (lines + taskLines - 1) / taskLines;
+                int step = (lines + pieces - 1) / pieces;
+                for (int from = 0; from < lines; from += step) {
+                    tasks.add(List.of(new Work(chunk.slice(from, Math.min(from + step, lines)), Scope.LINE_LOCAL_RULES, origin)));
+                }
+                continue;
+            }
+            batch.add(new Work(chunk, Scope.ALL, origin));
+            // Empty chunks (renames, binaries) still cost a dispatch
+            batchLines += Math.max(lines, 1);
+            if (batchLines >= taskLines) {
+                tasks.add(batch);
+                batch = new ArrayList<>();
+                batchLines = 0;
+            }
+        }
+        if (!batch.isEmpty()) tasks.add(batch);
+        return tasks;
+    }
+}
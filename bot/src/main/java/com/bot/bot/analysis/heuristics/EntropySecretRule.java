@@ -0,0 +1,255 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.analysis.FindingSink;
+import com.bot.bot.analysis.RuleContext;
+import com.bot.bot.analysis.SinkRule;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.scan.LinearPattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Flags random-looking tokens that may be keys of no known shape, complementing the fixed
+ * patterns of {@link SecretsDetectionRule}.
+ * <p>
+ * Only values are read: lines without an assignment ({@code =}, {@code :}) or a quote are
+ * skipped by the shared prefilter, and a token counts only after one of these. Lines are
+ * tokenized in place into runs of base64 characters ({@code A-Z a-z 0-9 + / _ -}; padding
+ * ends a run). Only runs of at least {@value #BASE64_MIN_LENGTH} characters matter, so the
+ * scan probes one character per minimum length and jumps past delimiters, leaving most
+ * characters of ordinary code unread. While a long run is read, a per-character class table
+ * records which kinds of characters it contains, so most runs are rejected without further
+ * work: a token is a candidate only if it is all hex digits mixing digits and letters, or
+ * mixes upper case, lower case and digits. Candidates get their Shannon entropy computed with
+ * a reused counting array and a precomputed {@code c·log2(c)} table; there is no allocation
+ * per token, only per finding.
+ * <p>
+ * A base64 token is reported from {@value #BASE64_THRESHOLD} bits per character, which takes
+ * at least 23 distinct characters, hence the minimum length. A hex token is reported from
+ * {@value #HEX_THRESHOLD} bits and {@value #HEX_MIN_LENGTH} characters, but only when it is
+ * the value assigned to a key that does not name an identifier or a digest ({@code id},
+ * {@code uuid}, {@code sha}, {@code commit}, {@code ref}, {@code checksum}…): commit ids in
+ * text, pinned {@code uses: owner/action@<sha>} steps, checksum lists and dashless UUIDs are
+ * hex too. Tokens over {@value #MAX_LENGTH} characters (embedded data) and integrity hashes
+ * ({@code sha256:…}, {@code sha512-…}) are skipped.
+ */
+@Slf4j
+@Component
+public class EntropySecretRule extends SinkRule {
+    static final double BASE64_THRESHOLD = 4.5;
+    static final double HEX_THRESHOLD = 3.0;
+    static final int BASE64_MIN_LENGTH = 32;
+    static final int HEX_MIN_LENGTH = 32;
+    static final int MAX_LENGTH = 512;
+    private static final int BUDGET_CHECK_CHARS = 64 * 1024;
+
+    private static final int BASE64 = 1;
+    private static final int HEX = 2;
+    private static final int UPPER = 4;
+    private static final int LOWER = 8;
+    private static final int DIGIT = 16;
+    private static final byte[] CLASSES = new byte[128];
+    private static final String[] HASH_PREFIXES = {"sha1", "sha256", "sha384", "sha512"};
+    // Endings of keys whose hex values are identifiers or digests, not secrets
+    private static final String[] ID_KEY_SUFFIXES = {
+            "id", "uuid", "guid", "sha", "sha1", "sha256", "sha512", "commit", "rev", "revision", "ref",
+            "hash", "digest", "sum", "etag"};
+    // Where a value starts; also the rule's prefilter
+    private static final LinearPattern VALUE = LinearPattern.compile("[=:\"'`]");
+    // c * log2(c) for counts up to MAX_LENGTH
+    private static final double[] C_LOG2_C = new double[MAX_LENGTH + 1];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] = BASE64 | UPPER;
+        for (char c = 'a'; c <= 'z'; c++) CLASSES[c] = BASE64 | LOWER;
+        for (char c = '0'; c <= '9'; c++) CLASSES[c] = BASE64 | DIGIT | HEX;
+        for (char c = 'a'; c <= 'f'; c++) CLASSES[c] |= HEX;
+        for (char c = 'A'; c <= 'F'; c++) CLASSES[c] |= HEX;
+        for (char c : "+/_-".toCharArray()) CLASSES[c] = BASE64;
+        for (int c = 1; c <= MAX_LENGTH; c++) C_LOG2_C[c] = c * Math.log(c) / Math.log(2);
+    }
+
+    @Override
+    public void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+        int[] counts = new int[128];
+
+        long unchecked = 0;
+
+        for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+            if (!context.mayMatch(i)) continue;
+            CharSequence line = chunk.addedLine(i);
+            // Reading the CPU clock costs more than scanning a short line; check every 64k characters
+            unchecked += line.length();
+            if (unchecked >= BUDGET_CHECK_CHARS) {
+                context.checkBudget();
+                unchecked = 0;
+            }
+            double entropy = 0;
+            boolean hex = false;
+            int n = line.length();
+            // Invariant: pos is 0 or follows a delimiter, so a token of the minimum length
+            // starting at or after pos must cover pos + BASE64_MIN_LENGTH - 1
+            int pos = 0;
+            while (pos + BASE64_MIN_LENGTH <= n) {
+                int probe = pos + BASE64_MIN_LENGTH - 1;
+                if (!isBase64(line.charAt(probe))) {
+                    pos = probe + 1;
+                    continue;
+                }
+                int back = probe - 1;
+                while (back >= pos && isBase64(line.charAt(back))) back--;
+                if (back >= pos) {
+                    pos = back + 1;
+                    continue;
+                }
+
+                int start = pos;
+                int any = 0;
+                int all = -1;
+                char c;
+                while (pos < n && (c = line.charAt(pos)) < 128 && (CLASSES[c] & BASE64) != 0) {
+                    int cls = CLASSES[c];
+                    any |= cls;
+                    all &= cls;
+                    pos++;
+                }
+                int length = pos - start;
+                pos++;
+                if (length > MAX_LENGTH) continue;
+                boolean hexToken = (all & HEX) != 0;
+                boolean candidate = hexToken
+                        ? length >= HEX_MIN_LENGTH && (any & DIGIT) != 0 && (any & (UPPER | LOWER)) != 0
+                        : (any & (UPPER | LOWER | DIGIT)) == (UPPER | LOWER | DIGIT);
+                if (!candidate || !inValue(line, start) || hashPrefixed(line, start)) continue;
+                if (hexToken && (!assignedSecret(line, start) || uuidShaped(line, start, length))) continue;
+                double e = entropy(line, start, start + length, counts);
+                if (e >= (hexToken ? HEX_THRESHOLD : BASE64_THRESHOLD)) {
+                    entropy = e;
+                    hex = hexToken;
+                    break;
+                }
+            }
+
+            if (entropy > 0) {
+                sink.emit(i, "HIGH", "SECURITY",
+                        String.format("High-entropy %s string (%.2f bits/char) may be a hard-coded secret",
+                                hex ? "hex" : "base64", entropy),
+                        "Load secrets from the environment or a secret manager; rotate it if it is real", 0.6, 900);
+            }
+        }
+    }
+
+    /** Whether an assignment or quote character precedes {@code start} in {@code line}. */
+    private static boolean inValue(CharSequence line, int start) {
+        for (int i = start - 1; i >= 0; i--) {
+            char c = line.charAt(i);
+            if (c == '=' || c == ':' || isQuote(c)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether the token at {@code start} is, possibly quoted, the value of an assignment whose
+     * key does not end like one of {@link #ID_KEY_SUFFIXES}.
+     */
+    private static boolean assignedSecret(CharSequence line, int start) {
+        int k = start - 1;
+        if (k >= 0 && isQuote(line.charAt(k))) k--;
+        while (k >= 0 && line.charAt(k) == ' ') k--;
+        if (k < 0 || (line.charAt(k) != '=' && line.charAt(k) != ':')) return false;
+        k--;
+        while (k >= 0 && line.charAt(k) == ' ') k--;
+        if (k >= 0 && isQuote(line.charAt(k))) k--;
+        int keyEnd = k + 1;
+        for (String suffix : ID_KEY_SUFFIXES) {
+            int from = keyEnd - suffix.length();
+            if (from >= 0 && regionMatches(line, from, suffix)) return false;
+        }
+        return true;
+    }
+
+    /** Whether a 32-digit hex token is laid out like a UUID without dashes (version 1-8, variant 10xx). */
+    private static boolean uuidShaped(CharSequence line, int start, int length) {
+        if (length != 32) return false;
+        char version = line.charAt(start + 12);
+        char variant = Character.toLowerCase(line.charAt(start + 16));
+        return version >= '1' && version <= '8' && (variant == '8' || variant == '9' || variant == 'a' || variant == 'b');
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'' || c == '`';
+    }
+
+    private static boolean isBase64(char c) {
+        return c < 128 && (CLASSES[c] & BASE64) != 0;
+    }
+
+    /**
+     * Shannon entropy in bits per character of {@code s[start, end)}, all ASCII, using
+     * {@code counts} (all zero on entry and on return) as scratch space.
+     */
+    static double entropy(CharSequence s, int start, int end, int[] counts) {
+        for (int i = start; i < end; i++) {
+            counts[s.charAt(i)]++;
+        }
+        // H = log2(n) - sum(c * log2(c)) / n; each distinct character is summed once, then cleared
+        double sum = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            int count = counts[c];
+            if (count != 0) {
+                sum += C_LOG2_C[count];
+                counts[c] = 0;
+            }
+        }
+        int n = end - start;
+        return C_LOG2_C[n] / n - sum / n;
+    }
+
+    /** Whether the token at {@code start} is an integrity hash: {@code sha256:<hex>} or {@code sha512-<base64>}. */
+    private static boolean hashPrefixed(CharSequence line, int start) {
+        for (String prefix : HASH_PREFIXES) {
+            int len = prefix.length();
+            if (start > len && line.charAt(start - 1) == ':' && regionMatches(line, start - 1 - len, prefix)) return true;
+            if (start + len < line.length() && line.charAt(start + len) == '-' && regionMatches(line, start, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(CharSequence s, int from, String lowerCase) {
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (Character.toLowerCase(s.charAt(from + i)) != lowerCase.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public List<LinearPattern> getLinePatterns() {
+        return List.of(VALUE);
+    }
+
+    @Override
+    public Set<String> getCategories() {
+        return Set.of("SECURITY");
+    }
+
+    @Override
+    public boolean isLineLocal() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "EntropySecretRule";
+    }
+
+    @Override
+    public int getPriority() {
+        return 900;
+    }
+}
@@ -1,62 +1,122 @@
 package com.bot.bot.analysis.heuristics;
 
-import com.bot.bot.analysis.Rule;
+import com.bot.bot.analysis.FindingSink;
+import com.bot.bot.analysis.RuleContext;
+import com.bot.bot.analysis.SinkRule;
 import com.bot.bot.domain.ChangeChunk;
-import com.bot.bot.domain.Finding;
+import com.bot.bot.scan.LinearPattern;
+import com.bot.bot.scan.TokenStream;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.regex.Pattern;
 
 @Component
-public class NullPointerDetectionRule implements Rule {
+public class NullPointerDetectionRule extends SinkRule {
 
-    // Match chained method calls like `obj.getField().getValue()` (potential NPE)
-    private static final Pattern CHAINED_CALL = Pattern.compile(
-            "[\\w)]]\\s*\\.\\s*\\w+\\s*\\(.*\\)\\s*\\.\\s*\\w+"
-    );
+    // Languages with method-call chains where a null-safe operator (?.) or explicit checks apply
+    private static final Set<String> FILE_TYPES = Set.of(
+            "java", "kt", "kts", "groovy", "scala", "cs", "js", "jsx", "mjs", "cjs", "ts", "tsx",
+            "swift", "dart", "php");
 
-    // Lines likely to be comments or type declarations (skip these)
-    private static final Pattern COMMENT_OR_DECL = Pattern.compile(
-            "^(\\s*[*//]|\\s*import|\\s*@|\\s*package|\\s*public|\\s*private|\\s*protected)"
+    // Chained method calls like `obj.getField().getValue()` (potential NPE). Only feeds the shared
+    // prefilter: lines are matched on tokens, so calls in comments and strings do not count
+    private static final LinearPattern CHAINED_CALL = LinearPattern.compile(
+            "[\\w)\\]]\\s*\\.\\s*\\w+\\s*\\(.*\\)\\s*\\.\\s*\\w+"
     );
 
-    // Explicit null check patterns (skip these)
-    private static final Pattern NULL_CHECK = Pattern.compile(
-            "null\\s*[=!]=\\s*\\w+\\s*[|&]{2}|\\w+\\s*[=!]=\\s*null|Objects\\.nonNull|Objects\\.requireNonNull"
-    );
+    // Lines starting with these are imports, annotations or declarations (skip these)
+    private static final String[] DECLARATION_KEYWORDS = {"import", "package", "public", "private", "protected"};
 
     @Override
-    public List<Finding> analyze(ChangeChunk chunk) {
-        List<Finding> findings = new ArrayList<>();
+    public void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+        TokenStream tokens = null;
 
         for (int i = 0; i < chunk.getAddedLines().size(); i++) {
-            String line = chunk.getAddedLines().get(i);
+            if (!context.mayMatch(i)) continue;
+            context.checkBudget();
+            if (tokens == null) tokens = context.tokens(chunk);
 
             // Skip comments, imports, annotations, and declarations
-            if (COMMENT_OR_DECL.matcher(line).find()) continue;
-
-            // Skip lines with explicit null checks
-            if (NULL_CHECK.matcher(line).find()) continue;
-
-            // Check for chained method calls without safe navigation
-            if (!line.contains("?.") && CHAINED_CALL.matcher(line).find()) {
-                findings.add(Finding.builder()
-                        .id(UUID.randomUUID().toString())
-                        .filePath(chunk.getFilePath())
-                        .lineNumber(chunk.getStartLine() + i)
-                        .severity("MEDIUM")
-                        .category("POTENTIAL_BUG")
-                        .message("Chained method call without null-safe operator (?.): " + line.trim())
-                        .suggestion("Consider using ?. for safe navigation or add explicit null checks before accessing nested properties")
-                        .source("HEURISTIC")
-                        .confidence(0.65)
-                        .precedenceScore(500)
-                        .build());
+            int first = tokens.firstCode(i);
+            if (first < 0 || isDeclaration(tokens, first)) continue;
+
+            // Skip lines with explicit null checks or null-safe calls
+            int end = tokens.endToken(i);
+            if (isNullSafe(tokens, first, end)) continue;
+
+            // Check for chained method calls
+            if (!hasChainedCall(tokens, first, end)) continue;
+
+            sink.emit(i, "MEDIUM", "POTENTIAL_BUG",
+                    "Chained method call without null-safe operator (?.): " + chunk.addedLine(i).toString().trim(),
+                    "Consider using ?. for safe navigation or add explicit null checks before accessing nested properties",
+                    0.65, 500);
+        }
+    }
+
+    private static boolean isDeclaration(TokenStream tokens, int first) {
+        if (tokens.kind(first) == TokenStream.OPERATOR) {
+            // Continuation lines of a comment opened before the hunk, and annotations
+            return tokens.is(first, '*') || tokens.is(first, '/') || tokens.is(first, '@');
+        }
+        for (String keyword : DECLARATION_KEYWORDS) {
+            if (tokens.is(first, keyword)) return true;
+        }
+        return false;
+    }
+
+    /** {@code ?.}, {@code x == null}, {@code null != x}, {@code Objects.nonNull} or {@code Objects.requireNonNull}. */
+    private static boolean isNullSafe(TokenStream tokens, int from, int to) {
+        for (int t = from; t < to; t++) {
+            if (tokens.kind(t) == TokenStream.OPERATOR) {
+                if (tokens.is(t, "?.")) return true;
+                if ((tokens.is(t, "==") || tokens.is(t, "!="))
+                        && (t > from && tokens.is(t - 1, "null") || t + 1 < to && tokens.is(t + 1, "null"))) {
+                    return true;
+                }
+            } else if (tokens.is(t, "Objects") && t + 2 < to && tokens.is(t + 1, '.')
+                    && (tokens.is(t + 2, "nonNull") || tokens.is(t + 2, "requireNonNull"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A call {@code receiver.name(} followed, later on the line, by {@code ).name}. */
+    private static boolean hasChainedCall(TokenStream tokens, int from, int to) {
+        int call = -1;
+        for (int t = from; t + 3 < to; t++) {
+            boolean receiver = tokens.kind(t) == TokenStream.IDENTIFIER || tokens.is(t, ')') || tokens.is(t, ']');
+            if (receiver && tokens.is(t + 1, '.') && tokens.kind(t + 2) == TokenStream.IDENTIFIER && tokens.is(t + 3, '(')) {
+                call = t + 3;
+                break;
             }
         }
+        if (call < 0) return false;
+        for (int t = call + 1; t + 2 < to; t++) {
+            if (tokens.is(t, ')') && tokens.is(t + 1, '.') && tokens.kind(t + 2) == TokenStream.IDENTIFIER) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<String> getFileTypes() {
+        return FILE_TYPES;
+    }
 
-        return findings;
+    @Override
+    public Set<String> getCategories() {
+        return Set.of("POTENTIAL_BUG");
+    }
+
+    @Override
+    public List<LinearPattern> getLinePatterns() {
+        return List.of(CHAINED_CALL);
+    }
+
+    @Override
+    public boolean isLineLocal() {
+        return true;
     }
 
     @Override
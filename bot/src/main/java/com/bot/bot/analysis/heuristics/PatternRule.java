@@ -0,0 +1,70 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.analysis.FindingSink;
+import com.bot.bot.analysis.RuleContext;
+import com.bot.bot.analysis.SinkRule;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.scan.LinearPattern;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A rule declared in a YAML rule pack (see {@link RulePackLoader}): one pattern, reported
+ * on every added line it finds a match in. Its pattern joins the engine's shared prefilter
+ * like the patterns of the built-in rules. A {@code codeOnly} rule matches the line with
+ * comments and string literals blanked out, using the chunk's shared tokens.
+ */
+@Getter
+@Builder
+public class PatternRule extends SinkRule {
+    private final String name;
+    private final String pack;
+    private final LinearPattern pattern;
+    private final String severity;
+    private final String category;
+    private final String message;
+    private final String suggestion;
+    private final double confidence;
+    private final int priority;
+    @Builder.Default
+    private final Set<String> fileTypes = Set.of();
+    @Builder.Default
+    private final List<String> pathGlobs = List.of();
+    private final boolean codeOnly;
+
+    @Override
+    public void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+
+        for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+            if (!context.mayMatch(i)) continue;
+            CharSequence line = codeOnly ? context.tokens(chunk).code(i) : chunk.addedLine(i);
+            if (pattern.find(context.guard(line))) {
+                sink.emit(i, severity, category, message, suggestion, confidence, priority);
+            }
+        }
+    }
+
+    @Override
+    public List<LinearPattern> getLinePatterns() {
+        return List.of(pattern);
+    }
+
+    @Override
+    public Set<String> getCategories() {
+        return Set.of(category);
+    }
+
+    @Override
+    public String getConfiguration() {
+        return String.join("\u0000", severity, category, message, String.valueOf(suggestion),
+                String.valueOf(confidence), String.valueOf(codeOnly));
+    }
+
+    @Override
+    public boolean isLineLocal() {
+        return true;
+    }
+}
@@ -0,0 +1,280 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.analysis.HeuristicsAnalysisEngine;
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.scan.LinearPattern;
+import com.bot.bot.scan.LiteralExtractor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.yaml.snakeyaml.Yaml;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Loads declarative rule packs and installs them into the {@link HeuristicsAnalysisEngine}.
+ * <p>
+ * Packs are YAML files ({@code *.yaml} or {@code *.yml}) on the classpath under
+ * {@code rule-packs/} and, when {@code heuristics.rule-pack-dir} is set, in that directory:
+ * <pre>
+ * pack: team-conventions
+ * rules:
+ *   - id: no-system-exit
+ *     pattern: "System\\.exit\\("
+ *     severity: HIGH
+ *     category: BEST_PRACTICE
+ *     message: Do not call System.exit from library code
+ *     suggestion: Throw an exception and let the caller decide
+ *     file_types: [java]
+ *     confidence: 0.9
+ *     code_only: true        # ignore matches inside comments and string literals
+ * </pre>
+ * Each rule's pattern is compiled once to a {@link LinearPattern}; rules that fail to parse
+ * or compile are logged and skipped. The directory is polled every
+ * {@code heuristics.rule-pack-poll-seconds}; when a file is added, changed or removed all
+ * packs are recompiled and swapped into the engine in one step (see
+ * {@link HeuristicsAnalysisEngine#installRulePacks}). A file that no longer parses keeps
+ * the rules it had before. Compile time and approximate heap footprint of every rule are
+ * logged and kept for the {@code rules} actuator endpoint.
+ */
+@Slf4j
+@Component
+public class RulePackLoader {
+    static final String CLASSPATH_PACKS = "classpath*:rule-packs/*.y*ml";
+    private static final Set<String> SEVERITIES = Set.of("CRITICAL", "HIGH", "MEDIUM", "LOW", "INFO");
+    private static final double DEFAULT_CONFIDENCE = 0.8;
+    private static final int DEFAULT_PRIORITY = 100;
+
+    private final HeuristicsAnalysisEngine engine;
+    private final HeuristicsProperties properties;
+    // Rules by pack source of the last successful parse, so a broken edit keeps the previous rules
+    private final Map<String, List<Compiled>> loaded = new LinkedHashMap<>();
+    private String fingerprint;
+    private volatile List<RuleCompileStats> lastCompile = List.of();
+    private Disposable poller;
+
+    /** Cost of compiling one pack rule, as reported by the {@code rules} endpoint. */
+    public record RuleCompileStats(String pack, String rule, long compileMicros, long approximateBytes,
+                                   int prefilterLiterals) {
+    }
+
+    record Compiled(PatternRule rule, RuleCompileStats stats) {
+    }
+
+    public RulePackLoader(HeuristicsAnalysisEngine engine, HeuristicsProperties properties) {
+        this.engine = engine;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        start(classpathPacks());
+    }
+
+    void start(Resource[] classpathPacks) {
+        for (Resource resource : classpathPacks) {
+            try (InputStream in = resource.getInputStream()) {
+                // Keyed by URL: jars may each ship a pack of the same file name
+                String source = "classpath:" + resource.getURL();
+                loaded.put(source, parse(source, new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                log.warn("Failed to load rule pack {}", resource.getDescription(), e);
+            }
+        }
+        if (!reloadIfChanged() && !loaded.isEmpty()) install();
+        Path dir = directory();
+        if (dir != null) {
+            poller = Flux.interval(Duration.ofSeconds(properties.getRulePackPollSeconds()), Schedulers.boundedElastic())
+                    .subscribe(tick -> reloadIfChanged(), e -> log.error("Rule pack polling stopped", e));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) poller.dispose();
+    }
+
+    /** Compile statistics of the installed pack rules, in load order. */
+    public List<RuleCompileStats> lastCompile() {
+        return lastCompile;
+    }
+
+    /**
+     * Re-read the rule pack directory if any file in it was added, removed or modified since
+     * the last call, and install the result.
+     *
+     * @return whether the packs were reinstalled
+     */
+    public synchronized boolean reloadIfChanged() {
+        Path dir = directory();
+        if (dir == null) return false;
+        List<Path> files = listPacks(dir);
+        String current = fingerprint(files);
+        if (current.equals(fingerprint)) return false;
+        fingerprint = current;
+
+        Set<String> present = new HashSet<>();
+        for (Path file : files) {
+            String source = file.toString();
+            present.add(source);
+            try {
+                loaded.put(source, parse(source, Files.readString(file)));
+            } catch (Exception e) {
+                log.warn("Failed to load rule pack {}; keeping its previous rules", file, e);
+            }
+        }
+        loaded.keySet().removeIf(source -> !source.startsWith("classpath:") && !present.contains(source));
+        install();
+        return true;
+    }
+
+    private synchronized void install() {
+        List<PatternRule> rules = new ArrayList<>();
+        List<RuleCompileStats> stats = new ArrayList<>();
+        for (List<Compiled> pack : loaded.values()) {
+            for (Compiled compiled : pack) {
+                rules.add(compiled.rule());
+                stats.add(compiled.stats());
+            }
+        }
+        engine.installRulePacks(rules);
+        lastCompile = List.copyOf(stats);
+    }
+
+    /** Compile the rules of one pack file; rules with missing fields or invalid patterns are skipped. */
+    @SuppressWarnings("unchecked")
+    List<Compiled> parse(String source, String yamlContent) {
+        Map<String, Object> raw = new Yaml().load(yamlContent);
+        if (raw == null) return List.of();
+        String pack = raw.containsKey("pack") ? String.valueOf(raw.get("pack")) : source;
+        Object entries = raw.get("rules");
+        if (!(entries instanceof List<?> list)) {
+            throw new IllegalArgumentException("rule pack has no rules list");
+        }
+
+        List<Compiled> compiled = new ArrayList<>();
+        for (Object entry : list) {
+            if (!(entry instanceof Map<?, ?> map)) continue;
+            try {
+                compiled.add(compile(pack, (Map<String, Object>) map));
+            } catch (RuntimeException e) {
+                log.warn("Skipping rule {} of pack {}: {}", map.get("id"), pack, e.getMessage());
+            }
+        }
+        return compiled;
+    }
+
+    private Compiled compile(String pack, Map<String, Object> raw) {
+        String id = required(raw, "id");
+        String severity = required(raw, "severity").toUpperCase(Locale.ROOT);
+        if (!SEVERITIES.contains(severity)) {
+            throw new IllegalArgumentException("unknown severity " + severity);
+        }
+        double confidence = raw.containsKey("confidence")
+                ? ((Number) raw.get("confidence")).doubleValue() : DEFAULT_CONFIDENCE;
+        if (confidence < 0 || confidence > 1) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1");
+        }
+
+        long start = System.nanoTime();
+        LinearPattern pattern = LinearPattern.compile(required(raw, "pattern"));
+        Set<String> literals = LiteralExtractor.requiredLiterals(pattern);
+        long compileNanos = System.nanoTime() - start;
+
+        long bytes = pattern.approximateBytes();
+        for (String literal : literals) {
+            // String object plus its byte array, as held by the prefilter
+            bytes += 24 + 16 + literal.length();
+        }
+
+        PatternRule rule = PatternRule.builder()
+                .name(id)
+                .pack(pack)
+                .pattern(pattern)
+                .severity(severity)
+                .category(required(raw, "category"))
+                .message(required(raw, "message"))
+                .suggestion(raw.containsKey("suggestion") ? String.valueOf(raw.get("suggestion")) : null)
+                .confidence(confidence)
+                .priority(raw.containsKey("priority") ? ((Number) raw.get("priority")).intValue() : DEFAULT_PRIORITY)
+                .fileTypes(Set.copyOf(strings(raw.get("file_types"))))
+                .pathGlobs(strings(raw.get("path_globs")))
+                .codeOnly(Boolean.TRUE.equals(raw.get("code_only")))
+                .build();
+        RuleCompileStats stats = new RuleCompileStats(pack, id, compileNanos / 1_000, bytes, literals.size());
+        log.info("Compiled rule {} of pack {} in {} us: {} instructions, ~{} bytes, {} prefilter literals",
+                id, pack, stats.compileMicros(), pattern.programSize(), bytes, literals.size());
+        return new Compiled(rule, stats);
+    }
+
+    private static String required(Map<String, Object> raw, String key) {
+        Object value = raw.get(key);
+        if (value == null || String.valueOf(value).isBlank()) {
+            throw new IllegalArgumentException("missing " + key);
+        }
+        return String.valueOf(value);
+    }
+
+    private static List<String> strings(Object value) {
+        if (value == null) return List.of();
+        if (value instanceof List<?> list) return list.stream().map(String::valueOf).toList();
+        return List.of(String.valueOf(value));
+    }
+
+    private Path directory() {
+        String dir = properties.getRulePackDir();
+        return dir == null || dir.isBlank() ? null : Paths.get(dir);
+    }
+
+    private static List<Path> listPacks(Path dir) {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return (name.endsWith(".yaml") || name.endsWith(".yml")) && Files.isRegularFile(file);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Failed to list rule pack directory {}", dir, e);
+            return List.of();
+        }
+    }
+
+    /** Names, sizes and modification times of {@code files}; changes whenever one is edited. */
+    private static String fingerprint(List<Path> files) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Path file : files) {
+            try {
+                fingerprint.append(file.getFileName()).append(':').append(Files.size(file)).append(':')
+                        .append(Files.getLastModifiedTime(file).toMillis()).append(';');
+            } catch (IOException e) {
+                // Deleted while listing: leave it out, the next poll sees the removal
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private static Resource[] classpathPacks() {
+        try {
+            return new PathMatchingResourcePatternResolver().getResources(CLASSPATH_PACKS);
+        } catch (IOException e) {
+            log.warn("Failed to list classpath rule packs", e);
+            return new Resource[0];
+        }
+    }
+}
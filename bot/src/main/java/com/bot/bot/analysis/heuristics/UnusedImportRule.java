@@ -0,0 +1,139 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.analysis.FindingSink;
+import com.bot.bot.analysis.RuleContext;
+import com.bot.bot.analysis.SinkRule;
+import com.bot.bot.content.FileText;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.scan.Lexer;
+import com.bot.bot.scan.LinearPattern;
+import com.bot.bot.scan.TokenStream;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Added Java imports that nothing in the file refers to. Whether a name is used can only be
+ * told from the whole file, so this rule reads the post-image ({@link RuleContext#postImage});
+ * without it, it reports nothing. A name counts as used when it appears as an identifier in
+ * code or as a word in a comment ({@code {@link Name}}, {@code @throws Name}). Wildcard
+ * imports are not checked.
+ */
+@Component
+public class UnusedImportRule extends SinkRule {
+
+    // Only feeds the shared prefilter: chunks without an added import are skipped
+    private static final LinearPattern IMPORT = LinearPattern.compile("^\\s*import\\s+[\\w.]+");
+
+    @Override
+    public void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+        TokenStream added = null;
+        List<String> names = null;
+        List<Integer> lines = null;
+        for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+            if (!context.mayMatch(i)) continue;
+            if (added == null) added = context.tokens(chunk);
+            String name = importedName(added, i);
+            if (name == null) continue;
+            if (names == null) {
+                names = new ArrayList<>();
+                lines = new ArrayList<>();
+            }
+            names.add(name);
+            lines.add(i);
+        }
+        if (names == null) return;
+
+        FileText file = context.postImage(chunk);
+        if (file == null) return;
+        context.checkBudget();
+        TokenStream tokens = Lexer.forFileType(chunk.getFileType()).lex(file.lineCount(), file::line);
+        boolean[] used = new boolean[names.size()];
+        int unused = used.length;
+        for (int line = 0; line < tokens.lines() && unused > 0; line++) {
+            if ((line & 255) == 0) context.checkBudget();
+            int first = tokens.firstCode(line);
+            if (first >= 0 && (tokens.is(first, "import") || tokens.is(first, "package"))) continue;
+            for (int t = tokens.firstToken(line); t < tokens.endToken(line); t++) {
+                byte kind = tokens.kind(t);
+                if (kind != TokenStream.IDENTIFIER && kind != TokenStream.COMMENT) continue;
+                for (int n = 0; n < used.length; n++) {
+                    if (used[n]) continue;
+                    boolean match = kind == TokenStream.IDENTIFIER
+                            ? tokens.is(t, names.get(n))
+                            : containsWord(file.line(line), tokens.start(t), tokens.end(t), names.get(n));
+                    if (match) {
+                        used[n] = true;
+                        unused--;
+                    }
+                }
+            }
+        }
+
+        for (int n = 0; n < used.length; n++) {
+            if (used[n]) continue;
+            sink.emit(lines.get(n), "LOW", "BEST_PRACTICE",
+                    "Unused import: " + chunk.addedLine(lines.get(n)).toString().trim(),
+                    "Remove the import; nothing in the file refers to " + names.get(n),
+                    0.9, 200);
+        }
+    }
+
+    /** Simple name {@code import [static] a.b.Name;} brings into scope, or null for other lines and wildcards. */
+    private static String importedName(TokenStream tokens, int line) {
+        int first = tokens.firstCode(line);
+        if (first < 0 || !tokens.is(first, "import")) return null;
+        int name = -1;
+        for (int t = first + 1; t < tokens.endToken(line); t++) {
+            if (tokens.is(t, ';')) break;
+            if (tokens.is(t, '*')) return null;
+            if (tokens.kind(t) == TokenStream.IDENTIFIER && !tokens.is(t, "static")) name = t;
+        }
+        return name >= 0 ? tokens.text(name) : null;
+    }
+
+    /** Whether {@code word} occurs in {@code text[from, to)} delimited by non-identifier characters. */
+    private static boolean containsWord(CharSequence text, int from, int to, String word) {
+        for (int i = from; i + word.length() <= to; i++) {
+            if (i > from && Character.isJavaIdentifierPart(text.charAt(i - 1))) continue;
+            int end = i + word.length();
+            if (end < to && Character.isJavaIdentifierPart(text.charAt(end))) continue;
+            int c = 0;
+            while (c < word.length() && text.charAt(i + c) == word.charAt(c)) c++;
+            if (c == word.length()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<String> getFileTypes() {
+        return Set.of("java");
+    }
+
+    @Override
+    public Set<String> getCategories() {
+        return Set.of("BEST_PRACTICE");
+    }
+
+    @Override
+    public List<LinearPattern> getLinePatterns() {
+        return List.of(IMPORT);
+    }
+
+    @Override
+    public boolean isWholeFile() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "UnusedImportRule";
+    }
+
+    @Override
+    public int getPriority() {
+        return 200;
+    }
+}
@@ -0,0 +1,97 @@
+package com.bot.bot.classify;
+
+import com.bot.bot.domain.ChangeChunk;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Result of {@link FileClassifier}: the chunks that go on to the analysis engines, the
+ * files that were skipped together with the diff bytes that were not analyzed, and the
+ * changes without semantic content (pure renames and copies, formatting-only hunks).
+ * The text chunks of skipped files are kept apart to be scanned by security rules only.
+ */
+@Data
+public class ClassifiedChanges {
+    /** Maximum number of skipped file names listed in the review summary. */
+    static final int MAX_LISTED_FILES = 10;
+
+    private final List<ChangeChunk> reviewable = new ArrayList<>();
+    private final Map<String, FileCategory> skippedFiles = new LinkedHashMap<>();
+    /** Chunks of skipped text files: not reviewed, but a secret committed there leaks all the same. */
+    private final List<ChangeChunk> securityOnly = new ArrayList<>();
+    private long skippedBytes;
+
+    private int renamedFiles;
+    private int copiedFiles;
+    private int formattingOnlyHunks;
+
+    public int getSkippedCount() {
+        return skippedFiles.size();
+    }
+
+    /**
+     * One-line markdown note for the review summary, e.g.
+     * {@code Skipped 3 files (48.2 KB of diff): 2 lockfile, 1 minified — `package-lock.json`, ...}.
+     * Returns null when nothing was skipped.
+     */
+    public String summaryNote() {
+        if (skippedFiles.isEmpty()) return null;
+
+        Map<FileCategory, Integer> byCategory = new EnumMap<>(FileCategory.class);
+        skippedFiles.values().forEach(c -> byCategory.merge(c, 1, Integer::sum));
+
+        StringBuilder sb = new StringBuilder("⏭️ Skipped ")
+                .append(skippedFiles.size()).append(skippedFiles.size() == 1 ? " file" : " files")
+                .append(" (").append(formatBytes(skippedBytes)).append(" of diff): ");
+
+        String sep = "";
+        for (Map.Entry<FileCategory, Integer> entry : byCategory.entrySet()) {
+            sb.append(sep).append(entry.getValue()).append(' ').append(entry.getKey().getLabel());
+            sep = ", ";
+        }
+
+        sb.append(" — ");
+        sep = "";
+        int listed = 0;
+        for (String path : skippedFiles.keySet()) {
+            if (listed++ == MAX_LISTED_FILES) {
+                sb.append(sep).append("and ").append(skippedFiles.size() - MAX_LISTED_FILES).append(" more");
+                break;
+            }
+            sb.append(sep).append('`').append(path).append('`');
+            sep = ", ";
+        }
+        return sb.toString();
+    }
+
+    /**
+     * One-line markdown note about changes that were not analyzed because they carry no
+     * semantic change, e.g. {@code No semantic changes in 12 renamed files and 4 formatting-only hunks}.
+     * Returns null when there were none.
+     */
+    public String semanticNote() {
+        List<String> parts = new ArrayList<>();
+        if (renamedFiles > 0) parts.add(renamedFiles + (renamedFiles == 1 ? " renamed file" : " renamed files"));
+        if (copiedFiles > 0) parts.add(copiedFiles + (copiedFiles == 1 ? " copied file" : " copied files"));
+        if (formattingOnlyHunks > 0) {
+            parts.add(formattingOnlyHunks + (formattingOnlyHunks == 1 ? " formatting-only hunk" : " formatting-only hunks"));
+        }
+        if (parts.isEmpty()) return null;
+
+        String joined = parts.size() == 1 ? parts.get(0)
+                : String.join(", ", parts.subList(0, parts.size() - 1)) + " and " + parts.get(parts.size() - 1);
+        return "♻️ No semantic changes in " + joined + "; not analyzed.";
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
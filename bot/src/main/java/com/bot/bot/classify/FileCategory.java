@@ -0,0 +1,22 @@
+package com.bot.bot.classify;
+
+/**
+ * Why a changed file was routed to the summary-only lane instead of being analyzed.
+ */
+public enum FileCategory {
+    LOCKFILE("lockfile"),
+    VENDORED("vendored"),
+    GENERATED("generated"),
+    MINIFIED("minified"),
+    BINARY("binary");
+
+    private final String label;
+
+    FileCategory(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
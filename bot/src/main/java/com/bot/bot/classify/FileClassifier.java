@@ -0,0 +1,268 @@
+package com.bot.bot.classify;
+
+import com.bot.bot.domain.ChangeChunk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies changed files before analysis and routes lockfiles, vendored trees, generated
+ * code, minified bundles and binary files to a summary-only lane. Pure renames and copies
+ * and formatting-only hunks (as detected by the parser) are always held back from analysis.
+ * Text files in the summary lane are still handed to the security rules, since a marker or
+ * one long line in a file says nothing about whether it carries a credential.
+ * <p>
+ * Detection runs per file, cheapest check first: binary marker from the parser, repo
+ * {@code .gitattributes} {@code linguist-generated}/{@code linguist-vendored} patterns,
+ * well-known lockfile names, vendored directories, generated file name conventions,
+ * generated-code markers near the top of the file, and finally line-length and
+ * character-entropy heuristics for minified content.
+ */
+@Slf4j
+@Service
+public class FileClassifier {
+
+    private static final Set<String> LOCKFILES = Set.of(
+            "package-lock.json", "npm-shrinkwrap.json", "yarn.lock", "pnpm-lock.yaml", "bun.lockb",
+            "composer.lock", "gemfile.lock", "cargo.lock", "poetry.lock", "pipfile.lock", "pdm.lock",
+            "uv.lock", "go.sum", "gradle.lockfile", "packages.lock.json", "podfile.lock", "mix.lock",
+            "pubspec.lock", "flake.lock", "package.resolved");
+
+    private static final List<String> VENDORED_DIRS = List.of(
+            "vendor/", "node_modules/", "bower_components/", "third_party/", "thirdparty/");
+
+    private static final List<String> GENERATED_SUFFIXES = List.of(
+            ".pb.go", ".pb.cc", ".pb.h", "_pb2.py", "_pb2_grpc.py", ".pb.swift", "_grpc.pb.go",
+            ".g.dart", ".freezed.dart", ".designer.cs", ".generated.cs", ".g.cs", ".min.js", ".min.css",
+            ".js.map", ".css.map");
+
+    private static final List<String> GENERATED_MARKERS = List.of(
+            "@generated", "do not edit", "code generated by", "autogenerated", "auto-generated",
+            "generated by the protocol buffer compiler");
+
+    /** Only the first lines of a file are checked for generated-code markers. */
+    static final int MARKER_SCAN_LINES = 10;
+
+    /** Any single added line at least this long marks the file as minified. */
+    static final int MINIFIED_MAX_LINE = 5_000;
+
+    /** Average added line length above which the entropy check is applied. */
+    static final int MINIFIED_AVG_LINE = 200;
+
+    /** Shannon entropy (bits per char) of minified code; wrapped prose and source stay below. */
+    static final double MINIFIED_MIN_ENTROPY = 4.5;
+
+    /** Classify with generated-file skipping enabled. */
+    public ClassifiedChanges classify(List<ChangeChunk> chunks, List<String> generatedPatterns) {
+        return classify(chunks, generatedPatterns, true);
+    }
+
+    /**
+     * Split the parsed chunks into reviewable chunks and skipped files.
+     *
+     * @param generatedPatterns {@code .gitattributes} patterns marked {@code linguist-generated}
+     *                          or {@code linguist-vendored}; may be empty
+     * @param skipGenerated     whether to skip lockfiles, vendored, generated and minified files;
+     *                          when false, binary files are still dropped but not reported
+     */
+    public ClassifiedChanges classify(List<ChangeChunk> chunks, List<String> generatedPatterns,
+                                      boolean skipGenerated) {
+        ClassifiedChanges result = new ClassifiedChanges();
+        if (chunks == null || chunks.isEmpty()) return result;
+
+        List<Pattern> attributePatterns = skipGenerated ? compileGitAttributes(generatedPatterns) : List.of();
+
+        Map<String, List<ChangeChunk>> byFile = new LinkedHashMap<>();
+        for (ChangeChunk chunk : chunks) {
+            byFile.computeIfAbsent(chunk.getFilePath(), k -> new ArrayList<>()).add(chunk);
+        }
+
+        for (Map.Entry<String, List<ChangeChunk>> entry : byFile.entrySet()) {
+            List<ChangeChunk> fileChunks = entry.getValue();
+            FileCategory category = entry.getKey() == null || !skipGenerated ? null
+                    : classifyFile(entry.getKey(), fileChunks, attributePatterns);
+            if (category == null) {
+                addWithoutNoOpChanges(fileChunks, result);
+            } else {
+                result.getSkippedFiles().put(entry.getKey(), category);
+                result.setSkippedBytes(result.getSkippedBytes() + diffBytes(fileChunks));
+                if (category != FileCategory.BINARY) {
+                    result.getSecurityOnly().addAll(fileChunks);
+                }
+            }
+        }
+
+        if (result.getSkippedCount() > 0) {
+            log.debug("Classifier skipped {} files ({} bytes of diff): {}",
+                    result.getSkippedCount(), result.getSkippedBytes(), result.getSkippedFiles());
+        }
+        return result;
+    }
+
+    /** Hold back binary chunks, pure renames/copies and formatting-only hunks; count the latter two. */
+    private static void addWithoutNoOpChanges(List<ChangeChunk> fileChunks, ClassifiedChanges result) {
+        for (ChangeChunk chunk : fileChunks) {
+            if (chunk.isBinary()) continue;
+            if (chunk.isPureMove()) {
+                if ("COPIED".equals(chunk.getChangeType())) {
+                    result.setCopiedFiles(result.getCopiedFiles() + 1);
+                } else {
+                    result.setRenamedFiles(result.getRenamedFiles() + 1);
+                }
+            } else if (chunk.isFormattingOnly()) {
+                result.setFormattingOnlyHunks(result.getFormattingOnlyHunks() + 1);
+            } else {
+                result.getReviewable().add(chunk);
+            }
+        }
+    }
+
+    FileCategory classifyFile(String path, List<ChangeChunk> chunks, List<Pattern> attributePatterns) {
+        if (chunks.stream().anyMatch(ChangeChunk::isBinary)) {
+            return FileCategory.BINARY;
+        }
+        for (Pattern pattern : attributePatterns) {
+            if (pattern.matcher(path).matches()) {
+                return FileCategory.GENERATED;
+            }
+        }
+
+        String lowerPath = path.toLowerCase(Locale.ROOT);
+        String fileName = lowerPath.substring(lowerPath.lastIndexOf('/') + 1);
+        if (LOCKFILES.contains(fileName)) {
+            return FileCategory.LOCKFILE;
+        }
+        for (String dir : VENDORED_DIRS) {
+            if (lowerPath.startsWith(dir) || lowerPath.contains("/" + dir)) {
+                return FileCategory.VENDORED;
+            }
+        }
+        for (String suffix : GENERATED_SUFFIXES) {
+            if (fileName.endsWith(suffix)) {
+                return FileCategory.GENERATED;
+            }
+        }
+        if (hasGeneratedMarker(chunks.get(0))) {
+            return FileCategory.GENERATED;
+        }
+        if (isMinified(chunks)) {
+            return FileCategory.MINIFIED;
+        }
+        return null;
+    }
+
+    /** Look for a generated-code marker in the first lines of the file, if the first hunk covers them. */
+    private static boolean hasGeneratedMarker(ChangeChunk first) {
+        if (first.getStartLine() > MARKER_SCAN_LINES) return false;
+
+        int limit = Math.min(first.getAddedLines().size(), MARKER_SCAN_LINES);
+        for (int i = 0; i < limit; i++) {
+            if (first.newLineNumber(i) > MARKER_SCAN_LINES) break;
+            String line = first.addedLine(i).toString().toLowerCase(Locale.ROOT);
+            for (String marker : GENERATED_MARKERS) {
+                if (line.contains(marker)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Minified content has very long lines and a flat character distribution. A single huge
+     * line is enough; otherwise long average lines must also have high Shannon entropy so that
+     * unwrapped prose (long lines, low entropy) is still reviewed.
+     */
+    static boolean isMinified(List<ChangeChunk> chunks) {
+        int[] histogram = new int[256];
+        long chars = 0;
+        int lines = 0;
+        for (ChangeChunk chunk : chunks) {
+            int size = chunk.getAddedLines().size();
+            for (int i = 0; i < size; i++) {
+                CharSequence line = chunk.addedLine(i);
+                int length = line.length();
+                if (length >= MINIFIED_MAX_LINE) return true;
+                for (int c = 0; c < length; c++) {
+                    histogram[line.charAt(c) & 0xFF]++;
+                }
+                chars += length;
+                lines++;
+            }
+        }
+        if (lines == 0 || chars / lines < MINIFIED_AVG_LINE) return false;
+        return entropy(histogram, chars) >= MINIFIED_MIN_ENTROPY;
+    }
+
+    static double entropy(int[] histogram, long total) {
+        double bits = 0;
+        for (int count : histogram) {
+            if (count == 0) continue;
+            double p = (double) count / total;
+            bits -= p * (Math.log(p) / Math.log(2));
+        }
+        return bits;
+    }
+
+    /** Bytes of diff body (added and removed lines including their newline) that were not analyzed. */
+    private static long diffBytes(List<ChangeChunk> chunks) {
+        long bytes = 0;
+        for (ChangeChunk chunk : chunks) {
+            for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+                bytes += chunk.addedLine(i).length() + 2;
+            }
+            for (int i = 0; i < chunk.getRemovedLines().size(); i++) {
+                bytes += chunk.removedLine(i).length() + 2;
+            }
+        }
+        return bytes;
+    }
+
+    // ── .gitattributes patterns ──────────────────────────────────────
+
+    static List<Pattern> compileGitAttributes(List<String> patterns) {
+        List<Pattern> compiled = new ArrayList<>();
+        if (patterns == null) return compiled;
+        for (String pattern : patterns) {
+            if (pattern != null && !pattern.isBlank()) {
+                compiled.add(Pattern.compile(globToRegex(pattern.trim())));
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Translate a gitattributes glob to a regex over repo-relative paths: a pattern without
+     * a slash matches the file name at any depth, {@code **} spans directories, {@code *} and
+     * {@code ?} stay within one path segment, and a trailing slash matches a whole directory.
+     */
+    public static String globToRegex(String glob) {
+        boolean directory = glob.endsWith("/");
+        if (directory) glob = glob.substring(0, glob.length() - 1);
+        boolean anchored = glob.contains("/");
+        if (glob.startsWith("/")) glob = glob.substring(1);
+
+        StringBuilder regex = new StringBuilder(anchored ? "" : "(?:.*/)?");
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                boolean slashFollows = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                regex.append(slashFollows ? "(?:.*/)?" : ".*");
+                i += slashFollows ? 2 : 1;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        if (directory) regex.append("/.*");
+        return regex.toString();
+    }
+}
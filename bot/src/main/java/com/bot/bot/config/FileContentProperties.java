@@ -0,0 +1,38 @@
+package com.bot.bot.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import lombok.Data;
+
+/**
+ * Full post-image contents of changed files, for whole-file heuristic rules. Contents are
+ * cached on disk by git blob id and read through memory-mapped files.
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "file-content")
+public class FileContentProperties {
+
+    /** Whether whole-file rules get file contents; when disabled they see none and report nothing. */
+    private boolean enabled = true;
+
+    /** Directory holding one file per cached blob. */
+    @NotEmpty(message = "FILE_CONTENT_CACHE_DIR must be set")
+    private String cacheDir = "file-content-cache";
+
+    /** Size of the cache directory beyond which the least recently used blobs are deleted. */
+    @Min(value = 1, message = "FILE_CONTENT_CACHE_MAX_MB must be >= 1")
+    private long cacheMaxMb = 512;
+
+    /** Time one file content may take to fetch before the rules asking for it go without. */
+    @Min(value = 1, message = "FILE_CONTENT_FETCH_TIMEOUT_MS must be >= 1")
+    private long fetchTimeoutMs = 5_000;
+
+    /** Files larger than this are neither fetched into the cache nor given to rules. */
+    @Min(value = 1, message = "FILE_CONTENT_MAX_FILE_KB must be >= 1")
+    private int maxFileKb = 1_024;
+}
@@ -0,0 +1,63 @@
+package com.bot.bot.config;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import lombok.Data;
+
+/**
+ * Limits and parallelism of the heuristics engine. Budgets are CPU time of the thread
+ * running the rule (wall-clock time where the JVM cannot measure thread CPU time).
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "heuristics")
+public class HeuristicsProperties {
+
+    /** CPU time one rule may spend on one chunk before it is abandoned. */
+    @Min(value = 1, message = "HEURISTICS_RULE_BUDGET_MS must be >= 1")
+    private long ruleBudgetMs = 2_000;
+
+    /** CPU time all rules together may spend on one chunk; remaining rules are skipped. */
+    @Min(value = 1, message = "HEURISTICS_CHUNK_BUDGET_MS must be >= 1")
+    private long chunkBudgetMs = 10_000;
+
+    /** Budget breaches after which a rule is quarantined (not run again) until restart. */
+    @Min(value = 1, message = "HEURISTICS_QUARANTINE_AFTER must be >= 1")
+    private int quarantineAfter = 3;
+
+    /** Worker threads of the engine's own fork-join pool; 0 means one per available processor. */
+    @Min(value = 0, message = "HEURISTICS_PARALLELISM must be >= 0")
+    private int parallelism = 0;
+
+    /**
+     * Added lines per pool task: smaller chunks are batched up to it, and chunks of more
+     * than twice as many lines are split into ranges of about this size for line-local rules.
+     */
+    @Min(value = 1, message = "HEURISTICS_TASK_LINES must be >= 1")
+    private int taskLines = 2_048;
+
+    /** Sliding window, in one-minute slots, over which the {@code rules} actuator endpoint ranks rule cost. */
+    @Min(value = 1, message = "HEURISTICS_PROFILE_WINDOW_MINUTES must be >= 1")
+    private int profileWindowMinutes = 15;
+
+    /** Directory of YAML rule packs, watched for changes; empty to load classpath packs only. */
+    private String rulePackDir = "";
+
+    /** How often the rule pack directory is checked for added, changed or removed files. */
+    @Min(value = 1, message = "HEURISTICS_RULE_PACK_POLL_SECONDS must be >= 1")
+    private int rulePackPollSeconds = 10;
+
+    /** Chunk results kept in memory by hunk content, so unchanged hunks are not analyzed again; 0 disables the cache. */
+    @Min(value = 0, message = "HEURISTICS_CACHE_MAX_ENTRIES must be >= 0")
+    private int cacheMaxEntries = 10_000;
+
+    /** Directory the result cache is also written to, surviving restarts; empty for memory only. */
+    private String cacheDir = "";
+
+    /** Size of the cache directory beyond which the least recently used entries are deleted. */
+    @Min(value = 1, message = "HEURISTICS_CACHE_DISK_MAX_MB must be >= 1")
+    private long cacheDiskMaxMb = 256;
+}
@@ -0,0 +1,270 @@
+package com.bot.bot.config;
+
+import com.bot.bot.scan.LinearPattern;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The {@code ignore_paths} of a {@link ReviewConfig}, validated and compiled once per config load.
+ * <p>
+ * Entries are globs unless they use regex syntax. Globs follow {@code .gitignore}: {@code *} and
+ * {@code ?} match within a path segment, {@code **} matches any number of segments, an entry
+ * without a {@code /} (other than a trailing one) matches a file or directory name at any depth,
+ * and any other entry is anchored at the repository root. A path is ignored when it or one of
+ * its parent directories matches, so {@code generated} and {@code generated/**} both cover
+ * everything under {@code generated/}.
+ * <p>
+ * All globs are compiled into one trie of path segments, with wildcard edges, walked once per
+ * path whatever the number of entries. Literal segments are looked up by name, {@code *.ext}
+ * and {@code prefix*} segments by their literal part, and only other wildcard segments are
+ * tried one by one.
+ * <p>
+ * An entry containing {@code \ ( ) [ ] { } + ^ $ |}, {@code .*}, {@code .+} or {@code .?} is a
+ * regex that must match the whole path. Regexes are combined into one alternation run on
+ * {@link LinearPattern}, so matching a path costs at most its length times the compiled program
+ * size whatever a repo configures; those that are not valid linear-time regexes (lookaround,
+ * backreferences) are matched as globs instead and reported by {@link #getRejected}.
+ */
+@Slf4j
+public final class IgnorePathMatcher {
+    static final IgnorePathMatcher NONE = new IgnorePathMatcher(null, List.of(), List.of());
+
+    private final Node root;
+    // Regex entries, as one alternation when it compiles within the program size limit
+    private final List<LinearPattern> regexes;
+    private final List<String> rejected;
+
+    private IgnorePathMatcher(Node root, List<LinearPattern> regexes, List<String> rejected) {
+        this.root = root;
+        this.regexes = regexes;
+        this.rejected = rejected;
+    }
+
+    public static IgnorePathMatcher compile(List<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) return NONE;
+
+        Node root = null;
+        List<LinearPattern> regexes = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isBlank()) continue;
+            if (isRegex(pattern)) {
+                try {
+                    regexes.add(LinearPattern.compile(pattern));
+                    continue;
+                } catch (PatternSyntaxException e) {
+                    rejected.add(pattern);
+                    log.debug("ignore_paths entry '{}' is not a linear-time regex ({}); matching it as a glob",
+                            pattern, e.getDescription());
+                }
+            }
+            if (root == null) root = new Node();
+            root.insert(pattern);
+        }
+        if (root == null && regexes.isEmpty()) return NONE;
+        if (root != null) root.seal();
+        return new IgnorePathMatcher(root, combine(regexes), List.copyOf(rejected));
+    }
+
+    private static boolean isRegex(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if ("\\()[]{}+^$|".indexOf(c) >= 0) return true;
+            if (c == '.' && i + 1 < pattern.length() && "*+?".indexOf(pattern.charAt(i + 1)) >= 0) return true;
+        }
+        return false;
+    }
+
+    private static List<LinearPattern> combine(List<LinearPattern> regexes) {
+        if (regexes.size() < 2) return List.copyOf(regexes);
+        StringBuilder alternation = new StringBuilder();
+        for (LinearPattern regex : regexes) {
+            if (!alternation.isEmpty()) alternation.append('|');
+            alternation.append("(?:").append(regex.pattern()).append(')');
+        }
+        try {
+            return List.of(LinearPattern.compile(alternation.toString()));
+        } catch (PatternSyntaxException e) {
+            // Over the program size limit together
+            return List.copyOf(regexes);
+        }
+    }
+
+    public boolean isEmpty() {
+        return root == null && regexes.isEmpty();
+    }
+
+    public boolean isIgnored(String filePath) {
+        if (filePath == null) return false;
+        if (root != null && root.matches(filePath)) return true;
+        for (LinearPattern regex : regexes) {
+            if (regex.matches(filePath)) return true;
+        }
+        return false;
+    }
+
+    /** Entries with regex syntax that are not valid linear-time regexes, matched as globs instead. */
+    public List<String> getRejected() {
+        return rejected;
+    }
+
+    /**
+     * A state of the glob trie: the segments of entries matched so far. A {@code **} node
+     * loops on any segment; {@link #terminal} ends an entry.
+     */
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        // Segments "*literal" by literal, "literal*" by literal, with the distinct literal lengths
+        private final Map<String, Node> suffixes = new HashMap<>();
+        private final Map<String, Node> prefixes = new HashMap<>();
+        private int[] suffixLengths = {};
+        private int[] prefixLengths = {};
+        // Other wildcard segments, tried in turn
+        private final List<String> globs = new ArrayList<>();
+        private final List<Node> globNodes = new ArrayList<>();
+        private Node anySegments;
+        private boolean loops;
+        private boolean terminal;
+
+        void insert(String pattern) {
+            String glob = pattern.trim();
+            while (glob.endsWith("/")) glob = glob.substring(0, glob.length() - 1);
+            if (glob.isEmpty()) return;
+            // Unanchored unless a slash precedes the last segment
+            if (glob.indexOf('/') < 0) glob = "**/" + glob;
+            Node node = this;
+            for (String segment : glob.split("/")) {
+                if (segment.isEmpty()) continue;
+                node = node.child(segment);
+            }
+            node.terminal = true;
+        }
+
+        private Node child(String segment) {
+            if (segment.equals("**")) {
+                if (anySegments == null) {
+                    anySegments = new Node();
+                    anySegments.loops = true;
+                }
+                return anySegments;
+            }
+            int star = segment.indexOf('*');
+            boolean wild = star >= 0 || segment.indexOf('?') >= 0;
+            if (!wild) return literals.computeIfAbsent(segment, s -> new Node());
+            String rest = segment.substring(star + 1);
+            boolean single = segment.indexOf('*', star + 1) < 0 && segment.indexOf('?') < 0;
+            if (single && star == 0) return suffixes.computeIfAbsent(rest, s -> new Node());
+            if (single && star == segment.length() - 1) return prefixes.computeIfAbsent(segment.substring(0, star), s -> new Node());
+            int index = globs.indexOf(segment);
+            if (index >= 0) return globNodes.get(index);
+            globs.add(segment);
+            globNodes.add(new Node());
+            return globNodes.get(globNodes.size() - 1);
+        }
+
+        /** Freezes the literal lengths of this node and its descendants once every entry is inserted. */
+        void seal() {
+            suffixLengths = lengths(suffixes);
+            prefixLengths = lengths(prefixes);
+            literals.values().forEach(Node::seal);
+            suffixes.values().forEach(Node::seal);
+            prefixes.values().forEach(Node::seal);
+            globNodes.forEach(Node::seal);
+            if (anySegments != null) anySegments.seal();
+        }
+
+        private static int[] lengths(Map<String, Node> byLiteral) {
+            return new TreeSet<>(byLiteral.keySet().stream().map(String::length).toList())
+                    .stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Whether an entry matches {@code path} or one of its parent directories. */
+        boolean matches(String path) {
+            List<Node> states = new ArrayList<>(4);
+            enter(states, this);
+            List<Node> next = new ArrayList<>(4);
+            int n = path.length();
+            for (int start = 0; start < n; ) {
+                int end = path.indexOf('/', start);
+                if (end < 0) end = n;
+                if (end > start) {
+                    String segment = path.substring(start, end);
+                    for (Node node : states) {
+                        // An entry matched a parent directory
+                        if (node.terminal) return true;
+                        node.step(segment, next);
+                    }
+                    if (next.isEmpty()) return false;
+                    List<Node> swap = states;
+                    states = next;
+                    next = swap;
+                    next.clear();
+                }
+                start = end + 1;
+            }
+            for (Node node : states) {
+                if (node.terminal) return true;
+            }
+            return false;
+        }
+
+        private void step(String segment, List<Node> next) {
+            Node literal = literals.get(segment);
+            if (literal != null) enter(next, literal);
+            int length = segment.length();
+            for (int l : suffixLengths) {
+                if (l > length) break;
+                Node node = suffixes.get(segment.substring(length - l));
+                if (node != null) enter(next, node);
+            }
+            for (int l : prefixLengths) {
+                if (l > length) break;
+                Node node = prefixes.get(segment.substring(0, l));
+                if (node != null) enter(next, node);
+            }
+            for (int g = 0; g < globs.size(); g++) {
+                if (globMatches(globs.get(g), segment)) enter(next, globNodes.get(g));
+            }
+            if (loops) enter(next, this);
+        }
+
+        /** Adds {@code node}, and the {@code **} nodes reachable from it without consuming a segment. */
+        private static void enter(List<Node> states, Node node) {
+            for (Node state : states) {
+                if (state == node) return;
+            }
+            states.add(node);
+            if (node.anySegments != null) enter(states, node.anySegments);
+        }
+
+        /** {@code *} and {@code ?} wildcard match of a whole segment, backtracking only to the last {@code *}. */
+        static boolean globMatches(String glob, String segment) {
+            int g = 0;
+            int i = 0;
+            int star = -1;
+            int mark = 0;
+            while (i < segment.length()) {
+                if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == segment.charAt(i))) {
+                    g++;
+                    i++;
+                } else if (g < glob.length() && glob.charAt(g) == '*') {
+                    star = g++;
+                    mark = i;
+                } else if (star >= 0) {
+                    g = star + 1;
+                    i = ++mark;
+                } else {
+                    return false;
+                }
+            }
+            while (g < glob.length() && glob.charAt(g) == '*') g++;
+            return g == glob.length();
+        }
+    }
+}
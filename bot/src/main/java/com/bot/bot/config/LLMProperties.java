@@ -32,6 +32,23 @@ public class LLMProperties {
 
     private boolean enabled = true;
 
+    /**
+     * Concurrent provider calls allowed at startup; the limit then adapts to observed latency
+     * between {@code concurrencyMin} and {@code concurrencyMax}.
+     */
+    @Min(value = 1, message = "LLM_CONCURRENCY_INITIAL must be >= 1")
+    private int concurrencyInitial = 4;
+
+    @Min(value = 1, message = "LLM_CONCURRENCY_MIN must be >= 1")
+    private int concurrencyMin = 1;
+
+    @Min(value = 1, message = "LLM_CONCURRENCY_MAX must be >= 1")
+    private int concurrencyMax = 64;
+
+    /** Calls that may wait for a permit; further calls are rejected. */
+    @Min(value = 0, message = "LLM_CONCURRENCY_MAX_QUEUE must be >= 0")
+    private int concurrencyMaxQueue = 1000;
+
     /** API key for providers that require one (e.g., NVIDIA NIM) */
     private String apiKey = "";
 }
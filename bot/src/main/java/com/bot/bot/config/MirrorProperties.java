@@ -0,0 +1,33 @@
+package com.bot.bot.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import lombok.Data;
+
+/**
+ * Settings for the optional local bare-repository mirror.
+ * When enabled, PR diffs are computed from an on-disk clone instead of the REST diff endpoint.
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "mirror")
+public class MirrorProperties {
+
+    private boolean enabled = false;
+
+    /** Directory holding one bare clone per repository. */
+    @NotEmpty(message = "MIRROR_BASE_DIR must be set")
+    private String baseDir = "mirrors";
+
+    /** Disk budget for all mirrors; least recently used repos are evicted above it. */
+    @Min(value = 1, message = "MIRROR_MAX_DISK_MB must be >= 1")
+    private long maxDiskMb = 10_240;
+
+    /** Clone URL; {@code %s/%s} is replaced by owner and repo. */
+    @NotEmpty(message = "MIRROR_CLONE_URL_TEMPLATE must be set")
+    private String cloneUrlTemplate = "https://github.com/%s/%s.git";
+}
@@ -7,11 +7,15 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import org.yaml.snakeyaml.Yaml;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * Loads per-repo .prreview.yaml configuration from the repository's default branch.
- * Uses raw GitHub content URL for simplicity.
+ * Loads per-repo .prreview.yaml configuration from the repository's default branch,
+ * together with the {@code linguist-generated} / {@code linguist-vendored} patterns of
+ * its .gitattributes. Uses raw GitHub content URLs for simplicity.
  */
 @Slf4j
 @Service
@@ -19,6 +23,9 @@ import java.util.Map;
 public class RepoConfigLoader {
 
     private static final String RAW_URL = "https://raw.githubusercontent.com/%s/%s/HEAD/.prreview.yaml";
+    private static final String ATTRIBUTES_URL = "https://raw.githubusercontent.com/%s/%s/HEAD/.gitattributes";
+    private static final Set<String> GENERATED_ATTRIBUTES = Set.of(
+            "linguist-generated", "linguist-generated=true", "linguist-vendored", "linguist-vendored=true");
 
     private final WebClient webClient;
 
@@ -38,9 +45,45 @@ public class RepoConfigLoader {
                     log.debug("No .prreview.yaml found for {}/{} ({}), using defaults",
                             owner, repo, e.getMessage());
                     return Mono.just(new ReviewConfig());
+                })
+                .zipWith(loadGeneratedPaths(owner, repo), (config, generatedPaths) -> {
+                    config.setGeneratedPaths(generatedPaths);
+                    return config;
                 });
     }
 
+    /** Fetch .gitattributes and extract its generated/vendored patterns; empty if absent. */
+    private Mono<List<String>> loadGeneratedPaths(String owner, String repo) {
+        return webClient.get()
+                .uri(String.format(ATTRIBUTES_URL, owner, repo))
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(RepoConfigLoader::parseGitAttributes)
+                .onErrorResume(e -> Mono.just(List.of()))
+                .defaultIfEmpty(List.of());
+    }
+
+    /**
+     * Patterns whose attributes include {@code linguist-generated} or {@code linguist-vendored}
+     * (bare or {@code =true}). Comments, blank lines and macro definitions are skipped.
+     */
+    static List<String> parseGitAttributes(String content) {
+        List<String> patterns = new ArrayList<>();
+        for (String line : content.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("[attr]")) continue;
+
+            String[] tokens = trimmed.split("\\s+");
+            for (int i = 1; i < tokens.length; i++) {
+                if (GENERATED_ATTRIBUTES.contains(tokens[i])) {
+                    patterns.add(tokens[0]);
+                    break;
+                }
+            }
+        }
+        return patterns;
+    }
+
     @SuppressWarnings("unchecked")
     ReviewConfig parseYaml(String yamlContent) {
         if (yamlContent == null || yamlContent.isBlank()) {
@@ -61,9 +104,15 @@ public class RepoConfigLoader {
             if (raw.containsKey("inline_comments")) config.setInlineComments(toBoolean(raw.get("inline_comments")));
             if (raw.containsKey("review_summary")) config.setReviewSummary(toBoolean(raw.get("review_summary")));
             if (raw.containsKey("llm_model")) config.setLlmModel(String.valueOf(raw.get("llm_model")));
+            if (raw.containsKey("publish_mode")) config.setPublishMode(String.valueOf(raw.get("publish_mode")));
+            if (raw.containsKey("skip_generated")) config.setSkipGenerated(toBoolean(raw.get("skip_generated")));
 
             if (raw.containsKey("ignore_paths")) {
                 config.setIgnorePaths(((java.util.List<String>) raw.get("ignore_paths")));
+                if (!config.getIgnorePathMatcher().getRejected().isEmpty()) {
+                    log.warn("ignore_paths entries {} are not linear-time regexes; matching them as globs",
+                            config.getIgnorePathMatcher().getRejected());
+                }
             }
             if (raw.containsKey("ignore_rules")) {
                 config.setIgnoreRules(((java.util.List<String>) raw.get("ignore_rules")));
@@ -1,6 +1,10 @@
 package com.bot.bot.config;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,7 +23,46 @@ public class ReviewConfig {
     private List<String> ignoreRules = new ArrayList<>();
     private String llmModel;
 
+    /** How findings are published: "review" (default) or "check_run". */
+    private String publishMode;
+
+    /** Skip lockfiles, vendored, generated, minified and binary files (default true). */
+    private Boolean skipGenerated;
+
+    /** Patterns marked {@code linguist-generated} or {@code linguist-vendored} in .gitattributes. */
+    private List<String> generatedPaths = new ArrayList<>();
+
+    /** {@link #ignorePaths} compiled by {@link #setIgnorePaths}, so patterns are validated once per load. */
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private IgnorePathMatcher ignorePathMatcher = IgnorePathMatcher.NONE;
+
+    /** {@link #ignoreRules} compiled by {@link #setIgnoreRules}. */
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private ReviewPlan reviewPlan = ReviewPlan.ALL;
+
+    public void setIgnorePaths(List<String> ignorePaths) {
+        this.ignorePaths = ignorePaths != null ? ignorePaths : new ArrayList<>();
+        this.ignorePathMatcher = IgnorePathMatcher.compile(this.ignorePaths);
+    }
+
+    public void setIgnoreRules(List<String> ignoreRules) {
+        this.ignoreRules = ignoreRules != null ? ignoreRules : new ArrayList<>();
+        this.reviewPlan = ReviewPlan.compile(this.ignoreRules);
+    }
+
     public boolean isEnabled() {
         return enabled == null || enabled;
     }
+
+    public boolean isSkipGenerated() {
+        return skipGenerated == null || skipGenerated;
+    }
+
+    public boolean isCheckRunMode() {
+        return "check_run".equalsIgnoreCase(publishMode);
+    }
 }
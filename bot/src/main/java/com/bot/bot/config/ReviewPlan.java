@@ -0,0 +1,116 @@
+package com.bot.bot.config;
+
+import com.bot.bot.domain.Finding;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The {@code ignore_rules} of a {@link ReviewConfig}, compiled once per config load into what a
+ * review runs, so that ignored work is never done rather than discarded afterwards.
+ * <p>
+ * An entry is matched case-insensitively against heuristic rule names, finding categories
+ * and finding sources ({@code HEURISTIC}, {@code LLM}). A rule is disabled when its name is
+ * ignored or it declares categories and all of them are ignored; an ignored source skips its
+ * whole lane. Findings of rules that do not declare their categories are still filtered by
+ * {@link #retain} once produced.
+ * <p>
+ * A plan {@link #restrictTo restricted} to a category additionally disables every rule that
+ * does not declare it and drops every finding of another category.
+ */
+public final class ReviewPlan {
+    public static final ReviewPlan ALL = new ReviewPlan(Set.of(), List.of(), null);
+
+    // Upper-cased entries
+    private final Set<String> ignored;
+    private final List<String> entries;
+    // Upper-cased category of every rule that runs; null when unrestricted
+    private final String only;
+
+    private ReviewPlan(Set<String> ignored, List<String> entries, String only) {
+        this.ignored = ignored;
+        this.entries = entries;
+        this.only = only;
+    }
+
+    public static ReviewPlan compile(List<String> ignoreRules) {
+        if (ignoreRules == null || ignoreRules.isEmpty()) return ALL;
+
+        Set<String> ignored = new HashSet<>();
+        List<String> entries = new ArrayList<>();
+        for (String entry : ignoreRules) {
+            if (entry == null || entry.isBlank()) continue;
+            if (ignored.add(normalize(entry))) entries.add(entry.trim());
+        }
+        return entries.isEmpty() ? ALL : new ReviewPlan(Set.copyOf(ignored), List.copyOf(entries), null);
+    }
+
+    /** This plan, running only the rules that declare {@code category} and keeping only its findings. */
+    public ReviewPlan restrictTo(String category) {
+        return new ReviewPlan(ignored, entries, normalize(category));
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /** Whether nothing is ignored and the plan is not restricted. */
+    public boolean isEmpty() {
+        return entries.isEmpty() && only == null;
+    }
+
+    public boolean runsHeuristics() {
+        return !ignored.contains("HEURISTIC");
+    }
+
+    public boolean runsLlm() {
+        return !ignored.contains("LLM");
+    }
+
+    /** Whether an entry names {@code name}, a rule name, category or source. */
+    public boolean isIgnored(String name) {
+        return name != null && !ignored.isEmpty() && ignored.contains(normalize(name));
+    }
+
+    /** Whether the heuristic rule {@code name}, reporting {@code categories} (empty when undeclared), is disabled. */
+    public boolean disables(String name, Set<String> categories) {
+        if (isEmpty()) return false;
+        if (!runsHeuristics() || isIgnored(name)) return true;
+        if (only != null && !reports(categories, only)) return true;
+        if (categories.isEmpty()) return false;
+        for (String category : categories) {
+            if (!isIgnored(category)) return false;
+        }
+        return true;
+    }
+
+    private static boolean reports(Set<String> categories, String category) {
+        for (String declared : categories) {
+            if (normalize(declared).equals(category)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * {@code findings} without those of an ignored source or category, or of a category other
+     * than the one the plan is restricted to; {@code findings} itself when none are.
+     */
+    public List<Finding> retain(List<Finding> findings) {
+        if (isEmpty()) return findings;
+        List<Finding> retained = new ArrayList<>(findings.size());
+        for (Finding finding : findings) {
+            if (isIgnored(finding.getSource()) || isIgnored(finding.getCategory())) continue;
+            if (only != null && (finding.getCategory() == null || !normalize(finding.getCategory()).equals(only))) continue;
+            retained.add(finding);
+        }
+        return retained;
+    }
+
+    /** The entries as configured, trimmed and without duplicates. */
+    public List<String> getEntries() {
+        return entries;
+    }
+}
@@ -0,0 +1,213 @@
+package com.bot.bot.content;
+
+import com.bot.bot.scan.XxHash64;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * File texts by key on disk, one file per text, read through memory-mapped buffers
+ * ({@link FileText}) so cached contents take no heap. Keys name immutable content (git blob
+ * ids), so an entry is never invalidated, only evicted: when the files exceed
+ * {@code maxBytes} the least recently used are deleted. A mapping outlives the deletion of
+ * its file until it is garbage collected, so texts handed out stay readable.
+ * <p>
+ * Files left by an earlier run are indexed when the store is opened, oldest first, and
+ * mapped on first use. Thread-safe.
+ */
+@Slf4j
+final class BlobStore {
+    private static final int FORMAT = 1;
+    private static final long NAME_SEED = 0x626c6f6273746f72L;
+
+    private final Path dir;
+    private final long maxBytes;
+    // Access-ordered; guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /** A stored text: its file, size on disk, and mapped text once read. */
+    private static final class Entry {
+        private final Path file;
+        private final long size;
+        private FileText text;
+
+        Entry(Path file, long size, FileText text) {
+            this.file = file;
+            this.size = size;
+            this.text = text;
+        }
+    }
+
+    BlobStore(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    /** The text stored under {@code key}, or null. */
+    FileText get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.text != null) return entry != null ? entry.text : null;
+        }
+        FileText text = map(entry.file, key);
+        synchronized (this) {
+            if (text == null) {
+                remove(key, entry);
+            } else if (entries.get(key) == entry) {
+                entry.text = text;
+            }
+        }
+        return text;
+    }
+
+    /** Store {@code text} under {@code key}, returning it mapped from its file; on heap if it cannot be written. */
+    FileText put(String key, String text) {
+        Path file = file(key);
+        boolean latin1 = FileText.isLatin1(text);
+        try {
+            Files.createDirectories(file.getParent());
+            // Written aside and moved into place, so readers never map a partial file
+            Path tmp = Files.createTempFile(file.getParent(), "blob", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FORMAT);
+                out.writeUTF(key);
+                out.writeBoolean(latin1);
+                out.write(FileText.encode(text).array());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            FileText mapped = map(file, key);
+            if (mapped == null) return FileText.of(text);
+            long size = Files.size(file);
+            synchronized (this) {
+                Entry previous = entries.put(key, new Entry(file, size, mapped));
+                if (previous != null) bytes -= previous.size;
+                bytes += size;
+                evict();
+            }
+            return mapped;
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to write file content cache file {}: {}", file, e.getMessage());
+            return FileText.of(text);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    /** Delete the least recently used files until the store fits {@code maxBytes}. */
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            eldest.remove();
+            bytes -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) bytes -= entry.size;
+    }
+
+    private Path file(String key) {
+        String name = String.format("%016x", new XxHash64(NAME_SEED).putChars(key).digest());
+        return dir.resolve(name.substring(0, 2)).resolve(name + ".blob");
+    }
+
+    /** Map the text of {@code file}, or null if it is gone, unreadable or holds another key. */
+    private static FileText map(Path file, String key) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header == null || !header.key().equals(key)) return null;
+            ByteBuffer text = channel.map(FileChannel.MapMode.READ_ONLY, header.length(), channel.size() - header.length());
+            return new FileText(text, header.latin1());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Unreadable file content cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private record Header(String key, boolean latin1, int length) {
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        // Format, key length and at most 3 bytes per key character, flag
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(channel.size(), 4 + 2 + 3 * 256 + 1));
+        channel.read(head, 0);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(head.array(), 0, head.position()))) {
+            if (in.readInt() != FORMAT) return null;
+            int keyBytes = head.getShort(4) & 0xFFFF;
+            String key = in.readUTF();
+            boolean latin1 = in.readBoolean();
+            return new Header(key, latin1, 4 + 2 + keyBytes + 1);
+        } catch (EOFException | UTFDataFormatException e) {
+            return null;
+        }
+    }
+
+    /** Index the files of an earlier run, least recently used first. */
+    private void load() {
+        if (!Files.isDirectory(dir)) return;
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(p -> p.toString().endsWith(".blob")).toList();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to list file content cache directory {}: {}", dir, e.getMessage());
+            return;
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : files) {
+            try {
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException e) {
+                // Deleted meanwhile
+            }
+        }
+        List<Path> oldestFirst = new ArrayList<>(modified.keySet());
+        oldestFirst.sort(Comparator.comparing(modified::get));
+        synchronized (this) {
+            for (Path file : oldestFirst) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    Header header = readHeader(channel);
+                    if (header == null || !file.equals(file(header.key()))) {
+                        delete(file);
+                        continue;
+                    }
+                    entries.put(header.key(), new Entry(file, channel.size(), null));
+                    bytes += channel.size();
+                } catch (IOException e) {
+                    log.debug("Unreadable file content cache file {}: {}", file, e.getMessage());
+                }
+            }
+            evict();
+        }
+        log.info("Indexed {} cached file contents ({} bytes) in {}", entries.size(), bytes, dir);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete file content cache file {}: {}", file, e.getMessage());
+        }
+    }
+}
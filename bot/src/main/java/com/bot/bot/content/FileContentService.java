@@ -0,0 +1,155 @@
+package com.bot.bot.content;
+
+import com.bot.bot.config.FileContentProperties;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.PullRequestContext;
+import com.bot.bot.github.GitHubApiClient;
+import com.bot.bot.mirror.RepositoryMirror;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Post-image contents of changed files by git blob id, for whole-file heuristic rules.
+ * <p>
+ * A blob id names immutable content, so cached contents never need invalidating; they are
+ * kept in a {@link BlobStore} under {@code file-content.cache-dir}, memory-mapped, up to
+ * {@code file-content.cache-max-mb}. Full ids (diffs computed by the local mirror) are keys
+ * as they are; abbreviated ids (the REST diff) are qualified by the repository. Misses are
+ * read from the mirror when enabled, otherwise fetched by path at the PR head commit, and
+ * then checked against the blob id so a moved head cannot cache the wrong content.
+ * <p>
+ * Binary files and files over {@code file-content.max-file-kb} are not cached and have no
+ * content. Metrics: {@code file.content.requests} tagged {@code result} ({@code hit},
+ * {@code fetched} or {@code unavailable}), {@code file.content.cache.entries} and
+ * {@code file.content.cache.bytes}.
+ */
+@Slf4j
+@Service
+public class FileContentService {
+    private static final int FULL_SHA_LENGTH = 40;
+
+    private final FileContentProperties properties;
+    private final RepositoryMirror repositoryMirror;
+    private final GitHubApiClient gitHubApiClient;
+    private final BlobStore store;
+    private final Counter hits;
+    private final Counter fetched;
+    private final Counter unavailable;
+
+    public FileContentService(FileContentProperties properties, RepositoryMirror repositoryMirror,
+                              GitHubApiClient gitHubApiClient, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.repositoryMirror = repositoryMirror;
+        this.gitHubApiClient = gitHubApiClient;
+        this.store = properties.isEnabled()
+                ? new BlobStore(Paths.get(properties.getCacheDir()), properties.getCacheMaxMb() * 1024 * 1024) : null;
+        this.hits = counter(meterRegistry, "hit");
+        this.fetched = counter(meterRegistry, "fetched");
+        this.unavailable = counter(meterRegistry, "unavailable");
+        if (store != null) {
+            Gauge.builder("file.content.cache.entries", store, BlobStore::size)
+                    .description("File contents held in the file content cache")
+                    .register(meterRegistry);
+            Gauge.builder("file.content.cache.bytes", store, BlobStore::bytes)
+                    .description("Size of the file content cache directory")
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("file.content.requests")
+                .description("File content lookups by whole-file rules")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Contents of the files of {@code prContext}'s head commit. Each blob is looked up once
+     * per review, however many chunks and rules ask for it.
+     */
+    public FileContents forReview(PullRequestContext prContext) {
+        if (store == null) return FileContents.NONE;
+        Map<String, CompletableFuture<FileText>> loaded = new ConcurrentHashMap<>();
+        return chunk -> {
+            String sha = chunk.getBlobSha();
+            if (sha == null || chunk.isBinary() || "DELETED".equals(chunk.getChangeType())) return null;
+            // Waiting on a future from a fork-join worker lets the pool compensate for the blocked thread
+            return loaded.computeIfAbsent(keyOf(prContext, sha),
+                    key -> load(prContext, chunk, key).toFuture()).join();
+        };
+    }
+
+    static String keyOf(PullRequestContext prContext, String sha) {
+        return sha.length() == FULL_SHA_LENGTH ? sha : prContext.getOwner() + "/" + prContext.getRepo() + "@" + sha;
+    }
+
+    private Mono<FileText> load(PullRequestContext prContext, ChangeChunk chunk, String key) {
+        return Mono.fromCallable(() -> store.get(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(text -> hits.increment())
+                .switchIfEmpty(Mono.defer(() -> fetch(prContext, chunk)
+                        .filter(bytes -> accept(bytes, chunk))
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(bytes -> store.put(key, new String(bytes, StandardCharsets.UTF_8)))
+                        .doOnNext(text -> fetched.increment())))
+                .timeout(Duration.ofMillis(properties.getFetchTimeoutMs()))
+                .onErrorResume(e -> {
+                    log.debug("No content for {} ({}): {}", chunk.getFilePath(), chunk.getBlobSha(), e.toString());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.fromRunnable(unavailable::increment));
+    }
+
+    private Mono<byte[]> fetch(PullRequestContext prContext, ChangeChunk chunk) {
+        Mono<byte[]> rest = Mono.defer(() -> prContext.getCommitSha() == null ? Mono.empty()
+                : gitHubApiClient.fetchFileContent(prContext.getOwner(), prContext.getRepo(), chunk.getFilePath(),
+                        prContext.getCommitSha(), prContext.getInstallationId()));
+        if (!repositoryMirror.isEnabled()) return rest;
+        return repositoryMirror.readBlob(prContext.getOwner(), prContext.getRepo(), chunk.getBlobSha())
+                .onErrorResume(e -> Mono.empty())
+                .switchIfEmpty(rest);
+    }
+
+    /** Whether {@code bytes} are text within the size limit and the content {@code chunk}'s blob id names. */
+    private boolean accept(byte[] bytes, ChangeChunk chunk) {
+        if (bytes.length > properties.getMaxFileKb() * 1024L) {
+            log.debug("Not caching {}: {} bytes is over the file size limit", chunk.getFilePath(), bytes.length);
+            return false;
+        }
+        for (int i = 0, n = Math.min(bytes.length, 8_000); i < n; i++) {
+            // git's own binary heuristic
+            if (bytes[i] == 0) return false;
+        }
+        if (!blobId(bytes).startsWith(chunk.getBlobSha())) {
+            log.debug("Content fetched for {} does not match blob {}", chunk.getFilePath(), chunk.getBlobSha());
+            return false;
+        }
+        return true;
+    }
+
+    /** Git object id of a blob holding {@code bytes}. */
+    static String blobId(byte[] bytes) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            sha1.update(("blob " + bytes.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(sha1.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.bot.bot.content;
+
+import com.bot.bot.domain.ChangeChunk;
+
+/**
+ * Full post-image contents of the files of a review, for whole-file heuristic rules
+ * ({@code Rule.isWholeFile}). Rules read them through {@code RuleContext.postImage}, which
+ * asks at most once per chunk and only when a rule needs it.
+ */
+@FunctionalInterface
+public interface FileContents {
+    /** No contents: whole-file rules see none and report nothing. */
+    FileContents NONE = chunk -> null;
+
+    /**
+     * The new version of {@code chunk}'s file, or null when it has none (deleted, binary),
+     * its blob id is unknown, or it cannot be had in time. May block while it is fetched.
+     */
+    FileText postImage(ChangeChunk chunk);
+}
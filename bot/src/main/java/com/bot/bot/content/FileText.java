@@ -0,0 +1,124 @@
+package com.bot.bot.content;
+
+import com.bot.bot.diff.LineView;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Full text of a file as a {@link CharSequence} over a byte buffer, usually a memory-mapped
+ * {@link BlobStore} file, so the text stays off the heap. Text whose characters all fit in
+ * one byte is stored as Latin-1, other text as UTF-16; either way {@link #charAt} is one
+ * absolute read. Lines are views ({@link LineView}) without their terminator, indexed on
+ * first use. Immutable and safe to share between threads.
+ */
+public final class FileText implements CharSequence {
+    private final ByteBuffer buffer;
+    private final boolean latin1;
+    private final int length;
+    // Start offset of each line, followed by where a next line would start past its terminator
+    private volatile int[] lineStarts;
+
+    FileText(ByteBuffer buffer, boolean latin1) {
+        this.buffer = buffer;
+        this.latin1 = latin1;
+        this.length = latin1 ? buffer.capacity() : buffer.capacity() / 2;
+    }
+
+    /** {@code text} held in a heap buffer, for callers and tests outside the cache. */
+    public static FileText of(String text) {
+        return new FileText(encode(text), isLatin1(text));
+    }
+
+    static boolean isLatin1(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) return false;
+        }
+        return true;
+    }
+
+    /** {@code text} as Latin-1 when {@link #isLatin1} holds, else as big-endian UTF-16. */
+    static ByteBuffer encode(String text) {
+        boolean latin1 = isLatin1(text);
+        ByteBuffer buffer = ByteBuffer.allocate(latin1 ? text.length() : text.length() * 2).order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < text.length(); i++) {
+            if (latin1) {
+                buffer.put(i, (byte) text.charAt(i));
+            } else {
+                buffer.putChar(i * 2, text.charAt(i));
+            }
+        }
+        return buffer;
+    }
+
+    /** Bytes the text occupies in its buffer. */
+    int byteSize() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return latin1 ? (char) (buffer.get(index) & 0xFF) : buffer.getChar(index * 2);
+    }
+
+    /** A copy of the range; {@link #line} gives views. */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end < start || end > length) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") of " + length);
+        }
+        StringBuilder text = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) text.append(charAt(i));
+        return text.toString();
+    }
+
+    /** Number of lines; a trailing line terminator does not start another line. */
+    public int lineCount() {
+        return lineStarts().length - 1;
+    }
+
+    /** Line {@code index} (0-based, so file line {@code index + 1}) without its {@code \n} or {@code \r\n}. */
+    public CharSequence line(int index) {
+        int[] starts = lineStarts();
+        if (index < 0 || index >= starts.length - 1) throw new IndexOutOfBoundsException(index);
+        int start = starts[index];
+        int end = starts[index + 1] - 1;
+        if (end > start && charAt(end - 1) == '\r') end--;
+        return new LineView(this, start, end);
+    }
+
+    private int[] lineStarts() {
+        int[] starts = lineStarts;
+        if (starts != null) return starts;
+        // A last line without a terminator
+        boolean open = length > 0 && charAt(length - 1) != '\n';
+        int count = open ? 1 : 0;
+        for (int i = 0; i < length; i++) {
+            if (charAt(i) == '\n') count++;
+        }
+        starts = new int[count + 1];
+        int line = 0;
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (charAt(i) == '\n') {
+                starts[line++] = start;
+                start = i + 1;
+            }
+        }
+        if (open) starts[line] = start;
+        starts[count] = open ? length + 1 : length;
+        lineStarts = starts;
+        return starts;
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
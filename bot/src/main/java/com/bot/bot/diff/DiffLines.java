@@ -0,0 +1,128 @@
+package com.bot.bot.diff;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of diff lines stored as offsets into the original diff text.
+ * <p>
+ * {@link #get(int)} materializes a {@link String} on demand; {@link #view(int)} returns a
+ * copy-free {@link LineView} suitable for regex matching. Each line also carries its
+ * new-file line number (0 for removed lines) and its GitHub diff position, both resolved
+ * in O(1) by index.
+ * <p>
+ * All four values of a line are packed into one {@code int[]} (start, end, line number,
+ * position), so a list costs a single array of 16 bytes per line regardless of line length.
+ * {@link #slice(int, int)} shares that array.
+ */
+public final class DiffLines extends AbstractList<String> implements RandomAccess {
+    private static final int STRIDE = 4;
+    private static final int START = 0;
+    private static final int END = 1;
+    private static final int LINE_NUMBER = 2;
+    private static final int POSITION = 3;
+    private static final int[] EMPTY = new int[0];
+
+    private final CharSequence source;
+    private final int[] data;
+    private final int first;
+    private final int size;
+
+    private DiffLines(CharSequence source, int[] data, int first, int size) {
+        this.source = source;
+        this.data = data;
+        this.first = first;
+        this.size = size;
+    }
+
+    @Override
+    public String get(int index) {
+        int base = offset(index);
+        return source.subSequence(data[base + START], data[base + END]).toString();
+    }
+
+    /** Copy-free view of the line at {@code index}. */
+    public CharSequence view(int index) {
+        int base = offset(index);
+        return new LineView(source, data[base + START], data[base + END]);
+    }
+
+    /** Length of the line at {@code index} without materializing it. */
+    public int length(int index) {
+        int base = offset(index);
+        return data[base + END] - data[base + START];
+    }
+
+    /** Line number in the new file of the line at {@code index}; 0 for removed lines. */
+    public int lineNumber(int index) {
+        return data[offset(index) + LINE_NUMBER];
+    }
+
+    /**
+     * Position of the line at {@code index} in the file's diff, as used by the GitHub review
+     * comments API: the line below the first hunk header is position 1, and positions keep
+     * increasing through later hunk headers until the next file.
+     */
+    public int position(int index) {
+        return data[offset(index) + POSITION];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Copy-free view of lines {@code from} (inclusive) to {@code to} (exclusive), keeping their numbers and positions. */
+    public DiffLines slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        return new DiffLines(source, data, first + from, to - from);
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (first + index) * STRIDE;
+    }
+
+    /** Growable builder of line offsets; reused across hunks via {@link #reset()}. */
+    static final class Builder {
+        private final CharSequence source;
+        private int[] data = new int[16 * STRIDE];
+        private int size;
+
+        Builder(CharSequence source) {
+            this.source = source;
+        }
+
+        void add(int start, int end, int lineNumber, int position) {
+            int base = size * STRIDE;
+            if (base == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[base + START] = start;
+            data[base + END] = end;
+            data[base + LINE_NUMBER] = lineNumber;
+            data[base + POSITION] = position;
+            size++;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        DiffLines build() {
+            return new DiffLines(source, size == 0 ? EMPTY : Arrays.copyOf(data, size * STRIDE), 0, size);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.bot.bot.diff;
+
+import java.util.Set;
+
+/**
+ * Decides whether a hunk only changes formatting by comparing the removed and added lines
+ * after whitespace normalization, without materializing either side.
+ * <p>
+ * Both sides are read as one character stream in which line breaks count as whitespace.
+ * Whitespace runs are dropped, except that a run between two identifier characters or two
+ * operator characters becomes a single space, so {@code foo(a,b)} equals {@code foo(a, b)}
+ * and re-wrapped argument lists match, but {@code int x} never equals {@code intx} and
+ * {@code a - -b} never equals {@code a--b}. String, character and backtick literals are
+ * compared verbatim up to their closing quote or the end of the line, so {@code "a  b"}
+ * never equals {@code "a b"}; quotes count as identifier characters on the outside.
+ * For indentation-sensitive languages (Python, YAML, ...) each non-blank line must also
+ * keep its exact leading whitespace; only blank lines and trailing or inner whitespace
+ * may change.
+ */
+public final class FormattingComparison {
+
+    private static final Set<String> INDENTATION_SENSITIVE = Set.of(
+            "py", "pyi", "yaml", "yml", "haml", "pug", "jade", "slim", "sass", "styl", "coffee", "nim", "mk");
+
+    private FormattingComparison() {
+    }
+
+    /** Whether leading whitespace is meaningful in the file: Python, YAML, Makefiles, ... */
+    public static boolean isIndentationSensitive(String filePath, String fileType) {
+        if (fileType != null && INDENTATION_SENSITIVE.contains(fileType)) return true;
+        return filePath != null && (filePath.equals("Makefile") || filePath.endsWith("/Makefile"));
+    }
+
+    /** True when {@code removed} and {@code added} are equal after whitespace normalization. */
+    static boolean formattingOnly(DiffLines removed, DiffLines added, boolean indentationSensitive) {
+        Cursor before = new Cursor(removed, indentationSensitive);
+        Cursor after = new Cursor(added, indentationSensitive);
+        while (true) {
+            int a = before.next();
+            int b = after.next();
+            if (a != b) return false;
+            if (a < 0) return true;
+        }
+    }
+
+    /** Streams the normalized characters of a line list; -1 at the end. */
+    private static final class Cursor {
+        private final DiffLines lines;
+        private final boolean keepIndentation;
+        private CharSequence current;
+        private int line = -1;
+        private int pos;
+        // Leading whitespace of the current line still to be emitted (indentation-sensitive mode)
+        private int indentStart;
+        private int indentEnd;
+        private int pending = -1;
+        private boolean sawSpace;
+        private char previous;
+        // Quote of the literal being read, 0 outside one
+        private char quote;
+        private boolean escaped;
+
+        Cursor(DiffLines lines, boolean keepIndentation) {
+            this.lines = lines;
+            this.keepIndentation = keepIndentation;
+        }
+
+        int next() {
+            if (pending >= 0) {
+                int c = pending;
+                pending = -1;
+                return c;
+            }
+            while (true) {
+                if (current == null || pos >= current.length()) {
+                    if (quote != 0) {
+                        // A literal left open spans lines or is not one (an apostrophe in a
+                        // comment); either way the line break is kept
+                        quote = 0;
+                        escaped = false;
+                        return '\n';
+                    }
+                    if (!advanceLine()) return -1;
+                    if (keepIndentation) {
+                        while (pos < current.length() && Character.isWhitespace(current.charAt(pos))) pos++;
+                        if (pos == current.length()) continue; // blank lines never matter
+                        // A line break marker, then the exact indentation, then the normalized content
+                        indentEnd = pos;
+                        sawSpace = false;
+                        previous = '\n';
+                        return '\n';
+                    }
+                    sawSpace = true;
+                    continue;
+                }
+                if (indentStart < indentEnd) {
+                    return current.charAt(indentStart++);
+                }
+                char c = current.charAt(pos++);
+                if (quote != 0) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                    previous = c;
+                    return c;
+                }
+                if (Character.isWhitespace(c)) {
+                    sawSpace = true;
+                    continue;
+                }
+                boolean separate = sawSpace && (isWordChar(previous) && isWordChar(c)
+                        || isOperatorChar(previous) && isOperatorChar(c));
+                sawSpace = false;
+                previous = c;
+                if (isQuote(c)) quote = c;
+                if (separate) {
+                    pending = c;
+                    return ' ';
+                }
+                return c;
+            }
+        }
+
+        private boolean advanceLine() {
+            if (++line >= lines.size()) return false;
+            current = lines.view(line);
+            pos = 0;
+            indentStart = 0;
+            indentEnd = 0;
+            return true;
+        }
+
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '$' || isQuote(c);
+        }
+
+        private static boolean isOperatorChar(char c) {
+            return "!#%&*+-./:<=>?@^|~".indexOf(c) >= 0;
+        }
+
+        private static boolean isQuote(char c) {
+            return c == '"' || c == '\'' || c == '`';
+        }
+    }
+}
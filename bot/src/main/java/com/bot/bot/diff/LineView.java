@@ -0,0 +1,59 @@
+package com.bot.bot.diff;
+
+/**
+ * Read-only {@link CharSequence} window over a range of a larger buffer.
+ * <p>
+ * Lets rules run {@link java.util.regex.Matcher}s directly on diff lines without
+ * copying them; a {@link String} is only created when {@link #toString()} is called.
+ */
+public final class LineView implements CharSequence {
+    private final CharSequence source;
+    private final int start;
+    private final int end;
+
+    public LineView(CharSequence source, int start, int end) {
+        if (start < 0 || end < start || end > source.length()) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") of " + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to < from || to > end - start) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ")");
+        }
+        return new LineView(source, start + from, start + to);
+    }
+
+    /** Copy the viewed characters into {@code dst} starting at {@code dstBegin}. */
+    public void getChars(char[] dst, int dstBegin) {
+        if (source instanceof String s) {
+            s.getChars(start, end, dst, dstBegin);
+        } else {
+            for (int i = start; i < end; i++) {
+                dst[dstBegin++] = source.charAt(i);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source.subSequence(start, end).toString();
+    }
+}
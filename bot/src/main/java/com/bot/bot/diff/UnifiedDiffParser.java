@@ -5,126 +5,484 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+/**
+ * Single-pass unified diff parser.
+ * <p>
+ * The diff text is scanned once with {@link String#indexOf(int, int)}; added and removed
+ * lines are recorded as offsets into the original buffer ({@link DiffLines}) and only
+ * materialized as {@link String}s when a consumer asks for them. File and hunk headers
+ * are recognized with hand-written scanners instead of regular expressions.
+ * <p>
+ * Diffs larger than the parallel threshold are split at {@code diff --git} boundaries and
+ * the file sections are parsed concurrently on a fork-join pool. Parser state is reset at
+ * every file boundary, so the result is identical to the serial path and chunks keep
+ * their order in the diff.
+ */
 @Slf4j
 @Service
 public class UnifiedDiffParser {
-    private static final Pattern HUNK_HEADER = Pattern.compile("^@@\\s+-\\d+(?:,\\d+)?\\s+\\+(\\d+)(?:,\\d+)?\\s+@@");
-    private static final Pattern DIFF_GIT = Pattern.compile("diff --git a/(.+) b/(.+)");
-    private static final Pattern FILE_PREFIX = Pattern.compile("^---\\s+([ab]/)?(.*)$");
-    private static final Pattern PLUS_PREFIX = Pattern.compile("^\\+\\+\\+\\s+([ab]/)?(.*)$");
+    private static final String DIFF_GIT = "diff --git";
+    private static final String DIFF_GIT_A = "diff --git a/";
+    private static final String FILE_BOUNDARY = "\n" + DIFF_GIT_A;
+    private static final String DEV_NULL = "/dev/null";
+    private static final String BINARY_FILES = "Binary files ";
+    private static final String GIT_BINARY_PATCH = "GIT binary patch";
+    private static final String RENAME_FROM = "rename from ";
+    private static final String COPY_FROM = "copy from ";
+    private static final String INDEX = "index ";
+
+    /** Diffs below this many chars are always parsed serially. */
+    static final int DEFAULT_PARALLEL_THRESHOLD_CHARS = 512 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int parallelThresholdChars;
+
+    public UnifiedDiffParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD_CHARS);
+    }
+
+    UnifiedDiffParser(ForkJoinPool pool, int parallelThresholdChars) {
+        this.pool = pool;
+        this.parallelThresholdChars = parallelThresholdChars;
+    }
 
     public List<ChangeChunk> parse(String diffContent) {
         if (diffContent == null || diffContent.isEmpty()) {
             return new ArrayList<>();
         }
 
+        if (diffContent.length() >= parallelThresholdChars) {
+            int[] boundaries = findFileBoundaries(diffContent);
+            if (boundaries.length > 2) {
+                log.debug("Parsing {} chars in {} file sections in parallel",
+                        diffContent.length(), boundaries.length - 1);
+                return pool.invoke(new ParseTask(diffContent, boundaries, 0, boundaries.length - 1,
+                        parallelThresholdChars));
+            }
+        }
+
         List<ChangeChunk> chunks = new ArrayList<>();
-        String[] lines = diffContent.split("\n");
+        new SectionParser(diffContent).parse(0, diffContent.length(), chunks);
+        return chunks;
+    }
 
-        String currentFile = null;
-        String changeType = "MODIFIED";
-        int currentStartLine = 0;
-        List<String> addedLines = new ArrayList<>();
-        List<String> removedLines = new ArrayList<>();
-        StringBuilder context = new StringBuilder();
+    /**
+     * Offsets where independent sections begin: 0, every {@code diff --git} line whose target
+     * path parses, and finally the diff length. A line whose target does not parse keeps the
+     * previous file current, so it is not used as a split point.
+     */
+    static int[] findFileBoundaries(String diff) {
+        int[] boundaries = new int[16];
+        int count = 0;
+        boundaries[count++] = 0;
 
-        for (String line : lines) {
-            if (line.startsWith("diff --git")) {
-                // Flush previous chunk before starting new file
-                if (currentFile != null && (!addedLines.isEmpty() || !removedLines.isEmpty())) {
-                    chunks.add(buildChunk(currentFile, currentStartLine, addedLines, removedLines, changeType, context));
+        int idx = diff.indexOf(FILE_BOUNDARY);
+        while (idx >= 0) {
+            int lineStart = idx + 1;
+            int lineEnd = diff.indexOf('\n', lineStart);
+            if (lineEnd < 0) lineEnd = diff.length();
+            if (parseDiffGitTarget(diff, lineStart, lineEnd) != null) {
+                if (count + 1 >= boundaries.length) {
+                    boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
                 }
-                addedLines.clear();
-                removedLines.clear();
-                context.setLength(0);
+                boundaries[count++] = lineStart;
+            }
+            idx = diff.indexOf(FILE_BOUNDARY, lineEnd);
+        }
+
+        boundaries[count++] = diff.length();
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * Parses sections {@code [lo, hi)} of the boundary array, halving the range until it
+     * spans fewer chars than the threshold (or a single section).
+     */
+    private static final class ParseTask extends RecursiveTask<List<ChangeChunk>> {
+        private final String source;
+        private final int[] boundaries;
+        private final int lo;
+        private final int hi;
+        private final int thresholdChars;
+
+        ParseTask(String source, int[] boundaries, int lo, int hi, int thresholdChars) {
+            this.source = source;
+            this.boundaries = boundaries;
+            this.lo = lo;
+            this.hi = hi;
+            this.thresholdChars = thresholdChars;
+        }
+
+        @Override
+        protected List<ChangeChunk> compute() {
+            if (hi - lo == 1 || boundaries[hi] - boundaries[lo] <= thresholdChars) {
+                List<ChangeChunk> chunks = new ArrayList<>();
+                new SectionParser(source).parse(boundaries[lo], boundaries[hi], chunks);
+                return chunks;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            ParseTask left = new ParseTask(source, boundaries, lo, mid, thresholdChars);
+            ParseTask right = new ParseTask(source, boundaries, mid, hi, thresholdChars);
+            left.fork();
+            List<ChangeChunk> rightChunks = right.compute();
+            List<ChangeChunk> chunks = left.join();
+            chunks.addAll(rightChunks);
+            return chunks;
+        }
+    }
+
+    /**
+     * Parses the lines of {@code source} in {@code [from, to)}. Holds the per-file and
+     * per-hunk state that the line loop updates; not thread-safe.
+     */
+    private static final class SectionParser {
+        private final String source;
+        private final DiffLines.Builder addedLines;
+        private final DiffLines.Builder removedLines;
+
+        private String currentFile;
+        private String currentFileType;
+        private String changeType = "MODIFIED";
+        private String previousPath;
+        private String blobSha;
+        private boolean fileEmitted;
+        private int currentStartLine;
+        private boolean inHeader;
+
+        // Position index: next new-file line number, and lines seen since the file's first hunk header
+        private int nextLineNumber;
+        private int diffPosition;
+
+        // Hunk body is usually one contiguous range of the source; context is then a single copy.
+        private int contextStart = -1;
+        private int contextEnd;
+        private StringBuilder contextFallback;
+
+        SectionParser(String source) {
+            this.source = source;
+            this.addedLines = new DiffLines.Builder(source);
+            this.removedLines = new DiffLines.Builder(source);
+        }
+
+        void parse(int from, int to, List<ChangeChunk> chunks) {
+            int lineStart = from;
+            while (lineStart < to) {
+                int newline = source.indexOf('\n', lineStart);
+                int lineEnd = newline < 0 || newline > to ? to : newline;
+                processLine(lineStart, lineEnd, chunks);
+                lineStart = lineEnd + 1;
+            }
+
+            // Don't forget the last chunk
+            flush(chunks);
+            finishFile(chunks);
+        }
+
+        private void processLine(int start, int end, List<ChangeChunk> chunks) {
+            if (source.startsWith(DIFF_GIT, start)) {
+                // Flush previous chunk before starting new file
+                flush(chunks);
+                finishFile(chunks);
                 changeType = "MODIFIED"; // Reset per file
+                previousPath = null;
+                blobSha = null;
+                fileEmitted = false;
+                currentStartLine = 0;
+                inHeader = true;
+                diffPosition = -1;
 
-                Matcher m = DIFF_GIT.matcher(line);
-                if (m.find()) {
-                    currentFile = m.group(2);
+                String file = parseDiffGitTarget(source, start, end);
+                if (file != null) {
+                    currentFile = file;
+                    currentFileType = getFileType(file);
                 }
-                continue;
+                return;
             }
 
-            if (line.startsWith("---")) {
-                Matcher m = FILE_PREFIX.matcher(line);
-                if (m.find() && "/dev/null".equals(m.group(2))) {
+            if (start == end) {
+                // A context line whose leading space was stripped still occupies a line
+                if (!inHeader && currentFile != null) {
+                    nextLineNumber++;
+                    diffPosition++;
+                }
+                return;
+            }
+
+            char marker = source.charAt(start);
+            if (inHeader && marker == '-' && source.startsWith("---", start)) {
+                if (isDevNull(start + 3, end)) {
                     changeType = "ADDED";
                 }
-                continue;
+                return;
             }
 
-            if (line.startsWith("+++")) {
-                Matcher m = PLUS_PREFIX.matcher(line);
-                if (m.find() && "/dev/null".equals(m.group(2))) {
+            if (inHeader && currentFile != null
+                    && (source.startsWith(BINARY_FILES, start) || source.startsWith(GIT_BINARY_PATCH, start))) {
+                // No hunks follow; emit a line-less chunk so later stages can account for the file
+                chunks.add(lineLessChunk().binary(true).build());
+                fileEmitted = true;
+                return;
+            }
+
+            if (inHeader && (marker == 'r' || marker == 'c')) {
+                boolean rename = source.startsWith(RENAME_FROM, start);
+                if (rename || source.startsWith(COPY_FROM, start)) {
+                    int pathStart = start + (rename ? RENAME_FROM.length() : COPY_FROM.length());
+                    int pathEnd = end > pathStart && source.charAt(end - 1) == '\r' ? end - 1 : end;
+                    previousPath = source.substring(pathStart, pathEnd).intern();
+                    changeType = rename ? "RENAMED" : "COPIED";
+                }
+                return;
+            }
+
+            if (inHeader && marker == 'i' && source.startsWith(INDEX, start)) {
+                blobSha = parsePostImageSha(source, start + INDEX.length(), end);
+                return;
+            }
+
+            if (inHeader && marker == '+' && source.startsWith("+++", start)) {
+                if (isDevNull(start + 3, end)) {
                     changeType = "DELETED";
                 }
-                continue;
+                return;
             }
 
-            if (line.startsWith("@@")) {
+            if (marker == '@' && source.startsWith("@@", start)) {
                 // Process previous chunk if exists
-                if (currentFile != null && (!addedLines.isEmpty() || !removedLines.isEmpty())) {
-                    chunks.add(buildChunk(currentFile, currentStartLine, addedLines, removedLines, changeType, context));
+                flush(chunks);
+                inHeader = false;
+
+                int newStart = parseHunkNewStart(start, end);
+                if (newStart >= 0) {
+                    currentStartLine = newStart;
                 }
+                nextLineNumber = currentStartLine;
+                // The first hunk header is position 0; later headers count as diff lines
+                diffPosition++;
+                return;
+            }
+
+            if (currentFile == null) {
+                return;
+            }
 
-                Matcher m = HUNK_HEADER.matcher(line);
-                if (m.find()) {
-                    currentStartLine = Integer.parseInt(m.group(1));
+            if (!inHeader) {
+                diffPosition++;
+            }
+
+            switch (marker) {
+                case '+' -> {
+                    addedLines.add(start + 1, end, nextLineNumber++, diffPosition);
+                    appendContext(start, end);
+                }
+                case '-' -> {
+                    removedLines.add(start + 1, end, 0, diffPosition);
+                    appendContext(start, end);
                 }
-                addedLines.clear();
-                removedLines.clear();
-                context.setLength(0);
-                continue;
-            }
-
-            if (currentFile != null) {
-                if (line.startsWith("+")) {
-                    String content = line.substring(1);
-                    addedLines.add(content);
-                    context.append("+").append(content).append("\n");
-                } else if (line.startsWith("-")) {
-                    String content = line.substring(1);
-                    removedLines.add(content);
-                    context.append("-").append(content).append("\n");
-                } else if (line.startsWith(" ")) {
-                    String content = line.substring(1);
-                    context.append(" ").append(content).append("\n");
+                case ' ' -> {
+                    nextLineNumber++;
+                    appendContext(start, end);
                 }
+                default -> { }
             }
         }
 
-        // Don't forget the last chunk
-        if (currentFile != null && (!addedLines.isEmpty() || !removedLines.isEmpty())) {
-            chunks.add(buildChunk(currentFile, currentStartLine, addedLines, removedLines, changeType, context));
+        private void appendContext(int start, int end) {
+            if (contextFallback != null) {
+                contextFallback.append(source, start, end).append('\n');
+            } else if (contextStart < 0) {
+                contextStart = start;
+                contextEnd = end;
+            } else if (start == contextEnd + 1) {
+                contextEnd = end;
+            } else {
+                // A skipped line (e.g. "\ No newline at end of file") broke the range
+                contextFallback = new StringBuilder(contextEnd - contextStart + (end - start) + 2)
+                        .append(source, contextStart, contextEnd).append('\n')
+                        .append(source, start, end).append('\n');
+            }
         }
 
-        return chunks;
+        private void flush(List<ChangeChunk> chunks) {
+            if (currentFile != null && (!addedLines.isEmpty() || !removedLines.isEmpty())) {
+                DiffLines added = addedLines.build();
+                DiffLines removed = removedLines.build();
+                chunks.add(ChangeChunk.builder()
+                        .filePath(currentFile)
+                        .fileType(currentFileType)
+                        .startLine(currentStartLine)
+                        .endLine(currentStartLine + addedLines.size())
+                        .addedLines(added)
+                        .removedLines(removed)
+                        .changeType(changeType)
+                        .previousPath(previousPath)
+                        .blobSha(blobSha)
+                        .formattingOnly(FormattingComparison.formattingOnly(removed, added,
+                                FormattingComparison.isIndentationSensitive(currentFile, currentFileType)))
+                        .contextSource(buildContext())
+                        .build());
+                fileEmitted = true;
+            }
+            addedLines.reset();
+            removedLines.reset();
+            contextStart = -1;
+            contextFallback = null;
+        }
+
+        /** A pure rename or copy has no hunks; emit a line-less chunk so the file is accounted for. */
+        private void finishFile(List<ChangeChunk> chunks) {
+            if (currentFile != null && previousPath != null && !fileEmitted) {
+                chunks.add(lineLessChunk().build());
+                fileEmitted = true;
+            }
+        }
+
+        private ChangeChunk.ChangeChunkBuilder lineLessChunk() {
+            return ChangeChunk.builder()
+                    .filePath(currentFile)
+                    .fileType(currentFileType)
+                    .changeType(changeType)
+                    .previousPath(previousPath)
+                    .blobSha(blobSha)
+                    .context("");
+        }
+
+        /** Context as a view of the hunk body when it is one contiguous range, otherwise a copy. */
+        private CharSequence buildContext() {
+            if (contextFallback != null) {
+                return contextFallback.toString();
+            }
+            if (contextStart < 0) {
+                return "";
+            }
+            if (contextEnd < source.length() && source.charAt(contextEnd) == '\n') {
+                return new LineView(source, contextStart, contextEnd + 1);
+            }
+            return source.substring(contextStart, contextEnd) + "\n";
+        }
+
+        /** True when the path of a {@code ---}/{@code +++} header (after optional a/ or b/) is /dev/null. */
+        private boolean isDevNull(int pos, int end) {
+            if (pos >= end || !isWhitespace(source.charAt(pos))) {
+                return false;
+            }
+            while (pos < end && isWhitespace(source.charAt(pos))) pos++;
+            if (pos + 1 < end && (source.charAt(pos) == 'a' || source.charAt(pos) == 'b')
+                    && source.charAt(pos + 1) == '/') {
+                pos += 2;
+            }
+            int contentEnd = trimCarriageReturn(pos, end);
+            return contentEnd - pos == DEV_NULL.length() && source.startsWith(DEV_NULL, pos);
+        }
+
+        /**
+         * New-file start line of a {@code @@ -a[,b] +c[,d] @@} hunk header, or -1 if malformed.
+         */
+        private int parseHunkNewStart(int start, int end) {
+            int pos = skipWhitespace(start + 2, end, true);
+            if (pos < 0 || pos >= end || source.charAt(pos) != '-') return -1;
+            pos = skipRange(pos + 1, end);
+            if (pos < 0) return -1;
+            pos = skipWhitespace(pos, end, true);
+            if (pos < 0 || pos >= end || source.charAt(pos) != '+') return -1;
+
+            long value = 0;
+            int digitsStart = ++pos;
+            while (pos < end && isDigit(source.charAt(pos)) && pos - digitsStart < 10) {
+                value = value * 10 + (source.charAt(pos) - '0');
+                pos++;
+            }
+            if (pos == digitsStart || value > Integer.MAX_VALUE) return -1;
+
+            pos = skipCount(pos, end);
+            if (pos < 0) return -1;
+            pos = skipWhitespace(pos, end, true);
+            if (pos < 0 || !source.startsWith("@@", pos) || pos + 2 > end) return -1;
+            return (int) value;
+        }
+
+        /** Skips {@code digits[,digits]}; returns -1 when no digits are present. */
+        private int skipRange(int pos, int end) {
+            int digitsStart = pos;
+            while (pos < end && isDigit(source.charAt(pos))) pos++;
+            if (pos == digitsStart) return -1;
+            return skipCount(pos, end);
+        }
+
+        /** Skips an optional {@code ,digits} suffix; returns -1 for a dangling comma. */
+        private int skipCount(int pos, int end) {
+            if (pos < end && source.charAt(pos) == ',') {
+                int digitsStart = ++pos;
+                while (pos < end && isDigit(source.charAt(pos))) pos++;
+                if (pos == digitsStart) return -1;
+            }
+            return pos;
+        }
+
+        private int skipWhitespace(int pos, int end, boolean required) {
+            int wsStart = pos;
+            while (pos < end && isWhitespace(source.charAt(pos))) pos++;
+            return required && pos == wsStart ? -1 : pos;
+        }
+
+        private int trimCarriageReturn(int start, int end) {
+            return end > start && source.charAt(end - 1) == '\r' ? end - 1 : end;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+        }
     }
 
-    private ChangeChunk buildChunk(String filePath, int startLine, List<String> addedLines,
-                                    List<String> removedLines, String changeType, StringBuilder context) {
-        return ChangeChunk.builder()
-                .filePath(filePath)
-                .fileType(getFileType(filePath))
-                .startLine(startLine)
-                .endLine(startLine + addedLines.size())
-                .addedLines(new ArrayList<>(addedLines))
-                .removedLines(new ArrayList<>(removedLines))
-                .changeType(changeType)
-                .context(context.toString())
-                .build();
+    /**
+     * Target path of a {@code diff --git a/<old> b/<new>} line: everything after the
+     * last {@code " b/"} that is followed by at least one character.
+     */
+    private static String parseDiffGitTarget(String source, int start, int end) {
+        if (!source.startsWith(DIFF_GIT_A, start)) {
+            return null;
+        }
+        int contentEnd = end > start && source.charAt(end - 1) == '\r' ? end - 1 : end;
+        int separator = source.lastIndexOf(" b/", contentEnd - 4);
+        if (separator < start + DIFF_GIT_A.length() + 1) {
+            return null;
+        }
+        // Interned so every chunk and finding of a file, across reviews, shares one path instance
+        return source.substring(separator + 3, contentEnd).intern();
+    }
+
+    /**
+     * Post-image blob id of an {@code index <old>..<new>[ <mode>]} line, {@code pos} pointing
+     * past {@code "index "}; null when malformed or all zeros (a deleted file).
+     */
+    static String parsePostImageSha(String source, int pos, int end) {
+        int dots = source.indexOf("..", pos);
+        if (dots < 0 || dots >= end) return null;
+        int from = dots + 2;
+        int to = from;
+        boolean zero = true;
+        while (to < end && Character.digit(source.charAt(to), 16) >= 0) {
+            zero &= source.charAt(to) == '0';
+            to++;
+        }
+        if (to - from < 7 || zero) return null;
+        return source.substring(from, to);
     }
 
-    private String getFileType(String filePath) {
+    private static String getFileType(String filePath) {
         if (filePath == null) return "unknown";
         int lastDot = filePath.lastIndexOf('.');
         if (lastDot > 0 && lastDot < filePath.length() - 1) {
-            return filePath.substring(lastDot + 1);
+            return filePath.substring(lastDot + 1).intern();
         }
         return "unknown";
     }
-}
\ No newline at end of file
+}
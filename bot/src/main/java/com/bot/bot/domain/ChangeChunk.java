@@ -1,14 +1,17 @@
 package com.bot.bot.domain;
 
+import com.bot.bot.diff.DiffLines;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ChangeChunk {
@@ -23,6 +26,94 @@ public class ChangeChunk {
     @Builder.Default
     private List<String> removedLines = new ArrayList<>();
 
-    private String changeType; // ADDED, MODIFIED, DELETED
-    private String context; // surrounding code context
+    private String changeType; // ADDED, MODIFIED, DELETED, RENAMED, COPIED
+    private String previousPath; // source path of a rename or copy
+    private String context; // surrounding code context, see getContext()
+    private boolean binary; // binary file change; no lines are available
+    private boolean formattingOnly; // removed and added lines differ only in whitespace
+    private String blobSha; // post-image blob id from the diff's index line, possibly abbreviated; null if unknown
+
+    /**
+     * Unmaterialized context, typically a view into the shared diff buffer. Copied into
+     * {@link #context} only when {@link #getContext()} is first called (e.g. by the LLM
+     * prompt builder), so chunks that only go through heuristics never copy their hunk.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private CharSequence contextSource;
+
+    /** True for a rename or copy without content changes: the chunk carries no lines. */
+    public boolean isPureMove() {
+        return previousPath != null && !binary && addedLines.isEmpty() && removedLines.isEmpty();
+    }
+
+    public String getContext() {
+        if (context == null && contextSource != null) {
+            context = contextSource.toString();
+        }
+        return context;
+    }
+
+    /**
+     * Added line at {@code index} as a {@link CharSequence}. Chunks produced by the parser
+     * return a copy-free view into the diff buffer; use it for matching and only call
+     * {@code toString()} when the text is needed.
+     */
+    public CharSequence addedLine(int index) {
+        return addedLines instanceof DiffLines lines ? lines.view(index) : addedLines.get(index);
+    }
+
+    /** Removed line at {@code index} as a {@link CharSequence}; see {@link #addedLine(int)}. */
+    public CharSequence removedLine(int index) {
+        return removedLines instanceof DiffLines lines ? lines.view(index) : removedLines.get(index);
+    }
+
+    /**
+     * New-file line number of the added line at {@code index}. Exact for parsed chunks even
+     * when context or removed lines are interleaved; chunks built by hand fall back to
+     * {@code startLine + index}.
+     */
+    public int newLineNumber(int index) {
+        return addedLines instanceof DiffLines lines ? lines.lineNumber(index) : startLine + index;
+    }
+
+    /**
+     * GitHub diff position of the added line at {@code index}, or 0 when unknown.
+     */
+    public int diffPosition(int index) {
+        return addedLines instanceof DiffLines lines ? lines.position(index) : 0;
+    }
+
+    /** Total length of the added lines in characters, without materializing them. */
+    public long addedChars() {
+        long total = 0;
+        if (addedLines instanceof DiffLines lines) {
+            for (int i = 0; i < lines.size(); i++) {
+                total += lines.length(i);
+            }
+        } else {
+            for (String line : addedLines) {
+                total += line.length();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The same chunk restricted to added lines {@code from} (inclusive) to {@code to}
+     * (exclusive), without copying them; line numbers and diff positions are unchanged.
+     * Removed lines and context stay with the whole chunk and are not carried over.
+     */
+    public ChangeChunk slice(int from, int to) {
+        List<String> lines = addedLines instanceof DiffLines diffLines
+                ? diffLines.slice(from, to)
+                : addedLines.subList(from, to);
+        return toBuilder()
+                .startLine(startLine + from)
+                .addedLines(lines)
+                .removedLines(new ArrayList<>())
+                .context(null)
+                .contextSource(null)
+                .build();
+    }
 }
@@ -0,0 +1,35 @@
+package com.bot.bot.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a single annotation on a GitHub Check Run.
+ * Used with the Checks API, which accepts at most 50 annotations per update request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckAnnotation {
+    /** File path relative to repo root (e.g. "src/main/java/Foo.java") */
+    private String path;
+
+    /** First line of the annotated range (1-indexed). */
+    private int startLine;
+
+    /** Last line of the annotated range; equal to startLine for single-line annotations. */
+    private int endLine;
+
+    /** Annotation level: "notice", "warning" or "failure". */
+    @Builder.Default
+    private String annotationLevel = "warning";
+
+    /** Short title shown above the message. */
+    private String title;
+
+    /** Annotation message text. */
+    private String message;
+}
@@ -5,8 +5,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Finding {
@@ -14,6 +16,7 @@ public class Finding {
     private String filePath;
     private int lineNumber;       // 0 means line unknown
     private int endLine;          // 0 means single-line finding
+    private int diffPosition;     // position in the file's diff, 0 means unknown
     private String severity;      // CRITICAL, HIGH, MEDIUM, LOW, INFO
     private String category;
     private String message;
@@ -21,4 +24,6 @@ public class Finding {
     private String source;        // HEURISTIC or LLM
     private double confidence;    // 0.0 to 1.0
     private int precedenceScore;
+    private String groupId;                 // shared by copies of a finding fanned out to identical hunks
+    private List<String> groupedLocations;  // other "path:line" locations collapsed into this finding
 }
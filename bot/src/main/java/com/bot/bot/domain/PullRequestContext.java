@@ -18,6 +18,7 @@ public class PullRequestContext {
     private String authorLogin;
     private String baseRef;
     private String headRef;
+    private String baseSha;
     private String commitSha;
     private long installationId;
 }
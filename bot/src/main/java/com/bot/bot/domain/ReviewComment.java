@@ -20,6 +20,11 @@ public class ReviewComment {
     /** Line number in the file (1-indexed). For multi-line, this is the last line. */
     private int line;
 
+    /**
+     * Position in the file's diff (legacy API). Only sent when {@link #line} is unknown.
+     */
+    private int position;
+
     /** Start line for multi-line comments (optional). */
     private int startLine;
 
@@ -0,0 +1,111 @@
+package com.bot.bot.engine;
+
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Result of {@link HunkDeduplicator}: the distinct hunks to analyze and, for each of them,
+ * the identical hunks elsewhere in the PR that reuse its findings.
+ */
+@Getter
+public class DedupedHunks {
+    private final List<ChangeChunk> distinct;
+    private final Map<ChangeChunk, List<ChangeChunk>> duplicates;
+    private final int totalHunks;
+
+    DedupedHunks(List<ChangeChunk> distinct, IdentityHashMap<ChangeChunk, List<ChangeChunk>> duplicates,
+                 int totalHunks) {
+        this.distinct = distinct;
+        this.duplicates = duplicates;
+        this.totalHunks = totalHunks;
+    }
+
+    public int getDuplicateCount() {
+        return totalHunks - distinct.size();
+    }
+
+    /** Share of hunks that were not analyzed because an identical hunk was; 0 when nothing was deduplicated. */
+    public double getDedupeRatio() {
+        return totalHunks == 0 ? 0 : (double) getDuplicateCount() / totalHunks;
+    }
+
+    /**
+     * Copy every finding on a deduplicated hunk to each identical hunk, with the path, line
+     * and diff position of that copy. All copies share a {@link Finding#getGroupId() group id}
+     * so {@link FindingMerger} can collapse them into one comment; an original without one is
+     * replaced in the result by a copy carrying it, and {@code findings} are not modified.
+     */
+    public List<Finding> fanOut(List<Finding> findings) {
+        if (duplicates.isEmpty() || findings == null || findings.isEmpty()) return findings;
+
+        Map<String, List<ChangeChunk>> byPath = new HashMap<>();
+        for (ChangeChunk chunk : duplicates.keySet()) {
+            byPath.computeIfAbsent(chunk.getFilePath(), k -> new ArrayList<>()).add(chunk);
+        }
+
+        List<Finding> result = new ArrayList<>(findings);
+        for (int f = 0; f < findings.size(); f++) {
+            Finding finding = findings.get(f);
+            ChangeChunk origin = findOrigin(byPath.get(finding.getFilePath()), finding.getLineNumber());
+            if (origin == null) continue;
+
+            if (finding.getGroupId() == null) {
+                finding = finding.toBuilder().groupId(UUID.randomUUID().toString()).build();
+                result.set(f, finding);
+            }
+            int index = addedIndexOf(origin, finding.getLineNumber());
+            for (ChangeChunk copy : duplicates.get(origin)) {
+                int line = index >= 0 ? copy.newLineNumber(index)
+                        : finding.getLineNumber() - origin.getStartLine() + copy.getStartLine();
+                int shift = line - finding.getLineNumber();
+                result.add(finding.toBuilder()
+                        .id(UUID.randomUUID().toString())
+                        .filePath(copy.getFilePath())
+                        .lineNumber(line)
+                        .endLine(finding.getEndLine() > 0 ? finding.getEndLine() + shift : 0)
+                        .diffPosition(index >= 0 ? copy.diffPosition(index) : 0)
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One-line markdown note for the review summary, or null when no hunk was deduplicated.
+     */
+    public String summaryNote() {
+        int duplicateCount = getDuplicateCount();
+        if (duplicateCount == 0) return null;
+        return String.format("🔁 %d of %d hunks repeat an identical change elsewhere in this PR; "
+                        + "the LLM reviewed each distinct change once and its findings apply to every copy.",
+                duplicateCount, totalHunks);
+    }
+
+    /** The deduplicated hunk of the finding's file whose line range contains {@code line}. */
+    private static ChangeChunk findOrigin(List<ChangeChunk> candidates, int line) {
+        if (candidates == null || line <= 0) return null;
+        for (ChangeChunk chunk : candidates) {
+            int size = chunk.getAddedLines().size();
+            int last = Math.max(chunk.getEndLine(), size > 0 ? chunk.newLineNumber(size - 1) : 0);
+            if (line >= chunk.getStartLine() && line <= last) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    private static int addedIndexOf(ChangeChunk chunk, int line) {
+        for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+            if (chunk.newLineNumber(i) == line) return i;
+        }
+        return -1;
+    }
+}
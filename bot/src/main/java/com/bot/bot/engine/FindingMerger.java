@@ -36,7 +36,7 @@ public class FindingMerger {
         }
 
         // Sort by precedence and severity
-        return merged.values().stream()
+        List<Finding> ranked = merged.values().stream()
                 .filter(Objects::nonNull)
                 .sorted(Comparator
                         .comparingInt((Finding f) -> -f.getPrecedenceScore())
@@ -44,6 +44,42 @@ public class FindingMerger {
                         .thenComparingDouble(f -> -f.getConfidence())
                 )
                 .collect(Collectors.toList());
+
+        return collapseGroups(ranked);
+    }
+
+    /**
+     * Collapse findings fanned out to identical hunks (same group id) into the highest-ranked
+     * one, replaced in the result by a copy listing the other locations; {@code ranked} is not
+     * modified. Idempotent, so it is safe to merge twice.
+     */
+    private List<Finding> collapseGroups(List<Finding> ranked) {
+        Map<String, Integer> leaders = new HashMap<>();
+        Map<String, List<String>> locations = new LinkedHashMap<>();
+        List<Finding> result = new ArrayList<>();
+
+        for (Finding finding : ranked) {
+            String groupId = finding.getGroupId();
+            if (groupId == null) {
+                result.add(finding);
+                continue;
+            }
+            Integer leader = leaders.putIfAbsent(groupId, result.size());
+            if (leader == null) {
+                result.add(finding);
+                locations.put(groupId, new ArrayList<>());
+            } else {
+                locations.get(groupId).add(finding.getFilePath() + ":" + finding.getLineNumber());
+            }
+        }
+
+        for (Map.Entry<String, List<String>> entry : locations.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                int index = leaders.get(entry.getKey());
+                result.set(index, result.get(index).toBuilder().groupedLocations(entry.getValue()).build());
+            }
+        }
+        return result;
     }
 
     private String generateKey(Finding finding) {
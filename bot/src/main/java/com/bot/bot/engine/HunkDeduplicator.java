@@ -0,0 +1,155 @@
+package com.bot.bot.engine;
+
+import com.bot.bot.diff.FormattingComparison;
+import com.bot.bot.domain.ChangeChunk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Finds hunks with identical content within a PR so each distinct change is analyzed once.
+ * <p>
+ * Hunks are keyed by a 64-bit FNV-1a hash of their normalized content: file type, then the
+ * removed and added lines with leading and trailing whitespace trimmed, so the same codemod
+ * edit at different indentation still matches. In indentation-sensitive files (Python, YAML,
+ * Makefiles, see {@link FormattingComparison#isIndentationSensitive}) leading whitespace is
+ * code and is kept; only trailing whitespace is ignored. Hash collisions are ruled out by comparing
+ * the normalized content of candidates before grouping them. Callers may supply a bucket
+ * key (e.g. the set of rules that applies to the path) to keep hunks apart that would be
+ * analyzed differently despite identical content.
+ */
+@Slf4j
+@Service
+public class HunkDeduplicator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public DedupedHunks dedupe(List<ChangeChunk> chunks) {
+        return dedupe(chunks, chunk -> 0L);
+    }
+
+    public DedupedHunks dedupe(List<ChangeChunk> chunks, ToLongFunction<ChangeChunk> bucketKey) {
+        long[] bucketKeys = new long[chunks == null ? 0 : chunks.size()];
+        for (int i = 0; i < bucketKeys.length; i++) {
+            bucketKeys[i] = bucketKey.applyAsLong(chunks.get(i));
+        }
+        return dedupe(chunks, bucketKeys);
+    }
+
+    /** As {@link #dedupe(List, ToLongFunction)}, with the bucket key of each chunk computed already. */
+    public DedupedHunks dedupe(List<ChangeChunk> chunks, long[] bucketKeys) {
+        List<ChangeChunk> distinct = new ArrayList<>();
+        IdentityHashMap<ChangeChunk, List<ChangeChunk>> duplicates = new IdentityHashMap<>();
+        if (chunks == null || chunks.isEmpty()) {
+            return new DedupedHunks(distinct, duplicates, 0);
+        }
+
+        Map<Long, List<ChangeChunk>> byHash = new HashMap<>();
+        Map<ChangeChunk, Long> buckets = new IdentityHashMap<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            ChangeChunk chunk = chunks.get(i);
+            long bucket = bucketKeys[i];
+            buckets.put(chunk, bucket);
+            List<ChangeChunk> candidates = byHash.computeIfAbsent(hash(chunk) ^ bucket * FNV_PRIME,
+                    k -> new ArrayList<>(1));
+            ChangeChunk original = null;
+            for (ChangeChunk candidate : candidates) {
+                if (buckets.get(candidate) == bucket && sameContent(candidate, chunk)) {
+                    original = candidate;
+                    break;
+                }
+            }
+            if (original == null) {
+                candidates.add(chunk);
+                distinct.add(chunk);
+            } else {
+                duplicates.computeIfAbsent(original, k -> new ArrayList<>()).add(chunk);
+            }
+        }
+
+        DedupedHunks result = new DedupedHunks(distinct, duplicates, chunks.size());
+        if (result.getDuplicateCount() > 0) {
+            log.debug("Deduplicated {} of {} hunks ({} distinct)",
+                    result.getDuplicateCount(), chunks.size(), distinct.size());
+        }
+        return result;
+    }
+
+    static long hash(ChangeChunk chunk) {
+        long h = FNV_OFFSET;
+        String fileType = chunk.getFileType() != null ? chunk.getFileType() : "";
+        for (int i = 0; i < fileType.length(); i++) {
+            h = (h ^ fileType.charAt(i)) * FNV_PRIME;
+        }
+        boolean keepIndent = keepsIndentation(chunk);
+        for (int i = 0; i < chunk.getRemovedLines().size(); i++) {
+            h = hashLine(h, '-', chunk.removedLine(i), keepIndent);
+        }
+        for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+            h = hashLine(h, '+', chunk.addedLine(i), keepIndent);
+        }
+        return h;
+    }
+
+    private static boolean keepsIndentation(ChangeChunk chunk) {
+        return FormattingComparison.isIndentationSensitive(chunk.getFilePath(), chunk.getFileType());
+    }
+
+    private static long hashLine(long h, char marker, CharSequence line, boolean keepIndent) {
+        h = (h ^ marker) * FNV_PRIME;
+        int start = keepIndent ? 0 : trimStart(line);
+        int end = trimEnd(line, start);
+        for (int i = start; i < end; i++) {
+            h = (h ^ line.charAt(i)) * FNV_PRIME;
+        }
+        return (h ^ '\n') * FNV_PRIME;
+    }
+
+    static boolean sameContent(ChangeChunk a, ChangeChunk b) {
+        if (!Objects.equals(a.getFileType(), b.getFileType())
+                || a.getAddedLines().size() != b.getAddedLines().size()
+                || a.getRemovedLines().size() != b.getRemovedLines().size()) {
+            return false;
+        }
+        boolean keepIndent = keepsIndentation(a) || keepsIndentation(b);
+        for (int i = 0; i < a.getRemovedLines().size(); i++) {
+            if (!sameTrimmed(a.removedLine(i), b.removedLine(i), keepIndent)) return false;
+        }
+        for (int i = 0; i < a.getAddedLines().size(); i++) {
+            if (!sameTrimmed(a.addedLine(i), b.addedLine(i), keepIndent)) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameTrimmed(CharSequence a, CharSequence b, boolean keepIndent) {
+        int aStart = keepIndent ? 0 : trimStart(a);
+        int aEnd = trimEnd(a, aStart);
+        int bStart = keepIndent ? 0 : trimStart(b);
+        int bEnd = trimEnd(b, bStart);
+        if (aEnd - aStart != bEnd - bStart) return false;
+        for (int i = 0; i < aEnd - aStart; i++) {
+            if (a.charAt(aStart + i) != b.charAt(bStart + i)) return false;
+        }
+        return true;
+    }
+
+    private static int trimStart(CharSequence line) {
+        int i = 0;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) i++;
+        return i;
+    }
+
+    private static int trimEnd(CharSequence line, int start) {
+        int end = line.length();
+        while (end > start && Character.isWhitespace(line.charAt(end - 1))) end--;
+        return end;
+    }
+}
@@ -1,11 +1,13 @@
 package com.bot.bot.engine;
 
+import com.bot.bot.domain.CheckAnnotation;
 import com.bot.bot.domain.Finding;
 import com.bot.bot.domain.ReviewComment;
 import com.bot.bot.github.GitHubApiClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.*;
@@ -15,6 +17,18 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class ReviewPublisher {
+    /** Name of the check run shown in the PR's Checks tab. */
+    static final String CHECK_RUN_NAME = "PR Review Bot";
+
+    /** The Checks API accepts at most 50 annotations per update request. */
+    static final int ANNOTATIONS_PER_UPDATE = 50;
+
+    /** Upper bound on concurrent annotation updates against a single check run. */
+    static final int MAX_PARALLEL_UPDATES = 4;
+
+    /** Locations listed on a finding collapsed from identical hunks; the rest are counted. */
+    static final int MAX_GROUPED_LOCATIONS = 10;
+
     private final GitHubApiClient gitHubApiClient;
 
     public Mono<Void> publishReview(String owner, String repo, int prNumber,
@@ -31,6 +45,18 @@ public class ReviewPublisher {
     public Mono<Void> publishReview(String owner, String repo, int prNumber,
                                      List<Finding> findings, boolean autoApprove,
                                      boolean inlineCommentsEnabled, long installationId) {
+        return publishReview(owner, repo, prNumber, findings, autoApprove, inlineCommentsEnabled,
+                List.of(), installationId);
+    }
+
+    /**
+     * Publish the review. {@code notes} are extra summary lines (e.g. files skipped by the
+     * classifier) rendered in a "Notes" section of the review body.
+     */
+    public Mono<Void> publishReview(String owner, String repo, int prNumber,
+                                     List<Finding> findings, boolean autoApprove,
+                                     boolean inlineCommentsEnabled, List<String> notes,
+                                     long installationId) {
         if (findings == null) findings = new ArrayList<>();
 
         // Build inline comments from findings with precise file+line info
@@ -38,7 +64,7 @@ public class ReviewPublisher {
                 ? buildInlineComments(findings) : new ArrayList<>();
 
         // Build the summary body
-        String summary = buildReviewSummary(findings);
+        String summary = buildReviewSummary(findings, notes);
 
         // Determine review event
         String event;
@@ -57,13 +83,110 @@ public class ReviewPublisher {
         return gitHubApiClient.submitReview(owner, repo, prNumber, summary, event, inlineComments, installationId);
     }
 
+    // ── Check Run publishing mode ───────────────────────────────────
+
+    /**
+     * Create the review check run on the head commit with status {@code in_progress}.
+     * Called at review start so the check is visible while analysis runs.
+     */
+    public Mono<Long> startCheckRun(String owner, String repo, String headSha, long installationId) {
+        log.info("Creating check run for {}/{}@{}", owner, repo, headSha);
+        return gitHubApiClient.createCheckRun(owner, repo, headSha, CHECK_RUN_NAME, installationId);
+    }
+
     /**
-     * Build inline comments for findings that have precise line numbers (> 0).
+     * Stream annotations for the given findings to an in-progress check run.
+     * Annotations are sent in batches of {@value #ANNOTATIONS_PER_UPDATE} with at most
+     * {@value #MAX_PARALLEL_UPDATES} updates in flight.
+     */
+    public Mono<Void> publishAnnotations(String owner, String repo, long checkRunId,
+                                         List<Finding> findings, long installationId) {
+        List<CheckAnnotation> annotations = buildAnnotations(findings);
+        if (annotations.isEmpty()) {
+            return Mono.empty();
+        }
+
+        log.debug("Streaming {} annotations to check run {} for {}/{}",
+                annotations.size(), checkRunId, owner, repo);
+
+        return Flux.fromIterable(annotations)
+                .buffer(ANNOTATIONS_PER_UPDATE)
+                .flatMap(batch -> gitHubApiClient.updateCheckRun(owner, repo, checkRunId,
+                        "PR Review in progress", "Analyzing changes…", batch, installationId),
+                        MAX_PARALLEL_UPDATES)
+                .then();
+    }
+
+    /**
+     * Complete the check run with the review summary.
+     * Concludes {@code success} when nothing was found, {@code neutral} otherwise so the
+     * check never blocks merging on its own.
+     */
+    public Mono<Void> completeCheckRun(String owner, String repo, long checkRunId,
+                                       List<Finding> findings, long installationId) {
+        return completeCheckRun(owner, repo, checkRunId, findings, List.of(), installationId);
+    }
+
+    public Mono<Void> completeCheckRun(String owner, String repo, long checkRunId,
+                                       List<Finding> findings, List<String> notes, long installationId) {
+        if (findings == null) findings = new ArrayList<>();
+
+        String conclusion = findings.isEmpty() ? "success" : "neutral";
+        String title = findings.isEmpty()
+                ? "No issues found"
+                : findings.size() + " issue(s) found";
+
+        log.info("Completing check run {} for {}/{} with {} findings ({})",
+                checkRunId, owner, repo, findings.size(), conclusion);
+
+        return gitHubApiClient.completeCheckRun(owner, repo, checkRunId, conclusion, title,
+                buildReviewSummary(findings, notes), installationId);
+    }
+
+    /**
+     * Complete the check run after a failed review so it does not stay in progress forever.
+     */
+    public Mono<Void> abortCheckRun(String owner, String repo, long checkRunId, long installationId) {
+        return gitHubApiClient.completeCheckRun(owner, repo, checkRunId, "neutral", "Review failed",
+                "The review could not be completed. It will be retried on the next push.", installationId);
+    }
+
+    /**
+     * Build check annotations for findings that have precise line numbers (> 0).
+     */
+    private List<CheckAnnotation> buildAnnotations(List<Finding> findings) {
+        List<CheckAnnotation> annotations = new ArrayList<>();
+        if (findings == null) return annotations;
+
+        for (Finding f : findings) {
+            if (f == null || f.getFilePath() == null || f.getLineNumber() <= 0) continue;
+
+            StringBuilder message = new StringBuilder();
+            message.append(f.getMessage() != null ? f.getMessage() : "");
+            if (f.getSuggestion() != null && !f.getSuggestion().isEmpty()) {
+                message.append("\n\n").append(f.getSuggestion());
+            }
+            appendGroupedLocations(message, f);
+
+            annotations.add(CheckAnnotation.builder()
+                    .path(f.getFilePath())
+                    .startLine(f.getLineNumber())
+                    .endLine(Math.max(f.getLineNumber(), f.getEndLine()))
+                    .annotationLevel(annotationLevel(f.getSeverity()))
+                    .title(severityLabel(f.getSeverity()) + " " + (f.getCategory() != null ? f.getCategory() : "GENERAL"))
+                    .message(message.toString())
+                    .build());
+        }
+        return annotations;
+    }
+
+    /**
+     * Build inline comments for findings that have a precise line number or diff position (> 0).
      */
     private List<ReviewComment> buildInlineComments(List<Finding> findings) {
         List<ReviewComment> comments = new ArrayList<>();
         for (Finding f : findings) {
-            if (f.getFilePath() == null || f.getLineNumber() <= 0) continue;
+            if (f.getFilePath() == null || (f.getLineNumber() <= 0 && f.getDiffPosition() <= 0)) continue;
 
             StringBuilder body = new StringBuilder();
             body.append("**").append(severityLabel(f.getSeverity()))
@@ -74,14 +197,16 @@ public class ReviewPublisher {
             if (f.getSuggestion() != null && !f.getSuggestion().isEmpty()) {
                 body.append("\n\n💡 ").append(f.getSuggestion());
             }
+            appendGroupedLocations(body, f);
 
             ReviewComment.ReviewCommentBuilder comment = ReviewComment.builder()
                     .path(f.getFilePath())
-                    .line(f.getLineNumber())
+                    .line(Math.max(f.getLineNumber(), 0))
+                    .position(f.getDiffPosition())
                     .side("RIGHT")
                     .body(body.toString());
 
-            if (f.getEndLine() > f.getLineNumber()) {
+            if (f.getLineNumber() > 0 && f.getEndLine() > f.getLineNumber()) {
                 comment.startLine(f.getLineNumber());
                 comment.line(f.getEndLine());
             }
@@ -94,12 +219,13 @@ public class ReviewPublisher {
     /**
      * Build the main review summary body — a structured markdown overview.
      */
-    private String buildReviewSummary(List<Finding> findings) {
+    private String buildReviewSummary(List<Finding> findings, List<String> notes) {
         StringBuilder sb = new StringBuilder();
         sb.append("## 🤖 PR Review\n\n");
 
         if (findings.isEmpty()) {
             sb.append("✅ **No issues found.** The changes look good!\n\n");
+            appendNotes(sb, notes);
             sb.append("---\n");
             sb.append("*Review generated by PR Review Bot*\n");
             return sb.toString();
@@ -187,6 +313,11 @@ public class ReviewPublisher {
                     }
                     sb.append(": ").append(msg).append("\n");
 
+                    if (finding.getGroupedLocations() != null && !finding.getGroupedLocations().isEmpty()) {
+                        sb.append("    - 🔁 Same change in ").append(finding.getGroupedLocations().size())
+                                .append(" other location(s)\n");
+                    }
+
                     if (finding.getSuggestion() != null && !finding.getSuggestion().isEmpty()) {
                         sb.append("    - 💡 ").append(finding.getSuggestion()).append("\n");
                     }
@@ -195,6 +326,7 @@ public class ReviewPublisher {
             }
         }
 
+        appendNotes(sb, notes);
         sb.append("---\n");
         String verdict = findings.stream().anyMatch(f -> "CRITICAL".equals(f.getSeverity()))
                 ? "⚠️ **Action recommended:** Critical issues found that should be addressed."
@@ -205,6 +337,40 @@ public class ReviewPublisher {
         return sb.toString();
     }
 
+    /** List the other locations of a finding collapsed from identical hunks, capped at a few. */
+    private static void appendGroupedLocations(StringBuilder sb, Finding f) {
+        List<String> locations = f.getGroupedLocations();
+        if (locations == null || locations.isEmpty()) return;
+
+        sb.append("\n\n🔁 Same change in ").append(locations.size()).append(" other location(s): ");
+        int listed = Math.min(locations.size(), MAX_GROUPED_LOCATIONS);
+        for (int i = 0; i < listed; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('`').append(locations.get(i)).append('`');
+        }
+        if (locations.size() > listed) {
+            sb.append(" and ").append(locations.size() - listed).append(" more");
+        }
+    }
+
+    private static void appendNotes(StringBuilder sb, List<String> notes) {
+        if (notes == null || notes.isEmpty()) return;
+        sb.append("### 📝 Notes\n\n");
+        for (String note : notes) {
+            sb.append("- ").append(note).append("\n");
+        }
+        sb.append("\n");
+    }
+
+    private String annotationLevel(String severity) {
+        if (severity == null) return "notice";
+        return switch (severity) {
+            case "CRITICAL", "HIGH" -> "failure";
+            case "MEDIUM" -> "warning";
+            default -> "notice";
+        };
+    }
+
     private String severityLabel(String severity) {
         if (severity == null) return "[INFO]";
         return switch (severity) {
@@ -2,6 +2,7 @@ package com.bot.bot.github;
 
 import com.bot.bot.config.GitHubProperties;
 import com.bot.bot.config.WebClientConfig;
+import com.bot.bot.domain.CheckAnnotation;
 import com.bot.bot.domain.PullRequestContext;
 import com.bot.bot.domain.ReviewComment;
 import com.google.gson.Gson;
@@ -11,8 +12,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriUtils;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
@@ -42,6 +47,8 @@ public class GitHubApiClient {
     private volatile long cachedInstallationId;
     private static final Duration TOKEN_CACHE_TTL = Duration.ofMinutes(55);
 
+    private static final int MAX_CHECK_SUMMARY_CHARS = 65_535;
+
     /**
      * Parse PR metadata from webhook payload (no API calls).
      * Extracts installation ID for subsequent authenticated calls.
@@ -83,6 +90,7 @@ public class GitHubApiClient {
         String baseRef = base.get("ref").getAsString();
         String headRef = head.get("ref").getAsString();
         String commitSha = head.get("sha").getAsString();
+        String baseSha = base.has("sha") && !base.get("sha").isJsonNull() ? base.get("sha").getAsString() : null;
 
         return PullRequestContext.builder()
                 .owner(owner)
@@ -93,6 +101,7 @@ public class GitHubApiClient {
                 .authorLogin(authorLogin)
                 .baseRef(baseRef)
                 .headRef(headRef)
+                .baseSha(baseSha)
                 .commitSha(commitSha)
                 .installationId(installationId)
                 .build();
@@ -160,6 +169,26 @@ public class GitHubApiClient {
                         owner, repo, prNumber, e));
     }
 
+    /**
+     * Fetch the raw content of {@code path} at commit {@code ref}, or empty if it does not exist there.
+     */
+    public Mono<byte[]> fetchFileContent(String owner, String repo, String path, String ref, long installationId) {
+        URI uri = URI.create(String.format("%s/repos/%s/%s/contents/%s?ref=%s",
+                gitHubProperties.getApiUrl(), owner, repo, UriUtils.encodePath(path, StandardCharsets.UTF_8), ref));
+
+        return getInstallationToken(installationId)
+                .flatMap(token -> webClient.get()
+                        .uri(uri)
+                        .header("Accept", "application/vnd.github.raw")
+                        .header("Authorization", "Bearer " + token)
+                        .retrieve()
+                        .bodyToMono(byte[].class))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .retryWhen(WebClientConfig.buildRetrySpec("fetch-file-content"))
+                .doOnError(e -> log.warn("Error fetching {} at {} in {}/{} after retries: {}",
+                        path, ref, owner, repo, e.getMessage()));
+    }
+
     /**
      * Post a PR review with summary body and optional inline comments.
      */
@@ -183,6 +212,8 @@ public class GitHubApiClient {
                 if (c.getLine() > 0) {
                     comment.addProperty("line", c.getLine());
                     comment.addProperty("side", c.getSide() != null ? c.getSide() : "RIGHT");
+                } else if (c.getPosition() > 0) {
+                    comment.addProperty("position", c.getPosition());
                 }
                 if (c.getStartLine() > 0 && c.getStartLine() != c.getLine()) {
                     comment.addProperty("start_line", c.getStartLine());
@@ -206,6 +237,117 @@ public class GitHubApiClient {
                         owner, repo, prNumber, e));
     }
 
+    /**
+     * Create a check run on the given commit with status {@code in_progress}.
+     * Returns the ID of the created check run.
+     */
+    public Mono<Long> createCheckRun(String owner, String repo, String headSha, String name,
+                                     long installationId) {
+        String url = String.format("%s/repos/%s/%s/check-runs",
+                gitHubProperties.getApiUrl(), owner, repo);
+
+        JsonObject checkRun = new JsonObject();
+        checkRun.addProperty("name", name);
+        checkRun.addProperty("head_sha", headSha);
+        checkRun.addProperty("status", "in_progress");
+        checkRun.addProperty("started_at", Instant.now().toString());
+
+        return getInstallationToken(installationId)
+                .flatMap(token -> webClient.post()
+                        .uri(url)
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", "application/vnd.github.v3+json")
+                        .bodyValue(checkRun.toString())
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .map(response -> gson.fromJson(response, JsonObject.class).get("id").getAsLong())
+                .retryWhen(WebClientConfig.buildRetrySpec("create-check-run"))
+                .doOnError(e -> log.error("Error creating check run for {}/{}@{} after retries",
+                        owner, repo, headSha, e));
+    }
+
+    /**
+     * Append a batch of annotations to an in-progress check run.
+     * The Checks API accepts at most 50 annotations per request; callers must batch.
+     */
+    public Mono<Void> updateCheckRun(String owner, String repo, long checkRunId,
+                                     String title, String summary, List<CheckAnnotation> annotations,
+                                     long installationId) {
+        String url = String.format("%s/repos/%s/%s/check-runs/%d",
+                gitHubProperties.getApiUrl(), owner, repo, checkRunId);
+
+        JsonObject output = buildCheckRunOutput(title, summary);
+        JsonArray annotationArray = new JsonArray();
+        for (CheckAnnotation a : annotations) {
+            if (a.getPath() == null || a.getMessage() == null || a.getStartLine() <= 0) continue;
+            JsonObject annotation = new JsonObject();
+            annotation.addProperty("path", a.getPath());
+            annotation.addProperty("start_line", a.getStartLine());
+            annotation.addProperty("end_line", Math.max(a.getStartLine(), a.getEndLine()));
+            annotation.addProperty("annotation_level",
+                    a.getAnnotationLevel() != null ? a.getAnnotationLevel() : "warning");
+            annotation.addProperty("message", a.getMessage());
+            if (a.getTitle() != null) {
+                annotation.addProperty("title", a.getTitle());
+            }
+            annotationArray.add(annotation);
+        }
+        output.add("annotations", annotationArray);
+
+        JsonObject checkRun = new JsonObject();
+        checkRun.add("output", output);
+
+        return patchCheckRun(url, checkRun, installationId)
+                .retryWhen(WebClientConfig.buildRetrySpec("update-check-run"))
+                .doOnError(e -> log.error("Error updating check run {} for {}/{} after retries",
+                        checkRunId, owner, repo, e));
+    }
+
+    /**
+     * Mark a check run as completed with the given conclusion and final summary.
+     */
+    public Mono<Void> completeCheckRun(String owner, String repo, long checkRunId,
+                                       String conclusion, String title, String summary,
+                                       long installationId) {
+        String url = String.format("%s/repos/%s/%s/check-runs/%d",
+                gitHubProperties.getApiUrl(), owner, repo, checkRunId);
+
+        JsonObject checkRun = new JsonObject();
+        checkRun.addProperty("status", "completed");
+        checkRun.addProperty("conclusion", conclusion);
+        checkRun.addProperty("completed_at", Instant.now().toString());
+        checkRun.add("output", buildCheckRunOutput(title, summary));
+
+        return patchCheckRun(url, checkRun, installationId)
+                .retryWhen(WebClientConfig.buildRetrySpec("complete-check-run"))
+                .doOnError(e -> log.error("Error completing check run {} for {}/{} after retries",
+                        checkRunId, owner, repo, e));
+    }
+
+    private Mono<Void> patchCheckRun(String url, JsonObject checkRun, long installationId) {
+        return getInstallationToken(installationId)
+                .flatMap(token -> webClient.patch()
+                        .uri(url)
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", "application/vnd.github.v3+json")
+                        .bodyValue(checkRun.toString())
+                        .retrieve()
+                        .toBodilessEntity()
+                        .then());
+    }
+
+    /** Check run output summaries are limited to 65535 characters by the Checks API. */
+    private static JsonObject buildCheckRunOutput(String title, String summary) {
+        String body = summary != null ? summary : "";
+        if (body.length() > MAX_CHECK_SUMMARY_CHARS) {
+            body = body.substring(0, MAX_CHECK_SUMMARY_CHARS - 32) + "\n\n*(summary truncated)*\n";
+        }
+        JsonObject output = new JsonObject();
+        output.addProperty("title", title);
+        output.addProperty("summary", body);
+        return output;
+    }
+
     /**
      * Post a regular issue comment on a PR.
      */
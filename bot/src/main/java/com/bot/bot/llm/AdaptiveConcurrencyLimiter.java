@@ -0,0 +1,252 @@
+package com.bot.bot.llm;
+
+import com.bot.bot.config.LLMProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounds the number of concurrent calls to the LLM provider by a limit found at runtime, so a
+ * large PR queues its prompts here instead of overloading a single Ollama or NIM instance.
+ * <p>
+ * The limit follows the gradient between the long-term average latency and the latest one:
+ * while latency stays within {@link #TOLERANCE} of the average, the limit grows by about its
+ * square root per call; as calls slow down because the provider starts queueing, it shrinks
+ * towards what the provider sustains. Timeouts, connection failures, 429 and 5xx responses
+ * cut it multiplicatively ({@link #BACKOFF}). It only grows while at least half of it is in
+ * use, and stays within {@code llm.concurrency-min} and {@code llm.concurrency-max}.
+ * <p>
+ * Calls over the limit wait in a FIFO queue of at most {@code llm.concurrency-max-queue};
+ * beyond that they fail at once with {@link RejectedExecutionException}. Each attempt of a
+ * retried call takes a permit of its own. Metrics: {@code llm.concurrency.limit},
+ * {@code llm.concurrency.inflight}, {@code llm.concurrency.queued}, the
+ * {@code llm.concurrency.queue.delay} timer and {@code llm.concurrency.rejected}.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    /** Latency over the long-term average by this factor before the limit shrinks. */
+    static final double TOLERANCE = 1.5;
+    /** Factor the limit is multiplied by when the provider is overloaded. */
+    static final double BACKOFF = 0.9;
+    // Weight of a new limit estimate, and of a sample in the long-term latency average
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_WINDOW = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final LongSupplier clock;
+    private final Timer queueDelay;
+    private final Counter rejected;
+
+    // Guarded by this
+    private double limit;
+    private int inflight;
+    private double longRttNanos;
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(LLMProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(LLMProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.minLimit = properties.getConcurrencyMin();
+        this.maxLimit = Math.max(minLimit, properties.getConcurrencyMax());
+        this.maxQueue = properties.getConcurrencyMaxQueue();
+        this.limit = Math.clamp(properties.getConcurrencyInitial(), minLimit, maxLimit);
+        this.clock = clock;
+        Gauge.builder("llm.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Concurrent LLM calls currently allowed")
+                .register(meterRegistry);
+        Gauge.builder("llm.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInflight)
+                .description("LLM calls in progress")
+                .register(meterRegistry);
+        Gauge.builder("llm.concurrency.queued", this, AdaptiveConcurrencyLimiter::getQueued)
+                .description("LLM calls waiting for a permit")
+                .register(meterRegistry);
+        this.queueDelay = Timer.builder("llm.concurrency.queue.delay")
+                .description("Time LLM calls waited for a permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("llm.concurrency.rejected")
+                .description("LLM calls rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /** A call waiting for a permit. */
+    private static final class Waiter {
+        private final MonoSink<Long> sink;
+        private final long enqueued;
+
+        Waiter(MonoSink<Long> sink, long enqueued) {
+            this.sink = sink;
+            this.enqueued = enqueued;
+        }
+    }
+
+    /**
+     * {@code call}, subscribed to once a permit is available. Its latency, or its failure if
+     * the failure signals overload, adjusts the limit.
+     */
+    public <T> Mono<T> limit(Mono<T> call) {
+        return acquire().flatMap(granted -> {
+            AtomicBoolean released = new AtomicBoolean();
+            long start = clock.getAsLong();
+            return call
+                    .doOnSuccess(value -> {
+                        if (released.compareAndSet(false, true)) release(clock.getAsLong() - start, false);
+                    })
+                    .doOnError(e -> {
+                        if (released.compareAndSet(false, true)) {
+                            if (isOverload(e)) {
+                                release(clock.getAsLong() - start, true);
+                            } else {
+                                release();
+                            }
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (released.compareAndSet(false, true)) release();
+                    });
+        });
+    }
+
+    /** Completes with the time waited once a permit is held; fails when the queue is full. */
+    private Mono<Long> acquire() {
+        return Mono.create(sink -> {
+            long now = clock.getAsLong();
+            Waiter waiter;
+            synchronized (this) {
+                if (inflight < permits() && queue.isEmpty()) {
+                    inflight++;
+                    waiter = null;
+                } else if (queue.size() < maxQueue) {
+                    waiter = new Waiter(sink, now);
+                    queue.add(waiter);
+                } else {
+                    rejected.increment();
+                    sink.error(new RejectedExecutionException(
+                            "LLM call queue is full (" + maxQueue + " waiting, limit " + permits() + ")"));
+                    return;
+                }
+            }
+            if (waiter == null) {
+                queueDelay.record(0, TimeUnit.NANOSECONDS);
+                sink.success(0L);
+                return;
+            }
+            sink.onCancel(() -> {
+                boolean removed;
+                synchronized (this) {
+                    removed = queue.remove(waiter);
+                }
+                // Otherwise the permit was handed over and must go back
+                if (!removed) release();
+            });
+        });
+    }
+
+    /** Return a permit without a sample, for calls cancelled or failed for reasons other than load. */
+    private void release() {
+        Waiter next;
+        synchronized (this) {
+            next = handOver();
+        }
+        grant(next);
+    }
+
+    /** Return a permit, adjusting the limit for a call that took {@code rttNanos} or signalled overload. */
+    private void release(long rttNanos, boolean overload) {
+        Waiter next;
+        synchronized (this) {
+            if (overload) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else {
+                sample(rttNanos);
+            }
+            next = handOver();
+        }
+        grant(next);
+    }
+
+    /** Give the released permit to the next waiter, or free it. Called holding the lock. */
+    private Waiter handOver() {
+        inflight--;
+        if (inflight < permits() && !queue.isEmpty()) {
+            inflight++;
+            return queue.poll();
+        }
+        return null;
+    }
+
+    /** Complete {@code waiter}'s acquisition outside the lock; a limit raised meanwhile may admit more. */
+    private void grant(Waiter waiter) {
+        while (waiter != null) {
+            long waited = clock.getAsLong() - waiter.enqueued;
+            queueDelay.record(waited, TimeUnit.NANOSECONDS);
+            waiter.sink.success(waited);
+            synchronized (this) {
+                if (inflight < permits() && !queue.isEmpty()) {
+                    inflight++;
+                    waiter = queue.poll();
+                } else {
+                    waiter = null;
+                }
+            }
+        }
+    }
+
+    /** Move the limit along the latency gradient. Called holding the lock. */
+    private void sample(long rttNanos) {
+        double rtt = Math.max(1, rttNanos);
+        longRttNanos = longRttNanos == 0 ? rtt : longRttNanos + (rtt - longRttNanos) / LONG_WINDOW;
+        // The average lags a drop in latency (a cold start, a provider scaled up): let it catch up
+        if (longRttNanos / rtt > 2) longRttNanos *= 0.95;
+        // Not enough demand to tell whether the provider could take more
+        if (inflight < limit / 2) return;
+
+        double gradient = Math.clamp(TOLERANCE * longRttNanos / rtt, 0.5, 1.0);
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - SMOOTHING) + estimate * SMOOTHING, minLimit, maxLimit);
+    }
+
+    /** Failures of an overloaded provider: timeouts, connection failures, 429 and 5xx responses. */
+    static boolean isOverload(Throwable e) {
+        if (e instanceof TimeoutException || e instanceof IOException) return true;
+        if (e instanceof reactor.netty.http.client.PrematureCloseException) return true;
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().value() == 429 || response.getStatusCode().is5xxServerError();
+        }
+        return false;
+    }
+
+    private int permits() {
+        return (int) limit;
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInflight() {
+        return inflight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+}
@@ -20,7 +20,8 @@ import java.time.Duration;
  * Default base URL: {@code http://localhost:8000}
  * Hosted API: {@code https://integrate.api.nvidia.com/v1} (set as base-url, api-key required)
  * <p>
- * Automatically retries on transient failures with exponential backoff.
+ * Automatically retries on transient failures with exponential backoff. Concurrent requests
+ * are bounded by {@link AdaptiveConcurrencyLimiter}.
  *
  * <p>Requires:
  * <ul>
@@ -36,11 +37,14 @@ public class NvidiaNimClient implements LLMClient {
     private final LLMProperties llmProperties;
     private final WebClient webClient;
     private final Gson gson;
+    private final AdaptiveConcurrencyLimiter limiter;
 
-    public NvidiaNimClient(LLMProperties llmProperties, WebClient webClient, Gson gson) {
+    public NvidiaNimClient(LLMProperties llmProperties, WebClient webClient, Gson gson,
+            AdaptiveConcurrencyLimiter limiter) {
         this.llmProperties = llmProperties;
         this.webClient = webClient;
         this.gson = gson;
+        this.limiter = limiter;
     }
 
     @Override
@@ -75,7 +79,8 @@ public class NvidiaNimClient implements LLMClient {
 
         String url = llmProperties.getBaseUrl() + "/v1/chat/completions";
 
-        return webClient.post()
+        // Each attempt, retries included, holds a permit only while its request is in flight
+        return limiter.limit(webClient.post()
                 .uri(url)
                 .headers(headers -> {
                     String apiKey = llmProperties.getApiKey();
@@ -86,7 +91,7 @@ public class NvidiaNimClient implements LLMClient {
                 .bodyValue(requestBody.toString())
                 .retrieve()
                 .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(llmProperties.getTimeoutSeconds()))
+                .timeout(Duration.ofSeconds(llmProperties.getTimeoutSeconds())))
                 .map(response -> {
                     try {
                         JsonObject jsonResponse = gson.fromJson(response, JsonObject.class);
@@ -17,7 +17,7 @@ import java.time.Duration;
  * Uses the {@code /api/generate} endpoint with the configured model.
  * <p>
  * Automatically retries on transient failures (502, network timeouts) with
- * exponential backoff.
+ * exponential backoff. Concurrent requests are bounded by {@link AdaptiveConcurrencyLimiter}.
  */
 @Slf4j
 @Service
@@ -27,11 +27,14 @@ public class OllamaClient implements LLMClient {
     private final LLMProperties llmProperties;
     private final WebClient webClient;
     private final Gson gson;
+    private final AdaptiveConcurrencyLimiter limiter;
 
-    public OllamaClient(LLMProperties llmProperties, WebClient webClient, Gson gson) {
+    public OllamaClient(LLMProperties llmProperties, WebClient webClient, Gson gson,
+            AdaptiveConcurrencyLimiter limiter) {
         this.llmProperties = llmProperties;
         this.webClient = webClient;
         this.gson = gson;
+        this.limiter = limiter;
     }
 
     @Override
@@ -52,12 +55,13 @@ public class OllamaClient implements LLMClient {
 
         String url = llmProperties.getBaseUrl() + "/api/generate";
 
-        return webClient.post()
+        // Each attempt, retries included, holds a permit only while its request is in flight
+        return limiter.limit(webClient.post()
                 .uri(url)
                 .bodyValue(requestBody.toString())
                 .retrieve()
                 .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(llmProperties.getTimeoutSeconds()))
+                .timeout(Duration.ofSeconds(llmProperties.getTimeoutSeconds())))
                 .map(response -> {
                     try {
                         JsonObject jsonResponse = gson.fromJson(response, JsonObject.class);
@@ -0,0 +1,328 @@
+package com.bot.bot.mirror;
+
+import com.bot.bot.config.MirrorProperties;
+import com.bot.bot.domain.PullRequestContext;
+import com.bot.bot.github.GitHubApiClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a bare clone per repository on disk and computes PR diffs locally with JGit.
+ * <p>
+ * Clones are created lazily on first use and fetched incrementally on {@code push}
+ * and {@code pull_request} events. Total disk usage is bounded by
+ * {@link MirrorProperties#getMaxDiskMb()}; the least recently used mirrors are deleted
+ * when the budget is exceeded. All git work runs on the bounded elastic scheduler.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RepositoryMirror {
+
+    private final MirrorProperties mirrorProperties;
+    private final GitHubApiClient gitHubApiClient;
+
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return mirrorProperties.isEnabled();
+    }
+
+    /**
+     * Fetch the base branch and the PR head into the mirror, then return the unified diff
+     * between their merge base and the head commit (the same range as GitHub's PR diff).
+     */
+    public Mono<String> fetchDiff(PullRequestContext prContext) {
+        String owner = prContext.getOwner();
+        String repo = prContext.getRepo();
+
+        return gitHubApiClient.getInstallationToken(prContext.getInstallationId())
+                .publishOn(Schedulers.boundedElastic())
+                .map(token -> withRepository(owner, repo, git -> {
+                    fetch(git, token,
+                            new RefSpec("+refs/heads/" + prContext.getBaseRef() + ":refs/heads/" + prContext.getBaseRef()),
+                            new RefSpec("+refs/pull/" + prContext.getPrNumber() + "/head:refs/pull/" + prContext.getPrNumber() + "/head"));
+                    String base = prContext.getBaseSha() != null
+                            ? prContext.getBaseSha() : Constants.R_HEADS + prContext.getBaseRef();
+                    String head = prContext.getCommitSha() != null
+                            ? prContext.getCommitSha() : "refs/pull/" + prContext.getPrNumber() + "/head";
+                    return diff(git.getRepository(), base, head);
+                }, token))
+                .doOnSuccess(diff -> log.debug("Computed {} byte diff for {}/{}/PR#{} from local mirror",
+                        diff.length(), owner, repo, prContext.getPrNumber()))
+                .doOnTerminate(this::enforceDiskLimit);
+    }
+
+    /**
+     * Incrementally fetch all branches of an already mirrored repository.
+     * Repositories that are not mirrored yet are left alone; they are cloned on first review.
+     */
+    public Mono<Void> refresh(String owner, String repo, long installationId) {
+        if (!Files.isDirectory(repositoryDir(owner, repo))) {
+            return Mono.empty();
+        }
+        return gitHubApiClient.getInstallationToken(installationId)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(token -> withRepository(owner, repo, git -> {
+                    fetch(git, token, new RefSpec("+refs/heads/*:refs/heads/*"));
+                    return null;
+                }, token))
+                .doOnSuccess(token -> log.debug("Refreshed mirror for {}/{}", owner, repo))
+                .then();
+    }
+
+    /**
+     * Read the full content of a file at the given commit, or empty if the path does not exist there.
+     */
+    public Mono<String> readFile(String owner, String repo, String commitSha, String path) {
+        return Mono.fromCallable(() -> {
+                    Path dir = repositoryDir(owner, repo);
+                    if (!Files.isDirectory(dir)) {
+                        return null;
+                    }
+                    touch(owner, repo);
+                    try (Git git = Git.open(dir.toFile());
+                         RevWalk walk = new RevWalk(git.getRepository())) {
+                        Repository repository = git.getRepository();
+                        ObjectId commitId = repository.resolve(commitSha);
+                        if (commitId == null) return null;
+                        RevCommit commit = walk.parseCommit(commitId);
+                        try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, commit.getTree())) {
+                            if (treeWalk == null) return null;
+                            byte[] bytes = repository.open(treeWalk.getObjectId(0)).getBytes();
+                            return new String(bytes, StandardCharsets.UTF_8);
+                        }
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Read the blob {@code blobSha} (full or abbreviated) from the mirror, or empty if the
+     * repository is not mirrored or does not contain it (yet).
+     */
+    public Mono<byte[]> readBlob(String owner, String repo, String blobSha) {
+        return Mono.fromCallable(() -> {
+                    Path dir = repositoryDir(owner, repo);
+                    if (!Files.isDirectory(dir)) {
+                        return null;
+                    }
+                    touch(owner, repo);
+                    try (Git git = Git.open(dir.toFile());
+                         ObjectReader reader = git.getRepository().newObjectReader()) {
+                        Collection<ObjectId> ids = reader.resolve(AbbreviatedObjectId.fromString(blobSha));
+                        if (ids.size() != 1) return null;
+                        ObjectLoader loader = reader.open(ids.iterator().next(), Constants.OBJ_BLOB);
+                        return loader.getCachedBytes(Integer.MAX_VALUE);
+                    } catch (MissingObjectException | IncorrectObjectTypeException e) {
+                        return null;
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // ── Git operations ───────────────────────────────────────────────
+
+    private interface GitWork<T> {
+        T apply(Git git) throws Exception;
+    }
+
+    /** Open (cloning if needed) the mirror under its per-repo lock and run the given work. */
+    private <T> T withRepository(String owner, String repo, GitWork<T> work, String token) {
+        String key = repoKey(owner, repo);
+        ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            touch(owner, repo);
+            Path dir = repositoryDir(owner, repo);
+            try (Git git = Files.isDirectory(dir) ? Git.open(dir.toFile()) : cloneBare(owner, repo, dir, token)) {
+                return work.apply(git);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Git operation failed for " + key, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Git cloneBare(String owner, String repo, Path dir, String token) throws Exception {
+        String url = String.format(mirrorProperties.getCloneUrlTemplate(), owner, repo);
+        log.info("Cloning bare mirror of {}/{} into {}", owner, repo, dir);
+        Files.createDirectories(dir.getParent());
+        return Git.cloneRepository()
+                .setURI(url)
+                .setDirectory(dir.toFile())
+                .setBare(true)
+                .setCredentialsProvider(credentials(token))
+                .call();
+    }
+
+    private static void fetch(Git git, String token, RefSpec... refSpecs) throws Exception {
+        git.fetch()
+                .setRemote("origin")
+                .setRefSpecs(refSpecs)
+                .setCredentialsProvider(credentials(token))
+                .call();
+    }
+
+    /** Unified diff from merge-base(base, head) to head, with rename detection. */
+    static String diff(Repository repository, String base, String head) throws IOException {
+        ObjectId baseId = repository.resolve(base);
+        ObjectId headId = repository.resolve(head);
+        if (baseId == null || headId == null) {
+            throw new IllegalStateException("Cannot resolve " + base + " or " + head + " in mirror");
+        }
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit headCommit = walk.parseCommit(headId);
+            RevCommit baseCommit = walk.parseCommit(baseId);
+
+            walk.setRevFilter(RevFilter.MERGE_BASE);
+            walk.markStart(baseCommit);
+            walk.markStart(headCommit);
+            RevCommit mergeBase = walk.next();
+            RevCommit from = walk.parseCommit(mergeBase != null ? mergeBase : baseCommit);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (DiffFormatter formatter = new DiffFormatter(out)) {
+                formatter.setRepository(repository);
+                formatter.setDetectRenames(true);
+                // Full blob ids on index lines, so file contents can be cached by them
+                formatter.setAbbreviationLength(Constants.OBJECT_ID_STRING_LENGTH);
+                formatter.format(from.getTree(), headCommit.getTree());
+                formatter.flush();
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static UsernamePasswordCredentialsProvider credentials(String token) {
+        return new UsernamePasswordCredentialsProvider("x-access-token", token);
+    }
+
+    // ── Disk budget / LRU eviction ───────────────────────────────────
+
+    /**
+     * Delete the least recently used mirrors until total disk usage fits the budget.
+     * Mirrors that are currently locked by a review are skipped.
+     */
+    void enforceDiskLimit() {
+        Path baseDir = Paths.get(mirrorProperties.getBaseDir());
+        if (!Files.isDirectory(baseDir)) return;
+
+        long budget = mirrorProperties.getMaxDiskMb() * 1024 * 1024;
+        List<Path> mirrors = new ArrayList<>();
+        try (Stream<Path> owners = Files.list(baseDir)) {
+            for (Path ownerDir : owners.filter(Files::isDirectory).toList()) {
+                try (Stream<Path> repos = Files.list(ownerDir)) {
+                    repos.filter(Files::isDirectory).forEach(mirrors::add);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list mirrors in {}", baseDir, e);
+            return;
+        }
+
+        long total = mirrors.stream().mapToLong(RepositoryMirror::sizeOf).sum();
+        if (total <= budget) return;
+
+        mirrors.sort(Comparator.comparingLong(this::lastAccessOf));
+        for (Path dir : mirrors) {
+            if (total <= budget) break;
+            String key = keyOf(dir);
+            ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+            if (!lock.tryLock()) continue;
+            try {
+                long size = sizeOf(dir);
+                deleteRecursively(dir);
+                lastAccess.remove(key);
+                total -= size;
+                log.info("Evicted mirror {} ({} MB) to stay within the {} MB disk budget",
+                        key, size / (1024 * 1024), mirrorProperties.getMaxDiskMb());
+            } catch (IOException e) {
+                log.warn("Failed to evict mirror {}", key, e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private long lastAccessOf(Path dir) {
+        Long accessed = lastAccess.get(keyOf(dir));
+        return accessed != null ? accessed : dir.toFile().lastModified();
+    }
+
+    private void touch(String owner, String repo) {
+        lastAccess.put(repoKey(owner, repo), System.currentTimeMillis());
+    }
+
+    private static long sizeOf(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private Path repositoryDir(String owner, String repo) {
+        return Paths.get(mirrorProperties.getBaseDir(), owner, repo + ".git");
+    }
+
+    private static String keyOf(Path repositoryDir) {
+        String name = repositoryDir.getFileName().toString();
+        String repo = name.endsWith(".git") ? name.substring(0, name.length() - 4) : name;
+        return repoKey(repositoryDir.getParent().getFileName().toString(), repo);
+    }
+
+    private static String repoKey(String owner, String repo) {
+        return owner + "/" + repo;
+    }
+}
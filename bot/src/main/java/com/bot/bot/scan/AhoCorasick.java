@@ -0,0 +1,162 @@
+package com.bot.bot.scan;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over a set of ASCII literals, matched case-insensitively in one
+ * pass over the text. Each literal carries an id; several literals may share one.
+ * <p>
+ * The automaton is compiled into a dense DFA over the 128 ASCII characters (uppercase
+ * letters share the transitions of their lowercase form), so scanning costs one table
+ * lookup per character independent of the number of literals. Characters outside ASCII
+ * cannot be part of a literal and reset the automaton. Instances are immutable and safe
+ * to share between threads.
+ */
+public final class AhoCorasick {
+    private static final int ALPHABET = 128;
+
+    private final int[] delta;
+    // Ids of all literals ending in each state (including via failure links); null when none
+    private final int[][] outputs;
+    private final int maxId;
+
+    private AhoCorasick(int[] delta, int[][] outputs, int maxId) {
+        this.delta = delta;
+        this.outputs = outputs;
+        this.maxId = maxId;
+    }
+
+    /**
+     * @param literals non-empty ASCII literals
+     * @param ids      id reported for each literal, same length as {@code literals}
+     */
+    public static AhoCorasick compile(List<String> literals, int[] ids) {
+        if (literals.size() != ids.length) {
+            throw new IllegalArgumentException("Expected one id per literal");
+        }
+        List<int[]> trie = new ArrayList<>();
+        List<int[]> out = new ArrayList<>();
+        trie.add(newState());
+        out.add(null);
+        int maxId = -1;
+
+        for (int l = 0; l < literals.size(); l++) {
+            String literal = literals.get(l);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Empty literal");
+            }
+            int state = 0;
+            for (int i = 0; i < literal.length(); i++) {
+                char c = toLower(literal.charAt(i));
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("Non-ASCII literal: " + literal);
+                }
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newState());
+                    out.add(null);
+                }
+                state = trie.get(state)[c];
+            }
+            out.set(state, append(out.get(state), ids[l]));
+            maxId = Math.max(maxId, ids[l]);
+        }
+
+        int states = trie.size();
+        int[] delta = new int[states * ALPHABET];
+        int[] fail = new int[states];
+        int[][] outputs = out.toArray(new int[0][]);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = trie.get(0)[c];
+            delta[c] = Math.max(next, 0);
+            if (next > 0) queue.add(next);
+        }
+        // Breadth-first: a state's failure target is always complete before the state itself
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (outputs[fail[state]] != null) {
+                outputs[state] = merge(outputs[state], outputs[fail[state]]);
+            }
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = trie.get(state)[c];
+                if (next < 0) {
+                    delta[state * ALPHABET + c] = delta[fail[state] * ALPHABET + c];
+                } else {
+                    fail[next] = delta[fail[state] * ALPHABET + c];
+                    delta[state * ALPHABET + c] = next;
+                    queue.add(next);
+                }
+            }
+        }
+        for (int state = 0; state < states; state++) {
+            for (char c = 'A'; c <= 'Z'; c++) {
+                delta[state * ALPHABET + c] = delta[state * ALPHABET + (c | 0x20)];
+            }
+        }
+        return new AhoCorasick(delta, outputs, maxId);
+    }
+
+    /** Highest literal id, or -1 for an empty automaton. */
+    public int maxId() {
+        return maxId;
+    }
+
+    public int stateCount() {
+        return outputs.length;
+    }
+
+    /**
+     * Set bit {@code id} of the bitmap starting at word {@code offset} of {@code bits} for each
+     * literal that occurs in {@code text}.
+     */
+    public void scan(CharSequence text, long[] bits, int offset) {
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= ALPHABET) {
+                state = 0;
+                continue;
+            }
+            state = delta[state * ALPHABET + c];
+            int[] ids = outputs[state];
+            if (ids != null) {
+                for (int id : ids) {
+                    bits[offset + (id >>> 6)] |= 1L << id;
+                }
+            }
+        }
+    }
+
+    private static int[] newState() {
+        int[] transitions = new int[ALPHABET];
+        Arrays.fill(transitions, -1);
+        return transitions;
+    }
+
+    /** ASCII lowercase, the case folding of literals and scanned text; other chars unchanged. */
+    static char toLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c | 0x20) : c;
+    }
+
+    private static int[] append(int[] ids, int id) {
+        if (ids == null) return new int[]{id};
+        for (int existing : ids) {
+            if (existing == id) return ids;
+        }
+        int[] grown = Arrays.copyOf(ids, ids.length + 1);
+        grown[ids.length] = id;
+        return grown;
+    }
+
+    private static int[] merge(int[] ids, int[] inherited) {
+        int[] merged = ids;
+        for (int id : inherited) {
+            merged = append(merged, id);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bot.bot.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * A character class of a {@link LinearPattern}: ranges, nested classes ({@code \d} inside
+ * brackets, {@code \p{...}}) and an optional negation, with the ASCII part precomputed
+ * into a 128-bit map so most characters are tested with one shift.
+ * Case-insensitive classes fold ASCII letters only, like {@link java.util.regex.Pattern}
+ * without {@code UNICODE_CASE}.
+ */
+final class CharClass {
+    static final CharClass DIGIT = new Builder().range('0', '9').build(false, false);
+    static final CharClass WORD = new Builder().range('a', 'z').range('A', 'Z').range('0', '9').range('_', '_')
+            .build(false, false);
+    static final CharClass SPACE = new Builder().range(' ', ' ').range('\t', '\r').build(false, false);
+    static final CharClass HORIZONTAL_SPACE = new Builder().range(' ', ' ').range('\t', '\t').range(0xA0, 0xA0)
+            .range(0x1680, 0x1680).range(0x180E, 0x180E).range(0x2000, 0x200A).range(0x202F, 0x202F)
+            .range(0x205F, 0x205F).range(0x3000, 0x3000).build(false, false);
+    static final CharClass VERTICAL_SPACE = new Builder().range('\n', '\r').range(0x85, 0x85)
+            .range(0x2028, 0x2029).build(false, false);
+
+    private final int[] ranges;
+    private final CharClass[] nested;
+    private final IntPredicate predicate;
+    private final boolean negated;
+    private final long asciiLow;
+    private final long asciiHigh;
+
+    private CharClass(int[] ranges, CharClass[] nested, IntPredicate predicate, boolean negated, boolean fold) {
+        this.ranges = ranges;
+        this.nested = nested;
+        this.predicate = predicate;
+        this.negated = negated;
+        long low = 0;
+        long high = 0;
+        for (char c = 0; c < 128; c++) {
+            boolean member = contains(c) || (fold && contains(swapCase(c)));
+            if (member != negated) {
+                if (c < 64) low |= 1L << c;
+                else high |= 1L << (c - 64);
+            }
+        }
+        this.asciiLow = low;
+        this.asciiHigh = high;
+    }
+
+    static CharClass of(IntPredicate predicate) {
+        return new CharClass(new int[0], new CharClass[0], predicate, false, false);
+    }
+
+    CharClass negate() {
+        return new CharClass(ranges, nested, predicate, !negated, false);
+    }
+
+    boolean matches(char c) {
+        if (c < 64) return (asciiLow & (1L << c)) != 0;
+        if (c < 128) return (asciiHigh & (1L << (c - 64))) != 0;
+        return contains(c) != negated;
+    }
+
+    /** Approximate retained heap size in bytes; shared predefined classes are counted too. */
+    long approximateBytes() {
+        long bytes = 40 + 16 + 4L * ranges.length + 16 + 4L * nested.length;
+        for (CharClass cls : nested) {
+            bytes += cls.approximateBytes();
+        }
+        return bytes;
+    }
+
+    private boolean contains(char c) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (c >= ranges[i] && c <= ranges[i + 1]) return true;
+        }
+        for (CharClass cls : nested) {
+            if (cls.matches(c)) return true;
+        }
+        return predicate != null && predicate.test(c);
+    }
+
+    static char swapCase(char c) {
+        if (c >= 'a' && c <= 'z') return (char) (c - 32);
+        if (c >= 'A' && c <= 'Z') return (char) (c + 32);
+        return c;
+    }
+
+    static final class Builder {
+        private final List<Integer> ranges = new ArrayList<>();
+        private final List<CharClass> nested = new ArrayList<>();
+
+        Builder range(int lo, int hi) {
+            ranges.add(lo);
+            ranges.add(hi);
+            return this;
+        }
+
+        Builder add(CharClass cls) {
+            nested.add(cls);
+            return this;
+        }
+
+        CharClass build(boolean negated, boolean fold) {
+            return new CharClass(ranges.stream().mapToInt(Integer::intValue).toArray(),
+                    nested.toArray(new CharClass[0]), null, negated, fold);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.bot.bot.scan;
+
+import com.bot.bot.diff.LineView;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Lightweight lexer splitting source lines into comments, string literals, identifiers,
+ * numbers and operators ({@link TokenStream}), one pass and no regular expressions.
+ * <p>
+ * It knows just enough of each language family to tell code from comments and strings:
+ * line and block comment markers, quote characters, backslash escapes, and strings that
+ * may span lines (triple quotes; backticks in JavaScript, Go and PHP). In Rust, {@code '}
+ * opens a character literal only when one character or escape and a closing quote follow,
+ * so lifetimes and loop labels ({@code 'a}) lex as an operator and an identifier. Block comments and multi-line strings carry
+ * over from one line to the next, so the lines of a hunk are best lexed together. A hunk
+ * may start inside a comment the lexer never saw open; such lines lex as code.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class Lexer {
+    /** C, Java, C#, Kotlin, Swift and their relatives. */
+    private static final Lexer C_LIKE = new Lexer(List.of("//"), "/*", "*/", "\"'", true, true, false, false);
+    /** C-like with backtick strings: JavaScript and TypeScript templates, Go raw strings. */
+    private static final Lexer C_LIKE_BACKTICK = new Lexer(List.of("//"), "/*", "*/", "\"'`", true, true, false, false);
+    /** C-like, where {@code '} may also start a lifetime or label (Rust). */
+    private static final Lexer RUST = new Lexer(List.of("//"), "/*", "*/", "\"'", false, true, false, true);
+    /** C-like, where {@code #} also starts a comment and backticks run shell commands (PHP). */
+    private static final Lexer PHP = new Lexer(List.of("//", "#"), "/*", "*/", "\"'`", true, true, false, false);
+    /** C-like, where {@code #} also starts a comment (HCL). */
+    private static final Lexer HCL = new Lexer(List.of("//", "#"), "/*", "*/", "\"'", true, true, false, false);
+    /** Python, Ruby, shell, YAML and other {@code #}-commented languages. */
+    private static final Lexer HASH = new Lexer(List.of("#"), null, null, "\"'", true, true, true, false);
+    private static final Lexer SQL = new Lexer(List.of("--"), "/*", "*/", "'\"", false, false, false, false);
+    private static final Lexer CSS = new Lexer(List.of(), "/*", "*/", "\"'", false, true, false, false);
+    /** Markup: only comments, as apostrophes in text are not quotes. */
+    private static final Lexer MARKUP = new Lexer(List.of(), "<!--", "-->", "", false, false, false, false);
+    /** Unknown file types: no comments or strings, only words and operators. */
+    public static final Lexer PLAIN = new Lexer(List.of(), null, null, "", false, false, false, false);
+
+    private static final int ASCII = 128;
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte WORD = 2;
+    private static final byte DIGIT = 3;
+    private static final byte[] TYPES = new byte[ASCII];
+
+    static {
+        for (char c = 0; c < ASCII; c++) {
+            TYPES[c] = Character.isWhitespace(c) ? SPACE
+                    : c >= '0' && c <= '9' ? DIGIT
+                    : Character.isJavaIdentifierStart(c) ? WORD : OTHER;
+        }
+    }
+
+    private static final Map<String, Lexer> BY_FILE_TYPE = new HashMap<>();
+
+    static {
+        for (String type : List.of("java", "kt", "kts", "groovy", "gradle", "scala", "cs", "swift", "dart",
+                "c", "h", "cc", "cpp", "cxx", "hpp")) {
+            BY_FILE_TYPE.put(type, C_LIKE);
+        }
+        for (String type : List.of("js", "jsx", "mjs", "cjs", "ts", "tsx", "go")) {
+            BY_FILE_TYPE.put(type, C_LIKE_BACKTICK);
+        }
+        BY_FILE_TYPE.put("rs", RUST);
+        BY_FILE_TYPE.put("php", PHP);
+        for (String type : List.of("tf", "hcl")) {
+            BY_FILE_TYPE.put(type, HCL);
+        }
+        for (String type : List.of("py", "rb", "sh", "bash", "zsh", "yaml", "yml", "toml", "pl", "r",
+                "properties", "dockerfile", "conf", "cfg", "ini", "env")) {
+            BY_FILE_TYPE.put(type, HASH);
+        }
+        BY_FILE_TYPE.put("sql", SQL);
+        for (String type : List.of("css", "scss", "less")) {
+            BY_FILE_TYPE.put(type, CSS);
+        }
+        for (String type : List.of("html", "htm", "xml", "xhtml", "svg")) {
+            BY_FILE_TYPE.put(type, MARKUP);
+        }
+    }
+
+    private final String[] lineComments;
+    private final String blockOpen;
+    private final String blockClose;
+    private final String quotes;
+    // Triple quotes and backticks delimit strings that may span lines
+    private final boolean multilineStrings;
+    private final boolean escapes;
+    // # starts a comment only at the start of a line or after whitespace (YAML, shell)
+    private final boolean hashAfterSpace;
+    // ' opens a character literal only if closed after one character or escape (Rust lifetimes)
+    private final boolean lifetimes;
+    // First characters of comment markers and quotes
+    private final boolean[] markers = new boolean[ASCII];
+
+    private Lexer(List<String> lineComments, String blockOpen, String blockClose, String quotes,
+                  boolean multilineStrings, boolean escapes, boolean hashAfterSpace, boolean lifetimes) {
+        this.lineComments = lineComments.toArray(String[]::new);
+        this.blockOpen = blockOpen;
+        this.blockClose = blockClose;
+        this.quotes = quotes;
+        this.multilineStrings = multilineStrings;
+        this.escapes = escapes;
+        this.hashAfterSpace = hashAfterSpace;
+        this.lifetimes = lifetimes;
+        for (String marker : lineComments) markers[marker.charAt(0)] = true;
+        if (blockOpen != null) markers[blockOpen.charAt(0)] = true;
+        for (char quote : quotes.toCharArray()) markers[quote] = true;
+    }
+
+    /** Lexer for files of type {@code fileType} (extension without the dot); {@link #PLAIN} when unknown. */
+    public static Lexer forFileType(String fileType) {
+        if (fileType == null) return PLAIN;
+        return BY_FILE_TYPE.getOrDefault(fileType.toLowerCase(Locale.ROOT), PLAIN);
+    }
+
+    /** Lex lines {@code 0..lines-1} as one run of source, {@code line} returning each line's text. */
+    public TokenStream lex(int lines, IntFunction<? extends CharSequence> line) {
+        Builder tokens = new Builder(lines);
+        // Each line is copied here first: array reads are much cheaper than CharSequence calls
+        char[] s = new char[128];
+        // Closing delimiter of a comment or string continuing from the previous line
+        String open = null;
+        byte openKind = 0;
+        for (int l = 0; l < lines; l++) {
+            CharSequence text = line.apply(l);
+            tokens.startLine(l, text);
+            int n = text.length();
+            if (n > s.length) s = new char[Math.max(n, s.length * 2)];
+            if (text instanceof LineView view) {
+                view.getChars(s, 0);
+            } else if (text instanceof String string) {
+                string.getChars(0, n, s, 0);
+            } else {
+                for (int i = 0; i < n; i++) s[i] = text.charAt(i);
+            }
+            int i = 0;
+            if (open != null) {
+                int close = indexOf(s, n, open, 0, openKind == TokenStream.STRING && escapes);
+                if (close < 0) {
+                    if (n > 0) tokens.add(openKind, l, 0, n);
+                    continue;
+                }
+                i = close + open.length();
+                tokens.add(openKind, l, 0, i);
+                open = null;
+            }
+            while (i < n) {
+                char c = s[i];
+                byte type = typeOf(c);
+                if (type == SPACE) {
+                    i++;
+                    continue;
+                }
+                if (c < ASCII && markers[c]) {
+                    if (isLineComment(s, n, i)) {
+                        tokens.add(TokenStream.COMMENT, l, i, n);
+                        break;
+                    }
+                    if (blockOpen != null && startsWith(s, n, i, blockOpen)) {
+                        int close = indexOf(s, n, blockClose, i + blockOpen.length(), false);
+                        if (close < 0) {
+                            tokens.add(TokenStream.COMMENT, l, i, n);
+                            open = blockClose;
+                            openKind = TokenStream.COMMENT;
+                            break;
+                        }
+                        tokens.add(TokenStream.COMMENT, l, i, close + blockClose.length());
+                        i = close + blockClose.length();
+                        continue;
+                    }
+                    if (quotes.indexOf(c) >= 0 && !(lifetimes && c == '\'' && !isCharLiteral(s, n, i))) {
+                        String delimiter = multilineDelimiter(s, n, i, c);
+                        if (delimiter != null) {
+                            int close = indexOf(s, n, delimiter, i + delimiter.length(), escapes);
+                            if (close < 0) {
+                                tokens.add(TokenStream.STRING, l, i, n);
+                                open = delimiter;
+                                openKind = TokenStream.STRING;
+                                break;
+                            }
+                            tokens.add(TokenStream.STRING, l, i, close + delimiter.length());
+                            i = close + delimiter.length();
+                        } else {
+                            // Unterminated single-line strings end with the line
+                            int end = closingQuote(s, n, c, i + 1);
+                            end = end < 0 ? n : end + 1;
+                            tokens.add(TokenStream.STRING, l, i, end);
+                            i = end;
+                        }
+                        continue;
+                    }
+                }
+                int end = i + 1;
+                if (type == WORD) {
+                    while (end < n && isWordPart(s[end])) end++;
+                    tokens.add(TokenStream.IDENTIFIER, l, i, end);
+                } else if (type == DIGIT) {
+                    while (end < n && isNumberPart(s, n, end)) end++;
+                    tokens.add(TokenStream.NUMBER, l, i, end);
+                } else {
+                    end = i + operatorLength(s, n, i);
+                    tokens.add(TokenStream.OPERATOR, l, i, end);
+                }
+                i = end;
+            }
+        }
+        return tokens.build();
+    }
+
+    private static byte typeOf(char c) {
+        if (c < ASCII) return TYPES[c];
+        if (Character.isWhitespace(c)) return SPACE;
+        return Character.isJavaIdentifierStart(c) ? WORD : OTHER;
+    }
+
+    private static boolean isWordPart(char c) {
+        if (c < ASCII) return TYPES[c] == WORD || TYPES[c] == DIGIT;
+        return Character.isJavaIdentifierPart(c);
+    }
+
+    private boolean isLineComment(char[] s, int n, int i) {
+        for (String marker : lineComments) {
+            if (!startsWith(s, n, i, marker)) continue;
+            if (hashAfterSpace && marker.equals("#") && i > 0 && typeOf(s[i - 1]) != SPACE) continue;
+            return true;
+        }
+        return false;
+    }
+
+    private String multilineDelimiter(char[] s, int n, int i, char quote) {
+        if (!multilineStrings) return null;
+        if (quote == '`') return "`";
+        if (i + 2 < n && s[i + 1] == quote && s[i + 2] == quote) {
+            return quote == '"' ? "\"\"\"" : "'''";
+        }
+        return null;
+    }
+
+    /** Whether the {@code '} at {@code i} opens a character literal: one character or escape, then {@code '}. */
+    private static boolean isCharLiteral(char[] s, int n, int i) {
+        if (i + 1 < n && s[i + 1] == '\\') {
+            // '\n', '\'', '\x7f', or a Unicode escape of up to six hex digits in braces
+            for (int j = i + 3; j < n && j <= i + 12; j++) {
+                if (s[j] == '\'') return true;
+            }
+            return false;
+        }
+        int next = i + 1 < n && Character.isHighSurrogate(s[i + 1]) ? i + 3 : i + 2;
+        return next < n && s[next] == '\'';
+    }
+
+    /** Index of the quote closing a single-line string, or -1. */
+    private int closingQuote(char[] s, int n, char quote, int from) {
+        for (int i = from; i < n; i++) {
+            char c = s[i];
+            if (c == quote) return i;
+            if (c == '\\' && escapes) i++;
+        }
+        return -1;
+    }
+
+    private static int indexOf(char[] s, int n, String delimiter, int from, boolean escapes) {
+        for (int i = from; i <= n - delimiter.length(); i++) {
+            if (escapes && s[i] == '\\') {
+                i++;
+            } else if (startsWith(s, n, i, delimiter)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isNumberPart(char[] s, int n, int i) {
+        char c = s[i];
+        if (c == '.') return i + 1 < n && typeOf(s[i + 1]) == DIGIT;
+        return isWordPart(c);
+    }
+
+    /** Length of the operator at {@code i}: 1, or 2 or 3 for the common compound operators. */
+    private static int operatorLength(char[] s, int n, int i) {
+        if (i + 1 >= n) return 1;
+        char b = s[i + 1];
+        char c = i + 2 < n ? s[i + 2] : 0;
+        return switch (s[i]) {
+            case '=' -> b == '=' ? (c == '=' ? 3 : 2) : b == '>' ? 2 : 1;
+            case '!' -> b == '=' ? (c == '=' ? 3 : 2) : 1;
+            case '<', '>' -> b == s[i] ? (c == '=' ? 3 : 2) : b == '=' ? 2 : 1;
+            case '*' -> b == '*' ? (c == '=' ? 3 : 2) : b == '=' ? 2 : 1;
+            case '.' -> b == '.' ? (c == '.' ? 3 : 2) : 1;
+            case '?' -> b == '.' || b == ':' || b == '?' ? 2 : 1;
+            case ':' -> b == ':' ? 2 : 1;
+            case '-' -> b == '>' || b == '-' || b == '=' ? 2 : 1;
+            case '+' -> b == '+' || b == '=' ? 2 : 1;
+            case '&' -> b == '&' || b == '=' ? 2 : 1;
+            case '|' -> b == '|' || b == '=' ? 2 : 1;
+            case '/', '%', '^' -> b == '=' ? 2 : 1;
+            default -> 1;
+        };
+    }
+
+    private static boolean startsWith(char[] s, int n, int at, String prefix) {
+        if (at + prefix.length() > n) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (s[at + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Growable token arrays. */
+    private static final class Builder {
+        private final CharSequence[] lines;
+        private final int[] lineStarts;
+        private byte[] kinds;
+        private int[] lineOf;
+        private int[] starts;
+        private int[] ends;
+        private int size;
+
+        Builder(int lines) {
+            this.lines = new CharSequence[lines];
+            this.lineStarts = new int[lines + 1];
+            int capacity = Math.max(16, lines * 8);
+            this.kinds = new byte[capacity];
+            this.lineOf = new int[capacity];
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
+        }
+
+        void startLine(int line, CharSequence text) {
+            lines[line] = text;
+            lineStarts[line] = size;
+        }
+
+        void add(byte kind, int line, int start, int end) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                lineOf = Arrays.copyOf(lineOf, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+            kinds[size] = kind;
+            lineOf[size] = line;
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        TokenStream build() {
+            lineStarts[lines.length] = size;
+            return new TokenStream(lines, kinds, lineOf, starts, ends, lineStarts, size);
+        }
+    }
+}
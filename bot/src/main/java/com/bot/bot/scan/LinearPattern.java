@@ -0,0 +1,203 @@
+package com.bot.bot.scan;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static com.bot.bot.scan.LinearRegexCompiler.*;
+
+/**
+ * A regular expression matched in time linear in the input, for rule patterns and
+ * repo-supplied patterns where {@link Pattern}'s backtracking could run away.
+ * <p>
+ * The syntax is that of {@link Pattern} minus the constructs that need backtracking
+ * (backreferences, lookaround, atomic groups, possessive quantifiers); these, and patterns
+ * that would compile to more than {@value LinearRegexCompiler#MAX_PROGRAM} instructions,
+ * are rejected with a {@link PatternSyntaxException} at compile time. Supported flags are
+ * {@code CASE_INSENSITIVE}, {@code DOTALL} and {@code MULTILINE}, also inline.
+ * <p>
+ * Matching simulates the compiled NFA breadth-first (a Pike VM): all threads advance
+ * together one input character at a time and each instruction is visited at most once per
+ * position, so a match costs at most {@code O(input length × program size)} no matter how
+ * the pattern is written. Only match existence is reported; characters are UTF-16 code
+ * units. Instances are immutable and thread-safe.
+ */
+public final class LinearPattern {
+    private final String regex;
+    private final int flags;
+    private final int[] op;
+    private final int[] arg;
+    private final int[] arg2;
+    private final CharClass[] classes;
+    private final boolean anchoredStart;
+
+    private LinearPattern(String regex, int flags, LinearRegexCompiler.Program program) {
+        this.regex = regex;
+        this.flags = flags;
+        this.op = program.op();
+        this.arg = program.arg();
+        this.arg2 = program.arg2();
+        this.classes = program.classes();
+        this.anchoredStart = program.anchoredStart();
+    }
+
+    public static LinearPattern compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * @param flags combination of {@link Pattern#CASE_INSENSITIVE}, {@link Pattern#DOTALL}
+     *              and {@link Pattern#MULTILINE}
+     * @throws PatternSyntaxException if the pattern is invalid, needs backtracking or is too large
+     */
+    public static LinearPattern compile(String regex, int flags) {
+        return new LinearPattern(regex, flags, LinearRegexCompiler.compile(regex, flags));
+    }
+
+    public String pattern() {
+        return regex;
+    }
+
+    public int flags() {
+        return flags;
+    }
+
+    /** Number of compiled instructions; the per-character cost bound of a match. */
+    public int programSize() {
+        return op.length;
+    }
+
+    /**
+     * Approximate retained heap size in bytes (object headers, instruction arrays and
+     * character classes, not the pattern string), assuming compressed references.
+     */
+    public long approximateBytes() {
+        long bytes = 40 + 3 * (16 + 4L * op.length) + 16 + 4L * classes.length;
+        for (CharClass cls : classes) {
+            bytes += cls.approximateBytes();
+        }
+        return bytes;
+    }
+
+    /** Whether the pattern matches some part of {@code input}, like {@code Matcher.find()}. */
+    public boolean find(CharSequence input) {
+        return run(input, false);
+    }
+
+    /** Whether the pattern matches all of {@code input}, like {@code Matcher.matches()}. */
+    public boolean matches(CharSequence input) {
+        return run(input, true);
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+
+    private boolean run(CharSequence input, boolean full) {
+        int n = input.length();
+        int size = op.length;
+        // mark[pc] == pos + 1 when pc is already in the thread list for position pos
+        int[] mark = new int[size];
+        int[] current = new int[size];
+        int[] next = new int[size];
+        int[] stack = new int[2 * size + 2];
+        boolean startAtZeroOnly = full || anchoredStart;
+        int count = 0;
+
+        for (int pos = 0; ; pos++) {
+            if (pos == 0 || !startAtZeroOnly) {
+                count = addThread(current, count, 0, pos, input, n, mark, stack);
+            }
+            if (count == 0) {
+                if (startAtZeroOnly || pos >= n) return false;
+                continue;
+            }
+            char c = pos < n ? input.charAt(pos) : 0;
+            int nextCount = 0;
+            for (int i = 0; i < count; i++) {
+                int pc = current[i];
+                boolean advance;
+                switch (op[pc]) {
+                    case MATCH -> {
+                        if (!full || pos == n) return true;
+                        advance = false;
+                    }
+                    case CHAR -> advance = pos < n && c == arg[pc];
+                    case CHAR_FOLD -> advance = pos < n && toLower(c) == arg[pc];
+                    case CLASS -> advance = pos < n && classes[arg[pc]].matches(c);
+                    case ANY -> advance = pos < n && !isLineTerminator(c);
+                    case ANY_DOTALL -> advance = pos < n;
+                    default -> throw new IllegalStateException("Unexpected opcode " + op[pc]);
+                }
+                if (advance) {
+                    nextCount = addThread(next, nextCount, pc + 1, pos + 1, input, n, mark, stack);
+                }
+            }
+            if (pos >= n) return false;
+            int[] swap = current;
+            current = next;
+            next = swap;
+            count = nextCount;
+        }
+    }
+
+    /** Add {@code start} and everything reachable from it without consuming input at {@code pos}. */
+    private int addThread(int[] list, int count, int start, int pos, CharSequence input, int n,
+                          int[] mark, int[] stack) {
+        int generation = pos + 1;
+        int sp = 0;
+        stack[sp++] = start;
+        while (sp > 0) {
+            int pc = stack[--sp];
+            if (mark[pc] == generation) continue;
+            mark[pc] = generation;
+            switch (op[pc]) {
+                case JMP -> stack[sp++] = arg[pc];
+                case SPLIT -> {
+                    stack[sp++] = arg2[pc];
+                    stack[sp++] = arg[pc];
+                }
+                case ASSERT -> {
+                    if (holds(arg[pc], input, pos, n)) stack[sp++] = pc + 1;
+                }
+                default -> list[count++] = pc;
+            }
+        }
+        return count;
+    }
+
+    private static boolean holds(int kind, CharSequence input, int pos, int n) {
+        return switch (kind) {
+            case BOL, TEXT_START -> pos == 0;
+            // like Pattern, never at the end of input, not even an empty one
+            case MULTILINE_BOL -> pos < n && (pos == 0 || (isLineTerminator(input.charAt(pos - 1))
+                    && !(input.charAt(pos - 1) == '\r' && input.charAt(pos) == '\n')));
+            case TEXT_END -> pos == n;
+            case EOL -> pos == n
+                    || (pos == n - 1 && isLineTerminator(input.charAt(pos))
+                        && !(input.charAt(pos) == '\n' && pos > 0 && input.charAt(pos - 1) == '\r'))
+                    || (pos == n - 2 && input.charAt(pos) == '\r' && input.charAt(pos + 1) == '\n');
+            case MULTILINE_EOL -> pos == n || (isLineTerminator(input.charAt(pos))
+                    && !(input.charAt(pos) == '\n' && pos > 0 && input.charAt(pos - 1) == '\r'));
+            case WORD_BOUNDARY -> isWordBefore(input, pos) != isWordAt(input, pos, n);
+            case NOT_WORD_BOUNDARY -> isWordBefore(input, pos) == isWordAt(input, pos, n);
+            default -> throw new IllegalStateException("Unexpected assertion " + kind);
+        };
+    }
+
+    private static boolean isWordBefore(CharSequence input, int pos) {
+        return pos > 0 && CharClass.WORD.matches(input.charAt(pos - 1));
+    }
+
+    private static boolean isWordAt(CharSequence input, int pos, int n) {
+        return pos < n && CharClass.WORD.matches(input.charAt(pos));
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static char toLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+}
@@ -0,0 +1,520 @@
+package com.bot.bot.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parses {@link Pattern}-compatible syntax and compiles it into the instruction list run by
+ * {@link LinearPattern}. Constructs that require backtracking (backreferences, lookaround,
+ * atomic groups, possessive quantifiers) are rejected, and so is any pattern whose
+ * program would exceed {@link #MAX_PROGRAM} instructions once counted repetitions are
+ * expanded, which bounds the cost of every match to {@code MAX_PROGRAM} steps per input
+ * character.
+ */
+final class LinearRegexCompiler {
+
+    /** Upper bound on program size, and so on per-character matching work. */
+    static final int MAX_PROGRAM = 10_000;
+
+    /** Upper bound on a repetition count, checked before expansion. */
+    static final int MAX_REPEAT = 1_000;
+
+    static final int CHAR = 0;
+    static final int CHAR_FOLD = 1;
+    static final int CLASS = 2;
+    static final int ANY = 3;
+    static final int ANY_DOTALL = 4;
+    static final int SPLIT = 5;
+    static final int JMP = 6;
+    static final int ASSERT = 7;
+    static final int MATCH = 8;
+
+    static final int BOL = 0;
+    static final int MULTILINE_BOL = 1;
+    static final int EOL = 2;
+    static final int MULTILINE_EOL = 3;
+    static final int TEXT_START = 4;
+    static final int TEXT_END = 5;
+    static final int WORD_BOUNDARY = 6;
+    static final int NOT_WORD_BOUNDARY = 7;
+
+    static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.MULTILINE;
+
+    /** Compiled program: opcode and two operands per instruction, plus the class table. */
+    record Program(int[] op, int[] arg, int[] arg2, CharClass[] classes, boolean anchoredStart) {
+    }
+
+    private sealed interface Node permits Lit, Cls, Dot, Assertion, Seq, Alt, Repeat {
+    }
+
+    private record Lit(char c, boolean fold) implements Node {
+    }
+
+    private record Cls(CharClass cls) implements Node {
+    }
+
+    private record Dot(boolean dotall) implements Node {
+    }
+
+    private record Assertion(int kind) implements Node {
+    }
+
+    private record Seq(List<Node> items) implements Node {
+    }
+
+    private record Alt(List<Node> branches) implements Node {
+    }
+
+    private record Repeat(Node node, int min, int max) implements Node {
+    }
+
+    private final String regex;
+    private int pos;
+    private int flags;
+
+    private final List<int[]> code = new ArrayList<>();
+    private final List<CharClass> classes = new ArrayList<>();
+
+    private LinearRegexCompiler(String regex, int flags) {
+        this.regex = regex;
+        this.flags = flags;
+    }
+
+    static Program compile(String regex, int flags) {
+        if ((flags & ~SUPPORTED_FLAGS) != 0) {
+            throw new IllegalArgumentException("Unsupported flags for linear-time patterns: " + flags);
+        }
+        LinearRegexCompiler compiler = new LinearRegexCompiler(regex, flags);
+        Node root = compiler.parseAlternation();
+        if (compiler.pos < regex.length()) {
+            throw compiler.error("Unmatched closing ')'");
+        }
+        compiler.emit(root);
+        compiler.add(MATCH, 0, 0);
+
+        int size = compiler.code.size();
+        int[] op = new int[size];
+        int[] arg = new int[size];
+        int[] arg2 = new int[size];
+        for (int i = 0; i < size; i++) {
+            int[] instruction = compiler.code.get(i);
+            op[i] = instruction[0];
+            arg[i] = instruction[1];
+            arg2[i] = instruction[2];
+        }
+        return new Program(op, arg, arg2, compiler.classes.toArray(new CharClass[0]), anchoredStart(root));
+    }
+
+    /** True when every match must start at the beginning of the input. */
+    private static boolean anchoredStart(Node node) {
+        if (node instanceof Assertion a) return a.kind() == BOL || a.kind() == TEXT_START;
+        if (node instanceof Seq seq) return !seq.items().isEmpty() && anchoredStart(seq.items().get(0));
+        if (node instanceof Alt alt) return alt.branches().stream().allMatch(LinearRegexCompiler::anchoredStart);
+        return false;
+    }
+
+    // ── Parsing ──────────────────────────────────────────────────────
+
+    private Node parseAlternation() {
+        List<Node> branches = new ArrayList<>();
+        branches.add(parseSequence());
+        while (pos < regex.length() && regex.charAt(pos) == '|') {
+            pos++;
+            branches.add(parseSequence());
+        }
+        return branches.size() == 1 ? branches.get(0) : new Alt(branches);
+    }
+
+    private Node parseSequence() {
+        List<Node> items = new ArrayList<>();
+        while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+            Node atom = parseAtom();
+            if (atom != null) {
+                items.add(parseQuantifier(atom));
+            }
+        }
+        return items.size() == 1 ? items.get(0) : new Seq(items);
+    }
+
+    /** Next atom, or null for an inline flag group such as {@code (?i)}. */
+    private Node parseAtom() {
+        char c = regex.charAt(pos++);
+        return switch (c) {
+            case '(' -> parseGroup();
+            case '[' -> new Cls(parseClass());
+            case '.' -> new Dot(has(Pattern.DOTALL));
+            case '^' -> new Assertion(has(Pattern.MULTILINE) ? MULTILINE_BOL : BOL);
+            case '$' -> new Assertion(has(Pattern.MULTILINE) ? MULTILINE_EOL : EOL);
+            case '\\' -> parseEscape();
+            case '*', '+', '?', '{' -> throw error("Dangling meta character '" + c + "'");
+            default -> literal(c);
+        };
+    }
+
+    private Node parseGroup() {
+        int saved = flags;
+        if (peek('?')) {
+            pos++;
+            char kind = next();
+            switch (kind) {
+                case ':' -> {
+                }
+                case '=', '!' -> throw error("Lookahead is not supported");
+                case '>' -> throw error("Atomic groups are not supported");
+                case '<' -> {
+                    if (peek('=') || peek('!')) throw error("Lookbehind is not supported");
+                    int end = regex.indexOf('>', pos);
+                    if (end < 0) throw error("Unterminated group name");
+                    pos = end + 1;
+                }
+                default -> {
+                    pos--;
+                    if (parseFlags()) return null;
+                }
+            }
+        }
+        Node inner = parseAlternation();
+        if (pos >= regex.length() || regex.charAt(pos) != ')') throw error("Unclosed group");
+        pos++;
+        flags = saved;
+        return inner;
+    }
+
+    /** Applies {@code (?flags)} or {@code (?flags:}; true when the group ended with the flags. */
+    private boolean parseFlags() {
+        boolean on = true;
+        while (true) {
+            char f = next();
+            int flag = switch (f) {
+                case 'i' -> Pattern.CASE_INSENSITIVE;
+                case 's' -> Pattern.DOTALL;
+                case 'm' -> Pattern.MULTILINE;
+                case '-' -> 0;
+                case ')', ':' -> -1;
+                default -> throw error("Unsupported inline flag '" + f + "'");
+            };
+            if (flag < 0) return f == ')';
+            if (f == '-') {
+                on = false;
+            } else if (on) {
+                flags |= flag;
+            } else {
+                flags &= ~flag;
+            }
+        }
+    }
+
+    private Node parseEscape() {
+        char c = next();
+        switch (c) {
+            case 'd': return new Cls(CharClass.DIGIT);
+            case 'D': return new Cls(CharClass.DIGIT.negate());
+            case 'w': return new Cls(CharClass.WORD);
+            case 'W': return new Cls(CharClass.WORD.negate());
+            case 's': return new Cls(CharClass.SPACE);
+            case 'S': return new Cls(CharClass.SPACE.negate());
+            case 'h': return new Cls(CharClass.HORIZONTAL_SPACE);
+            case 'H': return new Cls(CharClass.HORIZONTAL_SPACE.negate());
+            case 'v': return new Cls(CharClass.VERTICAL_SPACE);
+            case 'V': return new Cls(CharClass.VERTICAL_SPACE.negate());
+            case 'p': return new Cls(property());
+            case 'P': return new Cls(property().negate());
+            case 'b':
+                if (peek('{')) throw error("Grapheme boundaries are not supported");
+                return new Assertion(WORD_BOUNDARY);
+            case 'B': return new Assertion(NOT_WORD_BOUNDARY);
+            case 'A': return new Assertion(TEXT_START);
+            case 'z': return new Assertion(TEXT_END);
+            case 'Z': return new Assertion(EOL);
+            case 'Q': {
+                int end = regex.indexOf("\\E", pos);
+                String quoted = regex.substring(pos, end < 0 ? regex.length() : end);
+                pos = end < 0 ? regex.length() : end + 2;
+                List<Node> items = new ArrayList<>();
+                for (int i = 0; i < quoted.length(); i++) items.add(literal(quoted.charAt(i)));
+                return new Seq(items);
+            }
+            case 'k':
+                throw error("Backreferences are not supported");
+            default:
+                if (c >= '1' && c <= '9') throw error("Backreferences are not supported");
+                return literal(escapedChar(c));
+        }
+    }
+
+    /** The character denoted by a single-character escape (after the backslash). */
+    private char escapedChar(char c) {
+        switch (c) {
+            case 't': return '\t';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            case 'a': return '\u0007';
+            case 'e': return '\u001B';
+            case 'c': return (char) (next() ^ 64);
+            case '0': {
+                int value = 0;
+                int digits = 0;
+                while (digits < 3 && pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '7'
+                        && value * 8 + (regex.charAt(pos) - '0') <= 0377) {
+                    value = value * 8 + (regex.charAt(pos++) - '0');
+                    digits++;
+                }
+                if (digits == 0) throw error("Illegal octal escape");
+                return (char) value;
+            }
+            case 'x': {
+                int value;
+                if (peek('{')) {
+                    int end = regex.indexOf('}', pos);
+                    if (end < 0) throw error("Unclosed hexadecimal escape");
+                    value = hex(regex.substring(pos + 1, end));
+                    pos = end + 1;
+                } else {
+                    value = hex(regex.substring(pos, Math.min(pos + 2, regex.length())));
+                    pos += 2;
+                }
+                if (value > 0xFFFF) throw error("Supplementary characters are not supported");
+                return (char) value;
+            }
+            case 'u': {
+                int value = hex(regex.substring(pos, Math.min(pos + 4, regex.length())));
+                pos += 4;
+                return (char) value;
+            }
+            default:
+                if (Character.isLetterOrDigit(c)) throw error("Unsupported escape '\\" + c + "'");
+                return c;
+        }
+    }
+
+    private int hex(String digits) {
+        try {
+            return Integer.parseInt(digits, 16);
+        } catch (NumberFormatException e) {
+            throw error("Illegal hexadecimal escape");
+        }
+    }
+
+    private CharClass property() {
+        String name;
+        if (peek('{')) {
+            int end = regex.indexOf('}', pos);
+            if (end < 0) throw error("Unclosed character family");
+            name = regex.substring(pos + 1, end);
+            pos = end + 1;
+        } else {
+            name = String.valueOf(next());
+        }
+        return switch (name) {
+            case "Lower" -> new CharClass.Builder().range('a', 'z').build(false, has(Pattern.CASE_INSENSITIVE));
+            case "Upper" -> new CharClass.Builder().range('A', 'Z').build(false, has(Pattern.CASE_INSENSITIVE));
+            case "ASCII" -> new CharClass.Builder().range(0, 0x7F).build(false, false);
+            case "Alpha" -> new CharClass.Builder().range('a', 'z').range('A', 'Z').build(false, false);
+            case "Digit" -> CharClass.DIGIT;
+            case "Alnum" -> new CharClass.Builder().range('a', 'z').range('A', 'Z').range('0', '9').build(false, false);
+            case "Punct" -> new CharClass.Builder().range('!', '/').range(':', '@').range('[', '`').range('{', '~')
+                    .build(false, false);
+            case "Graph" -> new CharClass.Builder().range('!', '~').build(false, false);
+            case "Print" -> new CharClass.Builder().range(' ', '~').build(false, false);
+            case "Blank" -> new CharClass.Builder().range(' ', ' ').range('\t', '\t').build(false, false);
+            case "Cntrl" -> new CharClass.Builder().range(0, 0x1F).range(0x7F, 0x7F).build(false, false);
+            case "XDigit" -> new CharClass.Builder().range('0', '9').range('a', 'f').range('A', 'F').build(false, false);
+            case "Space" -> CharClass.SPACE;
+            case "L", "IsL", "IsLetter" -> CharClass.of(Character::isLetter);
+            case "Lu", "IsLu", "IsUppercase" -> CharClass.of(Character::isUpperCase);
+            case "Ll", "IsLl", "IsLowercase" -> CharClass.of(Character::isLowerCase);
+            case "N", "IsN", "Nd", "IsDigit" -> CharClass.of(Character::isDigit);
+            case "IsAlphabetic" -> CharClass.of(Character::isAlphabetic);
+            case "IsWhite_Space", "IsWhiteSpace" -> CharClass.of(Character::isWhitespace);
+            default -> throw error("Unsupported character property '" + name + "'");
+        };
+    }
+
+    private CharClass parseClass() {
+        boolean negated = false;
+        if (peek('^')) {
+            pos++;
+            negated = true;
+        }
+        CharClass.Builder builder = new CharClass.Builder();
+        boolean first = true;
+        while (true) {
+            if (pos >= regex.length()) throw error("Unclosed character class");
+            char c = regex.charAt(pos++);
+            if (c == ']' && !first) break;
+            first = false;
+            if (c == '[') throw error("Nested character classes are not supported");
+            if (c == '&' && peek('&')) throw error("Character class intersections are not supported");
+            int lo;
+            if (c == '\\') {
+                CharClass predefined = classEscape();
+                if (predefined != null) {
+                    builder.add(predefined);
+                    continue;
+                }
+                lo = escapedChar(regex.charAt(pos - 1));
+            } else {
+                lo = c;
+            }
+            if (peek('-') && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+                pos++;
+                char h = next();
+                int hi;
+                if (h == '\\') {
+                    if (classEscape() != null) throw error("Illegal character range");
+                    hi = escapedChar(regex.charAt(pos - 1));
+                } else if (h == '[') {
+                    throw error("Nested character classes are not supported");
+                } else {
+                    hi = h;
+                }
+                if (hi < lo) throw error("Illegal character range");
+                builder.range(lo, hi);
+            } else {
+                builder.range(lo, lo);
+            }
+        }
+        return builder.build(negated, has(Pattern.CASE_INSENSITIVE));
+    }
+
+    /**
+     * After a backslash inside a class: the predefined class it denotes, or null (leaving
+     * the escaped character at {@code pos - 1}) for a character escape.
+     */
+    private CharClass classEscape() {
+        char c = next();
+        return switch (c) {
+            case 'd' -> CharClass.DIGIT;
+            case 'D' -> CharClass.DIGIT.negate();
+            case 'w' -> CharClass.WORD;
+            case 'W' -> CharClass.WORD.negate();
+            case 's' -> CharClass.SPACE;
+            case 'S' -> CharClass.SPACE.negate();
+            case 'h' -> CharClass.HORIZONTAL_SPACE;
+            case 'H' -> CharClass.HORIZONTAL_SPACE.negate();
+            case 'v' -> CharClass.VERTICAL_SPACE;
+            case 'V' -> CharClass.VERTICAL_SPACE.negate();
+            case 'p' -> property();
+            case 'P' -> property().negate();
+            case 'Q' -> throw error("\\Q inside character classes is not supported");
+            default -> null;
+        };
+    }
+
+    private Node parseQuantifier(Node atom) {
+        if (pos >= regex.length()) return atom;
+        int min;
+        int max;
+        switch (regex.charAt(pos)) {
+            case '*' -> { min = 0; max = -1; pos++; }
+            case '+' -> { min = 1; max = -1; pos++; }
+            case '?' -> { min = 0; max = 1; pos++; }
+            case '{' -> {
+                int close = regex.indexOf('}', pos);
+                if (close < 0) throw error("Unclosed counted repetition");
+                String[] bounds = regex.substring(pos + 1, close).split(",", -1);
+                try {
+                    min = Integer.parseInt(bounds[0]);
+                    max = bounds.length == 1 ? min : bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+                } catch (NumberFormatException e) {
+                    throw error("Illegal repetition");
+                }
+                if (bounds.length > 2 || min < 0 || (max >= 0 && max < min)) throw error("Illegal repetition range");
+                if (min > MAX_REPEAT || max > MAX_REPEAT) throw error("Repetition count above " + MAX_REPEAT);
+                pos = close + 1;
+            }
+            default -> {
+                return atom;
+            }
+        }
+        if (peek('+')) throw error("Possessive quantifiers are not supported");
+        if (peek('?')) pos++; // reluctant: same language, and only match existence is reported
+        if (pos < regex.length() && "*+?{".indexOf(regex.charAt(pos)) >= 0) throw error("Dangling meta character");
+        return new Repeat(atom, min, max);
+    }
+
+    private Node literal(char c) {
+        boolean fold = has(Pattern.CASE_INSENSITIVE) && CharClass.swapCase(c) != c;
+        return new Lit(fold ? Character.toLowerCase(c) : c, fold);
+    }
+
+    private boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private boolean peek(char c) {
+        return pos < regex.length() && regex.charAt(pos) == c;
+    }
+
+    private char next() {
+        if (pos >= regex.length()) throw error("Unexpected end of pattern");
+        return regex.charAt(pos++);
+    }
+
+    private PatternSyntaxException error(String description) {
+        return new PatternSyntaxException(description, regex, pos - 1);
+    }
+
+    // ── Code generation ──────────────────────────────────────────────
+
+    private int add(int op, int arg, int arg2) {
+        if (code.size() >= MAX_PROGRAM) {
+            throw new PatternSyntaxException("Pattern exceeds " + MAX_PROGRAM + " instructions", regex, -1);
+        }
+        code.add(new int[]{op, arg, arg2});
+        return code.size() - 1;
+    }
+
+    private void emit(Node node) {
+        switch (node) {
+            case Lit lit -> add(lit.fold() ? CHAR_FOLD : CHAR, lit.c(), 0);
+            case Cls cls -> {
+                classes.add(cls.cls());
+                add(CLASS, classes.size() - 1, 0);
+            }
+            case Dot dot -> add(dot.dotall() ? ANY_DOTALL : ANY, 0, 0);
+            case Assertion assertion -> add(ASSERT, assertion.kind(), 0);
+            case Seq seq -> seq.items().forEach(this::emit);
+            case Alt alt -> {
+                List<Integer> exits = new ArrayList<>();
+                for (int i = 0; i < alt.branches().size() - 1; i++) {
+                    int split = add(SPLIT, code.size() + 1, 0);
+                    emit(alt.branches().get(i));
+                    exits.add(add(JMP, 0, 0));
+                    code.get(split)[2] = code.size();
+                }
+                emit(alt.branches().get(alt.branches().size() - 1));
+                for (int exit : exits) code.get(exit)[1] = code.size();
+            }
+            case Repeat repeat -> emitRepeat(repeat);
+        }
+    }
+
+    private void emitRepeat(Repeat repeat) {
+        if (repeat.max() < 0) {
+            if (repeat.min() == 0) {
+                // L: split body, end; body; jmp L
+                int split = add(SPLIT, code.size() + 1, 0);
+                emit(repeat.node());
+                add(JMP, split, 0);
+                code.get(split)[2] = code.size();
+            } else {
+                for (int i = 0; i < repeat.min() - 1; i++) emit(repeat.node());
+                int loop = code.size();
+                emit(repeat.node());
+                add(SPLIT, loop, code.size() + 1);
+            }
+            return;
+        }
+        for (int i = 0; i < repeat.min(); i++) emit(repeat.node());
+        List<Integer> skips = new ArrayList<>();
+        for (int i = repeat.min(); i < repeat.max(); i++) {
+            skips.add(add(SPLIT, code.size() + 1, 0));
+            emit(repeat.node());
+        }
+        for (int skip : skips) code.get(skip)[2] = code.size();
+    }
+}
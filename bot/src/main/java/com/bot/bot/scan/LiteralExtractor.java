@@ -0,0 +1,412 @@
+package com.bot.bot.scan;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Derives from a regex a set of literals such that every match contains at least one of
+ * them, for use as a prefilter in front of the full regex.
+ * <p>
+ * The pattern is parsed into a small summary per node: either the exact (finite) set of
+ * strings the node can match, or a set of literals one of which every match contains.
+ * Adjacent exact nodes are combined by cross product ({@code api[_-]?key} yields
+ * {@code api_key}, {@code api-key} and {@code apikey}), alternations take the union of their
+ * branches, and a concatenation keeps its most selective factor (longest shortest literal).
+ * Literals are lowercased ASCII and meant to be matched case-insensitively, which only
+ * widens the prefilter. Constructs the parser does not model (non-ASCII characters,
+ * backreferences, large classes, nested class syntax, {@code COMMENTS} or
+ * {@code UNICODE_CASE} mode) are treated as matching anything, so the result is always
+ * a necessary condition for a match; when no such literal exists the result is empty and
+ * the regex must run on every line.
+ */
+public final class LiteralExtractor {
+
+    /** Largest exact set tracked before a node is reduced to its required literals. */
+    static final int MAX_EXACT = 64;
+
+    /** Largest character class expanded into single-character literals. */
+    static final int MAX_CLASS = 8;
+
+    private LiteralExtractor() {
+    }
+
+    /** Lowercased literals one of which occurs in every match of {@code pattern}; empty when none can be derived. */
+    public static Set<String> requiredLiterals(Pattern pattern) {
+        return requiredLiterals(pattern.pattern(), pattern.flags());
+    }
+
+    public static Set<String> requiredLiterals(LinearPattern pattern) {
+        return requiredLiterals(pattern.pattern(), pattern.flags());
+    }
+
+    static Set<String> requiredLiterals(String regex, int flags) {
+        if ((flags & (Pattern.COMMENTS | Pattern.UNICODE_CASE | Pattern.CANON_EQ)) != 0) {
+            return Set.of();
+        }
+        try {
+            Info info = (flags & Pattern.LITERAL) != 0
+                    ? Info.concat(literalRun(regex))
+                    : new Parser(regex).parse();
+            Set<String> literals = info.required();
+            return literals != null ? literals : Set.of();
+        } catch (Unsupported | IndexOutOfBoundsException e) {
+            return Set.of();
+        }
+    }
+
+    private static List<Info> literalRun(String text) {
+        List<Info> items = new ArrayList<>(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            items.add(Info.literal(text.charAt(i)));
+        }
+        return items;
+    }
+
+    /** Summary of a regex node: an exact string set, or literals one of which every match contains (null: none). */
+    private record Info(Set<String> exact, Set<String> match) {
+        static final Info ANY = new Info(null, null);
+        static final Info EMPTY = new Info(Set.of(""), null);
+
+        static Info literal(char c) {
+            return c < 128 ? new Info(Set.of(String.valueOf(AhoCorasick.toLower(c))), null) : ANY;
+        }
+
+        static Info exact(Set<String> strings) {
+            return strings.size() <= MAX_EXACT ? new Info(strings, null) : new Info(null, usable(strings));
+        }
+
+        Set<String> required() {
+            return exact != null ? usable(exact) : match;
+        }
+
+        static Set<String> usable(Set<String> literals) {
+            return literals == null || literals.contains("") ? null : literals;
+        }
+
+        static Info repeat(Info atom, int min, int max) {
+            if (min == 0) {
+                if (max == 1 && atom.exact != null) {
+                    Set<String> optional = new LinkedHashSet<>(atom.exact);
+                    optional.add("");
+                    return exact(optional);
+                }
+                return ANY;
+            }
+            return min == 1 && max == 1 ? atom : new Info(null, atom.required());
+        }
+
+        static Info concat(List<Info> items) {
+            List<Set<String>> candidates = new ArrayList<>();
+            Set<String> run = Set.of("");
+            boolean allExact = true;
+            for (Info item : items) {
+                if (item.exact != null) {
+                    Set<String> joined = cross(run, item.exact);
+                    if (joined != null) {
+                        run = joined;
+                        continue;
+                    }
+                    candidates.add(run);
+                    run = item.exact;
+                } else {
+                    candidates.add(run);
+                    candidates.add(item.match);
+                    run = Set.of("");
+                }
+                allExact = false;
+            }
+            if (allExact) return new Info(run, null);
+            candidates.add(run);
+            return new Info(null, best(candidates));
+        }
+
+        static Info alternation(List<Info> branches) {
+            if (branches.size() == 1) return branches.get(0);
+            Set<String> union = new LinkedHashSet<>();
+            boolean allExact = branches.stream().allMatch(b -> b.exact != null);
+            for (Info branch : branches) {
+                Set<String> strings = allExact ? branch.exact : branch.required();
+                if (strings == null) return ANY;
+                union.addAll(strings);
+            }
+            return allExact ? exact(union) : new Info(null, union);
+        }
+
+        private static Set<String> cross(Set<String> left, Set<String> right) {
+            if ((long) left.size() * right.size() > MAX_EXACT) return null;
+            Set<String> joined = new LinkedHashSet<>();
+            for (String l : left) {
+                for (String r : right) {
+                    joined.add(l + r);
+                }
+            }
+            return joined;
+        }
+
+        /** The most selective candidate: longest shortest literal, then fewest literals. */
+        private static Set<String> best(List<Set<String>> candidates) {
+            Set<String> best = null;
+            int bestMin = 0;
+            for (Set<String> candidate : candidates) {
+                if (usable(candidate) == null) continue;
+                int min = candidate.stream().mapToInt(String::length).min().orElse(0);
+                if (best == null || min > bestMin || (min == bestMin && candidate.size() < best.size())) {
+                    best = candidate;
+                    bestMin = min;
+                }
+            }
+            return best;
+        }
+    }
+
+    /** Recursive-descent reader for the subset of {@link Pattern} syntax that affects required literals. */
+    private static final class Parser {
+        private final String re;
+        private int pos;
+
+        Parser(String re) {
+            this.re = re;
+        }
+
+        Info parse() {
+            Info info = parseAlternation();
+            if (pos != re.length()) throw Unsupported.INSTANCE;
+            return info;
+        }
+
+        private Info parseAlternation() {
+            List<Info> branches = new ArrayList<>();
+            branches.add(parseSequence());
+            while (pos < re.length() && re.charAt(pos) == '|') {
+                pos++;
+                branches.add(parseSequence());
+            }
+            return Info.alternation(branches);
+        }
+
+        private Info parseSequence() {
+            List<Info> items = new ArrayList<>();
+            while (pos < re.length() && re.charAt(pos) != '|' && re.charAt(pos) != ')') {
+                items.add(parseQuantifier(parseAtom()));
+            }
+            return Info.concat(items);
+        }
+
+        private Info parseAtom() {
+            char c = re.charAt(pos++);
+            return switch (c) {
+                case '(' -> parseGroup();
+                case '[' -> parseClass();
+                case '\\' -> parseEscape();
+                case '.' -> Info.ANY;
+                case '^', '$' -> Info.EMPTY;
+                case '*', '+', '?', '{' -> throw Unsupported.INSTANCE;
+                default -> Info.literal(c);
+            };
+        }
+
+        private Info parseGroup() {
+            boolean zeroWidth = false;
+            if (re.charAt(pos) == '?') {
+                pos++;
+                char kind = re.charAt(pos);
+                if (kind == ':' || kind == '>') {
+                    pos++;
+                } else if (kind == '=' || kind == '!') {
+                    pos++;
+                    zeroWidth = true;
+                } else if (kind == '<') {
+                    pos++;
+                    if (re.charAt(pos) == '=' || re.charAt(pos) == '!') {
+                        pos++;
+                        zeroWidth = true;
+                    } else {
+                        pos = re.indexOf('>', pos) + 1;
+                        if (pos == 0) throw Unsupported.INSTANCE;
+                    }
+                } else if (parseInlineFlags()) {
+                    return Info.EMPTY;
+                }
+            }
+            Info inner = parseAlternation();
+            if (re.charAt(pos++) != ')') throw Unsupported.INSTANCE;
+            return zeroWidth ? Info.EMPTY : inner;
+        }
+
+        /** Reads {@code (?flags)} or {@code (?flags:}; true when the group ended with the flags. */
+        private boolean parseInlineFlags() {
+            boolean on = true;
+            while (true) {
+                char f = re.charAt(pos++);
+                if (f == ')') return true;
+                if (f == ':') return false;
+                if (f == '-') {
+                    on = false;
+                } else if (on && (f == 'x' || f == 'u')) {
+                    throw Unsupported.INSTANCE;
+                } else if (!Character.isLetter(f)) {
+                    throw Unsupported.INSTANCE;
+                }
+            }
+        }
+
+        private Info parseClass() {
+            boolean unknown = false;
+            if (re.charAt(pos) == '^') {
+                pos++;
+                unknown = true;
+            }
+            if (re.charAt(pos) == ']') throw Unsupported.INSTANCE;
+            Set<String> chars = new LinkedHashSet<>();
+            while (true) {
+                char c = re.charAt(pos++);
+                if (c == ']') break;
+                if (c == '[' || (c == '&' && re.charAt(pos) == '&')) throw Unsupported.INSTANCE;
+                int lo = c;
+                if (c == '\\') {
+                    char e = re.charAt(pos++);
+                    if (Character.isLetterOrDigit(e)) {
+                        skipEscapeArgument(e);
+                        unknown = true;
+                        continue;
+                    }
+                    lo = e;
+                }
+                if (re.charAt(pos) == '-' && re.charAt(pos + 1) != ']') {
+                    pos++;
+                    char h = re.charAt(pos++);
+                    if (h == '[') throw Unsupported.INSTANCE;
+                    int hi = h;
+                    if (h == '\\') {
+                        char e = re.charAt(pos++);
+                        if (Character.isLetterOrDigit(e)) {
+                            skipEscapeArgument(e);
+                            unknown = true;
+                            continue;
+                        }
+                        hi = e;
+                    }
+                    if (hi - lo + 1 > MAX_CLASS || hi >= 128) {
+                        unknown = true;
+                    } else {
+                        for (int ch = lo; ch <= hi; ch++) chars.add(String.valueOf(AhoCorasick.toLower((char) ch)));
+                    }
+                } else if (lo >= 128) {
+                    unknown = true;
+                } else {
+                    chars.add(String.valueOf(AhoCorasick.toLower((char) lo)));
+                }
+            }
+            return unknown || chars.size() > MAX_CLASS ? Info.ANY : Info.exact(chars);
+        }
+
+        private Info parseEscape() {
+            char c = re.charAt(pos++);
+            switch (c) {
+                case 'b':
+                case 'B':
+                    if (pos < re.length() && re.charAt(pos) == '{') skipBraces();
+                    return Info.EMPTY;
+                case 'A', 'z', 'Z', 'G':
+                    return Info.EMPTY;
+                case 't': return Info.literal('\t');
+                case 'n': return Info.literal('\n');
+                case 'r': return Info.literal('\r');
+                case 'f': return Info.literal('\f');
+                case 'a': return Info.literal('\u0007');
+                case 'e': return Info.literal('\u001B');
+                case 'Q': {
+                    int end = re.indexOf("\\E", pos);
+                    String quoted = re.substring(pos, end < 0 ? re.length() : end);
+                    pos = end < 0 ? re.length() : end + 2;
+                    return Info.concat(literalRun(quoted));
+                }
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        // Predefined classes, code point escapes and backreferences
+                        skipEscapeArgument(c);
+                        return Info.ANY;
+                    }
+                    return Info.literal(c);
+            }
+        }
+
+        private void skipEscapeArgument(char escape) {
+            switch (escape) {
+                case 'p', 'P', 'N' -> {
+                    if (re.charAt(pos) == '{') skipBraces();
+                    else if (escape != 'N') pos++;
+                }
+                case 'x' -> {
+                    if (re.charAt(pos) == '{') skipBraces();
+                    else pos += 2;
+                }
+                case 'u' -> pos += 4;
+                case 'c' -> pos++;
+                case '0' -> {
+                    int digits = 0;
+                    while (digits < 3 && pos < re.length() && re.charAt(pos) >= '0' && re.charAt(pos) <= '7') {
+                        pos++;
+                        digits++;
+                    }
+                }
+                case 'k' -> {
+                    pos = re.indexOf('>', pos) + 1;
+                    if (pos == 0) throw Unsupported.INSTANCE;
+                }
+                case 'Q', 'E' -> throw Unsupported.INSTANCE;
+                default -> {
+                    if (escape >= '1' && escape <= '9') {
+                        while (pos < re.length() && Character.isDigit(re.charAt(pos))) pos++;
+                    }
+                }
+            }
+        }
+
+        private void skipBraces() {
+            pos = re.indexOf('}', pos) + 1;
+            if (pos == 0) throw Unsupported.INSTANCE;
+        }
+
+        private Info parseQuantifier(Info atom) {
+            if (pos >= re.length()) return atom;
+            int min;
+            int max;
+            switch (re.charAt(pos)) {
+                case '*' -> { min = 0; max = -1; pos++; }
+                case '+' -> { min = 1; max = -1; pos++; }
+                case '?' -> { min = 0; max = 1; pos++; }
+                case '{' -> {
+                    int close = re.indexOf('}', pos);
+                    if (close < 0) throw Unsupported.INSTANCE;
+                    String[] bounds = re.substring(pos + 1, close).split(",", -1);
+                    try {
+                        min = Integer.parseInt(bounds[0].trim());
+                        max = bounds.length == 1 ? min
+                                : bounds[1].isBlank() ? -1 : Integer.parseInt(bounds[1].trim());
+                    } catch (NumberFormatException e) {
+                        throw Unsupported.INSTANCE;
+                    }
+                    pos = close + 1;
+                }
+                default -> {
+                    return atom;
+                }
+            }
+            if (pos < re.length() && (re.charAt(pos) == '?' || re.charAt(pos) == '+')) pos++;
+            return Info.repeat(atom, min, max);
+        }
+    }
+
+    /** Signals syntax the parser does not model; the pattern then has no usable literals. */
+    private static final class Unsupported extends RuntimeException {
+        static final Unsupported INSTANCE = new Unsupported();
+
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.bot.bot.scan;
+
+/**
+ * Tokens of a run of source lines, as produced by {@link Lexer}, in primitive arrays: kind,
+ * line, and start and end offset within the line, by token index. Tokens of a line are
+ * contiguous; {@link #firstToken} and {@link #endToken} give the range. Whitespace is not
+ * tokenized. Instances are immutable once built.
+ */
+public final class TokenStream {
+    public static final byte IDENTIFIER = 1;
+    public static final byte NUMBER = 2;
+    public static final byte STRING = 3;
+    public static final byte COMMENT = 4;
+    public static final byte OPERATOR = 5;
+
+    private final CharSequence[] lines;
+    private final byte[] kinds;
+    private final int[] lineOf;
+    private final int[] starts;
+    private final int[] ends;
+    // firstToken of each line, followed by the total token count
+    private final int[] lineStarts;
+    private final int size;
+
+    TokenStream(CharSequence[] lines, byte[] kinds, int[] lineOf, int[] starts, int[] ends, int[] lineStarts, int size) {
+        this.lines = lines;
+        this.kinds = kinds;
+        this.lineOf = lineOf;
+        this.starts = starts;
+        this.ends = ends;
+        this.lineStarts = lineStarts;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int lines() {
+        return lines.length;
+    }
+
+    public byte kind(int token) {
+        return kinds[token];
+    }
+
+    public int line(int token) {
+        return lineOf[token];
+    }
+
+    /** Offset of the token's first character in its line. */
+    public int start(int token) {
+        return starts[token];
+    }
+
+    /** Offset just past the token's last character in its line. */
+    public int end(int token) {
+        return ends[token];
+    }
+
+    /** Index of the first token of {@code line}. */
+    public int firstToken(int line) {
+        return lineStarts[line];
+    }
+
+    /** Index just past the last token of {@code line}; equal to {@link #firstToken} for a blank line. */
+    public int endToken(int line) {
+        return lineStarts[line + 1];
+    }
+
+    /** Whether the token is code, i.e. neither a comment nor a string literal. */
+    public boolean isCode(int token) {
+        return kinds[token] != COMMENT && kinds[token] != STRING;
+    }
+
+    /** First code token of {@code line}, or -1 when the line holds only comments and strings. */
+    public int firstCode(int line) {
+        for (int t = lineStarts[line]; t < lineStarts[line + 1]; t++) {
+            if (isCode(t)) return t;
+        }
+        return -1;
+    }
+
+    /** Whether the token's text is {@code text}, compared without copying it. */
+    public boolean is(int token, String text) {
+        int start = starts[token];
+        if (ends[token] - start != text.length()) return false;
+        CharSequence line = lines[lineOf[token]];
+        for (int i = 0; i < text.length(); i++) {
+            if (line.charAt(start + i) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Whether the token is the single character {@code c}. */
+    public boolean is(int token, char c) {
+        return ends[token] - starts[token] == 1 && lines[lineOf[token]].charAt(starts[token]) == c;
+    }
+
+    /** The token's text; allocates, so meant for messages rather than matching. */
+    public String text(int token) {
+        return lines[lineOf[token]].subSequence(starts[token], ends[token]).toString();
+    }
+
+    /**
+     * {@code line} with comments and string literals blanked out (replaced by spaces, so
+     * offsets are kept), for matching patterns against code only. Allocates a copy when the
+     * line has anything to blank.
+     */
+    public CharSequence code(int line) {
+        CharSequence text = lines[line];
+        char[] chars = null;
+        for (int t = lineStarts[line]; t < lineStarts[line + 1]; t++) {
+            if (isCode(t)) continue;
+            if (chars == null) {
+                chars = new char[text.length()];
+                for (int i = 0; i < chars.length; i++) chars[i] = text.charAt(i);
+            }
+            for (int i = starts[t]; i < ends[t]; i++) chars[i] = ' ';
+        }
+        return chars == null ? text : new String(chars);
+    }
+}
@@ -0,0 +1,169 @@
+package com.bot.bot.scan;
+
+/**
+ * Streaming XXH64 over UTF-16 text, for content keys that are computed often and must be
+ * cheap. Each {@code char} is hashed as its two bytes in little-endian order, so the digest
+ * equals XXH64 of the text encoded as UTF-16LE. Characters are gathered four at a time
+ * into 64-bit lanes and consumed in 32-byte stripes without buffering the input.
+ * Instances are not thread-safe.
+ */
+public final class XxHash64 {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    // Up to 15 pending characters: three complete lanes and one partial lane
+    private long lane0;
+    private long lane1;
+    private long lane2;
+    private long lane3;
+    private int pending;
+    private long totalChars;
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        this.v1 = seed + PRIME1 + PRIME2;
+        this.v2 = seed + PRIME2;
+        this.v3 = seed;
+        this.v4 = seed - PRIME1;
+    }
+
+    public XxHash64 putChar(char c) {
+        long value = (long) c << ((pending & 3) << 4);
+        switch (pending >>> 2) {
+            case 0 -> lane0 |= value;
+            case 1 -> lane1 |= value;
+            case 2 -> lane2 |= value;
+            default -> lane3 |= value;
+        }
+        totalChars++;
+        if (++pending == 16) {
+            v1 = round(v1, lane0);
+            v2 = round(v2, lane1);
+            v3 = round(v3, lane2);
+            v4 = round(v4, lane3);
+            lane0 = lane1 = lane2 = lane3 = 0;
+            pending = 0;
+        }
+        return this;
+    }
+
+    public XxHash64 putChars(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        while (pending != 0 && i < length) {
+            putChar(text.charAt(i++));
+        }
+        for (; i + 16 <= length; i += 16) {
+            stripe(lane(text, i), lane(text, i + 4), lane(text, i + 8), lane(text, i + 12));
+        }
+        while (i < length) {
+            putChar(text.charAt(i++));
+        }
+        return this;
+    }
+
+    /** Hash {@code chars[from..to)}; the fastest way in, as whole stripes are read straight from the array. */
+    public XxHash64 putChars(char[] chars, int from, int to) {
+        int i = from;
+        while (pending != 0 && i < to) {
+            putChar(chars[i++]);
+        }
+        for (; i + 16 <= to; i += 16) {
+            stripe(lane(chars, i), lane(chars, i + 4), lane(chars, i + 8), lane(chars, i + 12));
+        }
+        while (i < to) {
+            putChar(chars[i++]);
+        }
+        return this;
+    }
+
+    private void stripe(long lane0, long lane1, long lane2, long lane3) {
+        v1 = round(v1, lane0);
+        v2 = round(v2, lane1);
+        v3 = round(v3, lane2);
+        v4 = round(v4, lane3);
+        totalChars += 16;
+    }
+
+    private static long lane(CharSequence text, int i) {
+        return text.charAt(i) | (long) text.charAt(i + 1) << 16
+                | (long) text.charAt(i + 2) << 32 | (long) text.charAt(i + 3) << 48;
+    }
+
+    private static long lane(char[] chars, int i) {
+        return chars[i] | (long) chars[i + 1] << 16 | (long) chars[i + 2] << 32 | (long) chars[i + 3] << 48;
+    }
+
+    public XxHash64 putLong(long value) {
+        for (int shift = 0; shift < 64; shift += 16) {
+            putChar((char) (value >>> shift));
+        }
+        return this;
+    }
+
+    /** Digest of everything put so far; the hash can still be extended afterwards. */
+    public long digest() {
+        long h;
+        if (totalChars >= 16) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += totalChars * 2;
+
+        long[] lanes = {lane0, lane1, lane2, lane3};
+        int lane = 0;
+        int remaining = pending;
+        for (; remaining >= 4; remaining -= 4) {
+            h ^= round(0, lanes[lane++]);
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        long rest = remaining > 0 ? lanes[lane] : 0;
+        if (remaining >= 2) {
+            h ^= (rest & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            rest >>>= 32;
+            remaining -= 2;
+        }
+        if (remaining == 1) {
+            h ^= (rest & 0xFF) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+            h ^= ((rest >>> 8) & 0xFF) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    public static long hash(CharSequence text, long seed) {
+        return new XxHash64(seed).putChars(text).digest();
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+}
@@ -4,29 +4,44 @@ package com.bot.bot.service;
 import com.google.gson.JsonObject;
 import com.bot.bot.analysis.HeuristicsAnalysisEngine;
 import com.bot.bot.analysis.LLMReviewEngine;
+import com.bot.bot.classify.ClassifiedChanges;
+import com.bot.bot.classify.FileClassifier;
 import com.bot.bot.config.AppProperties;
+import com.bot.bot.config.IgnorePathMatcher;
 import com.bot.bot.config.RepoConfigLoader;
 import com.bot.bot.config.ReviewConfig;
+import com.bot.bot.config.ReviewPlan;
+import com.bot.bot.content.FileContentService;
+import com.bot.bot.content.FileContents;
 import com.bot.bot.diff.UnifiedDiffParser;
 import com.bot.bot.domain.ChangeChunk;
 import com.bot.bot.domain.Finding;
 import com.bot.bot.domain.PullRequestContext;
+import com.bot.bot.engine.DedupedHunks;
 import com.bot.bot.engine.FindingMerger;
+import com.bot.bot.engine.HunkDeduplicator;
 import com.bot.bot.engine.ReviewPublisher;
 import com.bot.bot.github.GitHubApiClient;
+import com.bot.bot.mirror.RepositoryMirror;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ReviewOrchestrator {
+    /** Category of the rules that still run on files in the summary-only lane. */
+    static final String SECURITY = "SECURITY";
+
     private final GitHubApiClient gitHubApiClient;
     private final UnifiedDiffParser diffParser;
     private final HeuristicsAnalysisEngine heuristicsAnalysisEngine;
@@ -35,6 +50,10 @@ public class ReviewOrchestrator {
     private final ReviewPublisher reviewPublisher;
     private final AppProperties appProperties;
     private final RepoConfigLoader repoConfigLoader;
+    private final RepositoryMirror repositoryMirror;
+    private final FileClassifier fileClassifier;
+    private final HunkDeduplicator hunkDeduplicator;
+    private final FileContentService fileContentService;
 
     /**
      * Process pull request asynchronously.
@@ -71,6 +90,8 @@ public class ReviewOrchestrator {
 
     /**
      * Process PR context: fetch diff, analyze, and publish review.
+     * In check run mode the check is created before the diff is fetched so it shows
+     * as in progress for the whole review.
      */
     private Mono<Void> processPullRequestContext(PullRequestContext prContext, ReviewConfig config) {
         if (!config.isEnabled()) {
@@ -81,40 +102,127 @@ public class ReviewOrchestrator {
         log.info("Processing PR {}/{}/#{} (installation {})",
                 prContext.getOwner(), prContext.getRepo(), prContext.getPrNumber(), installationId);
 
-        return gitHubApiClient.fetchDiff(prContext.getOwner(), prContext.getRepo(),
-                        prContext.getPrNumber(), installationId)
+        if (config.isCheckRunMode()) {
+            return reviewPublisher.startCheckRun(prContext.getOwner(), prContext.getRepo(),
+                            prContext.getCommitSha(), installationId)
+                    .flatMap(checkRunId -> fetchAndAnalyze(prContext, config, checkRunId)
+                            .onErrorResume(e -> reviewPublisher.abortCheckRun(prContext.getOwner(),
+                                            prContext.getRepo(), checkRunId, installationId)
+                                    .onErrorResume(abortError -> Mono.empty())
+                                    .then(Mono.error(e))));
+        }
+
+        return fetchAndAnalyze(prContext, config, null);
+    }
+
+    private Mono<Void> fetchAndAnalyze(PullRequestContext prContext, ReviewConfig config, Long checkRunId) {
+        return fetchDiff(prContext)
                 .map(diff -> {
                     List<ChangeChunk> chunks = diffParser.parse(diff);
                     log.info("Parsed {} change chunks", chunks.size());
                     return chunks;
                 })
-                .flatMap(chunks -> analyzeDiff(prContext, config, chunks))
+                .flatMap(chunks -> analyzeDiff(prContext, config, chunks, checkRunId))
                 .doOnError(e -> log.error("Error in PR processing", e));
     }
 
+    /**
+     * Fetch the PR diff from the local mirror when enabled, falling back to the REST diff endpoint.
+     */
+    private Mono<String> fetchDiff(PullRequestContext prContext) {
+        Mono<String> restDiff = gitHubApiClient.fetchDiff(prContext.getOwner(), prContext.getRepo(),
+                prContext.getPrNumber(), prContext.getInstallationId());
+        if (!repositoryMirror.isEnabled()) {
+            return restDiff;
+        }
+        return repositoryMirror.fetchDiff(prContext)
+                .onErrorResume(e -> {
+                    log.warn("Local mirror diff failed for {}/{}/PR#{}, falling back to REST: {}",
+                            prContext.getOwner(), prContext.getRepo(), prContext.getPrNumber(), e.getMessage());
+                    return restDiff;
+                });
+    }
+
     /**
      * Analyze changes: run heuristics and LLM analysis, merge findings, and publish.
+     * When {@code checkRunId} is set, findings are streamed to the check run as annotations
+     * as they become available: heuristic findings at once, LLM findings chunk by chunk.
      */
-    private Mono<Void> analyzeDiff(PullRequestContext prContext, ReviewConfig config, List<ChangeChunk> chunks) {
+    private Mono<Void> analyzeDiff(PullRequestContext prContext, ReviewConfig config,
+                                   List<ChangeChunk> chunks, Long checkRunId) {
         log.debug("Starting diff analysis");
 
         // Filter chunks based on ignored paths
         List<ChangeChunk> filteredChunks = filterChunks(chunks, config);
 
+        // Route lockfiles, vendored, generated, minified and binary files to the summary-only lane,
+        // and hold back renames, copies and formatting-only hunks
+        List<String> notes = new ArrayList<>();
+        ClassifiedChanges classified = fileClassifier.classify(filteredChunks, config.getGeneratedPaths(),
+                config.isSkipGenerated());
+        if (classified.getSkippedCount() > 0) {
+            log.info("Skipped {} files ({} bytes of diff) for {}/{}/PR#{}: {}",
+                    classified.getSkippedCount(), classified.getSkippedBytes(),
+                    prContext.getOwner(), prContext.getRepo(), prContext.getPrNumber(),
+                    classified.getSkippedFiles());
+            notes.add(classified.summaryNote());
+        }
+        String semanticNote = classified.semanticNote();
+        if (semanticNote != null) {
+            log.info("{}/{}/PR#{}: {} renamed, {} copied files and {} formatting-only hunks not analyzed",
+                    prContext.getOwner(), prContext.getRepo(), prContext.getPrNumber(),
+                    classified.getRenamedFiles(), classified.getCopiedFiles(), classified.getFormattingOnlyHunks());
+            notes.add(semanticNote);
+        }
+        filteredChunks = classified.getReviewable();
+
+        // Analyze each distinct hunk once; findings are fanned out to identical copies afterwards.
+        // The LLM sees hunks only, so identical content is enough; the heuristics engine
+        // deduplicates on its own, keeping hunks apart that its rules would see differently
+        DedupedHunks deduped = hunkDeduplicator.dedupe(filteredChunks);
+        if (deduped.getDuplicateCount() > 0) {
+            log.info("Deduplicated {} of {} hunks for {}/{}/PR#{} (ratio {})",
+                    deduped.getDuplicateCount(), deduped.getTotalHunks(),
+                    prContext.getOwner(), prContext.getRepo(), prContext.getPrNumber(),
+                    String.format("%.2f", deduped.getDedupeRatio()));
+            notes.add(deduped.summaryNote());
+        }
+
         // Build list of findings
         List<Finding> findings = new ArrayList<>();
+        // ignore_rules, compiled when the config was loaded: ignored rules and lanes do not run
+        ReviewPlan plan = config.getReviewPlan();
 
         // 1. Run heuristics analysis (synchronous)
-        if (appProperties.isHeuristicsEnabled()) {
+        List<Finding> streamedFindings = new ArrayList<>();
+        if (appProperties.isHeuristicsEnabled() && plan.runsHeuristics()) {
             log.debug("Running heuristics analysis");
-            List<Finding> heuristicFindings = heuristicsAnalysisEngine.analyze(filteredChunks);
+            String repo = prContext.getOwner() + "/" + prContext.getRepo();
+            FileContents files = fileContentService.forReview(prContext);
+            List<Finding> heuristicFindings = new ArrayList<>(plan.retain(
+                    heuristicsAnalysisEngine.analyze(filteredChunks, repo, plan, files)));
+            // Files in the summary lane still get the security rules
+            if (!classified.getSecurityOnly().isEmpty()) {
+                ReviewPlan securityPlan = plan.restrictTo(SECURITY);
+                heuristicFindings.addAll(securityPlan.retain(heuristicsAnalysisEngine.analyze(
+                        classified.getSecurityOnly(), repo, securityPlan, files)));
+            }
             findings.addAll(heuristicFindings);
             log.info("Heuristics found {} findings", heuristicFindings.size());
+            if (checkRunId != null) {
+                streamedFindings.addAll(findingMerger.mergeAndRank(heuristicFindings));
+            }
         }
 
         // 2. Run LLM analysis (asynchronous)
-        Mono<List<Finding>> llmResult = appProperties.isLlmEnabled()
-                ? llmReviewEngine.analyzeWithLLM(prContext, filteredChunks)
+        boolean runsLlm = appProperties.isLlmEnabled() && plan.runsLlm();
+        if (checkRunId != null) {
+            return streamToCheckRun(prContext, checkRunId, deduped, plan, runsLlm, findings, streamedFindings, notes);
+        }
+
+        Mono<List<Finding>> llmResult = runsLlm
+                ? llmReviewEngine.analyzeWithLLM(prContext, deduped.getDistinct(), plan)
+                    .map(deduped::fanOut)
                     .onErrorResume(e -> {
                         log.error("LLM analysis failed, continuing with heuristics only", e);
                         return Mono.just(new ArrayList<>());
@@ -123,34 +231,69 @@ public class ReviewOrchestrator {
 
         return llmResult.flatMap(llmFindings -> {
             if (llmFindings != null && !llmFindings.isEmpty()) {
-                // Filter out findings matching ignored rules
-                List<Finding> filtered = filterFindingsByConfig(llmFindings, config);
+                // The model may still report an ignored category
+                List<Finding> filtered = plan.retain(llmFindings);
                 findings.addAll(filtered);
                 log.info("LLM found {} findings ({} after filtering)", llmFindings.size(), filtered.size());
             }
-            return publishReviewWithFindings(prContext, config, findings);
+            return publishReviewWithFindings(prContext, config, findings, notes);
         });
     }
 
     /**
-     * Filter out chunks matching ignored path patterns.
+     * Annotate the check run with heuristic findings while the LLM analysis runs, and with the
+     * LLM findings of each chunk as its review comes back, then complete the check run.
+     */
+    private Mono<Void> streamToCheckRun(PullRequestContext prContext, long checkRunId, DedupedHunks deduped,
+                                        ReviewPlan plan, boolean runsLlm, List<Finding> findings,
+                                        List<Finding> streamedFindings, List<String> notes) {
+        String owner = prContext.getOwner();
+        String repo = prContext.getRepo();
+        long installationId = prContext.getInstallationId();
+
+        Mono<Void> heuristicAnnotations = streamedFindings.isEmpty()
+                ? Mono.empty()
+                : reviewPublisher.publishAnnotations(owner, repo, checkRunId, List.copyOf(streamedFindings), installationId);
+
+        Flux<List<Finding>> llmBatches = runsLlm
+                ? llmReviewEngine.streamWithLLM(prContext, deduped.getDistinct(), plan)
+                    .map(deduped::fanOut)
+                    .onErrorResume(e -> {
+                        log.error("LLM analysis failed, continuing with the findings streamed so far", e);
+                        return Flux.empty();
+                    })
+                : Flux.empty();
+
+        // One batch at a time, so the finding lists are never updated concurrently
+        Mono<Void> llmAnnotations = llmBatches
+                .concatMap(llmFindings -> {
+                    // The model may still report an ignored category
+                    List<Finding> filtered = plan.retain(llmFindings);
+                    if (filtered.isEmpty()) return Mono.empty();
+                    log.debug("LLM found {} findings ({} after filtering) in a chunk of {}/{}/PR#{}",
+                            llmFindings.size(), filtered.size(), owner, repo, prContext.getPrNumber());
+                    findings.addAll(filtered);
+                    List<Finding> ranked = findingMerger.mergeAndRank(filtered);
+                    streamedFindings.addAll(ranked);
+                    return reviewPublisher.publishAnnotations(owner, repo, checkRunId, ranked, installationId);
+                })
+                .then();
+
+        return Mono.when(heuristicAnnotations, llmAnnotations)
+                .then(Mono.defer(() -> completeCheckRunWithFindings(prContext, checkRunId, findings,
+                        streamedFindings, notes)));
+    }
+
+    /**
+     * Filter out chunks matching ignored path patterns, compiled when the config was loaded.
      */
     private List<ChangeChunk> filterChunks(List<ChangeChunk> chunks, ReviewConfig config) {
-        if (config.getIgnorePaths().isEmpty()) return chunks;
+        IgnorePathMatcher ignorePaths = config.getIgnorePathMatcher();
+        if (ignorePaths.isEmpty()) return chunks;
 
         List<ChangeChunk> filtered = new ArrayList<>();
         for (ChangeChunk chunk : chunks) {
-            boolean ignored = false;
-            for (String pattern : config.getIgnorePaths()) {
-                String filePath = chunk.getFilePath();
-                if (filePath != null && (filePath.equals(pattern)
-                        || filePath.endsWith(pattern.replace("*", ""))
-                        || filePath.matches(pattern))) {
-                    ignored = true;
-                    break;
-                }
-            }
-            if (!ignored) {
+            if (!ignorePaths.isIgnored(chunk.getFilePath())) {
                 filtered.add(chunk);
             }
         }
@@ -158,35 +301,38 @@ public class ReviewOrchestrator {
     }
 
     /**
-     * Filter out findings from ignored rules.
+     * Merge and rank all findings, annotate the ones not streamed yet, and complete the check run.
      */
-    private List<Finding> filterFindingsByConfig(List<Finding> findings, ReviewConfig config) {
-        if (config.getIgnoreRules().isEmpty()) return findings;
-
-        List<Finding> filtered = new ArrayList<>();
-        for (Finding f : findings) {
-            boolean ignored = false;
-            for (String rule : config.getIgnoreRules()) {
-                if (f.getSource() != null && f.getSource().equalsIgnoreCase(rule)) {
-                    ignored = true;
-                    break;
-                }
-                if (f.getCategory() != null && f.getCategory().equalsIgnoreCase(rule)) {
-                    ignored = true;
-                    break;
-                }
-            }
-            if (!ignored) {
-                filtered.add(f);
-            }
+    private Mono<Void> completeCheckRunWithFindings(PullRequestContext prContext, long checkRunId,
+                                                    List<Finding> findings, List<Finding> streamedFindings,
+                                                    List<String> notes) {
+        List<Finding> rankedFindings = findingMerger.mergeAndRank(findings);
+        log.info("Final {} findings after deduplication and ranking", rankedFindings.size());
+
+        // Merging copies findings, so the streamed ones are recognized by id
+        Set<String> alreadyAnnotated = new HashSet<>();
+        for (Finding finding : streamedFindings) {
+            if (finding.getId() != null) alreadyAnnotated.add(finding.getId());
         }
-        return filtered;
+        List<Finding> remaining = rankedFindings.stream()
+                .filter(f -> f.getId() == null || !alreadyAnnotated.contains(f.getId()))
+                .toList();
+
+        String owner = prContext.getOwner();
+        String repo = prContext.getRepo();
+        long installationId = prContext.getInstallationId();
+
+        return reviewPublisher.publishAnnotations(owner, repo, checkRunId, remaining, installationId)
+                .then(reviewPublisher.completeCheckRun(owner, repo, checkRunId, rankedFindings, notes, installationId))
+                .doOnSuccess(v -> log.info("Check run {} completed for {}/{}/PR#{}",
+                        checkRunId, owner, repo, prContext.getPrNumber()));
     }
 
     /**
      * Merge, rank, and publish review findings.
      */
-    private Mono<Void> publishReviewWithFindings(PullRequestContext prContext, ReviewConfig config, List<Finding> findings) {
+    private Mono<Void> publishReviewWithFindings(PullRequestContext prContext, ReviewConfig config,
+                                                 List<Finding> findings, List<String> notes) {
         log.debug("Merging and ranking {} findings", findings.size());
 
         List<Finding> rankedFindings = findingMerger.mergeAndRank(findings);
@@ -207,7 +353,7 @@ public class ReviewOrchestrator {
 
         return reviewPublisher.publishReview(
                         prContext.getOwner(), prContext.getRepo(), prContext.getPrNumber(),
-                        rankedFindings, autoApprove, inlineComments, prContext.getInstallationId())
+                        rankedFindings, autoApprove, inlineComments, notes, prContext.getInstallationId())
                 .doOnSuccess(v -> log.info("Review published successfully for {}/{}/PR#{}",
                         prContext.getOwner(), prContext.getRepo(), prContext.getPrNumber()))
                 .doOnError(e -> log.error("Error publishing review for {}/{}/PR#{}",
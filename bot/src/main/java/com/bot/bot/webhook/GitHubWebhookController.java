@@ -2,6 +2,7 @@ package com.bot.bot.webhook;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.bot.bot.mirror.RepositoryMirror;
 import com.bot.bot.service.ReviewOrchestrator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +28,7 @@ public class GitHubWebhookController {
 
     private final WebhookSignatureVerifier signatureVerifier;
     private final ReviewOrchestrator reviewOrchestrator;
+    private final RepositoryMirror repositoryMirror;
     private final Gson gson;
 
     @PostMapping("/github")
@@ -56,6 +58,11 @@ public class GitHubWebhookController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid signature");
             }
 
+            // ── Push events only keep the local mirror fresh ────
+            if ("push".equals(eventType) && repositoryMirror.isEnabled()) {
+                return handlePush(payload);
+            }
+
             // ── Only process pull request events ────────────────
             if (!"pull_request".equals(eventType)) {
                 log.debug("Ignoring non-PR event: {}", eventType);
@@ -103,6 +110,27 @@ public class GitHubWebhookController {
         }
     }
 
+    /**
+     * Fetch pushed refs into the local mirror in the background.
+     */
+    private ResponseEntity<String> handlePush(String payload) {
+        JsonObject pushData = gson.fromJson(payload, JsonObject.class);
+        JsonObject repo = pushData != null ? pushData.getAsJsonObject("repository") : null;
+        JsonObject owner = repo != null ? repo.getAsJsonObject("owner") : null;
+        JsonObject installation = pushData != null ? pushData.getAsJsonObject("installation") : null;
+        if (owner == null || owner.get("login") == null || repo.get("name") == null
+                || installation == null || installation.get("id") == null) {
+            return ResponseEntity.badRequest().body("Missing repository or installation");
+        }
+
+        String ownerLogin = owner.get("login").getAsString();
+        String repoName = repo.get("name").getAsString();
+        repositoryMirror.refresh(ownerLogin, repoName, installation.get("id").getAsLong())
+                .subscribe(null, e -> log.warn("Mirror refresh failed for {}/{}: {}",
+                        ownerLogin, repoName, e.getMessage()));
+        return ResponseEntity.accepted().body("Mirror refresh started");
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("OK");
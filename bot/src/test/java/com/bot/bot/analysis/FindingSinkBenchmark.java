@@ -0,0 +1,59 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.analysis.heuristics.EntropySecretRule;
+import com.bot.bot.analysis.heuristics.NullPointerDetectionRule;
+import com.bot.bot.analysis.heuristics.SecretsDetectionRule;
+import com.bot.bot.diff.DiffFixtures;
+import com.bot.bot.diff.UnifiedDiffParser;
+import com.bot.bot.domain.ChangeChunk;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The built-in rules over the 1 MB synthetic diff, returning a list per invocation against
+ * reporting to one reused {@link FindingSink}. Meant to be run with the allocation profiler:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="FindingSinkBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindingSinkBenchmark {
+
+    private List<ChangeChunk> chunks;
+    private final List<Rule> rules = List.of(new SecretsDetectionRule(), new NullPointerDetectionRule(), new EntropySecretRule());
+
+    @Setup
+    public void setUp() {
+        chunks = new UnifiedDiffParser().parse(DiffFixtures.syntheticDiff(1024 * 1024 / 40));
+    }
+
+    @Benchmark
+    public int list() {
+        int found = 0;
+        for (ChangeChunk chunk : chunks) {
+            for (Rule rule : rules) {
+                found += rule.analyze(chunk, RuleContext.unfiltered()).size();
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int sink() {
+        int found = 0;
+        FindingSink sink = new FindingSink(null);
+        for (ChangeChunk chunk : chunks) {
+            sink.reset(chunk);
+            for (Rule rule : rules) {
+                rule.analyze(chunk, RuleContext.unfiltered(), sink);
+            }
+            found += sink.size();
+        }
+        return found;
+    }
+}
@@ -1,13 +1,30 @@
 package com.bot.bot.analysis;
 
+import com.bot.bot.analysis.heuristics.PatternRule;
+import com.bot.bot.analysis.heuristics.UnusedImportRule;
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.config.ReviewPlan;
+import com.bot.bot.content.FileContents;
+import com.bot.bot.content.FileText;
 import com.bot.bot.domain.ChangeChunk;
 import com.bot.bot.domain.Finding;
+import com.bot.bot.scan.LinearPattern;
+import com.bot.bot.scan.TokenStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HeuristicsAnalysisEngineTest {
 
@@ -41,7 +58,7 @@ class HeuristicsAnalysisEngineTest {
             }
         };
 
-        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(List.of(rule));
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(List.of(rule), new SimpleMeterRegistry(), new HeuristicsProperties());
         ChangeChunk chunk = ChangeChunk.builder()
                 .filePath("file.java")
                 .startLine(1)
@@ -56,5 +73,434 @@ class HeuristicsAnalysisEngineTest {
         assertEquals(1, findings.size());
         assertEquals("file.java", findings.get(0).getFilePath());
     }
-}
 
+    @Test
+    void skipsRulesWhosePatternsCannotMatchTheChunk() {
+        AtomicInteger invocations = new AtomicInteger();
+        Rule rule = new Rule() {
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk) {
+                invocations.incrementAndGet();
+                return List.of();
+            }
+
+            @Override
+            public List<LinearPattern> getLinePatterns() {
+                return List.of(LinearPattern.compile("Runtime\\.getRuntime\\(\\)\\.exec"));
+            }
+
+            @Override
+            public String getName() {
+                return "ExecRule";
+            }
+
+            @Override
+            public int getPriority() {
+                return 1;
+            }
+        };
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(List.of(rule), new SimpleMeterRegistry(), new HeuristicsProperties());
+        ChangeChunk plain = ChangeChunk.builder()
+                .filePath("A.java").startLine(1).addedLines(List.of("int x = 1;"))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+        ChangeChunk exec = ChangeChunk.builder()
+                .filePath("B.java").startLine(1).addedLines(List.of("Runtime.getRuntime().exec(cmd);"))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+
+        engine.analyze(List.of(plain, exec));
+
+        assertEquals(1, invocations.get());
+    }
+
+    /** A rule that matches its first added line forever, through guarded input when {@code guarded}. */
+    private static Rule spinningRule(String name, boolean guarded, AtomicInteger invocations) {
+        return spinningRule(name, guarded, invocations, "");
+    }
+
+    private static Rule spinningRule(String name, boolean guarded, AtomicInteger invocations, String configuration) {
+        return new Rule() {
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk) {
+                return analyze(chunk, RuleContext.unfiltered());
+            }
+
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk, RuleContext context) {
+                invocations.incrementAndGet();
+                CharSequence line = guarded ? context.guard(chunk.addedLine(0)) : chunk.addedLine(0);
+                long until = System.nanoTime() + 20_000_000;
+                while (guarded || System.nanoTime() < until) {
+                    for (int i = 0; i < line.length(); i++) {
+                        line.charAt(i);
+                    }
+                }
+                return List.of(Finding.builder().message("unreachable when guarded").build());
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getPriority() {
+                return 1;
+            }
+
+            @Override
+            public String getConfiguration() {
+                return configuration;
+            }
+        };
+    }
+
+    private static ChangeChunk chunk(String path) {
+        return ChangeChunk.builder()
+                .filePath(path).startLine(1).addedLines(List.of("x".repeat(100)))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+    }
+
+    private static HeuristicsProperties budget(long ruleMs, long chunkMs, int quarantineAfter) {
+        HeuristicsProperties properties = new HeuristicsProperties();
+        properties.setRuleBudgetMs(ruleMs);
+        properties.setChunkBudgetMs(chunkMs);
+        properties.setQuarantineAfter(quarantineAfter);
+        return properties;
+    }
+
+    @Test
+    void abandonsRuleOverBudgetAndQuarantinesRepeatOffenders() {
+        AtomicInteger invocations = new AtomicInteger();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(
+                List.of(spinningRule("Spinner", true, invocations)), registry, budget(5, 10_000, 2));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(engine.analyze(List.of(chunk("A" + i + ".java"))).isEmpty());
+        }
+
+        assertEquals(2, invocations.get());
+        assertEquals(2.0, registry.get("heuristics.rule.budget.exceeded").tag("rule", "Spinner").counter().count());
+        assertEquals(1.0, registry.get("heuristics.rule.quarantined").tag("rule", "Spinner").gauge().value());
+        assertEquals(1.0, registry.get("heuristics.rules.quarantined").gauge().value());
+    }
+
+    @Test
+    void editedRuleLeavesQuarantineButAnUnchangedOneStays() {
+        AtomicInteger invocations = new AtomicInteger();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(List.of(), registry, budget(5, 10_000, 1));
+        engine.installRulePacks(List.of(spinningRule("Spinner", true, invocations, "v1")));
+        engine.analyze(List.of(chunk("A.java")));
+        engine.analyze(List.of(chunk("B.java")));
+        assertEquals(1, invocations.get());
+
+        // Reloading the same rule keeps it quarantined
+        engine.installRulePacks(List.of(spinningRule("Spinner", true, invocations, "v1")));
+        engine.analyze(List.of(chunk("C.java")));
+        assertEquals(1, invocations.get());
+        assertEquals(1.0, registry.get("heuristics.rule.quarantined").tag("rule", "Spinner").gauge().value());
+
+        // An edit under the same name runs again
+        engine.installRulePacks(List.of(spinningRule("Spinner", true, invocations, "v2")));
+        assertEquals(0.0, registry.get("heuristics.rule.quarantined").tag("rule", "Spinner").gauge().value());
+        assertEquals(0.0, registry.get("heuristics.rules.quarantined").gauge().value());
+        engine.analyze(List.of(chunk("D.java")));
+        assertEquals(2, invocations.get());
+        engine.shutdown();
+    }
+
+    @Test
+    void countsUncooperativeRulesAfterTheFact() {
+        AtomicInteger invocations = new AtomicInteger();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(
+                List.of(spinningRule("Busy", false, invocations)), registry, budget(1, 10_000, 5));
+
+        assertEquals(1, engine.analyze(List.of(chunk("A.java"))).size());
+        assertEquals(1.0, registry.get("heuristics.rule.budget.exceeded").tag("rule", "Busy").counter().count());
+    }
+
+    @Test
+    void skipsRemainingRulesWhenChunkBudgetRunsOut() {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(
+                List.of(spinningRule("First", true, first), spinningRule("Second", true, second)),
+                registry, budget(1_000, 5, 3));
+
+        engine.analyze(List.of(chunk("A.java")));
+
+        assertEquals(1, first.get());
+        assertEquals(0, second.get());
+        assertEquals(1.0, registry.get("heuristics.chunk.budget.exceeded").counter().count());
+        assertEquals(0.0, registry.get("heuristics.rule.budget.exceeded").tag("rule", "First").counter().count());
+    }
+
+    @Test
+    void guardedInputThrowsOnceBudgetIsSpent() {
+        RuleContext context = RuleContext.unfiltered().withBudget(new CpuBudget(CpuBudget.now() - 1, "Test"));
+        CharSequence line = context.guard("abc".repeat(1000));
+
+        assertEquals("abc".repeat(1000), line.toString());
+        assertThrows(BudgetExceededException.class, () -> {
+            for (int i = 0; i < line.length(); i++) {
+                line.charAt(i);
+            }
+        });
+        assertThrows(BudgetExceededException.class, context::checkBudget);
+        RuleContext.unfiltered().checkBudget();
+    }
+
+    /** Reports every added line containing {@code "7"}; line-local or not. */
+    private static Rule sevensRule(String name, boolean lineLocal, List<Integer> chunkSizes) {
+        return new Rule() {
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk) {
+                synchronized (chunkSizes) {
+                    chunkSizes.add(chunk.getAddedLines().size());
+                }
+                List<Finding> findings = new ArrayList<>();
+                for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+                    if (chunk.addedLine(i).toString().contains("7")) {
+                        findings.add(Finding.builder().message(name).lineNumber(chunk.newLineNumber(i)).build());
+                    }
+                }
+                return findings;
+            }
+
+            @Override
+            public boolean isLineLocal() {
+                return lineLocal;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getPriority() {
+                return lineLocal ? 2 : 1;
+            }
+        };
+    }
+
+    @Test
+    void splitsGiantChunksForLineLocalRulesOnly() {
+        List<Integer> localSizes = new ArrayList<>();
+        List<Integer> wholeSizes = new ArrayList<>();
+        HeuristicsProperties properties = new HeuristicsProperties();
+        properties.setTaskLines(1_000);
+        properties.setParallelism(4);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(
+                List.of(sevensRule("Local", true, localSizes), sevensRule("Whole", false, wholeSizes)), registry, properties);
+        ChangeChunk giant = ChangeChunk.builder()
+                .filePath("bundle.js").startLine(1)
+                .addedLines(IntStream.range(0, 10_000).mapToObj(i -> "var x" + i + ";").toList())
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+
+        List<Finding> findings = engine.analyze(List.of(giant));
+
+        assertEquals(List.of(10_000), wholeSizes);
+        assertEquals(10, localSizes.size());
+        assertTrue(localSizes.stream().allMatch(size -> size == 1_000));
+        List<Integer> local = findings.stream().filter(f -> f.getMessage().equals("Local")).map(Finding::getLineNumber).toList();
+        List<Integer> whole = findings.stream().filter(f -> f.getMessage().equals("Whole")).map(Finding::getLineNumber).toList();
+        assertEquals(whole, local);
+        assertEquals(3_439, local.size());
+
+        assertEquals(4.0, registry.get("executor.parallelism").tag("name", "heuristics").gauge().value());
+        registry.get("executor.steals").tag("name", "heuristics").functionCounter();
+        registry.get("heuristics.pool.utilization").gauge();
+        engine.shutdown();
+    }
+
+    @Test
+    void lexesEachChunkOnceForAllRules() {
+        List<TokenStream> seen = new ArrayList<>();
+        List<Rule> rules = new ArrayList<>();
+        for (String name : List.of("First", "Second")) {
+            rules.add(new Rule() {
+                @Override
+                public List<Finding> analyze(ChangeChunk chunk) {
+                    return analyze(chunk, RuleContext.unfiltered());
+                }
+
+                @Override
+                public List<Finding> analyze(ChangeChunk chunk, RuleContext context) {
+                    seen.add(context.tokens(chunk));
+                    return List.of();
+                }
+
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                public int getPriority() {
+                    return 1;
+                }
+            });
+        }
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(rules, new SimpleMeterRegistry(), new HeuristicsProperties());
+
+        engine.analyze(List.of(ChangeChunk.builder()
+                .filePath("A.java").fileType("java").startLine(1).addedLines(List.of("a.b(); // c"))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build()));
+
+        assertEquals(2, seen.size());
+        assertSame(seen.get(0), seen.get(1));
+        assertEquals(TokenStream.COMMENT, seen.get(0).kind(seen.get(0).size() - 1));
+        engine.shutdown();
+    }
+
+    @Test
+    void discardsWhatAFailingSinkRuleReportedBeforeFailing() {
+        List<Rule> rules = new ArrayList<>();
+        for (String name : List.of("Reporting", "Failing")) {
+            rules.add(new SinkRule() {
+                @Override
+                public void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+                    sink.emit(0, "LOW", "STYLE", name, null, 0.5, 1);
+                    if (name.equals("Failing")) throw new IllegalStateException("rule failure");
+                }
+
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                public int getPriority() {
+                    return 1;
+                }
+            });
+        }
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(rules, new SimpleMeterRegistry(), new HeuristicsProperties());
+
+        List<Finding> findings = engine.analyze(List.of(chunk("src/A.java")));
+
+        assertEquals(List.of("Reporting"), findings.stream().map(Finding::getMessage).toList());
+        assertEquals("src/A.java", findings.get(0).getFilePath());
+        assertEquals(1, findings.get(0).getLineNumber());
+        assertEquals("HEURISTIC", findings.get(0).getSource());
+        engine.shutdown();
+    }
+
+    @Test
+    void skipsRulesThePlanDisablesAndCachesTheirResultsApart() {
+        List<Rule> rules = new ArrayList<>();
+        for (String category : List.of("STYLE", "SECURITY")) {
+            rules.add(PatternRule.builder().name("flag-" + category.toLowerCase()).pack("test")
+                    .pattern(LinearPattern.compile("x")).severity("LOW").category(category)
+                    .message(category).confidence(0.5).priority(1).build());
+        }
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(rules, new SimpleMeterRegistry(), new HeuristicsProperties());
+
+        List<Finding> byCategory = engine.analyze(List.of(chunk("A.java")), "acme/api", ReviewPlan.compile(List.of("style")));
+        List<Finding> byName = engine.analyze(List.of(chunk("A.java")), "acme/api", ReviewPlan.compile(List.of("flag-security")));
+        List<Finding> all = engine.analyze(List.of(chunk("A.java")), "acme/api", ReviewPlan.compile(List.of()));
+
+        assertEquals(List.of("SECURITY"), byCategory.stream().map(Finding::getCategory).toList());
+        assertEquals(List.of("STYLE"), byName.stream().map(Finding::getCategory).toList());
+        assertEquals(2, all.size());
+        engine.shutdown();
+    }
+
+    @Test
+    void cachesWholeFileResultsByBlobAndRetriesWithoutContent() {
+        AtomicInteger runs = new AtomicInteger();
+        Rule wholeFile = new SinkRule() {
+            @Override
+            public void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+                runs.incrementAndGet();
+                FileText file = context.postImage(chunk);
+                if (file != null) sink.emit(0, "LOW", "STYLE", file.lineCount() + " lines", null, 0.5, 1);
+            }
+
+            @Override
+            public boolean isWholeFile() {
+                return true;
+            }
+
+            @Override
+            public String getName() {
+                return "WholeFile";
+            }
+
+            @Override
+            public int getPriority() {
+                return 1;
+            }
+        };
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(List.of(wholeFile), new SimpleMeterRegistry(), new HeuristicsProperties());
+        ChangeChunk small = chunk("A.java").toBuilder().blobSha("aaaaaaa").build();
+        ChangeChunk large = chunk("A.java").toBuilder().blobSha("bbbbbbb").build();
+        FileContents files = chunk -> FileText.of(chunk == small ? "x\n" : "x\ny\nz\n");
+
+        assertEquals("1 lines", engine.analyze(List.of(small), "acme/api", ReviewPlan.ALL, files).get(0).getMessage());
+        // Same hunk, other file version: not served from the cache
+        assertEquals("3 lines", engine.analyze(List.of(large), "acme/api", ReviewPlan.ALL, files).get(0).getMessage());
+        assertEquals("1 lines", engine.analyze(List.of(small), "acme/api", ReviewPlan.ALL, files).get(0).getMessage());
+        assertEquals(2, runs.get());
+        assertNotEquals(engine.dispatchKey(small), engine.dispatchKey(large));
+
+        // Content that could not be had is not cached as an empty result
+        ChangeChunk unavailable = chunk("B.java").toBuilder().blobSha("ccccccc").build();
+        FileContents none = chunk -> null;
+        assertTrue(engine.analyze(List.of(unavailable), "acme/api", ReviewPlan.ALL, none).isEmpty());
+        assertEquals(1, engine.analyze(List.of(unavailable), "acme/api", ReviewPlan.ALL, files).size());
+        assertEquals(4, runs.get());
+        engine.shutdown();
+    }
+
+    @Test
+    void analyzesIdenticalHunksOnceUnlessTheirFilesMatter() {
+        List<String> analyzed = new ArrayList<>();
+        Rule counting = new SinkRule() {
+            @Override
+            public void analyze(ChangeChunk chunk, RuleContext context, FindingSink sink) {
+                synchronized (analyzed) {
+                    analyzed.add(chunk.getFilePath());
+                }
+                sink.emit(0, "LOW", "STYLE", "seen", null, 0.5, 1);
+            }
+
+            @Override
+            public String getName() {
+                return "Counting";
+            }
+
+            @Override
+            public int getPriority() {
+                return 1;
+            }
+        };
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(
+                List.of(counting, new UnusedImportRule()), new SimpleMeterRegistry(), new HeuristicsProperties());
+        List<ChangeChunk> chunks = List.of(
+                javaChunk("src/A.java", 3, "aaaaaaa", "        logger.info(msg);"),
+                javaChunk("src/B.java", 9, "bbbbbbb", "        logger.info(msg);"),
+                javaChunk("src/C.java", 3, "ccccccc", "import java.util.List;"),
+                javaChunk("src/D.java", 3, "ddddddd", "import java.util.List;"));
+        FileContents files = chunk -> FileText.of("import java.util.List;\nclass X {}\n");
+
+        List<Finding> findings = engine.analyze(chunks, "acme/api", ReviewPlan.ALL, files);
+
+        // Whether an import is used depends on the rest of the file, so each import hunk runs
+        assertEquals(List.of("src/A.java", "src/C.java", "src/D.java"), analyzed.stream().sorted().toList());
+        assertEquals(List.of("src/A.java:3", "src/B.java:9", "src/C.java:3", "src/C.java:3", "src/D.java:3", "src/D.java:3"),
+                findings.stream().map(f -> f.getFilePath() + ":" + f.getLineNumber()).sorted().toList());
+        engine.shutdown();
+    }
+
+    private static ChangeChunk javaChunk(String path, int line, String blobSha, String added) {
+        return ChangeChunk.builder()
+                .filePath(path).fileType("java").startLine(line).blobSha(blobSha).addedLines(List.of(added))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+    }
+}
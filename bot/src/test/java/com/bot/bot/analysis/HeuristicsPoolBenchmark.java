@@ -0,0 +1,75 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.analysis.heuristics.NullPointerDetectionRule;
+import com.bot.bot.analysis.heuristics.SecretsDetectionRule;
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The engine's own pool with line-volume tasks against the former one-chunk-per-element
+ * {@code parallelStream()} on the common pool, for one 20k-line file and for 4000 chunks
+ * of 5 lines. Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="HeuristicsPoolBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicsPoolBenchmark {
+
+    @Param({"giant", "tiny"})
+    public String shape;
+
+    private List<ChangeChunk> chunks;
+    private HeuristicsAnalysisEngine engine;
+
+    @Setup
+    public void setUp() {
+        chunks = "giant".equals(shape)
+                ? List.of(chunk("dist/bundle.js", 20_000))
+                : IntStream.range(0, 4_000).mapToObj(i -> chunk("src/F" + i + ".java", 5)).toList();
+        // Every invocation analyzes the same chunks, which would otherwise be served from the result cache
+        HeuristicsProperties properties = new HeuristicsProperties();
+        properties.setCacheMaxEntries(0);
+        engine = new HeuristicsAnalysisEngine(List.of(new SecretsDetectionRule(), new NullPointerDetectionRule()),
+                new SimpleMeterRegistry(), properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    private static ChangeChunk chunk(String path, int lines) {
+        return ChangeChunk.builder()
+                .filePath(path)
+                .fileType(path.substring(path.lastIndexOf('.') + 1))
+                .startLine(1)
+                .addedLines(IntStream.range(0, lines)
+                        .mapToObj(i -> "    var v" + i + " = rows[" + i + "].get(key).trim(); // password: none")
+                        .toList())
+                .removedLines(Collections.emptyList())
+                .build();
+    }
+
+    @Benchmark
+    public List<Finding> commonPoolPerChunk() {
+        return chunks.parallelStream()
+                .flatMap(chunk -> engine.analyzeChunk(chunk, WorkPlanner.Scope.ALL).stream())
+                .toList();
+    }
+
+    @Benchmark
+    public List<Finding> dedicatedPoolByLines() {
+        return engine.analyze(chunks);
+    }
+}
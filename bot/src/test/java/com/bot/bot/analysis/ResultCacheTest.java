@@ -0,0 +1,190 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.analysis.heuristics.PatternRule;
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import com.bot.bot.scan.LinearPattern;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultCacheTest {
+
+    private final List<HeuristicsAnalysisEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        engines.forEach(HeuristicsAnalysisEngine::shutdown);
+    }
+
+    /** Reports every added line containing TODO, failing on lines containing FAIL. */
+    private static Rule todoRule(AtomicInteger invocations) {
+        return new Rule() {
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk) {
+                invocations.incrementAndGet();
+                List<Finding> findings = new ArrayList<>();
+                for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+                    String line = chunk.addedLine(i).toString();
+                    if (line.contains("FAIL")) throw new IllegalStateException("rule failure");
+                    if (line.contains("TODO")) {
+                        findings.add(Finding.builder()
+                                .id("todo-" + i)
+                                .filePath(chunk.getFilePath())
+                                .lineNumber(chunk.newLineNumber(i))
+                                .endLine(chunk.newLineNumber(i) + 1)
+                                .severity("LOW")
+                                .category("STYLE")
+                                .message("Resolve the TODO")
+                                .source("HEURISTIC")
+                                .confidence(0.5)
+                                .precedenceScore(10)
+                                .build());
+                    }
+                }
+                return findings;
+            }
+
+            @Override
+            public String getName() {
+                return "Todo";
+            }
+
+            @Override
+            public int getPriority() {
+                return 1;
+            }
+        };
+    }
+
+    private static ChangeChunk chunk(String path, int startLine, String... lines) {
+        return ChangeChunk.builder().filePath(path).fileType("java").startLine(startLine)
+                .addedLines(List.of(lines)).removedLines(List.of()).changeType("MODIFIED").build();
+    }
+
+    private HeuristicsAnalysisEngine engine(Rule rule, MeterRegistry registry, HeuristicsProperties properties) {
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(List.of(rule), registry, properties);
+        engines.add(engine);
+        return engine;
+    }
+
+    private static double requests(MeterRegistry registry, String repo, String result) {
+        return registry.get("heuristics.cache.requests").tag("repo", repo).tag("result", result).counter().count();
+    }
+
+    @Test
+    void servesRepeatedHunksFromCacheRebasedToTheirPosition() {
+        AtomicInteger invocations = new AtomicInteger();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HeuristicsAnalysisEngine engine = engine(todoRule(invocations), registry, new HeuristicsProperties());
+
+        List<Finding> first = engine.analyze(List.of(chunk("src/A.java", 10, "int a;", "// TODO tidy up")), "acme/api");
+        List<Finding> second = engine.analyze(List.of(chunk("src/B.java", 50, "int a;", "// TODO tidy up")), "acme/api");
+
+        assertEquals(1, invocations.get());
+        assertEquals(11, first.get(0).getLineNumber());
+        assertEquals(1, second.size());
+        assertEquals("src/B.java", second.get(0).getFilePath());
+        assertEquals(51, second.get(0).getLineNumber());
+        assertEquals(52, second.get(0).getEndLine());
+        assertEquals("Resolve the TODO", second.get(0).getMessage());
+        assertEquals(1.0, requests(registry, "acme/api", "hit"));
+        assertEquals(1.0, requests(registry, "acme/api", "miss"));
+        assertEquals(1.0, registry.get("heuristics.cache.entries").gauge().value());
+    }
+
+    @Test
+    void keepsChunkOrderAcrossHitsAndMisses() {
+        AtomicInteger invocations = new AtomicInteger();
+        HeuristicsAnalysisEngine engine = engine(todoRule(invocations), new SimpleMeterRegistry(), new HeuristicsProperties());
+        engine.analyze(List.of(chunk("B.java", 1, "TODO b")));
+
+        List<Finding> findings = engine.analyze(List.of(
+                chunk("A.java", 1, "TODO a"), chunk("B.java", 1, "TODO b"), chunk("C.java", 1, "TODO c")));
+
+        assertEquals(List.of("A.java", "B.java", "C.java"), findings.stream().map(Finding::getFilePath).toList());
+        assertEquals(3, invocations.get());
+    }
+
+    @Test
+    void missesAfterTheRuleSetChanges() {
+        AtomicInteger invocations = new AtomicInteger();
+        HeuristicsAnalysisEngine engine = engine(todoRule(invocations), new SimpleMeterRegistry(), new HeuristicsProperties());
+        engine.analyze(List.of(chunk("A.java", 1, "TODO")));
+
+        engine.installRulePacks(List.of(PatternRule.builder()
+                .name("no-fixme").pack("test").pattern(LinearPattern.compile("FIXME"))
+                .severity("LOW").category("STYLE").message("Resolve the FIXME").confidence(0.8).priority(100).build()));
+        engine.analyze(List.of(chunk("A.java", 1, "TODO")));
+
+        assertEquals(2, invocations.get());
+    }
+
+    @Test
+    void doesNotCacheIncompleteResults() {
+        AtomicInteger invocations = new AtomicInteger();
+        HeuristicsAnalysisEngine engine = engine(todoRule(invocations), new SimpleMeterRegistry(), new HeuristicsProperties());
+
+        engine.analyze(List.of(chunk("A.java", 1, "FAIL")));
+        engine.analyze(List.of(chunk("A.java", 1, "FAIL")));
+
+        assertEquals(2, invocations.get());
+    }
+
+    @Test
+    void diskTierOutlivesTheEngine(@TempDir Path dir) throws InterruptedException {
+        HeuristicsProperties properties = new HeuristicsProperties();
+        properties.setCacheDir(dir.toString());
+        AtomicInteger invocations = new AtomicInteger();
+        engine(todoRule(invocations), new SimpleMeterRegistry(), properties)
+                .analyze(List.of(chunk("A.java", 1, "TODO")));
+        // Written in the background
+        for (int i = 0; i < 100 && cacheFiles(dir) == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, cacheFiles(dir));
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        List<Finding> findings = engine(todoRule(invocations), registry, properties)
+                .analyze(List.of(chunk("B.java", 7, "TODO")), "acme/api");
+
+        assertEquals(1, invocations.get());
+        assertEquals(7, findings.get(0).getLineNumber());
+        assertEquals(1.0, requests(registry, "acme/api", "hit"));
+    }
+
+    @Test
+    void disabledWithZeroEntries() {
+        HeuristicsProperties properties = new HeuristicsProperties();
+        properties.setCacheMaxEntries(0);
+        AtomicInteger invocations = new AtomicInteger();
+        HeuristicsAnalysisEngine engine = engine(todoRule(invocations), new SimpleMeterRegistry(), properties);
+
+        engine.analyze(List.of(chunk("A.java", 1, "TODO")));
+        engine.analyze(List.of(chunk("A.java", 1, "TODO")));
+
+        assertEquals(2, invocations.get());
+        assertTrue(engine.analyze(List.of()).isEmpty());
+    }
+
+    private static long cacheFiles(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(p -> p.toString().endsWith(".bin")).count();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RuleDispatcherTest {
+
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Rule rule(String name, int priority, Set<String> fileTypes, List<String> globs) {
+        return new Rule() {
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk) {
+                executed.add(name + "@" + chunk.getFilePath());
+                return List.of();
+            }
+
+            @Override
+            public Set<String> getFileTypes() {
+                return fileTypes;
+            }
+
+            @Override
+            public List<String> getPathGlobs() {
+                return globs;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getPriority() {
+                return priority;
+            }
+        };
+    }
+
+    private static ChangeChunk chunk(String path) {
+        return ChangeChunk.builder()
+                .filePath(path)
+                .fileType(path.contains(".") ? path.substring(path.lastIndexOf('.') + 1) : "unknown")
+                .startLine(1)
+                .addedLines(List.of("x"))
+                .removedLines(List.of())
+                .changeType("MODIFIED")
+                .context("")
+                .build();
+    }
+
+    private HeuristicsAnalysisEngine engine() {
+        return new HeuristicsAnalysisEngine(List.of(
+                rule("Everywhere", 10, Set.of(), List.of()),
+                rule("JavaOnly", 500, Set.of("java", "kt"), List.of()),
+                rule("Docker", 100, Set.of(), List.of("Dockerfile", "docker/**"))), meterRegistry, new HeuristicsProperties());
+    }
+
+    @Test
+    void runsOnlyApplicableRulesInPriorityOrder() {
+        HeuristicsAnalysisEngine engine = engine();
+
+        engine.analyze(List.of(chunk("src/App.java")));
+        assertEquals(List.of("JavaOnly@src/App.java", "Everywhere@src/App.java"), executed);
+
+        executed.clear();
+        engine.analyze(List.of(chunk("README.md")));
+        assertEquals(List.of("Everywhere@README.md"), executed);
+
+        executed.clear();
+        engine.analyze(List.of(chunk("services/api/Dockerfile")));
+        assertEquals(List.of("Docker@services/api/Dockerfile", "Everywhere@services/api/Dockerfile"), executed);
+
+        executed.clear();
+        engine.analyze(List.of(chunk("src/Legacy.JAVA")));
+        assertEquals(List.of("JavaOnly@src/Legacy.JAVA", "Everywhere@src/Legacy.JAVA"), executed);
+    }
+
+    @Test
+    void countsExecutionsPerRuleAndFileType() {
+        HeuristicsAnalysisEngine engine = engine();
+
+        // Identical hunks would be analyzed once
+        ChangeChunk other = chunk("B.java").toBuilder().addedLines(List.of("y")).build();
+        engine.analyze(List.of(chunk("A.java"), other, chunk("notes.md"), chunk("site.css")));
+
+        assertEquals(2, meterRegistry.get("heuristics.rule.executions")
+                .tags("rule", "JavaOnly", "file_type", "java").counter().count());
+        assertEquals(2, meterRegistry.get("heuristics.rule.executions")
+                .tags("rule", "Everywhere", "file_type", "other").counter().count());
+    }
+
+    @Test
+    void dispatchKeySeparatesPathsWithDifferentRuleSets() {
+        HeuristicsAnalysisEngine engine = engine();
+
+        assertEquals(engine.dispatchKey(chunk("a/App.java")), engine.dispatchKey(chunk("b/App.java")));
+        assertNotEquals(engine.dispatchKey(chunk("docker/build.sh")), engine.dispatchKey(chunk("scripts/build.sh")));
+    }
+
+    @Test
+    void undeclaredFileTypesShareOneBucket() {
+        RuleDispatcher dispatcher = new RuleDispatcher(List.of(
+                rule("Everywhere", 10, Set.of(), List.of()),
+                rule("JavaOnly", 500, Set.of("java"), List.of())), meterRegistry);
+
+        RuleDispatcher.Bucket other = dispatcher.bucketFor("md");
+        for (int i = 0; i < 100; i++) {
+            assertSame(other, dispatcher.bucketFor("x" + i));
+        }
+        assertSame(other, dispatcher.bucketFor(null));
+        assertSame(dispatcher.bucketFor("java"), dispatcher.bucketFor("JAVA"));
+        assertEquals(1, other.size());
+    }
+}
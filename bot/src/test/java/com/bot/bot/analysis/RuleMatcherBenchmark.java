@@ -0,0 +1,114 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.analysis.heuristics.NullPointerDetectionRule;
+import com.bot.bot.analysis.heuristics.SecretsDetectionRule;
+import com.bot.bot.diff.DiffFixtures;
+import com.bot.bot.diff.UnifiedDiffParser;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import com.bot.bot.scan.LinearPattern;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule execution over a 1 MB diff as the number of rules grows: every rule scanning every
+ * line with its own regexes, against one shared literal prefilter pass per chunk.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="RuleMatcherBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleMatcherBenchmark {
+
+    /** Built-in rules plus synthetic keyword rules with three patterns each. */
+    @Param({"2", "20", "100"})
+    public int ruleCount;
+
+    private List<ChangeChunk> chunks;
+    private List<Rule> rules;
+    private RuleMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        chunks = new UnifiedDiffParser().parse(DiffFixtures.syntheticDiff(1024 * 1024 / 40));
+        rules = new ArrayList<>(List.of(new SecretsDetectionRule(), new NullPointerDetectionRule()));
+        for (int k = 0; rules.size() < ruleCount; k++) {
+            rules.add(new KeywordRule(k));
+        }
+        matcher = RuleMatcher.compile(rules);
+    }
+
+    @Benchmark
+    public void everyRuleEveryLine(Blackhole bh) {
+        for (ChangeChunk chunk : chunks) {
+            for (Rule rule : rules) {
+                bh.consume(rule.analyze(chunk));
+            }
+        }
+    }
+
+    @Benchmark
+    public void sharedPrefilter(Blackhole bh) {
+        for (ChangeChunk chunk : chunks) {
+            RuleMatcher.LineHits hits = matcher.scan(chunk);
+            for (int r = 0; r < rules.size(); r++) {
+                RuleContext context = matcher.context(r, hits);
+                if (context.anyLineMayMatch()) {
+                    bh.consume(rules.get(r).analyze(chunk, context));
+                }
+            }
+        }
+    }
+
+    /** A typical keyword rule: a few case-insensitive patterns anchored on identifiers. */
+    private static final class KeywordRule implements Rule {
+        private final List<LinearPattern> patterns;
+
+        KeywordRule(int k) {
+            patterns = List.of(
+                    LinearPattern.compile("(?i)\\bdeprecated_api_" + k + "\\s*\\("),
+                    LinearPattern.compile("(?i)(?:legacy|old)Client" + k + "\\.\\w+\\("),
+                    LinearPattern.compile("TODO\\(ticket-" + k + "\\)"));
+        }
+
+        @Override
+        public List<Finding> analyze(ChangeChunk chunk) {
+            return analyze(chunk, RuleContext.unfiltered());
+        }
+
+        @Override
+        public List<Finding> analyze(ChangeChunk chunk, RuleContext context) {
+            List<Finding> findings = new ArrayList<>();
+            for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+                for (int p = 0; p < patterns.size(); p++) {
+                    if (context.mayMatch(p, i) && patterns.get(p).find(chunk.addedLine(i))) {
+                        findings.add(Finding.builder().lineNumber(chunk.newLineNumber(i)).build());
+                    }
+                }
+            }
+            return findings;
+        }
+
+        @Override
+        public List<LinearPattern> getLinePatterns() {
+            return patterns;
+        }
+
+        @Override
+        public String getName() {
+            return "KeywordRule";
+        }
+
+        @Override
+        public int getPriority() {
+            return 100;
+        }
+    }
+}
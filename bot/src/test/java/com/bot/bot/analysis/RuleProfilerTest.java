@@ -0,0 +1,102 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.analysis.heuristics.RulePackLoader;
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleProfilerTest {
+
+    private static Rule rule(String name, RuntimeException failure) {
+        return new Rule() {
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk) {
+                if (failure != null) throw failure;
+                return List.of(Finding.builder().message(name).build());
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getPriority() {
+                return 1;
+            }
+        };
+    }
+
+    @Test
+    void ranksRulesByCpuPerMegabyteOverTheWindow() {
+        AtomicLong now = new AtomicLong(0);
+        List<Rule> rules = List.of(rule("Cheap", null), rule("Costly", null), rule("Idle", null));
+        RuleProfiler profiler = new RuleProfiler(new SimpleMeterRegistry(), 5, now::get);
+        RuleProfiler.Profile[] profiles = profiler.track(rules);
+
+        profiler.record(profiles[0], 100, 1024 * 1024, 3_000_000, 2_000_000, 1, false);
+        profiler.record(profiles[1], 10, 512 * 1024, 9_000_000, 8_000_000, 0, true);
+        now.set(3 * RuleProfiler.SLOT_MILLIS);
+        profiler.record(profiles[1], 10, 512 * 1024, 9_000_000, 8_000_000, 2, false);
+
+        List<RuleProfile> report = profiler.report(name -> name.equals("Costly"));
+        assertEquals(List.of("Costly", "Cheap"), report.stream().map(RuleProfile::rule).toList());
+        RuleProfile costly = report.get(0);
+        assertEquals(2, costly.invocations());
+        assertEquals(20, costly.lines());
+        assertEquals(1.0, costly.megabytes(), 1e-9);
+        assertEquals(16.0, costly.cpuMillisPerMb(), 1e-9);
+        assertEquals(18.0, costly.wallMillis(), 1e-9);
+        assertEquals(2, costly.findings());
+        assertEquals(1, costly.errors());
+        assertTrue(costly.quarantined());
+        assertEquals(2.0, report.get(1).cpuMillisPerMb(), 1e-9);
+        assertFalse(report.get(1).quarantined());
+
+        // The first minute slides out of the window, and its slot is reused
+        now.set(5 * RuleProfiler.SLOT_MILLIS);
+        profiler.record(profiles[2], 1, 10, 1_000, 1_000, 0, false);
+        List<RuleProfile> later = profiler.report(name -> false);
+        assertEquals(List.of("Idle", "Costly"), later.stream().map(RuleProfile::rule).toList());
+        assertEquals(1, later.get(1).invocations());
+    }
+
+    @Test
+    void engineRecordsPerRuleMeters() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(
+                List.of(rule("Works", null), rule("Throws", new IllegalStateException("boom"))),
+                registry, new HeuristicsProperties());
+        ChangeChunk chunk = ChangeChunk.builder()
+                .filePath("A.java").startLine(1).addedLines(List.of("abc", "defg")).build();
+
+        // Identical hunks would be analyzed once
+        engine.analyze(List.of(chunk, chunk.toBuilder().filePath("B.java").addedLines(List.of("abd", "defh")).build()));
+
+        assertEquals(2.0, registry.get("heuristics.rule.duration").tag("rule", "Works").functionTimer().count());
+        assertEquals(2.0, registry.get("heuristics.rule.cpu").tag("rule", "Works").functionTimer().count());
+        assertEquals(4.0, registry.get("heuristics.rule.lines").tag("rule", "Works").functionCounter().count());
+        assertEquals(2.0, registry.get("heuristics.rule.findings").tag("rule", "Works").functionCounter().count());
+        assertEquals(2.0, registry.get("heuristics.rule.errors").tag("rule", "Throws").functionCounter().count());
+        assertEquals(0.0, registry.get("heuristics.rule.errors").tag("rule", "Works").functionCounter().count());
+
+        RuleProfileEndpoint.Report report = new RuleProfileEndpoint(engine,
+                new RulePackLoader(engine, new HeuristicsProperties())).rules();
+        assertEquals(15, report.windowMinutes());
+        assertEquals(2, report.rules().size());
+        RuleProfile works = report.rules().stream().filter(p -> p.rule().equals("Works")).findFirst().orElseThrow();
+        assertEquals(14.0 / (1024 * 1024), works.megabytes(), 1e-12);
+        assertTrue(report.rulePacks().isEmpty());
+        engine.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package com.bot.bot.analysis;
+
+import com.bot.bot.domain.ChangeChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class WorkPlannerTest {
+
+    private static ChangeChunk chunk(String path, int lines) {
+        return ChangeChunk.builder()
+                .filePath(path)
+                .startLine(1)
+                .addedLines(IntStream.range(0, lines).mapToObj(i -> "line " + i).toList())
+                .removedLines(Collections.emptyList())
+                .build();
+    }
+
+    @Test
+    void batchesSmallChunksByLineVolume() {
+        List<ChangeChunk> chunks = List.of(chunk("a", 40), chunk("b", 70), chunk("c", 10), chunk("d", 0), chunk("e", 5));
+
+        List<List<WorkPlanner.Work>> tasks = WorkPlanner.plan(chunks, 100);
+
+        assertEquals(2, tasks.size());
+        assertEquals(List.of("a", "b"), tasks.get(0).stream().map(w -> w.chunk().getFilePath()).toList());
+        assertEquals(List.of("c", "d", "e"), tasks.get(1).stream().map(w -> w.chunk().getFilePath()).toList());
+        assertEquals(WorkPlanner.Scope.ALL, tasks.get(0).get(0).scope());
+    }
+
+    @Test
+    void splitsGiantChunksIntoEvenLineRangesInOrder() {
+        ChangeChunk giant = chunk("giant", 1_000);
+        List<List<WorkPlanner.Work>> tasks = WorkPlanner.plan(List.of(chunk("before", 10), giant, chunk("after", 10)), 300);
+
+        // before | whole-chunk rules on giant | 4 ranges of 250 lines | after
+        assertEquals(7, tasks.size());
+        assertEquals("before", tasks.get(0).get(0).chunk().getFilePath());
+        assertSame(giant, tasks.get(1).get(0).chunk());
+        assertEquals(WorkPlanner.Scope.WHOLE_CHUNK_RULES, tasks.get(1).get(0).scope());
+        for (int t = 2; t < 6; t++) {
+            WorkPlanner.Work range = tasks.get(t).get(0);
+            assertEquals(WorkPlanner.Scope.LINE_LOCAL_RULES, range.scope());
+            assertEquals(250, range.chunk().getAddedLines().size());
+            assertEquals(1 + (t - 2) * 250, range.chunk().newLineNumber(0));
+        }
+        assertEquals("after", tasks.get(6).get(0).chunk().getFilePath());
+    }
+
+    @Test
+    void keepsChunksUpToTwiceTheTaskSizeWhole() {
+        List<List<WorkPlanner.Work>> tasks = WorkPlanner.plan(List.of(chunk("a", 200)), 100);
+
+        assertEquals(1, tasks.size());
+        assertEquals(WorkPlanner.Scope.ALL, tasks.get(0).get(0).scope());
+    }
+}
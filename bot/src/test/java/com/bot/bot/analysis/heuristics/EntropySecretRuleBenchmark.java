@@ -0,0 +1,67 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.analysis.HeuristicsAnalysisEngine;
+import com.bot.bot.analysis.Rule;
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.diff.DiffFixtures;
+import com.bot.bot.diff.UnifiedDiffParser;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heuristics throughput over the 1 MB synthetic diff with and without {@link EntropySecretRule},
+ * measuring what entropy scanning adds to the built-in rules alone.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="EntropySecretRuleBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntropySecretRuleBenchmark {
+
+    @Param({"false", "true"})
+    public boolean entropy;
+
+    private List<ChangeChunk> chunks;
+    private HeuristicsAnalysisEngine engine;
+    private final EntropySecretRule rule = new EntropySecretRule();
+
+    @Setup
+    public void setUp() {
+        chunks = new UnifiedDiffParser().parse(DiffFixtures.syntheticDiff(1024 * 1024 / 40));
+        List<Rule> rules = new ArrayList<>(List.of(new SecretsDetectionRule(), new NullPointerDetectionRule()));
+        if (entropy) rules.add(new EntropySecretRule());
+        // Every invocation analyzes the same chunks, which would otherwise be served from the result cache
+        HeuristicsProperties properties = new HeuristicsProperties();
+        properties.setCacheMaxEntries(0);
+        engine = new HeuristicsAnalysisEngine(rules, new SimpleMeterRegistry(), properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public List<Finding> analyze() {
+        return engine.analyze(chunks);
+    }
+
+    /** The entropy scan alone, without the engine's per-invocation accounting. */
+    @Benchmark
+    public int scanOnly() {
+        int found = 0;
+        for (ChangeChunk chunk : chunks) {
+            found += rule.analyze(chunk).size();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,104 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntropySecretRuleTest {
+
+    private final EntropySecretRule rule = new EntropySecretRule();
+
+    private static ChangeChunk chunk(List<String> lines) {
+        return ChangeChunk.builder().filePath("src/Config.java").fileType("java").startLine(10).addedLines(lines).build();
+    }
+
+    private List<Integer> flaggedLines(String... lines) {
+        return rule.analyze(chunk(List.of(lines))).stream().map(Finding::getLineNumber).toList();
+    }
+
+    @Test
+    void computesShannonEntropyAndLeavesScratchCountsClear() {
+        int[] counts = new int[128];
+        assertEquals(0.0, EntropySecretRule.entropy("aaaa", 0, 4, counts), 1e-12);
+        assertEquals(2.0, EntropySecretRule.entropy("xabcdx", 1, 5, counts), 1e-12);
+        assertEquals(1.0, EntropySecretRule.entropy("aabb", 0, 4, counts), 1e-12);
+        assertTrue(Arrays.stream(counts).allMatch(c -> c == 0));
+        // A token of the minimum length can reach the threshold
+        assertTrue(Math.log(EntropySecretRule.BASE64_MIN_LENGTH) / Math.log(2) > EntropySecretRule.BASE64_THRESHOLD);
+    }
+
+    @Test
+    void flagsHighEntropyBase64AndHexTokens() {
+        List<Finding> findings = rule.analyze(chunk(List.of(
+                "String key = \"q8Zr3KfT0vW1xYbN7mLpA2sD9gHjE4uI\";",
+                "int count = 42;",
+                "token: 4f9c2b7e1a8d3f6e0b5c9a2d7e4f1b8c")));
+
+        assertEquals(List.of(10, 12), findings.stream().map(Finding::getLineNumber).toList());
+        assertTrue(findings.get(0).getMessage().startsWith("High-entropy base64 string"));
+        assertTrue(findings.get(1).getMessage().startsWith("High-entropy hex string"));
+        assertEquals("SECURITY", findings.get(0).getCategory());
+    }
+
+    @Test
+    void flagsHexSecretsButNotCommitIdsUuidsOrChecksums() {
+        String sha = "b4ffde65f46336ab88eb53be808477a3936bae11";
+        String sha256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+        assertEquals(List.of(10), flaggedLines(
+                "private static final String API_SECRET = \"" + sha + "\";",
+                "      - uses: actions/checkout@" + sha,
+                "// Reverts " + sha + ", which broke the build",
+                "String parent = \"see " + sha + "\";",
+                "commit_sha: " + sha,
+                "        ref: " + sha,
+                "\"id\": \"550e8400e29b41d4a716446655440000\",",
+                "String token = \"550e8400e29b41d4a716446655440000\";",
+                sha256 + "  app.tar.gz",
+                "checksum = \"" + sha256 + "\""));
+    }
+
+    @Test
+    void ignoresOrdinaryCodeAndIntegrityHashes() {
+        assertTrue(flaggedLines(
+                "HeuristicsAnalysisEngine engine = new HeuristicsAnalysisEngine(rules, registry, properties);",
+                "String id = \"123e4567-e89b-12d3-a456-426614174000\";",
+                "// q8Zr3KfT0vW1xYbN7mLpA2sD9gHjE4uI outside any value",
+                "String shortKey = \"q8Zr3KfT0vW1xYbN7mLpA2sD\";",
+                "import com.bot.bot.analysis.heuristics.SecretsDetectionRule;",
+                "FROM eclipse-temurin@sha256:4f9c2b7e1a8d3f6e0b5c9a2d7e4f1b8c4f9c2b7e1a8d3f6e0b5c9a2d7e4f1b8c",
+                "\"integrity\": \"sha512-q8Zr3KfT0vW1xYbN7mLpA2sD9gHjE4uIq8Zr3KfT0vW1xYbN7mLpA2sD9gHjE4uI\"",
+                "int[] table = {1234567890, 1234567890, 1234567890};",
+                "img.src = \"data:image/png;base64," + "iVBORw0KGgoAAAANSUhEUgAAAAEAAAAB".repeat(40) + "\";"
+        ).isEmpty());
+    }
+
+    @Test
+    void doesNotAllocatePerToken() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Many candidate tokens per line, none of them over the threshold
+        List<String> lines = IntStream.range(0, 2_000)
+                .mapToObj(i -> "result = callService2Endpoint(requestBuilder9ValueWithAllRetries, "
+                        + "responseHandler3CallbackOnFailure, retryPolicy" + i + "WithExponentialBackoff);")
+                .toList();
+        ChangeChunk chunk = chunk(lines);
+        for (int i = 0; i < 20; i++) {
+            rule.analyze(chunk);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        List<Finding> findings = rule.analyze(chunk);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(findings.isEmpty());
+        // Three candidate tokens on each of 2000 lines; a per-token allocation would add at least 48 kB
+        assertTrue(allocated < 16 * 1024, "allocated " + allocated + " bytes");
+    }
+}
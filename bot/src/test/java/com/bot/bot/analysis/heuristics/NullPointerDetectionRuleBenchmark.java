@@ -0,0 +1,49 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.diff.DiffFixtures;
+import com.bot.bot.diff.UnifiedDiffParser;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.scan.Lexer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NullPointerDetectionRule} over the 1 MB synthetic diff, and the shared lexer pass
+ * alone. Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="NullPointerDetectionRuleBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NullPointerDetectionRuleBenchmark {
+
+    private List<ChangeChunk> chunks;
+    private final NullPointerDetectionRule rule = new NullPointerDetectionRule();
+
+    @Setup
+    public void setUp() {
+        chunks = new UnifiedDiffParser().parse(DiffFixtures.syntheticDiff(1024 * 1024 / 40));
+    }
+
+    @Benchmark
+    public int analyze() {
+        int found = 0;
+        for (ChangeChunk chunk : chunks) {
+            found += rule.analyze(chunk).size();
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int lex() {
+        int tokens = 0;
+        for (ChangeChunk chunk : chunks) {
+            tokens += Lexer.forFileType(chunk.getFileType()).lex(chunk.getAddedLines().size(), chunk::addedLine).size();
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NullPointerDetectionRuleTest {
+
+    private final NullPointerDetectionRule rule = new NullPointerDetectionRule();
+
+    private List<Integer> flaggedLines(String fileType, String... lines) {
+        ChangeChunk chunk = ChangeChunk.builder().filePath("src/Service." + fileType).fileType(fileType)
+                .startLine(1).addedLines(List.of(lines)).build();
+        return rule.analyze(chunk).stream().map(Finding::getLineNumber).toList();
+    }
+
+    @Test
+    void flagsChainedCallsInCode() {
+        assertEquals(List.of(1, 2), flaggedLines("java",
+                "String name = user.getProfile().getName();",
+                "items.get(index).trim();",
+                "String name = user.getName();"));
+    }
+
+    @Test
+    void skipsDeclarationsNullChecksAndSafeCalls() {
+        assertEquals(List.of(), flaggedLines("kt",
+                "import foo.bar().baz",
+                "@Mock(answer = a.b().c)",
+                "private val x = a.b().c",
+                "if (user != null && user.getProfile().isActive()) {",
+                "Objects.requireNonNull(repo.find(id).orElse(null));",
+                "val name = user?.profile().name"));
+    }
+
+    @Test
+    void ignoresCallsInsideCommentsAndStrings() {
+        assertEquals(List.of(5), flaggedLines("java",
+                "log.info(\"calls a.get().size() next\");",
+                "int n = 1; // was: map.get(k).size()",
+                "/*",
+                " list.get(0).trim()",
+                " */ cache.get(key).touch();"));
+    }
+
+    @Test
+    void prefilterAdmitsEveryLineTheTokenMatcherFlags() {
+        // The engine skips lines the line patterns rule out, so they must not be narrower
+        for (String line : List.of("user.getProfile().getName();", "items[0].get(i).trim();", "a().b().c();")) {
+            assertTrue(rule.getLinePatterns().get(0).find(line), line);
+        }
+    }
+}
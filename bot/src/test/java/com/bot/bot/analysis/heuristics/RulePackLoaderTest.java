@@ -0,0 +1,180 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.analysis.HeuristicsAnalysisEngine;
+import com.bot.bot.analysis.Rule;
+import com.bot.bot.config.HeuristicsProperties;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RulePackLoaderTest {
+
+    private static final String PACK = """
+            pack: conventions
+            rules:
+              - id: no-system-exit
+                pattern: "System\\\\.exit\\\\("
+                severity: high
+                category: BEST_PRACTICE
+                message: Do not call System.exit
+                file_types: [java]
+                confidence: 0.9
+              - id: broken
+                pattern: "(a)\\\\1"
+                severity: LOW
+                category: STYLE
+                message: never compiled
+              - id: no-severity
+                pattern: "x"
+                category: STYLE
+                message: never compiled
+            """;
+
+    @TempDir
+    Path dir;
+
+    private HeuristicsAnalysisEngine engine;
+    private RulePackLoader loader;
+
+    private void start(List<Rule> builtin) {
+        HeuristicsProperties properties = new HeuristicsProperties();
+        properties.setRulePackDir(dir.toString());
+        properties.setRulePackPollSeconds(3600);
+        engine = new HeuristicsAnalysisEngine(builtin, new SimpleMeterRegistry(), properties);
+        loader = new RulePackLoader(engine, properties);
+        loader.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.stop();
+        engine.shutdown();
+    }
+
+    private static ChangeChunk chunk(String path, String... lines) {
+        return ChangeChunk.builder().filePath(path).fileType(path.substring(path.lastIndexOf('.') + 1))
+                .startLine(1).addedLines(List.of(lines)).build();
+    }
+
+    private static void write(Path file, String content, long modifiedMillis) throws Exception {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+
+    @Test
+    void compilesValidRulesAndReportsTheirCost() throws Exception {
+        write(dir.resolve("conventions.yaml"), PACK, 1_000);
+        start(List.of());
+
+        assertEquals(List.of("no-system-exit"), engine.rules().stream().map(Rule::getName).toList());
+        RulePackLoader.RuleCompileStats stats = loader.lastCompile().get(0);
+        assertEquals("conventions", stats.pack());
+        assertEquals(1, stats.prefilterLiterals());
+        assertTrue(stats.approximateBytes() > 0);
+
+        List<Finding> findings = engine.analyze(List.of(
+                chunk("src/Main.java", "int a = 1;", "System.exit(1);"),
+                chunk("scripts/run.py", "System.exit(1)")));
+        assertEquals(1, findings.size());
+        Finding finding = findings.get(0);
+        assertEquals(2, finding.getLineNumber());
+        assertEquals("HIGH", finding.getSeverity());
+        assertEquals("BEST_PRACTICE", finding.getCategory());
+        assertEquals(0.9, finding.getConfidence());
+    }
+
+    @Test
+    void swapsPacksWhenFilesChange() throws Exception {
+        Path file = dir.resolve("conventions.yaml");
+        write(file, PACK, 1_000);
+        start(List.of());
+        assertFalse(loader.reloadIfChanged());
+
+        write(file, PACK.replace("System\\\\.exit", "Runtime\\\\.getRuntime"), 2_000);
+        assertTrue(loader.reloadIfChanged());
+        assertEquals(1, engine.analyze(List.of(chunk("A.java", "Runtime.getRuntime().halt(1);"))).size());
+        assertTrue(engine.analyze(List.of(chunk("A.java", "System.exit(1);"))).isEmpty());
+
+        // An edit that does not parse keeps the rules the file had
+        write(file, "rules: [", 3_000);
+        assertTrue(loader.reloadIfChanged());
+        assertEquals(1, engine.rules().size());
+
+        Files.delete(file);
+        assertTrue(loader.reloadIfChanged());
+        assertTrue(engine.rules().isEmpty());
+    }
+
+    @Test
+    void keepsClasspathPacksOfTheSameFileNameApart() throws Exception {
+        Path first = dir.resolve("a/rule-packs/conventions.yaml");
+        Path second = dir.resolve("b/rule-packs/conventions.yaml");
+        Files.createDirectories(first.getParent());
+        Files.createDirectories(second.getParent());
+        Files.writeString(first, PACK);
+        Files.writeString(second, PACK.replace("no-system-exit", "no-runtime-halt"));
+        HeuristicsProperties properties = new HeuristicsProperties();
+        engine = new HeuristicsAnalysisEngine(List.of(), new SimpleMeterRegistry(), properties);
+        loader = new RulePackLoader(engine, properties);
+
+        loader.start(new Resource[]{new FileSystemResource(first), new FileSystemResource(second)});
+
+        assertEquals(List.of("no-system-exit", "no-runtime-halt"), engine.rules().stream().map(Rule::getName).toList());
+    }
+
+    @Test
+    void inFlightReviewsFinishOnTheRulesTheyStartedWith() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Rule gate = new Rule() {
+            @Override
+            public List<Finding> analyze(ChangeChunk chunk) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+
+            @Override
+            public String getName() {
+                return "Gate";
+            }
+
+            @Override
+            public int getPriority() {
+                return Integer.MAX_VALUE;
+            }
+        };
+        start(List.of(gate));
+
+        CompletableFuture<List<Finding>> review = CompletableFuture.supplyAsync(
+                () -> engine.analyze(List.of(chunk("A.java", "System.exit(1);"))));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        write(dir.resolve("conventions.yaml"), PACK, 1_000);
+        assertTrue(loader.reloadIfChanged());
+        release.countDown();
+
+        assertTrue(review.get(10, TimeUnit.SECONDS).isEmpty());
+        assertEquals(1, engine.analyze(List.of(chunk("A.java", "System.exit(1);"))).size());
+    }
+}
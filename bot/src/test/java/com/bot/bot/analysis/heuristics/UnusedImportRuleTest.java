@@ -0,0 +1,59 @@
+package com.bot.bot.analysis.heuristics;
+
+import com.bot.bot.analysis.RuleContext;
+import com.bot.bot.content.FileText;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnusedImportRuleTest {
+
+    private final UnusedImportRule rule = new UnusedImportRule();
+
+    private static final String FILE = """
+            package com.acme;
+
+            import java.util.List;
+            import java.util.Map;
+            import java.util.concurrent.*;
+            import static java.util.Objects.requireNonNull;
+            import com.acme.io.Reader;
+            import com.acme.io.Writer;
+
+            /** Reads with {@link Reader}. */
+            class Service {
+                // the other name is only in a string
+                String describe() { return "Map"; }
+                List<String> names(Object o) { return List.of(requireNonNull(o).toString()); }
+            }
+            """;
+
+    private static ChangeChunk chunk(String... lines) {
+        return ChangeChunk.builder().filePath("src/Service.java").fileType("java").blobSha("1234567")
+                .startLine(3).addedLines(List.of(lines)).build();
+    }
+
+    @Test
+    void flagsAddedImportsTheFileNeverRefersTo() {
+        ChangeChunk chunk = chunk("import java.util.List;", "import java.util.Map;", "import java.util.concurrent.*;",
+                "import static java.util.Objects.requireNonNull;", "import com.acme.io.Reader;", "import com.acme.io.Writer;");
+
+        List<Finding> findings = rule.analyze(chunk, RuleContext.unfiltered(chunk, c -> FileText.of(FILE)));
+
+        assertEquals(List.of(4, 8), findings.stream().map(Finding::getLineNumber).toList());
+        assertEquals("Unused import: import java.util.Map;", findings.get(0).getMessage());
+    }
+
+    @Test
+    void reportsNothingWithoutTheFile() {
+        ChangeChunk chunk = chunk("import java.util.Map;");
+
+        assertTrue(rule.analyze(chunk).isEmpty());
+        assertTrue(rule.analyze(chunk, RuleContext.unfiltered(chunk, c -> null)).isEmpty());
+    }
+}
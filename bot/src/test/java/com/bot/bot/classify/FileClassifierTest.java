@@ -0,0 +1,139 @@
+package com.bot.bot.classify;
+
+import com.bot.bot.diff.UnifiedDiffParser;
+import com.bot.bot.domain.ChangeChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileClassifierTest {
+
+    private final FileClassifier classifier = new FileClassifier();
+
+    @Test
+    void skipsLockfilesVendoredAndGeneratedFiles() {
+        List<ChangeChunk> chunks = List.of(
+                chunk("src/App.java", 10, "int x = 1;"),
+                chunk("web/package-lock.json", 1, "\"lodash\": {"),
+                chunk("vendor/github.com/x/y.go", 1, "package y"),
+                chunk("api/service.pb.go", 1, "package api"),
+                chunk("src/Schema.java", 1, "// @generated by schema-gen", "class Schema {}"));
+
+        ClassifiedChanges result = classifier.classify(chunks, List.of());
+
+        assertEquals(1, result.getReviewable().size());
+        assertEquals("src/App.java", result.getReviewable().get(0).getFilePath());
+        assertEquals(FileCategory.LOCKFILE, result.getSkippedFiles().get("web/package-lock.json"));
+        assertEquals(FileCategory.VENDORED, result.getSkippedFiles().get("vendor/github.com/x/y.go"));
+        assertEquals(FileCategory.GENERATED, result.getSkippedFiles().get("api/service.pb.go"));
+        assertEquals(FileCategory.GENERATED, result.getSkippedFiles().get("src/Schema.java"));
+        assertTrue(result.getSkippedBytes() > 0);
+        // Skipped files are still scanned for secrets
+        assertEquals(4, result.getSecurityOnly().size());
+    }
+
+    @Test
+    void detectsMinifiedContentButKeepsLongProse() {
+        StringBuilder minified = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            minified.append("function a").append(i).append("(b,c){return b.x").append(i * 7)
+                    .append("?c[").append(i).append("]:Q.k(b,{z:").append(i % 3).append("})};");
+        }
+        String prose = "This paragraph was written without any line wrapping so it runs long, "
+                .repeat(6);
+
+        assertTrue(FileClassifier.isMinified(List.of(chunk("dist/app.js", 1, minified.toString()))));
+        assertFalse(FileClassifier.isMinified(List.of(chunk("README.md", 1, prose, prose))));
+        assertTrue(FileClassifier.isMinified(List.of(chunk("data.json", 1, "a".repeat(6000)))));
+    }
+
+    @Test
+    void honoursGitAttributesAndBinaryDiffs() {
+        String diff = """
+                diff --git a/assets/logo.png b/assets/logo.png
+                index 1111111..2222222 100644
+                Binary files a/assets/logo.png and b/assets/logo.png differ
+                diff --git a/gen/client/Api.java b/gen/client/Api.java
+                --- a/gen/client/Api.java
+                +++ b/gen/client/Api.java
+                @@ -20,1 +20,1 @@
+                +    void call();
+                diff --git a/src/Main.java b/src/Main.java
+                --- a/src/Main.java
+                +++ b/src/Main.java
+                @@ -3,1 +3,1 @@
+                +    int y;
+                """;
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        ClassifiedChanges result = classifier.classify(chunks, List.of("gen/**"));
+
+        assertEquals(FileCategory.BINARY, result.getSkippedFiles().get("assets/logo.png"));
+        assertEquals(FileCategory.GENERATED, result.getSkippedFiles().get("gen/client/Api.java"));
+        assertEquals(1, result.getReviewable().size());
+        assertEquals(List.of("gen/client/Api.java"),
+                result.getSecurityOnly().stream().map(ChangeChunk::getFilePath).toList());
+        assertTrue(result.summaryNote().startsWith("⏭️ Skipped 2 files"));
+    }
+
+    @Test
+    void translatesGitAttributesGlobs() {
+        assertTrue("a/b/foo.min.js".matches(FileClassifier.globToRegex("*.min.js")));
+        assertTrue("docs/api/x.md".matches(FileClassifier.globToRegex("docs/**")));
+        assertTrue("x/generated/y.ts".matches(FileClassifier.globToRegex("**/generated/*.ts")));
+        assertFalse("src/docs/x.md".matches(FileClassifier.globToRegex("/docs/*")));
+        assertTrue("build/out/a.c".matches(FileClassifier.globToRegex("build/")));
+    }
+
+    @Test
+    void noteIsNullWhenNothingSkipped() {
+        ClassifiedChanges result = classifier.classify(List.of(chunk("src/App.java", 1, "x")), List.of());
+
+        assertNull(result.summaryNote());
+        assertEquals(0, result.getSkippedBytes());
+    }
+
+    @Test
+    void holdsBackRenamesAndFormattingOnlyHunks() {
+        String diff = """
+                diff --git a/old/Util.java b/new/Util.java
+                similarity index 100%
+                rename from old/Util.java
+                rename to new/Util.java
+                diff --git a/src/A.java b/src/A.java
+                --- a/src/A.java
+                +++ b/src/A.java
+                @@ -1,1 +1,1 @@
+                -int  x;
+                +int x;
+                @@ -9,1 +9,1 @@
+                -int y;
+                +long y;
+                """;
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        ClassifiedChanges result = classifier.classify(chunks, List.of(), false);
+
+        assertEquals(1, result.getReviewable().size());
+        assertEquals(9, result.getReviewable().get(0).getStartLine());
+        assertEquals(1, result.getRenamedFiles());
+        assertEquals(1, result.getFormattingOnlyHunks());
+        assertEquals("♻️ No semantic changes in 1 renamed file and 1 formatting-only hunk; not analyzed.",
+                result.semanticNote());
+        assertNull(result.summaryNote());
+    }
+
+    private static ChangeChunk chunk(String path, int startLine, String... added) {
+        return ChangeChunk.builder()
+                .filePath(path)
+                .startLine(startLine)
+                .addedLines(List.of(added))
+                .changeType("MODIFIED")
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.bot.bot.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching 10k changed paths against 500 {@code ignore_paths} entries: extension, directory,
+ * prefix and nested globs plus a few regexes. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="IgnorePathMatcherBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IgnorePathMatcherBenchmark {
+
+    private List<String> patterns;
+    private List<String> paths;
+    private IgnorePathMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        patterns = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            patterns.add(switch (i % 10) {
+                case 0, 1, 2 -> "*.ext" + i;
+                case 3, 4 -> "build" + i + "/";
+                case 5, 6 -> "**/gen" + i + "/*.js";
+                case 7 -> "vendor_" + i + "*";
+                case 8 -> "src/module" + i + "/**/*.snap";
+                default -> i % 20 == 9 ? "docs/v" + i + "/.*\\.txt" : "CHANGELOG-" + i + ".md";
+            });
+        }
+        Random random = new Random(42);
+        paths = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            int m = random.nextInt(600);
+            paths.add(switch (random.nextInt(6)) {
+                case 0 -> "src/module" + m + "/pkg" + random.nextInt(20) + "/File" + i + ".java";
+                case 1 -> "web/gen" + m + "/bundle" + i + ".js";
+                case 2 -> "lib/vendor_" + m + "/x" + i + ".go";
+                case 3 -> "build" + m + "/out/File" + i + ".class";
+                case 4 -> "assets/data" + i + ".ext" + m;
+                default -> "docs/v" + m + "/page" + i + ".txt";
+            });
+        }
+        matcher = IgnorePathMatcher.compile(patterns);
+    }
+
+    @Benchmark
+    public int match() {
+        int ignored = 0;
+        for (String path : paths) {
+            if (matcher.isIgnored(path)) ignored++;
+        }
+        return ignored;
+    }
+
+    @Benchmark
+    public IgnorePathMatcher compile() {
+        return IgnorePathMatcher.compile(patterns);
+    }
+}
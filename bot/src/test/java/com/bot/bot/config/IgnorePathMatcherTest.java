@@ -0,0 +1,81 @@
+package com.bot.bot.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IgnorePathMatcherTest {
+
+    @Test
+    void matchesExactSuffixAndRegexPatterns() {
+        IgnorePathMatcher matcher = IgnorePathMatcher.compile(List.of("README.md", "*.lock", "docs/.*\\.txt"));
+
+        assertTrue(matcher.isIgnored("README.md"));
+        assertTrue(matcher.isIgnored("frontend/yarn.lock"));
+        assertTrue(matcher.isIgnored("docs/guide/intro.txt"));
+        assertFalse(matcher.isIgnored("src/docs/intro.txt"));
+        assertFalse(matcher.isIgnored("src/App.java"));
+        assertFalse(matcher.isIgnored(null));
+    }
+
+    @Test
+    void matchesGlobsSegmentBySegment() {
+        IgnorePathMatcher matcher = IgnorePathMatcher.compile(List.of(
+                "/build", "generated/", "docs/**/*.png", "**/fixtures/*.json", "vendor_*", "src/*/gen?d", "dist/"));
+
+        assertTrue(matcher.isIgnored("build/out.jar"));
+        assertFalse(matcher.isIgnored("app/build/out.jar"));
+        assertTrue(matcher.isIgnored("app/generated/Api.java"));
+        assertTrue(matcher.isIgnored("docs/a.png"));
+        assertTrue(matcher.isIgnored("docs/img/large/a.png"));
+        assertFalse(matcher.isIgnored("docs/a.svg"));
+        assertTrue(matcher.isIgnored("test/fixtures/user.json"));
+        assertFalse(matcher.isIgnored("test/fixtures/deep/user.json"));
+        assertTrue(matcher.isIgnored("lib/vendor_acme/x.go"));
+        assertTrue(matcher.isIgnored("src/main/gened/X.java"));
+        assertFalse(matcher.isIgnored("src/main/generated2/X.java"));
+        assertTrue(matcher.isIgnored("dist"));
+        assertFalse(matcher.isIgnored("src/App.java"));
+        assertTrue(matcher.getRejected().isEmpty());
+    }
+
+    @Test
+    void combinesRegexesAndKeepsUnsupportedOnesAsGlobs() {
+        IgnorePathMatcher matcher = IgnorePathMatcher.compile(List.of("*.md", "(a)\\1", "gen/(?!keep).*",
+                "(?i)legacy/.*", "out/\\d+\\.log"));
+
+        assertEquals(List.of("(a)\\1", "gen/(?!keep).*"), matcher.getRejected());
+        assertTrue(matcher.isIgnored("LEGACY/Old.java"));
+        assertTrue(matcher.isIgnored("out/42.log"));
+        assertFalse(matcher.isIgnored("Out/42.log"));
+        assertTrue(matcher.isIgnored("docs/notes.md"));
+        assertFalse(matcher.isIgnored("gen/drop.java"));
+        assertFalse(matcher.isIgnored("src/App.java"));
+    }
+
+    @Test
+    void boundsMatchingTimeForHostilePatterns() {
+        IgnorePathMatcher matcher = IgnorePathMatcher.compile(List.of("(a|a)*b", "(a+)+$x"));
+        String path = "a".repeat(50_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertFalse(matcher.isIgnored(path)));
+    }
+
+    @Test
+    void compilesOnceWhenConfigIsLoaded() {
+        RepoConfigLoader loader = new RepoConfigLoader(null);
+        ReviewConfig config = loader.parseYaml("ignore_paths:\n  - \"*.md\"\n  - \"vendor/.*\"\n");
+
+        assertTrue(config.getIgnorePathMatcher().isIgnored("vendor/lib/x.go"));
+        assertTrue(config.getIgnorePathMatcher().isIgnored("CHANGELOG.md"));
+        assertTrue(config.getIgnorePathMatcher().getRejected().isEmpty());
+        assertTrue(new ReviewConfig().getIgnorePathMatcher().isEmpty());
+        assertTrue(loader.parseYaml("ignore_paths:\n").getIgnorePathMatcher().isEmpty());
+    }
+}
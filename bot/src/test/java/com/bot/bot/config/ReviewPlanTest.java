@@ -0,0 +1,76 @@
+package com.bot.bot.config;
+
+import com.bot.bot.domain.Finding;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewPlanTest {
+
+    @Test
+    void disablesRulesByNameOrWhenAllTheirCategoriesAreIgnored() {
+        ReviewPlan plan = ReviewPlan.compile(List.of("nullpointerdetectionrule", " Security ", "STYLE"));
+
+        assertTrue(plan.disables("NullPointerDetectionRule", Set.of("POTENTIAL_BUG")));
+        assertTrue(plan.disables("SecretsDetectionRule", Set.of("SECURITY")));
+        assertTrue(plan.disables("mixed", Set.of("SECURITY", "STYLE")));
+        assertFalse(plan.disables("mixed", Set.of("SECURITY", "PERFORMANCE")));
+        assertFalse(plan.disables("undeclared", Set.of()));
+        assertTrue(plan.runsHeuristics());
+        assertTrue(plan.runsLlm());
+        assertEquals(List.of("nullpointerdetectionrule", "Security", "STYLE"), plan.getEntries());
+    }
+
+    @Test
+    void ignoredSourcesSkipTheirLane() {
+        ReviewPlan plan = ReviewPlan.compile(List.of("heuristic", "LLM"));
+
+        assertFalse(plan.runsHeuristics());
+        assertFalse(plan.runsLlm());
+        assertTrue(plan.disables("AnyRule", Set.of()));
+    }
+
+    @Test
+    void retainsFindingsOfNoIgnoredSourceOrCategory() {
+        ReviewPlan plan = ReviewPlan.compile(List.of("style"));
+        Finding style = Finding.builder().source("HEURISTIC").category("STYLE").build();
+        Finding bug = Finding.builder().source("HEURISTIC").category("POTENTIAL_BUG").build();
+        Finding uncategorized = Finding.builder().source("LLM").build();
+
+        assertEquals(List.of(bug, uncategorized), plan.retain(List.of(style, bug, uncategorized)));
+    }
+
+    @Test
+    void restrictedPlanRunsOnlyRulesOfItsCategory() {
+        ReviewPlan plan = ReviewPlan.compile(List.of("EntropySecretRule")).restrictTo("security");
+        Finding secret = Finding.builder().source("HEURISTIC").category("SECURITY").build();
+        Finding bug = Finding.builder().source("HEURISTIC").category("POTENTIAL_BUG").build();
+        Finding uncategorized = Finding.builder().source("HEURISTIC").build();
+
+        assertFalse(plan.disables("SecretsDetectionRule", Set.of("SECURITY")));
+        assertFalse(plan.disables("mixed", Set.of("Security", "STYLE")));
+        assertTrue(plan.disables("EntropySecretRule", Set.of("SECURITY")));
+        assertTrue(plan.disables("NullPointerDetectionRule", Set.of("POTENTIAL_BUG")));
+        assertTrue(plan.disables("undeclared", Set.of()));
+        assertEquals(List.of(secret), plan.retain(List.of(secret, bug, uncategorized)));
+        assertFalse(ReviewPlan.ALL.restrictTo("SECURITY").isEmpty());
+        assertTrue(ReviewPlan.compile(List.of("security")).restrictTo("SECURITY")
+                .disables("SecretsDetectionRule", Set.of("SECURITY")));
+    }
+
+    @Test
+    void emptyPlanIgnoresNothing() {
+        List<Finding> findings = List.of(Finding.builder().category("STYLE").build());
+
+        assertSame(ReviewPlan.ALL, ReviewPlan.compile(Arrays.asList(null, " ")));
+        assertSame(findings, ReviewPlan.compile(List.of()).retain(findings));
+        assertTrue(new ReviewConfig().getReviewPlan().isEmpty());
+    }
+}
@@ -0,0 +1,58 @@
+package com.bot.bot.content;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BlobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mapsStoredTextsInEitherEncoding() {
+        BlobStore store = new BlobStore(dir, 1024 * 1024);
+
+        FileText latin1 = store.put("a", "café\r\nline two\n");
+        FileText utf16 = store.put("b", "λ x\nlast");
+
+        assertEquals("café\r\nline two\n", latin1.toString());
+        assertEquals(2, latin1.lineCount());
+        assertEquals("café", latin1.line(0).toString());
+        assertEquals("line two", latin1.line(1).toString());
+        assertEquals(2, utf16.lineCount());
+        assertEquals("λ x", utf16.line(0).toString());
+        assertEquals("last", utf16.line(1).toString());
+        assertEquals("λ x\nlast", store.get("b").toString());
+        assertNull(store.get("c"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondTheCap() {
+        // Each entry is a small header plus 1000 bytes
+        BlobStore store = new BlobStore(dir, 2_500);
+        store.put("a", "a".repeat(1000));
+        store.put("b", "b".repeat(1000));
+        store.get("a");
+        store.put("c", "c".repeat(1000));
+
+        assertEquals(2, store.size());
+        assertNull(store.get("b"));
+        assertEquals('a', store.get("a").charAt(999));
+        assertEquals('c', store.get("c").charAt(0));
+    }
+
+    @Test
+    void reopensTheTextsOfAnEarlierRun() {
+        new BlobStore(dir, 1024 * 1024).put("owner/repo@abc1234", "kept\n");
+
+        BlobStore reopened = new BlobStore(dir, 1024 * 1024);
+
+        assertEquals(1, reopened.size());
+        assertEquals("kept\n", reopened.get("owner/repo@abc1234").toString());
+    }
+}
@@ -0,0 +1,91 @@
+package com.bot.bot.content;
+
+import com.bot.bot.config.FileContentProperties;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.PullRequestContext;
+import com.bot.bot.github.GitHubApiClient;
+import com.bot.bot.mirror.RepositoryMirror;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileContentServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final RepositoryMirror mirror = mock(RepositoryMirror.class);
+    private final GitHubApiClient gitHubApiClient = mock(GitHubApiClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PullRequestContext prContext = PullRequestContext.builder()
+            .owner("acme").repo("api").commitSha("head").installationId(1).build();
+
+    private FileContentService service() {
+        FileContentProperties properties = new FileContentProperties();
+        properties.setCacheDir(dir.toString());
+        return new FileContentService(properties, mirror, gitHubApiClient, meterRegistry);
+    }
+
+    private static ChangeChunk chunk(String blobSha) {
+        return ChangeChunk.builder().filePath("src/App.java").fileType("java").blobSha(blobSha).changeType("MODIFIED").build();
+    }
+
+    @Test
+    void computesGitBlobIds() {
+        // git hash-object of a file holding "hello\n"
+        assertEquals("ce013625030ba8dba906f756967f9e9ca394464a",
+                FileContentService.blobId("hello\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void fetchesByPathOnceAndServesLaterReviewsFromTheCache() {
+        byte[] content = "class App {}\n".getBytes(StandardCharsets.UTF_8);
+        String abbreviated = FileContentService.blobId(content).substring(0, 7);
+        when(gitHubApiClient.fetchFileContent("acme", "api", "src/App.java", "head", 1)).thenReturn(Mono.just(content));
+
+        FileContentService service = service();
+        FileContents review = service.forReview(prContext);
+        assertEquals("class App {}\n", review.postImage(chunk(abbreviated)).toString());
+        assertEquals("class App {}\n", review.postImage(chunk(abbreviated)).toString());
+        assertEquals("class App {}\n", service.forReview(prContext).postImage(chunk(abbreviated)).toString());
+
+        verify(gitHubApiClient, times(1)).fetchFileContent(anyString(), anyString(), anyString(), anyString(), anyLong());
+        assertEquals(1, meterRegistry.get("file.content.requests").tag("result", "fetched").counter().count());
+        assertEquals(1, meterRegistry.get("file.content.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void rejectsContentThatIsNotTheNamedBlob() {
+        when(gitHubApiClient.fetchFileContent("acme", "api", "src/App.java", "head", 1))
+                .thenReturn(Mono.just("moved on\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertNull(service().forReview(prContext).postImage(chunk("1234567")));
+        assertNull(service().forReview(prContext).postImage(chunk(null)));
+        assertEquals(1, meterRegistry.get("file.content.requests").tag("result", "unavailable").counter().count());
+    }
+
+    @Test
+    void readsFullBlobIdsFromTheMirror() {
+        byte[] content = "from mirror\n".getBytes(StandardCharsets.UTF_8);
+        String sha = FileContentService.blobId(content);
+        when(mirror.isEnabled()).thenReturn(true);
+        when(mirror.readBlob("acme", "api", sha)).thenReturn(Mono.just(content));
+
+        assertEquals("from mirror\n", service().forReview(prContext).postImage(chunk(sha)).toString());
+        assertEquals(sha, FileContentService.keyOf(prContext, sha));
+        assertEquals("acme/api@1234567", FileContentService.keyOf(prContext, "1234567"));
+    }
+}
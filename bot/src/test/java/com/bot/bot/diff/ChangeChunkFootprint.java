@@ -0,0 +1,93 @@
+package com.bot.bot.diff;
+
+import com.bot.bot.domain.ChangeChunk;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retained heap per reviewed line of the parsed chunk model, measured with JOL.
+ * <p>
+ * Compares the compact model (offsets into the shared diff buffer, lazy context) with the
+ * former model of one {@link String} per line plus an eagerly built context copy. The diff
+ * buffer itself is reported separately since both models keep the downloaded diff alive
+ * for the duration of the review.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.bot.bot.diff.ChangeChunkFootprint -Djmh.args=100000}.
+ */
+public final class ChangeChunkFootprint {
+
+    private ChangeChunkFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        String diff = DiffFixtures.syntheticDiff(lines);
+
+        List<ChangeChunk> compact = new UnifiedDiffParser().parse(diff);
+        List<ChangeChunk> legacy = legacyParse(diff);
+        long reviewedLines = compact.stream()
+                .mapToLong(c -> c.getAddedLines().size() + c.getRemovedLines().size())
+                .sum();
+
+        long buffer = GraphLayout.parseInstance(diff).totalSize();
+        long compactSize = GraphLayout.parseInstance(compact).totalSize() - buffer;
+        long legacySize = GraphLayout.parseInstance(legacy).totalSize();
+        compact.forEach(ChangeChunk::getContext);
+        long compactWithContext = GraphLayout.parseInstance(compact).totalSize() - buffer;
+
+        System.out.printf("diff: %d lines, %d chunks, %d reviewed lines, buffer %d bytes%n",
+                lines, compact.size(), reviewedLines, buffer);
+        System.out.printf("%-28s %12s %14s%n", "model", "bytes", "bytes/line");
+        print("legacy (String per line)", legacySize, reviewedLines);
+        print("compact", compactSize, reviewedLines);
+        print("compact, context built", compactWithContext, reviewedLines);
+    }
+
+    private static void print(String model, long bytes, long lines) {
+        System.out.printf("%-28s %12d %14.1f%n", model, bytes, (double) bytes / lines);
+    }
+
+    /** The former parser's output: split lines, substring copies, eager context and per-file path copies. */
+    static List<ChangeChunk> legacyParse(String diff) {
+        List<ChangeChunk> chunks = new ArrayList<>();
+        String file = null;
+        int startLine = 0;
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        StringBuilder context = new StringBuilder();
+        for (String line : (diff + "diff --git a/x b/x").split("\n")) {
+            if (line.startsWith("diff --git") || line.startsWith("@@")) {
+                if (file != null && (!added.isEmpty() || !removed.isEmpty())) {
+                    chunks.add(ChangeChunk.builder()
+                            .filePath(new String(file))
+                            .fileType(file.substring(file.lastIndexOf('.') + 1))
+                            .startLine(startLine)
+                            .endLine(startLine + added.size())
+                            .addedLines(new ArrayList<>(added))
+                            .removedLines(new ArrayList<>(removed))
+                            .changeType("MODIFIED")
+                            .context(context.toString())
+                            .build());
+                }
+                added.clear();
+                removed.clear();
+                context.setLength(0);
+                if (line.startsWith("diff --git")) {
+                    file = line.substring(line.lastIndexOf(" b/") + 3);
+                } else {
+                    startLine = Integer.parseInt(line.substring(line.indexOf('+') + 1, line.indexOf(',', line.indexOf('+'))));
+                }
+            } else if (line.startsWith("+") && !line.startsWith("+++")) {
+                added.add(line.substring(1));
+                context.append(line).append('\n');
+            } else if (line.startsWith("-") && !line.startsWith("---")) {
+                removed.add(line.substring(1));
+                context.append(line).append('\n');
+            } else if (line.startsWith(" ")) {
+                context.append(line).append('\n');
+            }
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bot.bot.diff;
+
+/**
+ * Synthetic unified diffs for parser tests and benchmarks.
+ */
+public final class DiffFixtures {
+
+    private DiffFixtures() {
+    }
+
+    /**
+     * Build a diff of roughly {@code totalLines} lines spread over files of 20 hunks each,
+     * with hunks mixing context, removed and added lines.
+     */
+    public static String syntheticDiff(int totalLines) {
+        StringBuilder sb = new StringBuilder(totalLines * 48);
+        int written = 0;
+        int file = 0;
+        while (written < totalLines) {
+            String path = "src/main/java/com/example/module" + (file % 50) + "/Service" + file + ".java";
+            sb.append("diff --git a/").append(path).append(" b/").append(path).append('\n')
+                    .append("index 3b18e51..a9c2f4d 100644\n")
+                    .append("--- a/").append(path).append('\n')
+                    .append("+++ b/").append(path).append('\n');
+            written += 4;
+            for (int hunk = 0; hunk < 20 && written < totalLines; hunk++) {
+                int start = hunk * 40 + 1;
+                sb.append("@@ -").append(start).append(",10 +").append(start).append(",12 @@ class Service")
+                        .append(file).append(" {\n");
+                sb.append("     private final Repository repository;\n")
+                        .append("     private final Clock clock;\n")
+                        .append("-    String name = user.getProfile().getName();\n")
+                        .append("-    int count = 0;\n")
+                        .append("+    String name = user.getProfile().getDisplayName();\n")
+                        .append("+    int count = repository.countAll();\n")
+                        .append("+    // refreshed on every request\n")
+                        .append("+    Instant now = clock.instant();\n")
+                        .append("     return name;\n")
+                        .append(" }\n");
+                written += 11;
+            }
+            file++;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.bot.bot.diff;
+
+import com.bot.bot.domain.ChangeChunk;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser throughput and allocation on synthetic diffs of 1k to 500k lines.
+ * <p>
+ * {@code legacySplit} reproduces the former split/substring/StringBuilder approach as a baseline.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="UnifiedDiffParserBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnifiedDiffParserBenchmark {
+
+    @Param({"1000", "10000", "100000", "500000"})
+    public int lines;
+
+    private String diff;
+    private UnifiedDiffParser parser;
+    private UnifiedDiffParser serialParser;
+
+    @Setup
+    public void setUp() {
+        diff = DiffFixtures.syntheticDiff(lines);
+        parser = new UnifiedDiffParser();
+        serialParser = new UnifiedDiffParser(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<ChangeChunk> parseSerial() {
+        return serialParser.parse(diff);
+    }
+
+    @Benchmark
+    public List<ChangeChunk> parse() {
+        return parser.parse(diff);
+    }
+
+    @Benchmark
+    public void parseAndScanViews(Blackhole bh) {
+        for (ChangeChunk chunk : parser.parse(diff)) {
+            for (int i = 0; i < chunk.getAddedLines().size(); i++) {
+                bh.consume(chunk.addedLine(i).length());
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseAndMaterialize(Blackhole bh) {
+        for (ChangeChunk chunk : parser.parse(diff)) {
+            for (String line : chunk.getAddedLines()) {
+                bh.consume(line);
+            }
+        }
+    }
+
+    @Benchmark
+    public int legacySplit() {
+        int chunks = 0;
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        StringBuilder context = new StringBuilder();
+        for (String line : diff.split("\n")) {
+            if (line.startsWith("diff --git") || line.startsWith("@@")) {
+                if (!added.isEmpty() || !removed.isEmpty()) {
+                    List<String> addedCopy = new ArrayList<>(added);
+                    List<String> removedCopy = new ArrayList<>(removed);
+                    String contextCopy = context.toString();
+                    chunks += addedCopy.size() + removedCopy.size() + (contextCopy.isEmpty() ? 0 : 1);
+                }
+                added.clear();
+                removed.clear();
+                context.setLength(0);
+            } else if (line.startsWith("+") && !line.startsWith("+++")) {
+                String content = line.substring(1);
+                added.add(content);
+                context.append("+").append(content).append("\n");
+            } else if (line.startsWith("-") && !line.startsWith("---")) {
+                String content = line.substring(1);
+                removed.add(content);
+                context.append("-").append(content).append("\n");
+            } else if (line.startsWith(" ")) {
+                context.append(" ").append(line.substring(1)).append("\n");
+            }
+        }
+        return chunks;
+    }
+}
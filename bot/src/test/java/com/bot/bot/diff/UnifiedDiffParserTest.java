@@ -4,10 +4,13 @@ import com.bot.bot.domain.ChangeChunk;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class UnifiedDiffParserTest {
 
@@ -36,5 +39,297 @@ class UnifiedDiffParserTest {
         assertFalse(chunk.getRemovedLines().isEmpty());
         assertNotNull(chunk.getContext());
     }
-}
 
+    @Test
+    void keepsContextAndDetectsAddedFiles() {
+        String diff = """
+                diff --git a/docs/new.md b/docs/new.md
+                new file mode 100644
+                --- /dev/null
+                +++ b/docs/new.md
+                @@ -0,0 +1,2 @@
+                +# Title
+                +-- not a header
+                \\ No newline at end of file
+                diff --git a/sql/schema.sql b/sql/schema.sql
+                --- a/sql/schema.sql
+                +++ b/sql/schema.sql
+                @@ -7,3 +7,3 @@ CREATE TABLE users (
+                 id INT,
+                --- legacy comment
+                +-- current comment
+                 name TEXT
+                """;
+
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        assertEquals(2, chunks.size());
+        ChangeChunk added = chunks.get(0);
+        assertEquals("ADDED", added.getChangeType());
+        assertEquals("md", added.getFileType());
+        assertEquals(List.of("# Title", "-- not a header"), added.getAddedLines());
+        assertEquals("+# Title\n+-- not a header\n", added.getContext());
+
+        ChangeChunk modified = chunks.get(1);
+        assertEquals("MODIFIED", modified.getChangeType());
+        assertEquals(7, modified.getStartLine());
+        assertEquals(List.of("-- legacy comment"), modified.getRemovedLines());
+        assertEquals(List.of("-- current comment"), modified.getAddedLines());
+        assertEquals(" id INT,\n--- legacy comment\n+-- current comment\n name TEXT\n", modified.getContext());
+        assertEquals("-- current comment", modified.addedLine(0).toString());
+    }
+
+    @Test
+    void ignoresMalformedHunkHeaders() {
+        String diff = """
+                diff --git a/a.txt b/a.txt
+                --- a/a.txt
+                +++ b/a.txt
+                @@ -1 +5 @@
+                +first
+                @@ -x +9 @@
+                +second
+                """;
+
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        assertEquals(2, chunks.size());
+        assertEquals(5, chunks.get(0).getStartLine());
+        // Malformed header keeps the previous start line, as before
+        assertEquals(5, chunks.get(1).getStartLine());
+    }
+
+    @Test
+    void parallelParsingMatchesSerialParsing() {
+        String diff = DiffFixtures.syntheticDiff(20_000)
+                + "diff --git a/bin/tool b/bin/tool\n--- a/bin/tool\n+++ /dev/null\n@@ -1,2 +0,0 @@\n-#!/bin/sh\n-exit 0\n";
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<ChangeChunk> serial = new UnifiedDiffParser(pool, Integer.MAX_VALUE).parse(diff);
+            List<ChangeChunk> parallel = new UnifiedDiffParser(pool, 4096).parse(diff);
+
+            assertTrue(UnifiedDiffParser.findFileBoundaries(diff).length > 10);
+            assertEquals(serial, parallel);
+            assertEquals("DELETED", parallel.get(parallel.size() - 1).getChangeType());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void indexesExactLineNumbersAndDiffPositions() {
+        String diff = """
+                diff --git a/src/App.java b/src/App.java
+                --- a/src/App.java
+                +++ b/src/App.java
+                @@ -10,5 +10,6 @@
+                 class App {
+                -    int a;
+                +    long a;
+                 
+                +    long b;
+                 }
+                @@ -40,2 +41,3 @@
+                 void run() {
+                +    go();
+                 }
+                """;
+
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        ChangeChunk first = chunks.get(0);
+        assertEquals(11, first.newLineNumber(0));
+        assertEquals(13, first.newLineNumber(1));
+        assertEquals(3, first.diffPosition(0));
+        assertEquals(5, first.diffPosition(1));
+
+        // The second hunk header occupies a position of its own
+        ChangeChunk second = chunks.get(1);
+        assertEquals(42, second.newLineNumber(0));
+        assertEquals(9, second.diffPosition(0));
+    }
+
+    @Test
+    void slicesKeepLineNumbersAndPositions() {
+        String diff = """
+                diff --git a/src/App.java b/src/App.java
+                --- a/src/App.java
+                +++ b/src/App.java
+                @@ -1,1 +1,4 @@
+                 a
+                +b
+                +c
+                +d
+                """;
+
+        ChangeChunk slice = new UnifiedDiffParser().parse(diff).get(0).slice(1, 3);
+
+        assertEquals(List.of("c", "d"), slice.getAddedLines());
+        assertEquals("c", slice.addedLine(0).toString());
+        assertEquals(3, slice.newLineNumber(0));
+        assertEquals(4, slice.diffPosition(1));
+        assertEquals("src/App.java", slice.getFilePath());
+
+        ChangeChunk handBuilt = ChangeChunk.builder().startLine(7).addedLines(List.of("x", "y", "z")).build();
+        assertEquals(9, handBuilt.slice(2, 3).newLineNumber(0));
+    }
+
+    @Test
+    void handBuiltChunksFallBackToStartLine() {
+        ChangeChunk chunk = ChangeChunk.builder()
+                .filePath("a.txt")
+                .startLine(7)
+                .addedLines(List.of("x", "y"))
+                .build();
+
+        assertEquals(8, chunk.newLineNumber(1));
+        assertEquals(0, chunk.diffPosition(1));
+    }
+
+    @Test
+    void detectsPureRenamesAndCopies() {
+        String diff = """
+                diff --git a/old/Util.java b/new/Util.java
+                similarity index 100%
+                rename from old/Util.java
+                rename to new/Util.java
+                diff --git a/a.txt b/b.txt
+                similarity index 100%
+                copy from a.txt
+                copy to b.txt
+                diff --git a/src/Moved.java b/lib/Moved.java
+                similarity index 90%
+                rename from src/Moved.java
+                rename to lib/Moved.java
+                --- a/src/Moved.java
+                +++ b/lib/Moved.java
+                @@ -1,1 +1,1 @@
+                -int a;
+                +long a;
+                """;
+
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        assertEquals(3, chunks.size());
+        assertEquals("RENAMED", chunks.get(0).getChangeType());
+        assertEquals("old/Util.java", chunks.get(0).getPreviousPath());
+        assertTrue(chunks.get(0).isPureMove());
+        assertEquals("COPIED", chunks.get(1).getChangeType());
+        assertTrue(chunks.get(1).isPureMove());
+        assertEquals("RENAMED", chunks.get(2).getChangeType());
+        assertFalse(chunks.get(2).isPureMove());
+        assertFalse(chunks.get(2).isFormattingOnly());
+    }
+
+    @Test
+    void detectsFormattingOnlyHunks() {
+        String diff = """
+                diff --git a/src/A.java b/src/A.java
+                --- a/src/A.java
+                +++ b/src/A.java
+                @@ -1,3 +1,2 @@
+                -    call(a,
+                -         b);
+                +  call(a, b);
+                @@ -10,1 +9,1 @@
+                -int x;
+                +intx;
+                @@ -20,1 +19,2 @@
+                 }
+                +
+                diff --git a/app.py b/app.py
+                --- a/app.py
+                +++ b/app.py
+                @@ -1,1 +1,1 @@
+                -  return x
+                +    return x
+                """;
+
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        assertTrue(chunks.get(0).isFormattingOnly());
+        assertFalse(chunks.get(1).isFormattingOnly());
+        assertTrue(chunks.get(2).isFormattingOnly());
+        // Indentation is significant in Python
+        assertFalse(chunks.get(3).isFormattingOnly());
+    }
+
+    @Test
+    void formattingOnlyKeepsLiteralsAndAdjacentOperators() {
+        String diff = """
+                diff --git a/src/A.java b/src/A.java
+                --- a/src/A.java
+                +++ b/src/A.java
+                @@ -1,1 +1,1 @@
+                -    log("a  b");
+                +    log("a b");
+                @@ -10,1 +10,1 @@
+                -    join(", ");
+                +    join(",");
+                @@ -20,1 +20,1 @@
+                -    char c = ' ';
+                +    char c = '';
+                @@ -30,1 +30,1 @@
+                -    int y = a - -b;
+                +    int y = a--b;
+                @@ -40,1 +40,1 @@
+                -    int z = x + +y;
+                +    int z = x++y;
+                @@ -50,1 +50,1 @@
+                -    int q = p / / r;
+                +    int q = p // r;
+                @@ -60,1 +60,1 @@
+                -    return "x";
+                +    return"x";
+                @@ -70,1 +70,1 @@
+                -    f("a\\\\"  ,"b");
+                +    f("a\\\\", "b");
+                """;
+
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        // Whitespace inside string and char literals is content
+        assertFalse(chunks.get(0).isFormattingOnly());
+        assertFalse(chunks.get(1).isFormattingOnly());
+        assertFalse(chunks.get(2).isFormattingOnly());
+        // Operators never merge into other tokens
+        assertFalse(chunks.get(3).isFormattingOnly());
+        assertFalse(chunks.get(4).isFormattingOnly());
+        assertFalse(chunks.get(5).isFormattingOnly());
+        assertFalse(chunks.get(6).isFormattingOnly());
+        // Whitespace around literals still does not matter, escaped quotes included
+        assertTrue(chunks.get(7).isFormattingOnly());
+    }
+
+    @Test
+    void readsPostImageBlobIdsFromIndexLines() {
+        String diff = """
+                diff --git a/src/App.java b/src/App.java
+                index 3b18e51..a7c2f09 100644
+                --- a/src/App.java
+                +++ b/src/App.java
+                @@ -1 +1 @@
+                -old
+                +new
+                diff --git a/src/Gone.java b/src/Gone.java
+                deleted file mode 100644
+                index e69de29..0000000
+                --- a/src/Gone.java
+                +++ /dev/null
+                @@ -1 +0,0 @@
+                -gone
+                diff --git a/src/Plain.java b/src/Plain.java
+                --- a/src/Plain.java
+                +++ b/src/Plain.java
+                @@ -1 +1 @@
+                -a
+                +b
+                """;
+
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+
+        assertEquals("a7c2f09", chunks.get(0).getBlobSha());
+        assertNull(chunks.get(1).getBlobSha());
+        assertNull(chunks.get(2).getBlobSha());
+    }
+}
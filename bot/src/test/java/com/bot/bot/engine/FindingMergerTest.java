@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class FindingMergerTest {
@@ -80,5 +81,29 @@ class FindingMergerTest {
         assertEquals("2", merged.get(0).getId());
         assertTrue(merged.get(0).getPrecedenceScore() >= merged.get(1).getPrecedenceScore());
     }
-}
 
+    @Test
+    void collapsesFannedOutFindingsIntoOneGroupedFinding() {
+        Finding original = Finding.builder()
+                .id("1").filePath("a/One.java").lineNumber(11).category("LOGGING")
+                .severity("LOW").confidence(0.7).precedenceScore(100).groupId("g1").build();
+        Finding copy = original.toBuilder().id("2").filePath("b/Two.java").lineNumber(41).build();
+        Finding unrelated = Finding.builder()
+                .id("3").filePath("c/Three.java").lineNumber(5).category("NPE")
+                .severity("HIGH").confidence(0.7).precedenceScore(100).build();
+
+        FindingMerger merger = new FindingMerger();
+        List<Finding> merged = merger.mergeAndRank(List.of(original, copy, unrelated));
+
+        assertEquals(2, merged.size());
+        Finding grouped = merged.stream().filter(f -> "g1".equals(f.getGroupId())).findFirst().orElseThrow();
+        assertEquals(List.of("b/Two.java:41"), grouped.getGroupedLocations());
+        // The leader is a copy; the caller's findings are left as they were
+        assertEquals("1", grouped.getId());
+        assertNull(original.getGroupedLocations());
+
+        // Merging again (check run mode merges twice) does not change the group
+        assertEquals(merged, merger.mergeAndRank(List.of(original, copy, unrelated)));
+        assertEquals(List.of("b/Two.java:41"), grouped.getGroupedLocations());
+    }
+}
@@ -0,0 +1,133 @@
+package com.bot.bot.engine;
+
+import com.bot.bot.diff.UnifiedDiffParser;
+import com.bot.bot.domain.ChangeChunk;
+import com.bot.bot.domain.Finding;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HunkDeduplicatorTest {
+
+    private static final String CODEMOD_DIFF = """
+            diff --git a/a/One.java b/a/One.java
+            --- a/a/One.java
+            +++ b/a/One.java
+            @@ -10,2 +10,2 @@
+             class One {
+            -    log.info(msg);
+            +    logger.info(msg);
+            diff --git a/b/Two.java b/b/Two.java
+            --- a/b/Two.java
+            +++ b/b/Two.java
+            @@ -40,2 +40,2 @@
+             class Two {
+            -        log.info(msg);
+            +        logger.info(msg);
+            diff --git a/c/Three.java b/c/Three.java
+            --- a/c/Three.java
+            +++ b/c/Three.java
+            @@ -5,1 +5,1 @@
+            -    log.debug(msg);
+            +    logger.debug(msg);
+            """;
+
+    private final HunkDeduplicator deduplicator = new HunkDeduplicator();
+
+    @Test
+    void groupsHunksWithIdenticalNormalizedContent() {
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(CODEMOD_DIFF);
+
+        DedupedHunks deduped = deduplicator.dedupe(chunks);
+
+        assertEquals(2, deduped.getDistinct().size());
+        assertEquals(1, deduped.getDuplicateCount());
+        assertEquals(1.0 / 3, deduped.getDedupeRatio(), 1e-9);
+        assertEquals(List.of(chunks.get(1)), deduped.getDuplicates().get(chunks.get(0)));
+        assertNotNull(deduped.summaryNote());
+    }
+
+    @Test
+    void fansFindingsOutWithCorrectedLocations() {
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(CODEMOD_DIFF);
+        DedupedHunks deduped = deduplicator.dedupe(chunks);
+        ChangeChunk original = chunks.get(0);
+        Finding finding = Finding.builder()
+                .id("f1")
+                .filePath("a/One.java")
+                .lineNumber(original.newLineNumber(0))
+                .diffPosition(original.diffPosition(0))
+                .category("LOGGING")
+                .build();
+
+        List<Finding> fannedOut = deduped.fanOut(List.of(finding));
+
+        assertEquals(2, fannedOut.size());
+        Finding copy = fannedOut.get(1);
+        assertEquals("b/Two.java", copy.getFilePath());
+        assertEquals(41, copy.getLineNumber());
+        assertEquals(3, copy.getDiffPosition());
+        Finding grouped = fannedOut.get(0);
+        assertEquals("f1", grouped.getId());
+        assertNotNull(grouped.getGroupId());
+        assertEquals(grouped.getGroupId(), copy.getGroupId());
+        // The caller's finding is left as it was
+        assertNull(finding.getGroupId());
+    }
+
+    @Test
+    void keepsIndentationWhereItIsCode() {
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse("""
+                diff --git a/one.py b/one.py
+                --- a/one.py
+                +++ b/one.py
+                @@ -3,1 +3,1 @@
+                -    return x
+                +    return y
+                diff --git a/two.py b/two.py
+                --- a/two.py
+                +++ b/two.py
+                @@ -3,1 +3,1 @@
+                -        return x
+                +        return y
+                diff --git a/three.py b/three.py
+                --- a/three.py
+                +++ b/three.py
+                @@ -8,1 +8,1 @@
+                -    return x \t
+                +    return y
+                """);
+
+        DedupedHunks deduped = deduplicator.dedupe(chunks);
+
+        // Different indentation is different Python; trailing whitespace is not
+        assertEquals(List.of(chunks.get(0), chunks.get(1)), deduped.getDistinct());
+        assertEquals(List.of(chunks.get(2)), deduped.getDuplicates().get(chunks.get(0)));
+    }
+
+    @Test
+    void distinctHunksAreLeftAlone() {
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(CODEMOD_DIFF).subList(1, 3);
+
+        DedupedHunks deduped = deduplicator.dedupe(chunks);
+
+        assertEquals(2, deduped.getDistinct().size());
+        assertNull(deduped.summaryNote());
+        List<Finding> findings = List.of(Finding.builder().filePath("b/Two.java").lineNumber(41).build());
+        assertEquals(findings, deduped.fanOut(findings));
+    }
+
+    @Test
+    void keepsHunksInDifferentBucketsApart() {
+        List<ChangeChunk> chunks = new UnifiedDiffParser().parse(CODEMOD_DIFF);
+
+        DedupedHunks deduped = deduplicator.dedupe(chunks, chunk -> chunk.getFilePath().startsWith("a/") ? 1 : 0);
+
+        assertEquals(3, deduped.getDistinct().size());
+        assertEquals(0, deduped.getDuplicateCount());
+    }
+}
@@ -1,5 +1,6 @@
 package com.bot.bot.engine;
 
+import com.bot.bot.domain.CheckAnnotation;
 import com.bot.bot.domain.Finding;
 import com.bot.bot.domain.ReviewComment;
 import com.bot.bot.github.GitHubApiClient;
@@ -8,11 +9,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -122,4 +126,49 @@ class ReviewPublisherTest {
                 anyString(), eq("COMMENT"), commentsCaptor.capture(), eq(TEST_INSTALLATION_ID));
         assertTrue(commentsCaptor.getValue().isEmpty(), "No inline comments for findings without line numbers");
     }
+
+    @Test
+    void streamsCheckRunAnnotationsInBatchesOfFifty() {
+        GitHubApiClient client = Mockito.mock(GitHubApiClient.class);
+        when(client.updateCheckRun(anyString(), anyString(), anyLong(), anyString(), anyString(), anyList(), anyLong()))
+                .thenReturn(Mono.empty());
+
+        List<Finding> findings = new ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            findings.add(Finding.builder()
+                    .id(String.valueOf(i))
+                    .filePath("file.java")
+                    .lineNumber(i)
+                    .severity("MEDIUM")
+                    .category("TEST")
+                    .message("issue " + i)
+                    .source("HEURISTIC")
+                    .build());
+        }
+
+        ReviewPublisher publisher = new ReviewPublisher(client);
+        publisher.publishAnnotations("owner", "repo", 7L, findings, TEST_INSTALLATION_ID).block();
+
+        ArgumentCaptor<List<CheckAnnotation>> batchCaptor = ArgumentCaptor.forClass(List.class);
+        verify(client, times(3)).updateCheckRun(
+                eq("owner"), eq("repo"), eq(7L), anyString(), anyString(), batchCaptor.capture(), eq(TEST_INSTALLATION_ID));
+        int total = batchCaptor.getAllValues().stream().mapToInt(List::size).sum();
+        assertEquals(120, total);
+        assertTrue(batchCaptor.getAllValues().stream().allMatch(b -> b.size() <= 50));
+    }
+
+    @Test
+    void completesCheckRunWithReviewSummary() {
+        GitHubApiClient client = Mockito.mock(GitHubApiClient.class);
+        when(client.completeCheckRun(anyString(), anyString(), anyLong(), anyString(), anyString(), anyString(), anyLong()))
+                .thenReturn(Mono.empty());
+
+        ReviewPublisher publisher = new ReviewPublisher(client);
+        publisher.completeCheckRun("owner", "repo", 7L, List.of(), TEST_INSTALLATION_ID).block();
+
+        ArgumentCaptor<String> summaryCaptor = ArgumentCaptor.forClass(String.class);
+        verify(client).completeCheckRun(
+                eq("owner"), eq("repo"), eq(7L), eq("success"), anyString(), summaryCaptor.capture(), eq(TEST_INSTALLATION_ID));
+        assertTrue(summaryCaptor.getValue().contains("No issues found"));
+    }
 }
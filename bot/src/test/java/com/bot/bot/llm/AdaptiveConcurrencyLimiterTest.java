@@ -0,0 +1,164 @@
+package com.bot.bot.llm;
+
+import com.bot.bot.config.LLMProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int maxQueue) {
+        LLMProperties properties = new LLMProperties();
+        properties.setConcurrencyInitial(initial);
+        properties.setConcurrencyMaxQueue(maxQueue);
+        return new AdaptiveConcurrencyLimiter(properties, meterRegistry, clock::get);
+    }
+
+    /** A provider call the test completes by hand. */
+    private static Sinks.One<String> call() {
+        return Sinks.one();
+    }
+
+    private static boolean started(Sinks.One<String> call) {
+        return call.currentSubscriberCount() > 0;
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void queuesCallsOverTheLimitAndStartsThemInOrder() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 10);
+        List<Sinks.One<String>> calls = List.of(call(), call(), call(), call());
+        List<String> results = new ArrayList<>();
+        calls.forEach(call -> limiter.limit(call.asMono()).subscribe(results::add));
+
+        assertTrue(started(calls.get(0)) && started(calls.get(1)));
+        assertFalse(started(calls.get(2)) || started(calls.get(3)));
+        assertEquals(2, meterRegistry.get("llm.concurrency.inflight").gauge().value());
+        assertEquals(2, meterRegistry.get("llm.concurrency.queued").gauge().value());
+
+        advance(250);
+        calls.get(1).tryEmitValue("second");
+        assertTrue(started(calls.get(2)));
+        assertFalse(started(calls.get(3)));
+        assertEquals(List.of("second"), results);
+        assertEquals(1, limiter.getQueued());
+
+        calls.get(0).tryEmitValue("first");
+        calls.get(2).tryEmitValue("third");
+        calls.get(3).tryEmitValue("fourth");
+        assertEquals(List.of("second", "first", "third", "fourth"), results);
+        assertEquals(0, limiter.getInflight());
+
+        // Every acquisition is timed; the third call waited 250ms
+        var delay = meterRegistry.get("llm.concurrency.queue.delay").timer();
+        assertEquals(4, delay.count());
+        assertEquals(250, delay.max(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(limiter.getLimit(), meterRegistry.get("llm.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void backsOffOnOverloadButNotOnOtherFailures() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 10);
+
+        limiter.limit(Mono.error(new TimeoutException())).subscribe(v -> { }, e -> { });
+        assertEquals(10 * AdaptiveConcurrencyLimiter.BACKOFF, limiter.getLimit(), 0.001);
+
+        limiter.limit(Mono.error(new IllegalStateException("bad request"))).subscribe(v -> { }, e -> { });
+        assertEquals(10 * AdaptiveConcurrencyLimiter.BACKOFF, limiter.getLimit(), 0.001);
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1000);
+        for (int round = 0; round < 20; round++) {
+            runSaturated(limiter, 100);
+        }
+        double grown = limiter.getLimit();
+        assertTrue(grown > 8, "limit grew to " + grown);
+
+        for (int round = 0; round < 5; round++) {
+            runSaturated(limiter, 500);
+        }
+        assertTrue(limiter.getLimit() < grown * 0.75, "limit shrank to " + limiter.getLimit());
+    }
+
+    /** Run as many calls as the limit allows at once, each taking {@code millis}. */
+    private void runSaturated(AdaptiveConcurrencyLimiter limiter, long millis) {
+        List<Sinks.One<String>> calls = new ArrayList<>();
+        for (int i = 0; i < (int) limiter.getLimit(); i++) {
+            Sinks.One<String> call = call();
+            calls.add(call);
+            limiter.limit(call.asMono()).subscribe();
+        }
+        advance(millis);
+        calls.forEach(call -> call.tryEmitValue("ok"));
+    }
+
+    @Test
+    void rejectsCallsOnceTheQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        limiter.limit(call().asMono()).subscribe();
+        limiter.limit(call().asMono()).subscribe();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        limiter.limit(call().asMono()).subscribe(v -> { }, error::set);
+
+        assertInstanceOf(RejectedExecutionException.class, error.get());
+        assertEquals(1, meterRegistry.get("llm.concurrency.rejected").counter().count());
+        assertEquals(1, limiter.getQueued());
+    }
+
+    @Test
+    void cancelledCallsLeaveTheQueueAndGiveBackTheirPermit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 10);
+        Sinks.One<String> first = call();
+        Sinks.One<String> second = call();
+        Sinks.One<String> third = call();
+        Disposable running = limiter.limit(first.asMono()).subscribe();
+        Disposable queued = limiter.limit(second.asMono()).subscribe();
+        limiter.limit(third.asMono()).subscribe();
+
+        queued.dispose();
+        assertEquals(1, limiter.getQueued());
+
+        running.dispose();
+        assertFalse(started(second));
+        assertTrue(started(third));
+        assertEquals(1, limiter.getInflight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void classifiesOverloadFailures() {
+        assertTrue(AdaptiveConcurrencyLimiter.isOverload(new TimeoutException()));
+        assertTrue(AdaptiveConcurrencyLimiter.isOverload(new IOException("reset")));
+        assertTrue(AdaptiveConcurrencyLimiter.isOverload(
+                WebClientResponseException.create(429, "Too Many Requests", null, null, null)));
+        assertFalse(AdaptiveConcurrencyLimiter.isOverload(
+                WebClientResponseException.create(400, "Bad Request", null, null, null)));
+    }
+}
@@ -0,0 +1,51 @@
+package com.bot.bot.mirror;
+
+import com.bot.bot.diff.UnifiedDiffParser;
+import com.bot.bot.domain.ChangeChunk;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryMirrorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void computesDiffThatFeedsUnifiedDiffParser() throws Exception {
+        try (Git git = Git.init().setDirectory(tempDir.toFile()).setInitialBranch("main").call()) {
+            Path file = tempDir.resolve("Main.java");
+            Files.writeString(file, "class Main {\n    void oldMethod() {}\n}\n");
+            git.add().addFilepattern("Main.java").call();
+            RevCommit base = git.commit().setMessage("base").setSign(false)
+                    .setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").call();
+
+            Files.writeString(file, "class Main {\n    void newMethod() {}\n}\n");
+            git.add().addFilepattern("Main.java").call();
+            RevCommit head = git.commit().setMessage("head").setSign(false)
+                    .setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").call();
+
+            String diff = RepositoryMirror.diff(git.getRepository(), base.getName(), head.getName());
+            assertTrue(diff.startsWith("diff --git a/Main.java b/Main.java"));
+
+            List<ChangeChunk> chunks = new UnifiedDiffParser().parse(diff);
+            assertEquals(1, chunks.size());
+            assertEquals("Main.java", chunks.get(0).getFilePath());
+            assertEquals(List.of("    void newMethod() {}"), chunks.get(0).getAddedLines());
+            assertEquals(List.of("    void oldMethod() {}"), chunks.get(0).getRemovedLines());
+            // Full post-image blob id, as the file content cache is keyed by it
+            try (TreeWalk walk = TreeWalk.forPath(git.getRepository(), "Main.java", head.getTree())) {
+                assertEquals(walk.getObjectId(0).getName(), chunks.get(0).getBlobSha());
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.bot.bot.scan;
+
+import com.bot.bot.diff.LineView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AhoCorasickTest {
+
+    private static long scan(AhoCorasick automaton, CharSequence text) {
+        long[] bits = new long[1];
+        automaton.scan(text, bits, 0);
+        return bits[0];
+    }
+
+    @Test
+    void reportsIdsOfAllOverlappingLiterals() {
+        AhoCorasick automaton = AhoCorasick.compile(List.of("he", "she", "hers", "his"), new int[]{0, 1, 2, 3});
+
+        assertEquals(0b0111, scan(automaton, "ushers"));
+        assertEquals(0b1000, scan(automaton, "this"));
+        assertEquals(0, scan(automaton, "hx sx"));
+    }
+
+    @Test
+    void matchesCaseInsensitivelyAndResetsOnNonAscii() {
+        AhoCorasick automaton = AhoCorasick.compile(List.of("ghp_", "AKIA"), new int[]{1, 1});
+
+        assertEquals(0b10, scan(automaton, "token = GHP_abc"));
+        assertEquals(0b10, scan(automaton, "akiaXYZ"));
+        assertEquals(0, scan(automaton, "ghép_ akïa"));
+    }
+
+    @Test
+    void scansLineViewsAndIdsBeyondFirstWord() {
+        AhoCorasick automaton = AhoCorasick.compile(List.of("xox", "eval("), new int[]{70, 3});
+        String source = "first line\nresult = eval(input) + xoxb\n";
+        long[] bits = new long[4];
+
+        automaton.scan(new LineView(source, 11, source.length() - 1), bits, 2);
+
+        assertEquals(1L << 3, bits[2]);
+        assertEquals(1L << (70 - 64), bits[3]);
+        assertEquals(0, bits[0] | bits[1]);
+        assertEquals(70, automaton.maxId());
+    }
+
+    @Test
+    void rejectsNonAsciiAndEmptyLiterals() {
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasick.compile(List.of("café"), new int[]{0}));
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasick.compile(List.of(""), new int[]{0}));
+    }
+}
@@ -0,0 +1,120 @@
+package com.bot.bot.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LexerTest {
+
+    private static TokenStream lex(String fileType, String... lines) {
+        return Lexer.forFileType(fileType).lex(lines.length, i -> lines[i]);
+    }
+
+    /** Tokens of {@code line} as {@code kind:text}, kinds abbreviated to their first letter. */
+    private static List<String> tokens(TokenStream tokens, int line) {
+        List<String> out = new ArrayList<>();
+        for (int t = tokens.firstToken(line); t < tokens.endToken(line); t++) {
+            String kind = switch (tokens.kind(t)) {
+                case TokenStream.IDENTIFIER -> "I";
+                case TokenStream.NUMBER -> "N";
+                case TokenStream.STRING -> "S";
+                case TokenStream.COMMENT -> "C";
+                default -> "O";
+            };
+            out.add(kind + ":" + tokens.text(t));
+        }
+        return out;
+    }
+
+    @Test
+    void classifiesJavaTokens() {
+        String line = "String s = user?.name(\"a \\\" b\") + 1.5e3; // done";
+        TokenStream tokens = lex("java", line);
+
+        assertEquals(List.of("I:String", "I:s", "O:=", "I:user", "O:?.", "I:name", "O:(", "S:\"a \\\" b\"", "O:)",
+                "O:+", "N:1.5e3", "O:;", "C:// done"), tokens(tokens, 0));
+        assertTrue(tokens.is(4, "?."));
+        assertTrue(tokens.is(6, '('));
+        assertEquals(0, tokens.line(12));
+        assertEquals(line.indexOf("//"), tokens.start(12));
+    }
+
+    @Test
+    void carriesBlockCommentsAndTextBlocksAcrossLines() {
+        TokenStream tokens = lex("java",
+                "int a; /* start",
+                "still comment",
+                "end */ call();",
+                "String q = \"\"\"",
+                "  select a.b().c",
+                "  \"\"\";");
+
+        assertEquals(List.of("I:int", "I:a", "O:;", "C:/* start"), tokens(tokens, 0));
+        assertEquals(List.of("C:still comment"), tokens(tokens, 1));
+        assertEquals(List.of("C:end */", "I:call", "O:(", "O:)", "O:;"), tokens(tokens, 2));
+        assertEquals(-1, tokens.firstCode(1));
+        assertEquals(List.of("S:  select a.b().c"), tokens(tokens, 4));
+        assertEquals(List.of("S:  \"\"\"", "O:;"), tokens(tokens, 5));
+    }
+
+    @Test
+    void picksCommentSyntaxByFileType() {
+        assertEquals(List.of("I:x", "O:=", "N:1", "C:# note"), tokens(lex("py", "x = 1  # note"), 0));
+        // YAML and shell need whitespace before #
+        assertEquals(List.of("I:echo", "I:$", "O:#", "C:# args"), tokens(lex("sh", "echo $# # args"), 0));
+        assertEquals(List.of("I:select", "I:a", "C:-- why"), tokens(lex("sql", "select a -- why"), 0));
+        assertEquals(List.of("I:It", "O:'", "I:s", "C:<!-- x -->"), tokens(lex("html", "It's <!-- x -->"), 0));
+        assertEquals(List.of("I:a", "O:/", "O:/", "I:b"), tokens(lex("unknown", "a // b"), 0));
+    }
+
+    @Test
+    void unterminatedStringsEndWithTheLine() {
+        TokenStream tokens = lex("js", "let s = 'open", "next();");
+
+        assertEquals(List.of("I:let", "I:s", "O:=", "S:'open"), tokens(tokens, 0));
+        assertEquals(List.of("I:next", "O:(", "O:)", "O:;"), tokens(tokens, 1));
+    }
+
+    @Test
+    void lexesRustLifetimesApartFromCharLiterals() {
+        TokenStream tokens = lex("rs",
+                "fn first<'a>(s: &'a str) -> &'a str { s.get(0).unwrap() }",
+                "let c = 'x'; let q = '\\''; let u = '\\u{1F600}';",
+                "'outer: loop { break 'outer; }");
+
+        assertEquals(List.of("I:fn", "I:first", "O:<", "O:'", "I:a", "O:>", "O:(", "I:s", "O::", "O:&", "O:'", "I:a",
+                "I:str", "O:)", "O:->", "O:&", "O:'", "I:a", "I:str", "O:{", "I:s", "O:.", "I:get", "O:(", "N:0",
+                "O:)", "O:.", "I:unwrap", "O:(", "O:)", "O:}"), tokens(tokens, 0));
+        assertEquals(List.of("I:let", "I:c", "O:=", "S:'x'", "O:;", "I:let", "I:q", "O:=", "S:'\\''", "O:;",
+                "I:let", "I:u", "O:=", "S:'\\u{1F600}'", "O:;"), tokens(tokens, 1));
+        assertEquals(List.of("O:'", "I:outer", "O::", "I:loop", "O:{", "I:break", "O:'", "I:outer", "O:;", "O:}"),
+                tokens(tokens, 2));
+    }
+
+    @Test
+    void lexesBackticksAsStringsOnlyWhereTheLanguageHasThem() {
+        assertEquals(List.of("I:let", "I:s", "O:=", "S:`a ${b}`", "O:;"), tokens(lex("ts", "let s = `a ${b}`;"), 0));
+        assertEquals(List.of("I:re", "O::", "O:=", "S:`\\d+`"), tokens(lex("go", "re := `\\d+`"), 0));
+
+        // A backtick in Java or C does not open a string swallowing the following lines
+        TokenStream tokens = lex("c", "char c = '`'; x = a.b().c;", "y();");
+        assertEquals(List.of("I:char", "I:c", "O:=", "S:'`'", "O:;", "I:x", "O:=", "I:a", "O:.", "I:b", "O:(", "O:)",
+                "O:.", "I:c", "O:;"), tokens(tokens, 0));
+        tokens = lex("java", "x = `a", "y();");
+        assertEquals(List.of("I:y", "O:(", "O:)", "O:;"), tokens(tokens, 1));
+    }
+
+    @Test
+    void blanksCommentsAndStringsInCodeView() {
+        TokenStream tokens = lex("java", "log(\"a.b().c\"); // x.y().z", "plain();");
+
+        assertEquals("log(" + " ".repeat(9) + ");" + " ".repeat(11), tokens.code(0).toString());
+        assertEquals("plain();", tokens.code(1).toString());
+        assertFalse(tokens.isCode(tokens.firstToken(0) + 2));
+    }
+}
@@ -0,0 +1,67 @@
+package com.bot.bot.scan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * {@link Pattern} versus {@link LinearPattern} on the inputs that make backtracking blow up:
+ * the null-pointer rule's chained-call pattern on 100k-character minified lines, and a
+ * nested-repetition pattern of the kind a repo could put in {@code ignore_paths}.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="LinearPatternBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinearPatternBenchmark {
+
+    private static final String CHAINED_CALL = "[\\w)]]\\s*\\.\\s*\\w+\\s*\\(.*\\)\\s*\\.\\s*\\w+";
+    private static final String NESTED = "(.*/){12}generated";
+
+    /**
+     * {@code minified}: a bundle line with calls but no chained index access; {@code unclosed}:
+     * index-then-call fragments never closed, where each start rescans the rest of the line.
+     */
+    @Param({"minified", "unclosed"})
+    public String line;
+
+    private final Pattern javaChained = Pattern.compile(CHAINED_CALL);
+    private final LinearPattern linearChained = LinearPattern.compile(CHAINED_CALL);
+    private final Pattern javaNested = Pattern.compile(NESTED);
+    private final LinearPattern linearNested = LinearPattern.compile(NESTED);
+
+    private String input;
+    private String path;
+
+    @Setup
+    public void setUp() {
+        String fragment = "minified".equals(line) ? "n.push(e(t,r));" : "m[0].f(";
+        input = fragment.repeat(100_000 / fragment.length() + 1).substring(0, 100_000);
+        path = "x/".repeat(26);
+    }
+
+    @Benchmark
+    public boolean javaChainedCall() {
+        return javaChained.matcher(input).find();
+    }
+
+    @Benchmark
+    public boolean linearChainedCall() {
+        return linearChained.find(input);
+    }
+
+    @Benchmark
+    public boolean javaNestedRepetition() {
+        return javaNested.matcher(path).matches();
+    }
+
+    @Benchmark
+    public boolean linearNestedRepetition() {
+        return linearNested.matches(path);
+    }
+}
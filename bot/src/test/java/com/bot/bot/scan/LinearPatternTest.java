@@ -0,0 +1,114 @@
+package com.bot.bot.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinearPatternTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "abc", "a*b", "a+b?c", "(?:ab|cd)+e", "a{2,3}", "a{2,}b", "a{0}b", "x{3}",
+            "^ab", "ab$", "^$", "(?m)^b", "(?m)a$", "\\Aab", "ab\\z", "ab\\Z",
+            "\\bfoo\\b", "\\Bo", "[a-c]+d", "[^a-c]", "[]a]", "[a-]", "[\\d.]+", "\\W+",
+            "(?i)hello", "(?i)[a-f]+", "(?i:x)y", "a(?i)b(?-i)c", "(?s)a.b", "a.b", "\\s*=\\s*",
+            "\\Qa.b\\E", "\\x41\\u0042\\t", "\\p{Upper}\\p{Lower}", "\\P{Alpha}+",
+            "(a|ab)(c|bcd)(d*)", "(?:a|)+b", "(a*)*b", "\\d{3}-\\d{4}",
+            "(?<name>ab)c", "[\\w)]]\\s*\\.\\w+\\([^)]*\\)\\s*\\.\\w+\\(",
+            "(?i)(?:password|passwd)\\s*[=:]\\s*['\\\"][^'\\\"]{4,}['\\\"]",
+            "xox[baprs]-[0-9]{10,13}-[0-9]{10,13}[a-zA-Z0-9-]*", "ghp_[A-Za-z0-9_]{36}");
+
+    private static final String ALPHABET = "abcdxAB.-=_ \n\r)(";
+
+    @Test
+    void agreesWithJavaRegexOnFindAndMatches() {
+        Random random = new Random(42);
+        for (String regex : PATTERNS) {
+            Pattern expected = Pattern.compile(regex);
+            LinearPattern actual = LinearPattern.compile(regex);
+            for (int i = 0; i < 400; i++) {
+                String input = randomInput(random);
+                assertEquals(expected.matcher(input).find(), actual.find(input),
+                        () -> "find " + regex + " on " + escape(input));
+                assertEquals(expected.matcher(input).matches(), actual.matches(input),
+                        () -> "matches " + regex + " on " + escape(input));
+            }
+        }
+    }
+
+    @Test
+    void handlesLineTerminatorsLikeJavaRegex() {
+        for (String regex : List.of("a$", "(?m)a$", "(?m)^a", "^a", "a\\Z", "\\r$", "(?m)^$", "$")) {
+            Pattern expected = Pattern.compile(regex);
+            LinearPattern actual = LinearPattern.compile(regex);
+            for (String input : List.of("a", "a\n", "a\r\n", "a\n\n", "\na", "\r\na", "a\r", "\r\n", "a\u2028", "")) {
+                assertEquals(expected.matcher(input).find(), actual.find(input),
+                        () -> "find " + regex + " on " + escape(input));
+            }
+        }
+    }
+
+    @Test
+    void matchesRealRuleInputs() {
+        LinearPattern chained = LinearPattern.compile("[\\w)]]\\s*\\.\\w+\\([^)]*\\)\\s*\\.\\w+\\(");
+        assertTrue(chained.find("String v = map[key].get(0).trim();"));
+        assertFalse(chained.find("String v = map.get(key).trim();"));
+
+        LinearPattern token = LinearPattern.compile("ghp_[A-Za-z0-9_]{36}");
+        assertTrue(token.find("token = \"ghp_" + "a".repeat(36) + "\""));
+        assertFalse(token.find("token = \"ghp_" + "a".repeat(35) + "\""));
+    }
+
+    @Test
+    void rejectsConstructsThatNeedBacktracking() {
+        for (String regex : List.of("(a)\\1", "\\k<x>", "a(?=b)", "a(?!b)", "(?<=a)b", "(?<!a)b",
+                "(?>a)", "a*+", "a++b", "a?+", "[a[b]]", "[a&&b]", "\\b{g}", "(?x)a", "(?u)a")) {
+            assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile(regex), regex);
+        }
+        assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile("(ab"));
+        assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile("*a"));
+        assertThrows(IllegalArgumentException.class, () -> LinearPattern.compile("a", Pattern.COMMENTS));
+    }
+
+    @Test
+    void boundsProgramSize() {
+        assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile("a{1001}"));
+        assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile("((a{1000}){1000}){1000}"));
+        assertTrue(LinearPattern.compile("(?:ab){500}").programSize() <= LinearRegexCompiler.MAX_PROGRAM);
+    }
+
+    @Test
+    void runsPathologicalPatternsInLinearTime() {
+        String input = "a".repeat(100_000);
+        assertTimeoutPreemptively(java.time.Duration.ofSeconds(10), () -> {
+            assertFalse(LinearPattern.compile("(a|a)*b").find(input));
+            assertFalse(LinearPattern.compile("(a*)*b").find(input));
+            assertFalse(LinearPattern.compile("(a|aa)+$b").matches(input));
+            assertTrue(LinearPattern.compile("(a+)+").matches(input));
+        });
+        String minified = "x.y(z)".repeat(20_000);
+        assertTimeoutPreemptively(java.time.Duration.ofSeconds(10), () ->
+                assertFalse(LinearPattern.compile("[\\w)]]\\s*\\.\\w+\\([^)]*\\)\\s*\\.\\w+\\(").find(minified)));
+    }
+
+    private static String randomInput(Random random) {
+        int length = random.nextInt(12);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\n", "\\n").replace("\r", "\\r");
+    }
+}
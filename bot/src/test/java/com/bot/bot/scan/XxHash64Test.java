@@ -0,0 +1,116 @@
+package com.bot.bot.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class XxHash64Test {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    /** Byte-at-a-time XXH64 written straight from the specification. */
+    private static long reference(byte[] in, long seed) {
+        int p = 0;
+        int len = in.length;
+        long h;
+        if (len >= 32) {
+            long v1 = seed + P1 + P2;
+            long v2 = seed + P2;
+            long v3 = seed;
+            long v4 = seed - P1;
+            for (; p + 32 <= len; p += 32) {
+                v1 = round(v1, le64(in, p));
+                v2 = round(v2, le64(in, p + 8));
+                v3 = round(v3, le64(in, p + 16));
+                v4 = round(v4, le64(in, p + 24));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            for (long v : new long[]{v1, v2, v3, v4}) {
+                h = (h ^ round(0, v)) * P1 + P4;
+            }
+        } else {
+            h = seed + P5;
+        }
+        h += len;
+        for (; p + 8 <= len; p += 8) {
+            h ^= round(0, le64(in, p));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (p + 4 <= len) {
+            h ^= (le64(in, p) & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            p += 4;
+        }
+        for (; p < len; p++) {
+            h ^= (in[p] & 0xFFL) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        return h ^ (h >>> 32);
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * P2, 31) * P1;
+    }
+
+    private static long le64(byte[] in, int p) {
+        long v = 0;
+        for (int i = 7; i >= 0; i--) {
+            v = (v << 8) | (p + i < in.length ? in[p + i] & 0xFF : 0);
+        }
+        return v;
+    }
+
+    @Test
+    void referenceMatchesPublishedVectors() {
+        assertEquals(0xEF46DB3751D8E999L, reference(new byte[0], 0));
+        assertEquals(0xD24EC4F1A98C6E5BL, reference("a".getBytes(StandardCharsets.US_ASCII), 0));
+        assertEquals(0x44BC2CF5AD770999L, reference("abc".getBytes(StandardCharsets.US_ASCII), 0));
+    }
+
+    @Test
+    void streamingCharsEqualsXxh64OfUtf16le() {
+        Random random = new Random(7);
+        for (int length = 0; length < 140; length++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                text.append((char) (random.nextBoolean() ? 32 + random.nextInt(95) : random.nextInt(0x10000)));
+            }
+            long seed = random.nextLong();
+            // Raw code units: an encoder would replace unpaired surrogates
+            byte[] bytes = new byte[length * 2];
+            for (int i = 0; i < length; i++) {
+                bytes[2 * i] = (byte) text.charAt(i);
+                bytes[2 * i + 1] = (byte) (text.charAt(i) >>> 8);
+            }
+            assertEquals(reference(bytes, seed), XxHash64.hash(text, seed), "length " + length);
+            char[] chars = text.toString().toCharArray();
+            int split = length / 3;
+            assertEquals(reference(bytes, seed), new XxHash64(seed)
+                    .putChars(chars, 0, split).putChars(text.subSequence(split, 2 * split))
+                    .putChars(chars, 2 * split, length).digest(), "length " + length);
+        }
+    }
+
+    @Test
+    void digestDoesNotEndTheStream() {
+        XxHash64 hash = new XxHash64(0).putChars("rule-set:");
+        long prefix = hash.digest();
+        hash.putLong(42L);
+
+        assertEquals(prefix, XxHash64.hash("rule-set:", 0));
+        assertEquals(hash.digest(), new XxHash64(0).putChars("rule-set:").putLong(42L).digest());
+        assertNotEquals(prefix, hash.digest());
+    }
+}
@@ -2,27 +2,41 @@ package com.bot.bot.service;
 
 import com.bot.bot.analysis.HeuristicsAnalysisEngine;
 import com.bot.bot.analysis.LLMReviewEngine;
+import com.bot.bot.classify.FileClassifier;
 import com.bot.bot.config.AppProperties;
 import com.bot.bot.config.RepoConfigLoader;
 import com.bot.bot.config.ReviewConfig;
+import com.bot.bot.config.ReviewPlan;
+import com.bot.bot.content.FileContentService;
 import com.bot.bot.diff.UnifiedDiffParser;
 import com.bot.bot.domain.ChangeChunk;
 import com.bot.bot.domain.Finding;
 import com.bot.bot.domain.PullRequestContext;
 import com.bot.bot.engine.FindingMerger;
+import com.bot.bot.engine.HunkDeduplicator;
 import com.bot.bot.engine.ReviewPublisher;
 import com.bot.bot.github.GitHubApiClient;
+import com.bot.bot.mirror.RepositoryMirror;
 import com.google.gson.JsonObject;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,6 +51,7 @@ class ReviewOrchestratorTest {
         FindingMerger findingMerger = Mockito.mock(FindingMerger.class);
         ReviewPublisher reviewPublisher = Mockito.mock(ReviewPublisher.class);
         RepoConfigLoader repoConfigLoader = Mockito.mock(RepoConfigLoader.class);
+        RepositoryMirror repositoryMirror = Mockito.mock(RepositoryMirror.class);
         AppProperties appProperties = new AppProperties();
         appProperties.setHeuristicsEnabled(true);
         appProperties.setLlmEnabled(true);
@@ -44,7 +59,8 @@ class ReviewOrchestratorTest {
         ReviewOrchestrator orchestrator = new ReviewOrchestrator(
                 gitHubApiClient, diffParser, heuristicsAnalysisEngine,
                 llmReviewEngine, findingMerger, reviewPublisher,
-                appProperties, repoConfigLoader
+                appProperties, repoConfigLoader, repositoryMirror, new FileClassifier(),
+                new HunkDeduplicator(), Mockito.mock(FileContentService.class)
         );
 
         PullRequestContext prContext = PullRequestContext.builder()
@@ -83,7 +99,7 @@ class ReviewOrchestratorTest {
                 .confidence(0.7)
                 .precedenceScore(100)
                 .build();
-        when(heuristicsAnalysisEngine.analyze(List.of(chunk))).thenReturn(List.of(heuristicFinding));
+        when(heuristicsAnalysisEngine.analyze(eq(List.of(chunk)), eq("owner/repo"), any(), any())).thenReturn(List.of(heuristicFinding));
 
         Finding llmFinding = Finding.builder()
                 .id("l1")
@@ -97,12 +113,12 @@ class ReviewOrchestratorTest {
                 .confidence(0.8)
                 .precedenceScore(90)
                 .build();
-        when(llmReviewEngine.analyzeWithLLM(prContext, List.of(chunk))).thenReturn(Mono.just(List.of(llmFinding)));
+        when(llmReviewEngine.analyzeWithLLM(eq(prContext), eq(List.of(chunk)), any())).thenReturn(Mono.just(List.of(llmFinding)));
 
         List<Finding> merged = List.of(heuristicFinding, llmFinding);
         when(findingMerger.mergeAndRank(any())).thenReturn(merged);
-        // Match the 8-arg publishReview call (with installationId)
-        when(reviewPublisher.publishReview(anyString(), anyString(), anyInt(), anyList(), anyBoolean(), anyBoolean(), anyLong()))
+        // Match the publishReview call with summary notes and installationId
+        when(reviewPublisher.publishReview(anyString(), anyString(), anyInt(), anyList(), anyBoolean(), anyBoolean(), anyList(), anyLong()))
                 .thenReturn(Mono.empty());
 
         JsonObject webhookData = new JsonObject();
@@ -113,4 +129,237 @@ class ReviewOrchestratorTest {
         List<Finding> allFindings = captor.getValue();
         assertEquals(2, allFindings.size());
     }
+
+    @Test
+    void skipsIgnoredLanesAndDropsIgnoredCategories() {
+        GitHubApiClient gitHubApiClient = Mockito.mock(GitHubApiClient.class);
+        UnifiedDiffParser diffParser = Mockito.mock(UnifiedDiffParser.class);
+        HeuristicsAnalysisEngine heuristicsAnalysisEngine = Mockito.mock(HeuristicsAnalysisEngine.class);
+        LLMReviewEngine llmReviewEngine = Mockito.mock(LLMReviewEngine.class);
+        FindingMerger findingMerger = Mockito.mock(FindingMerger.class);
+        ReviewPublisher reviewPublisher = Mockito.mock(ReviewPublisher.class);
+        RepoConfigLoader repoConfigLoader = Mockito.mock(RepoConfigLoader.class);
+        AppProperties appProperties = new AppProperties();
+        appProperties.setHeuristicsEnabled(true);
+        appProperties.setLlmEnabled(true);
+        ReviewOrchestrator orchestrator = new ReviewOrchestrator(
+                gitHubApiClient, diffParser, heuristicsAnalysisEngine,
+                llmReviewEngine, findingMerger, reviewPublisher,
+                appProperties, repoConfigLoader, Mockito.mock(RepositoryMirror.class), new FileClassifier(),
+                new HunkDeduplicator(), Mockito.mock(FileContentService.class)
+        );
+
+        PullRequestContext prContext = PullRequestContext.builder()
+                .owner("owner").repo("repo").prNumber(1).title("title").installationId(12345L).build();
+        ReviewConfig config = new ReviewConfig();
+        config.setIgnoreRules(List.of("llm", "style"));
+        when(gitHubApiClient.fetchPullRequestContext(any())).thenReturn(prContext);
+        when(gitHubApiClient.fetchDiff("owner", "repo", 1, 12345L)).thenReturn(Mono.just("diff"));
+        when(repoConfigLoader.loadConfig("owner", "repo")).thenReturn(Mono.just(config));
+        ChangeChunk chunk = ChangeChunk.builder().filePath("file.java").startLine(1).addedLines(List.of("line"))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+        when(diffParser.parse("diff")).thenReturn(List.of(chunk));
+        Finding kept = Finding.builder().id("h1").filePath("file.java").lineNumber(1).severity("HIGH")
+                .category("SECURITY").message("kept").source("HEURISTIC").build();
+        Finding ignored = kept.toBuilder().id("h2").category("STYLE").message("ignored").build();
+        when(heuristicsAnalysisEngine.analyze(eq(List.of(chunk)), eq("owner/repo"), same(config.getReviewPlan()), any()))
+                .thenReturn(List.of(kept, ignored));
+        when(findingMerger.mergeAndRank(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reviewPublisher.publishReview(anyString(), anyString(), anyInt(), anyList(), anyBoolean(), anyBoolean(), anyList(), anyLong()))
+                .thenReturn(Mono.empty());
+
+        orchestrator.processPullRequest(new JsonObject());
+
+        verify(llmReviewEngine, never()).analyzeWithLLM(any(), any(), any());
+        ArgumentCaptor<List<Finding>> captor = ArgumentCaptor.forClass(List.class);
+        verify(findingMerger).mergeAndRank(captor.capture());
+        assertEquals(List.of(kept), captor.getValue());
+    }
+
+    @Test
+    void analyzesIdenticalHunksInDifferentFilesOnce() {
+        GitHubApiClient gitHubApiClient = Mockito.mock(GitHubApiClient.class);
+        HeuristicsAnalysisEngine heuristicsAnalysisEngine = Mockito.mock(HeuristicsAnalysisEngine.class);
+        LLMReviewEngine llmReviewEngine = Mockito.mock(LLMReviewEngine.class);
+        FindingMerger findingMerger = Mockito.mock(FindingMerger.class);
+        ReviewPublisher reviewPublisher = Mockito.mock(ReviewPublisher.class);
+        RepoConfigLoader repoConfigLoader = Mockito.mock(RepoConfigLoader.class);
+        AppProperties appProperties = new AppProperties();
+        appProperties.setHeuristicsEnabled(true);
+        appProperties.setLlmEnabled(true);
+        ReviewOrchestrator orchestrator = new ReviewOrchestrator(
+                gitHubApiClient, new UnifiedDiffParser(), heuristicsAnalysisEngine,
+                llmReviewEngine, findingMerger, reviewPublisher,
+                appProperties, repoConfigLoader, Mockito.mock(RepositoryMirror.class), new FileClassifier(),
+                new HunkDeduplicator(), Mockito.mock(FileContentService.class)
+        );
+        PullRequestContext prContext = PullRequestContext.builder()
+                .owner("owner").repo("repo").prNumber(1).title("title").installationId(12345L).build();
+        when(gitHubApiClient.fetchPullRequestContext(any())).thenReturn(prContext);
+        when(gitHubApiClient.fetchDiff("owner", "repo", 1, 12345L)).thenReturn(Mono.just("""
+                diff --git a/src/A.java b/src/A.java
+                index 1111111..aaaaaaa 100644
+                --- a/src/A.java
+                +++ b/src/A.java
+                @@ -3,1 +3,1 @@
+                -        log.info(msg);
+                +        logger.info(msg);
+                diff --git a/src/B.java b/src/B.java
+                index 2222222..bbbbbbb 100644
+                --- a/src/B.java
+                +++ b/src/B.java
+                @@ -9,1 +9,1 @@
+                -        log.info(msg);
+                +        logger.info(msg);
+                diff --git a/src/C.java b/src/C.java
+                index 3333333..ccccccc 100644
+                --- a/src/C.java
+                +++ b/src/C.java
+                @@ -2,0 +3,1 @@
+                +import java.util.List;
+                diff --git a/src/D.java b/src/D.java
+                index 4444444..ddddddd 100644
+                --- a/src/D.java
+                +++ b/src/D.java
+                @@ -2,0 +3,1 @@
+                +import java.util.List;
+                """));
+        when(repoConfigLoader.loadConfig("owner", "repo")).thenReturn(Mono.just(new ReviewConfig()));
+        when(heuristicsAnalysisEngine.analyze(anyList(), eq("owner/repo"), any(), any())).thenReturn(List.of());
+        when(llmReviewEngine.analyzeWithLLM(eq(prContext), anyList(), any())).thenReturn(Mono.just(List.of()));
+        when(findingMerger.mergeAndRank(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reviewPublisher.publishReview(anyString(), anyString(), anyInt(), anyList(), anyBoolean(), anyBoolean(), anyList(), anyLong()))
+                .thenReturn(Mono.empty());
+
+        orchestrator.processPullRequest(new JsonObject());
+
+        // The LLM reads hunks only: one prompt per distinct change
+        ArgumentCaptor<List<ChangeChunk>> llmChunks = ArgumentCaptor.forClass(List.class);
+        verify(llmReviewEngine).analyzeWithLLM(eq(prContext), llmChunks.capture(), any());
+        assertEquals(List.of("src/A.java", "src/C.java"), paths(llmChunks.getValue()));
+        // The heuristics engine gets every hunk and deduplicates by what its rules would see
+        ArgumentCaptor<List<ChangeChunk>> heuristicChunks = ArgumentCaptor.forClass(List.class);
+        verify(heuristicsAnalysisEngine, times(1)).analyze(heuristicChunks.capture(), eq("owner/repo"), any(), any());
+        assertEquals(List.of("src/A.java", "src/B.java", "src/C.java", "src/D.java"), paths(heuristicChunks.getValue()));
+    }
+
+    @Test
+    void streamsLlmFindingsToTheCheckRunChunkByChunk() {
+        GitHubApiClient gitHubApiClient = Mockito.mock(GitHubApiClient.class);
+        UnifiedDiffParser diffParser = Mockito.mock(UnifiedDiffParser.class);
+        HeuristicsAnalysisEngine heuristicsAnalysisEngine = Mockito.mock(HeuristicsAnalysisEngine.class);
+        LLMReviewEngine llmReviewEngine = Mockito.mock(LLMReviewEngine.class);
+        FindingMerger findingMerger = Mockito.mock(FindingMerger.class);
+        ReviewPublisher reviewPublisher = Mockito.mock(ReviewPublisher.class);
+        RepoConfigLoader repoConfigLoader = Mockito.mock(RepoConfigLoader.class);
+        AppProperties appProperties = new AppProperties();
+        appProperties.setHeuristicsEnabled(true);
+        appProperties.setLlmEnabled(true);
+        ReviewOrchestrator orchestrator = new ReviewOrchestrator(
+                gitHubApiClient, diffParser, heuristicsAnalysisEngine,
+                llmReviewEngine, findingMerger, reviewPublisher,
+                appProperties, repoConfigLoader, Mockito.mock(RepositoryMirror.class), new FileClassifier(),
+                new HunkDeduplicator(), Mockito.mock(FileContentService.class)
+        );
+
+        PullRequestContext prContext = PullRequestContext.builder()
+                .owner("owner").repo("repo").prNumber(1).title("title").commitSha("abc").installationId(12345L).build();
+        ReviewConfig config = new ReviewConfig();
+        config.setPublishMode("check_run");
+        when(gitHubApiClient.fetchPullRequestContext(any())).thenReturn(prContext);
+        when(gitHubApiClient.fetchDiff("owner", "repo", 1, 12345L)).thenReturn(Mono.just("diff"));
+        when(repoConfigLoader.loadConfig("owner", "repo")).thenReturn(Mono.just(config));
+        ChangeChunk a = ChangeChunk.builder().filePath("A.java").startLine(1).addedLines(List.of("a"))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+        ChangeChunk b = a.toBuilder().filePath("B.java").addedLines(List.of("b")).build();
+        when(diffParser.parse("diff")).thenReturn(List.of(a, b));
+
+        Finding heuristic = Finding.builder().id("h1").filePath("A.java").lineNumber(1).severity("HIGH")
+                .category("SECURITY").message("heuristic").source("HEURISTIC").build();
+        Finding first = heuristic.toBuilder().id("l1").category("CODE_REVIEW").message("first").source("LLM").build();
+        Finding second = first.toBuilder().id("l2").filePath("B.java").message("second").build();
+        when(heuristicsAnalysisEngine.analyze(anyList(), eq("owner/repo"), any(), any())).thenReturn(List.of(heuristic));
+        List<List<Finding>> annotated = new ArrayList<>();
+        AtomicInteger annotatedBeforeSecondChunk = new AtomicInteger();
+        when(llmReviewEngine.streamWithLLM(eq(prContext), anyList(), any())).thenReturn(Flux.concat(
+                Mono.just(List.of(first)),
+                Mono.fromCallable(() -> {
+                    annotatedBeforeSecondChunk.set(annotated.size());
+                    return List.of(second);
+                })));
+        when(findingMerger.mergeAndRank(any())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<Finding>>getArgument(0)));
+        when(reviewPublisher.startCheckRun("owner", "repo", "abc", 12345L)).thenReturn(Mono.just(7L));
+        when(reviewPublisher.publishAnnotations(eq("owner"), eq("repo"), eq(7L), anyList(), eq(12345L)))
+                .thenAnswer(invocation -> {
+                    annotated.add(invocation.getArgument(3));
+                    return Mono.empty();
+                });
+        when(reviewPublisher.completeCheckRun(eq("owner"), eq("repo"), eq(7L), anyList(), anyList(), eq(12345L)))
+                .thenReturn(Mono.empty());
+
+        orchestrator.processPullRequest(new JsonObject());
+
+        // Both the heuristic and the first LLM findings were out before the second chunk came back
+        assertEquals(2, annotatedBeforeSecondChunk.get());
+        // Nothing is left to annotate when the check run completes
+        assertEquals(List.of(List.of(heuristic), List.of(first), List.of(second), List.of()), annotated);
+        InOrder inOrder = Mockito.inOrder(reviewPublisher);
+        inOrder.verify(reviewPublisher, times(4)).publishAnnotations(eq("owner"), eq("repo"), eq(7L), anyList(), eq(12345L));
+        inOrder.verify(reviewPublisher).completeCheckRun("owner", "repo", 7L, List.of(heuristic, first, second),
+                List.of(), 12345L);
+        verify(llmReviewEngine, never()).analyzeWithLLM(any(), any(), any());
+    }
+
+    @Test
+    void scansSummaryLaneFilesWithSecurityRulesOnly() {
+        GitHubApiClient gitHubApiClient = Mockito.mock(GitHubApiClient.class);
+        UnifiedDiffParser diffParser = Mockito.mock(UnifiedDiffParser.class);
+        HeuristicsAnalysisEngine heuristicsAnalysisEngine = Mockito.mock(HeuristicsAnalysisEngine.class);
+        FindingMerger findingMerger = Mockito.mock(FindingMerger.class);
+        ReviewPublisher reviewPublisher = Mockito.mock(ReviewPublisher.class);
+        RepoConfigLoader repoConfigLoader = Mockito.mock(RepoConfigLoader.class);
+        AppProperties appProperties = new AppProperties();
+        appProperties.setHeuristicsEnabled(true);
+        appProperties.setLlmEnabled(false);
+        ReviewOrchestrator orchestrator = new ReviewOrchestrator(
+                gitHubApiClient, diffParser, heuristicsAnalysisEngine,
+                Mockito.mock(LLMReviewEngine.class), findingMerger, reviewPublisher,
+                appProperties, repoConfigLoader, Mockito.mock(RepositoryMirror.class), new FileClassifier(),
+                new HunkDeduplicator(), Mockito.mock(FileContentService.class)
+        );
+
+        PullRequestContext prContext = PullRequestContext.builder()
+                .owner("owner").repo("repo").prNumber(1).title("title").installationId(12345L).build();
+        when(gitHubApiClient.fetchPullRequestContext(any())).thenReturn(prContext);
+        when(gitHubApiClient.fetchDiff("owner", "repo", 1, 12345L)).thenReturn(Mono.just("diff"));
+        when(repoConfigLoader.loadConfig("owner", "repo")).thenReturn(Mono.just(new ReviewConfig()));
+        ChangeChunk source = ChangeChunk.builder().filePath("src/App.java").startLine(1).addedLines(List.of("int x;"))
+                .removedLines(Collections.emptyList()).changeType("MODIFIED").context("").build();
+        ChangeChunk generated = source.toBuilder().filePath("src/Api.java")
+                .addedLines(List.of("// Code generated by openapi. DO NOT EDIT.", "String key = \"AKIA...\";")).build();
+        when(diffParser.parse("diff")).thenReturn(List.of(source, generated));
+        Finding secret = Finding.builder().id("s1").filePath("src/Api.java").lineNumber(2).severity("HIGH")
+                .category("SECURITY").source("HEURISTIC").build();
+        Finding style = secret.toBuilder().id("s2").category("STYLE").build();
+        when(heuristicsAnalysisEngine.analyze(eq(List.of(source)), eq("owner/repo"), any(), any())).thenReturn(List.of());
+        when(heuristicsAnalysisEngine.analyze(eq(List.of(generated)), eq("owner/repo"), any(), any()))
+                .thenReturn(List.of(secret, style));
+        when(findingMerger.mergeAndRank(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reviewPublisher.publishReview(anyString(), anyString(), anyInt(), anyList(), anyBoolean(), anyBoolean(), anyList(), anyLong()))
+                .thenReturn(Mono.empty());
+
+        orchestrator.processPullRequest(new JsonObject());
+
+        ArgumentCaptor<ReviewPlan> plan = ArgumentCaptor.forClass(ReviewPlan.class);
+        verify(heuristicsAnalysisEngine).analyze(eq(List.of(generated)), eq("owner/repo"), plan.capture(), any());
+        assertTrue(plan.getValue().disables("UnusedImportRule", Set.of("BEST_PRACTICE")));
+        assertFalse(plan.getValue().disables("SecretsDetectionRule", Set.of("SECURITY")));
+        ArgumentCaptor<List<Finding>> merged = ArgumentCaptor.forClass(List.class);
+        verify(findingMerger).mergeAndRank(merged.capture());
+        assertEquals(List.of(secret), merged.getValue());
+    }
+
+    private static List<String> paths(List<ChangeChunk> chunks) {
+        return chunks.stream().map(ChangeChunk::getFilePath).toList();
+    }
 }
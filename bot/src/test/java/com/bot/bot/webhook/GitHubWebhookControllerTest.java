@@ -1,5 +1,6 @@
 package com.bot.bot.webhook;
 
+import com.bot.bot.mirror.RepositoryMirror;
 import com.bot.bot.service.ReviewOrchestrator;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -21,7 +22,7 @@ class GitHubWebhookControllerTest {
         WebhookSignatureVerifier signatureVerifier = Mockito.mock(WebhookSignatureVerifier.class);
         ReviewOrchestrator reviewOrchestrator = Mockito.mock(ReviewOrchestrator.class);
         Gson gson = new Gson();
-        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, gson);
+        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, Mockito.mock(RepositoryMirror.class), gson);
 
         ResponseEntity<String> response = controller.health();
 
@@ -34,7 +35,7 @@ class GitHubWebhookControllerTest {
         WebhookSignatureVerifier signatureVerifier = Mockito.mock(WebhookSignatureVerifier.class);
         ReviewOrchestrator reviewOrchestrator = Mockito.mock(ReviewOrchestrator.class);
         Gson gson = new Gson();
-        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, gson);
+        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, Mockito.mock(RepositoryMirror.class), gson);
 
         when(signatureVerifier.verifySignature(any(), any())).thenReturn(false);
 
@@ -55,7 +56,7 @@ class GitHubWebhookControllerTest {
         WebhookSignatureVerifier signatureVerifier = Mockito.mock(WebhookSignatureVerifier.class);
         ReviewOrchestrator reviewOrchestrator = Mockito.mock(ReviewOrchestrator.class);
         Gson gson = new Gson();
-        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, gson);
+        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, Mockito.mock(RepositoryMirror.class), gson);
 
         when(signatureVerifier.verifySignature(any(), any())).thenReturn(true);
 
@@ -76,7 +77,7 @@ class GitHubWebhookControllerTest {
         WebhookSignatureVerifier signatureVerifier = Mockito.mock(WebhookSignatureVerifier.class);
         ReviewOrchestrator reviewOrchestrator = Mockito.mock(ReviewOrchestrator.class);
         Gson gson = new Gson();
-        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, gson);
+        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, Mockito.mock(RepositoryMirror.class), gson);
 
         when(signatureVerifier.verifySignature(any(), any())).thenReturn(true);
 
@@ -103,7 +104,7 @@ class GitHubWebhookControllerTest {
         WebhookSignatureVerifier signatureVerifier = Mockito.mock(WebhookSignatureVerifier.class);
         ReviewOrchestrator reviewOrchestrator = Mockito.mock(ReviewOrchestrator.class);
         Gson gson = new Gson();
-        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, gson);
+        GitHubWebhookController controller = new GitHubWebhookController(signatureVerifier, reviewOrchestrator, Mockito.mock(RepositoryMirror.class), gson);
 
         when(signatureVerifier.verifySignature(any(), any())).thenReturn(true);
 